@@ -1,20 +1,35 @@
 package com.example.gym.dao;
 
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
 import com.example.gym.dto.TraineeRequestDto;
 import com.example.gym.models.Trainee;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface TraineeDAO {
     Trainee save(TraineeRequestDto traineeRequestDto);
 
+    BatchResult<Trainee> saveAll(List<TraineeRequestDto> traineeRequestDtos);
+
     Optional<Trainee> findById(UUID id);
 
     List<Trainee> findAll();
 
+    Stream<Trainee> stream();
+
     void delete(UUID id);
 
     Trainee update(UUID id, TraineeRequestDto traineeRequestDto);
-}
\ No newline at end of file
+
+    Trainee updateIfVersion(UUID id, long expectedVersion, TraineeRequestDto traineeRequestDto);
+
+    Page<Trainee> findPage(String cursor, int limit);
+
+    Page<Trainee> findPageOrderedByLastName(String cursor, int limit);
+
+    List<Trainee> search(String query, int limit);
+}
@@ -1,20 +1,43 @@
 package com.example.gym.dao;
 
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
 import com.example.gym.dto.TrainerRequestDto;
 import com.example.gym.models.Trainer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.SortedMap;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface TrainerDAO {
     Trainer save(TrainerRequestDto trainerRequestDto);
 
+    BatchResult<Trainer> saveAll(List<TrainerRequestDto> trainerRequestDtos);
+
     Optional<Trainer> findById(UUID id);
 
     List<Trainer> findAll();
 
+    Stream<Trainer> stream();
+
     void delete(UUID id);
 
     Trainer update(UUID id, TrainerRequestDto trainerRequestDto);
-}
\ No newline at end of file
+
+    Trainer updateIfVersion(UUID id, long expectedVersion, TrainerRequestDto trainerRequestDto);
+
+    Page<Trainer> findPage(String cursor, int limit);
+
+    Page<Trainer> findPageOrderedByLastName(String cursor, int limit);
+
+    List<Trainer> search(String query, int limit);
+
+    List<Trainer> findByAnySpecialization(Collection<String> specializations);
+
+    List<Trainer> findByAllSpecializations(Collection<String> specializations);
+
+    SortedMap<String, Integer> countBySpecialization();
+}
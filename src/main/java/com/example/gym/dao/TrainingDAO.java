@@ -1,20 +1,68 @@
 package com.example.gym.dao;
 
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TimeSlot;
 import com.example.gym.dto.TrainingRequestDto;
+import com.example.gym.dto.TrainingVolume;
+import com.example.gym.dto.VolumePeriod;
 import com.example.gym.models.Training;
+import com.example.gym.models.TrainingType;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface TrainingDAO {
     Training save(TrainingRequestDto trainingRequestDto);
 
+    BatchResult<Training> saveAll(List<TrainingRequestDto> trainingRequestDtos);
+
     Optional<Training> findById(UUID id);
 
     List<Training> findAll();
 
+    Stream<Training> stream();
+
     void delete(UUID id);
 
     Training update(UUID id, TrainingRequestDto trainingRequestDto);
+
+    Training updateIfVersion(UUID id, long expectedVersion, TrainingRequestDto trainingRequestDto);
+
+    List<Training> findByTraineeId(UUID traineeId);
+
+    List<Training> findByTrainerId(UUID trainerId);
+
+    List<Training> findByTraineeIdAndDateRange(UUID traineeId, LocalDate from, LocalDate to);
+
+    List<Training> findByTrainerIdAndDateRange(UUID trainerId, LocalDate from, LocalDate to);
+
+    List<Training> findByDateRange(LocalDate from, LocalDate to);
+
+    Page<Training> findPage(String cursor, int limit);
+
+    Page<Training> findPageOrderedByDate(String cursor, int limit);
+
+    Map<TrainingType, List<Training>> groupByTrainingType();
+
+    Optional<TrainingType> findTrainingTypeByName(String typeName);
+
+    Optional<TrainingType> findTrainingTypeById(UUID typeId);
+
+    TrainingVolume findTraineeVolume(UUID traineeId, VolumePeriod period, LocalDate date);
+
+    TrainingVolume findTrainerVolume(UUID trainerId, VolumePeriod period, LocalDate date);
+
+    TrainingVolume findTrainingTypeVolume(String typeName, VolumePeriod period, LocalDate date);
+
+    List<Training> findConflicts(UUID id);
+
+    List<TimeSlot> findTraineeFreeSlots(UUID traineeId, LocalDateTime from, LocalDateTime to, long minMinutes);
+
+    List<TimeSlot> findTrainerFreeSlots(UUID trainerId, LocalDateTime from, LocalDateTime to, long minMinutes);
 }
\ No newline at end of file
@@ -1,19 +1,33 @@
 package com.example.gym.dao.impl;
 
 import com.example.gym.dao.TraineeDAO;
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
 import com.example.gym.dto.TraineeRequestDto;
 import com.example.gym.exception.InvalidInputException;
 import com.example.gym.exception.NotFoundException;
+import com.example.gym.exception.VersionConflictException;
 import com.example.gym.models.Trainee;
 import com.example.gym.models.User;
 import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.EntityKind;
+import com.example.gym.storage.KeysetIndex;
+import com.example.gym.storage.NameSearchIndex;
+import com.example.gym.storage.ReferenceTracker;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.StorageSnapshot;
 import com.example.gym.util.UtilService;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the TraineeDAO interface for managing Trainee entities.
@@ -23,14 +37,27 @@ public class TraineeDAOImpl implements TraineeDAO {
 
     private Map<UUID, Trainee> traineeStorage;
 
+    private InMemoryStorage storage;
+
     private Map<UUID, User> userStorage;
 
     private UtilService utilService;
 
+    private StorageLocks storageLocks;
+
+    private ReferenceTracker referenceTracker;
+
+    private final KeysetIndex<UUID> traineesById = new KeysetIndex<>(UUID::fromString, UUID::toString);
+
+    private final KeysetIndex<String> traineesByLastName = new KeysetIndex<>(Function.identity(), Function.identity());
+
+    private final NameSearchIndex traineesByName = new NameSearchIndex();
+
     private static final Logger logger = LoggerFactory.getLogger(TraineeDAOImpl.class);
 
     @Autowired
     public void setTraineeStorage(InMemoryStorage inMemoryStorage) {
+        this.storage = inMemoryStorage;
         this.traineeStorage = inMemoryStorage.getTraineeStorage();
     }
 
@@ -39,11 +66,29 @@ public class TraineeDAOImpl implements TraineeDAO {
         this.utilService = utilService;
     }
 
+    @Autowired
+    public void setStorageLocks(StorageLocks storageLocks) {
+        this.storageLocks = storageLocks;
+    }
+
+    @Autowired
+    public void setReferenceTracker(ReferenceTracker referenceTracker) {
+        this.referenceTracker = referenceTracker;
+    }
+
     @Autowired
     public void setUserStorage(InMemoryStorage inMemoryStorage) {
         this.userStorage = inMemoryStorage.getUserStorage();
     }
 
+    @PostConstruct
+    public void buildIndexes() {
+        traineesById.clear();
+        traineesByLastName.clear();
+        traineesByName.clear();
+        traineeStorage.values().forEach(this::index);
+    }
+
     @Override
     public Trainee save(TraineeRequestDto traineeRequestDto) {
         Trainee trainee = new Trainee();
@@ -54,10 +99,65 @@ public class TraineeDAOImpl implements TraineeDAO {
         }
         trainee.setId(utilService.generateUniqueKey(traineeStorage));
         trainee.setAddress(traineeRequestDto.getAddress());
-        trainee.setUserId(saveUser(user,traineeRequestDto));
-        traineeStorage.put(trainee.getId(), trainee);
-        logger.info("Trainee successfully created");
-        return trainee;
+        return storageLocks.supplyLocked(() -> {
+            trainee.setUserId(saveUser(user, traineeRequestDto));
+            traineeStorage.put(trainee.getId(), trainee);
+            index(trainee);
+            logger.info("Trainee successfully created");
+            return trainee;
+        }, trainee.getId());
+    }
+
+    /**
+     * Validates and prepares the whole batch in parallel, then reserves usernames in request order
+     * and inserts every valid trainee under one lock acquisition, so the batch is committed once.
+     */
+    @Override
+    public BatchResult<Trainee> saveAll(List<TraineeRequestDto> traineeRequestDtos) {
+        int size = traineeRequestDtos.size();
+        Trainee[] trainees = new Trainee[size];
+        User[] users = new User[size];
+        Map<Integer, String> errors = new ConcurrentHashMap<>();
+        IntStream.range(0, size).parallel().forEach(i -> {
+            TraineeRequestDto traineeRequestDto = traineeRequestDtos.get(i);
+            if (traineeRequestDto == null || !utilService.isValidName(traineeRequestDto.getFirstName())
+                    || !utilService.isValidName(traineeRequestDto.getLastName())) {
+                errors.put(i, "Invalid firstname or lastname");
+                return;
+            }
+            User user = new User();
+            user.setId(utilService.generateUniqueKey(userStorage));
+            user.setFirstName(traineeRequestDto.getFirstName());
+            user.setLastName(traineeRequestDto.getLastName());
+            user.setPassword(utilService.generateRandomPassword(10));
+            user.setActive(true);
+            Trainee trainee = new Trainee();
+            trainee.setId(utilService.generateUniqueKey(traineeStorage));
+            trainee.setAddress(traineeRequestDto.getAddress());
+            trainee.setUserId(user.getId());
+            users[i] = user;
+            trainees[i] = trainee;
+        });
+        List<Trainee> saved = new ArrayList<>(size - errors.size());
+        List<UUID> ids = new ArrayList<>(size - errors.size());
+        for (int i = 0; i < size; i++) {
+            if (trainees[i] != null) {
+                users[i].setUsername(utilService.generateUsername(users[i].getFirstName(), users[i].getLastName(), users[i].getId()));
+                saved.add(trainees[i]);
+                ids.add(trainees[i].getId());
+            }
+        }
+        storageLocks.runLocked(() -> {
+            for (int i = 0; i < size; i++) {
+                if (trainees[i] != null) {
+                    userStorage.put(users[i].getId(), users[i]);
+                    traineeStorage.put(trainees[i].getId(), trainees[i]);
+                    index(trainees[i]);
+                }
+            }
+        }, ids.toArray());
+        logger.info("Trainee batch saved: {} created, {} rejected", saved.size(), errors.size());
+        return new BatchResult<>(saved, new TreeMap<>(errors));
     }
 
     @Override
@@ -70,44 +170,125 @@ public class TraineeDAOImpl implements TraineeDAO {
         return new ArrayList<>(traineeStorage.values());
     }
 
+    /**
+     * Streams the trainees of a snapshot opened by this call. Closing the stream closes the snapshot.
+     */
+    @Override
+    public Stream<Trainee> stream() {
+        StorageSnapshot snapshot = storage.openSnapshot();
+        return snapshot.getTraineeStorage().values().stream().onClose(snapshot::close);
+    }
+
+    /**
+     * Deletes the trainee and its user. What happens to the trainee's trainings is up to the cascade policy
+     * configured in the {@link ReferenceTracker}.
+     */
     @Override
     public void delete(UUID id) {
-        Optional<Trainee> traineeOptional = findById(id);
-        if (traineeOptional.isPresent()) {
-            userStorage.remove(traineeOptional.get().getUserId());
-            traineeStorage.remove(id);
-        } else {
-            logger.error("Trainee not found");
-            throw new NotFoundException("Trainee not found");
-        }
+        referenceTracker.delete(EntityKind.TRAINEE, id, () -> {
+            Optional<Trainee> traineeOptional = findById(id);
+            if (traineeOptional.isPresent()) {
+                traineeStorage.remove(id);
+                traineesById.remove(id);
+                traineesByLastName.remove(id);
+                traineesByName.remove(id);
+                User user = userStorage.remove(traineeOptional.get().getUserId());
+                if (user != null) {
+                    utilService.releaseUsername(user);
+                }
+            } else {
+                logger.error("Trainee not found");
+                throw new NotFoundException("Trainee not found");
+            }
+        });
     }
 
     @Override
     public Trainee update(UUID id, TraineeRequestDto traineeRequestDto) {
-        if (!traineeStorage.containsKey(id)) {
-            throw new NotFoundException("Trainee not found with ID: " + id);
+        return update(id, null, traineeRequestDto);
+    }
+
+    /**
+     * A stale version fails before taking the lock, so it never waits for the writer it lost to.
+     */
+    @Override
+    public Trainee updateIfVersion(UUID id, long expectedVersion, TraineeRequestDto traineeRequestDto) {
+        checkVersion(id, traineeStorage.get(id), expectedVersion);
+        return update(id, expectedVersion, traineeRequestDto);
+    }
+
+    private Trainee update(UUID id, Long expectedVersion, TraineeRequestDto traineeRequestDto) {
+        return storageLocks.supplyLocked(() -> {
+            if (!traineeStorage.containsKey(id)) {
+                throw new NotFoundException("Trainee not found with ID: " + id);
+            }
+            Trainee trainee = Trainee.copyOf(traineeStorage.get(id));
+            if (expectedVersion != null) {
+                checkVersion(id, trainee, expectedVersion);
+            }
+            trainee.setVersion(trainee.getVersion() + 1);
+            UUID userId = trainee.getUserId();
+            User stored = userId == null ? null : userStorage.get(userId);
+            if (stored == null) {
+                logger.error("User of trainee {} not found", id);
+                throw new NotFoundException("User not found for Trainee with ID: " + id);
+            }
+            User user = User.copyOf(stored);
+            user.setVersion(user.getVersion() + 1);
+            utilService.updateFirstName(user, traineeRequestDto.getFirstName());
+            utilService.updateLastName(user, traineeRequestDto.getLastName());
+            utilService.updateUsername(user, traineeRequestDto.getUsername());
+            utilService.updatePassword(user, traineeRequestDto.getPassword());
+            if (utilService.isValid(traineeRequestDto.getAddress())) {
+                trainee.setAddress(traineeRequestDto.getAddress());
+            }
+            userStorage.put(userId, user);
+            traineeStorage.put(id, trainee);
+            index(trainee);
+            logger.info("Trainee successfully updated");
+            return trainee;
+        }, id);
+    }
+
+    @Override
+    public Page<Trainee> findPage(String cursor, int limit) {
+        return traineesById.page(cursor, limit, traineeStorage::get);
+    }
+
+    @Override
+    public Page<Trainee> findPageOrderedByLastName(String cursor, int limit) {
+        return traineesByLastName.page(cursor, limit, traineeStorage::get);
+    }
+
+    @Override
+    public List<Trainee> search(String query, int limit) {
+        return traineesByName.search(query, limit, traineeStorage::get);
+    }
+
+    private static void checkVersion(UUID id, Trainee trainee, long expectedVersion) {
+        if (trainee != null && trainee.getVersion() != expectedVersion) {
+            throw new VersionConflictException("Trainee " + id + " is at version " + trainee.getVersion()
+                    + ", not " + expectedVersion);
         }
-        Trainee trainee = traineeStorage.get(id);
-        UUID userId = trainee.getUserId();
-        User user = userStorage.get(userId);
-        utilService.updateFirstName(user, traineeRequestDto.getFirstName());
-        utilService.updateLastName(user, traineeRequestDto.getLastName());
-        utilService.updateUsername(user, traineeRequestDto.getUsername(), userStorage);
-        utilService.updatePassword(user, traineeRequestDto.getPassword());
-        if (utilService.isValid(traineeRequestDto.getAddress())) {
-            trainee.setAddress(traineeRequestDto.getAddress());
+    }
+
+    private void index(Trainee trainee) {
+        traineesById.put(trainee.getId(), trainee.getId());
+        User user = userStorage.get(trainee.getUserId());
+        String lastName = user == null || user.getLastName() == null ? "" : user.getLastName();
+        traineesByLastName.put(trainee.getId(), lastName.toLowerCase(Locale.ROOT));
+        if (user == null) {
+            traineesByName.remove(trainee.getId());
+        } else {
+            traineesByName.put(trainee.getId(), user.getFirstName(), user.getLastName(), user.getUsername());
         }
-        traineeStorage.put(id, trainee);
-        userStorage.put(userId, user);
-        logger.info("Trainee successfully updated");
-        return trainee;
     }
 
-    private UUID saveUser(User user,TraineeRequestDto traineeRequestDto){
+    private UUID saveUser(User user, TraineeRequestDto traineeRequestDto) {
         user.setId(utilService.generateUniqueKey(userStorage));
         user.setFirstName(traineeRequestDto.getFirstName());
         user.setLastName(traineeRequestDto.getLastName());
-        user.setUsername(utilService.generateUsername(user.getFirstName(), user.getLastName(), userStorage));
+        user.setUsername(utilService.generateUsername(user.getFirstName(), user.getLastName(), user.getId()));
         user.setPassword(utilService.generateRandomPassword(10));
         user.setActive(true);
         userStorage.put(user.getId(), user);
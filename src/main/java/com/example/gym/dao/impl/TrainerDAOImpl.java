@@ -1,19 +1,34 @@
 package com.example.gym.dao.impl;
 
 import com.example.gym.dao.TrainerDAO;
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
 import com.example.gym.dto.TrainerRequestDto;
 import com.example.gym.exception.InvalidInputException;
 import com.example.gym.exception.NotFoundException;
+import com.example.gym.exception.VersionConflictException;
 import com.example.gym.models.Trainer;
 import com.example.gym.models.User;
 import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.EntityKind;
+import com.example.gym.storage.KeysetIndex;
+import com.example.gym.storage.NameSearchIndex;
+import com.example.gym.storage.ReferenceTracker;
+import com.example.gym.storage.SpecializationIndex;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.StorageSnapshot;
 import com.example.gym.util.UtilService;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the TrainerDAO interface for managing Trainer entities.
@@ -22,15 +37,31 @@ import java.util.*;
 public class TrainerDAOImpl implements TrainerDAO {
     private Map<UUID, Trainer> trainerStorage;
 
+    private InMemoryStorage storage;
+
     private Map<UUID, User> userStorage;
 
     private UtilService utilService;
 
+    private StorageLocks storageLocks;
+
+    private ReferenceTracker referenceTracker;
+
+    private SpecializationIndex specializationIndex;
+
+    private final KeysetIndex<UUID> trainersById = new KeysetIndex<>(UUID::fromString, UUID::toString);
+
+    private final KeysetIndex<String> trainersByLastName = new KeysetIndex<>(Function.identity(), Function.identity());
+
+    private final NameSearchIndex trainersByName = new NameSearchIndex();
+
     private static final Logger logger = LoggerFactory.getLogger(TrainerDAOImpl.class);
 
     @Autowired
     public void setTrainerStorage(InMemoryStorage storage) {
+        this.storage = storage;
         this.trainerStorage = storage.getTrainerStorage();
+        this.specializationIndex = storage.getSpecializationIndex();
     }
 
     @Autowired
@@ -38,11 +69,29 @@ public class TrainerDAOImpl implements TrainerDAO {
         this.utilService = utilService;
     }
 
+    @Autowired
+    public void setStorageLocks(StorageLocks storageLocks) {
+        this.storageLocks = storageLocks;
+    }
+
+    @Autowired
+    public void setReferenceTracker(ReferenceTracker referenceTracker) {
+        this.referenceTracker = referenceTracker;
+    }
+
     @Autowired
     public void setUserStorage(InMemoryStorage inMemoryStorage) {
         this.userStorage = inMemoryStorage.getUserStorage();
     }
 
+    @PostConstruct
+    public void buildIndexes() {
+        trainersById.clear();
+        trainersByLastName.clear();
+        trainersByName.clear();
+        trainerStorage.values().forEach(this::index);
+    }
+
     @Override
     public Trainer save(TrainerRequestDto trainerRequestDto) {
         Trainer trainer = new Trainer();
@@ -52,11 +101,66 @@ public class TrainerDAOImpl implements TrainerDAO {
             throw new InvalidInputException("Invalid firstname or lastname");
         }
         trainer.setId(utilService.generateUniqueKey(trainerStorage));
-        trainer.setUserId(saveUser(user, trainerRequestDto));
         trainer.setSpecialization(trainerRequestDto.getSpecialization());
-        trainerStorage.put(trainer.getId(), trainer);
-        logger.info("Trainer successfully created");
-        return trainer;
+        return storageLocks.supplyLocked(() -> {
+            trainer.setUserId(saveUser(user, trainerRequestDto));
+            trainerStorage.put(trainer.getId(), trainer);
+            index(trainer);
+            logger.info("Trainer successfully created");
+            return trainer;
+        }, trainer.getId());
+    }
+
+    /**
+     * Validates and prepares the whole batch in parallel, then reserves usernames in request order
+     * and inserts every valid trainer under one lock acquisition, so the batch is committed once.
+     */
+    @Override
+    public BatchResult<Trainer> saveAll(List<TrainerRequestDto> trainerRequestDtos) {
+        int size = trainerRequestDtos.size();
+        Trainer[] trainers = new Trainer[size];
+        User[] users = new User[size];
+        Map<Integer, String> errors = new ConcurrentHashMap<>();
+        IntStream.range(0, size).parallel().forEach(i -> {
+            TrainerRequestDto trainerRequestDto = trainerRequestDtos.get(i);
+            if (trainerRequestDto == null || !utilService.isValidName(trainerRequestDto.getFirstName())
+                    || !utilService.isValidName(trainerRequestDto.getLastName())) {
+                errors.put(i, "Invalid firstname or lastname");
+                return;
+            }
+            User user = new User();
+            user.setId(utilService.generateUniqueKey(userStorage));
+            user.setFirstName(trainerRequestDto.getFirstName());
+            user.setLastName(trainerRequestDto.getLastName());
+            user.setPassword(utilService.generateRandomPassword(10));
+            user.setActive(true);
+            Trainer trainer = new Trainer();
+            trainer.setId(utilService.generateUniqueKey(trainerStorage));
+            trainer.setSpecialization(trainerRequestDto.getSpecialization());
+            trainer.setUserId(user.getId());
+            users[i] = user;
+            trainers[i] = trainer;
+        });
+        List<Trainer> saved = new ArrayList<>(size - errors.size());
+        List<UUID> ids = new ArrayList<>(size - errors.size());
+        for (int i = 0; i < size; i++) {
+            if (trainers[i] != null) {
+                users[i].setUsername(utilService.generateUsername(users[i].getFirstName(), users[i].getLastName(), users[i].getId()));
+                saved.add(trainers[i]);
+                ids.add(trainers[i].getId());
+            }
+        }
+        storageLocks.runLocked(() -> {
+            for (int i = 0; i < size; i++) {
+                if (trainers[i] != null) {
+                    userStorage.put(users[i].getId(), users[i]);
+                    trainerStorage.put(trainers[i].getId(), trainers[i]);
+                    index(trainers[i]);
+                }
+            }
+        }, ids.toArray());
+        logger.info("Trainer batch saved: {} created, {} rejected", saved.size(), errors.size());
+        return new BatchResult<>(saved, new TreeMap<>(errors));
     }
 
     @Override
@@ -69,44 +173,146 @@ public class TrainerDAOImpl implements TrainerDAO {
         return new ArrayList<>(trainerStorage.values());
     }
 
+    /**
+     * Streams the trainers of a snapshot opened by this call. Closing the stream closes the snapshot.
+     */
+    @Override
+    public Stream<Trainer> stream() {
+        StorageSnapshot snapshot = storage.openSnapshot();
+        return snapshot.getTrainerStorage().values().stream().onClose(snapshot::close);
+    }
+
+    /**
+     * Deletes the trainer and its user. What happens to the trainer's trainings is up to the cascade policy
+     * configured in the {@link ReferenceTracker}.
+     */
     @Override
     public void delete(UUID id) {
-        Optional<Trainer> trainerOptional = findById(id);
-        if (trainerOptional.isPresent()) {
-            userStorage.remove(trainerOptional.get().getUserId());
-            trainerStorage.remove(id);
-        } else {
-            logger.error("Trainer not found");
-            throw new NotFoundException("Trainer not found");
-        }
+        referenceTracker.delete(EntityKind.TRAINER, id, () -> {
+            Optional<Trainer> trainerOptional = findById(id);
+            if (trainerOptional.isPresent()) {
+                trainerStorage.remove(id);
+                trainersById.remove(id);
+                trainersByLastName.remove(id);
+                trainersByName.remove(id);
+                specializationIndex.remove(id);
+                User user = userStorage.remove(trainerOptional.get().getUserId());
+                if (user != null) {
+                    utilService.releaseUsername(user);
+                }
+            } else {
+                logger.error("Trainer not found");
+                throw new NotFoundException("Trainer not found");
+            }
+        });
     }
 
     @Override
     public Trainer update(UUID id, TrainerRequestDto trainerRequestDto) {
-        if (!trainerStorage.containsKey(id)) {
-            throw new NotFoundException("Trainer not found with ID: " + id);
+        return update(id, null, trainerRequestDto);
+    }
+
+    /**
+     * A stale version fails before taking the lock, so it never waits for the writer it lost to.
+     */
+    @Override
+    public Trainer updateIfVersion(UUID id, long expectedVersion, TrainerRequestDto trainerRequestDto) {
+        checkVersion(id, trainerStorage.get(id), expectedVersion);
+        return update(id, expectedVersion, trainerRequestDto);
+    }
+
+    private Trainer update(UUID id, Long expectedVersion, TrainerRequestDto trainerRequestDto) {
+        return storageLocks.supplyLocked(() -> {
+            if (!trainerStorage.containsKey(id)) {
+                throw new NotFoundException("Trainer not found with ID: " + id);
+            }
+            Trainer trainer = Trainer.copyOf(trainerStorage.get(id));
+            if (expectedVersion != null) {
+                checkVersion(id, trainer, expectedVersion);
+            }
+            trainer.setVersion(trainer.getVersion() + 1);
+            UUID userId = trainer.getUserId();
+            User stored = userId == null ? null : userStorage.get(userId);
+            if (stored == null) {
+                logger.error("User of trainer {} not found", id);
+                throw new NotFoundException("User not found for Trainer with ID: " + id);
+            }
+            User user = User.copyOf(stored);
+            user.setVersion(user.getVersion() + 1);
+            utilService.updateFirstName(user, trainerRequestDto.getFirstName());
+            utilService.updateLastName(user, trainerRequestDto.getLastName());
+            utilService.updateUsername(user, trainerRequestDto.getUsername());
+            utilService.updatePassword(user, trainerRequestDto.getPassword());
+            if (utilService.isValid(trainerRequestDto.getSpecialization())) {
+                trainer.setSpecialization(trainerRequestDto.getSpecialization());
+            }
+            userStorage.put(userId, user);
+            trainerStorage.put(id, trainer);
+            index(trainer);
+            logger.info("Trainer successfully updated");
+            return trainer;
+        }, id);
+    }
+
+    @Override
+    public Page<Trainer> findPage(String cursor, int limit) {
+        return trainersById.page(cursor, limit, trainerStorage::get);
+    }
+
+    @Override
+    public Page<Trainer> findPageOrderedByLastName(String cursor, int limit) {
+        return trainersByLastName.page(cursor, limit, trainerStorage::get);
+    }
+
+    @Override
+    public List<Trainer> search(String query, int limit) {
+        return trainersByName.search(query, limit, trainerStorage::get);
+    }
+
+    @Override
+    public List<Trainer> findByAnySpecialization(Collection<String> specializations) {
+        return resolve(specializationIndex.findAny(specializations));
+    }
+
+    @Override
+    public List<Trainer> findByAllSpecializations(Collection<String> specializations) {
+        return resolve(specializationIndex.findAll(specializations));
+    }
+
+    @Override
+    public SortedMap<String, Integer> countBySpecialization() {
+        return specializationIndex.counts();
+    }
+
+    private List<Trainer> resolve(Set<UUID> ids) {
+        return ids.stream().sorted().map(trainerStorage::get).filter(Objects::nonNull).toList();
+    }
+
+    private static void checkVersion(UUID id, Trainer trainer, long expectedVersion) {
+        if (trainer != null && trainer.getVersion() != expectedVersion) {
+            throw new VersionConflictException("Trainer " + id + " is at version " + trainer.getVersion()
+                    + ", not " + expectedVersion);
         }
-        Trainer trainer = trainerStorage.get(id);
-        UUID userId = trainer.getUserId();
-        User user = userStorage.get(userId);
-        utilService.updateFirstName(user, trainerRequestDto.getFirstName());
-        utilService.updateLastName(user, trainerRequestDto.getLastName());
-        utilService.updateUsername(user, trainerRequestDto.getUsername(), userStorage);
-        utilService.updatePassword(user, trainerRequestDto.getPassword());
-        if (utilService.isValid(trainerRequestDto.getSpecialization())) {
-            trainer.setSpecialization(trainerRequestDto.getSpecialization());
+    }
+
+    private void index(Trainer trainer) {
+        trainersById.put(trainer.getId(), trainer.getId());
+        specializationIndex.put(trainer.getId(), trainer.getSpecialization());
+        User user = userStorage.get(trainer.getUserId());
+        String lastName = user == null || user.getLastName() == null ? "" : user.getLastName();
+        trainersByLastName.put(trainer.getId(), lastName.toLowerCase(Locale.ROOT));
+        if (user == null) {
+            trainersByName.remove(trainer.getId());
+        } else {
+            trainersByName.put(trainer.getId(), user.getFirstName(), user.getLastName(), user.getUsername());
         }
-        trainerStorage.put(id, trainer);
-        userStorage.put(userId, user);
-        logger.info("Trainer successfully updated");
-        return trainer;
     }
 
     private UUID saveUser(User user, TrainerRequestDto trainerRequestDto) {
         user.setId(utilService.generateUniqueKey(userStorage));
         user.setFirstName(trainerRequestDto.getFirstName());
         user.setLastName(trainerRequestDto.getLastName());
-        user.setUsername(utilService.generateUsername(user.getFirstName(), user.getLastName(), userStorage));
+        user.setUsername(utilService.generateUsername(user.getFirstName(), user.getLastName(), user.getId()));
         user.setPassword(utilService.generateRandomPassword(10));
         user.setActive(true);
         userStorage.put(user.getId(), user);
@@ -3,21 +3,46 @@ package com.example.gym.dao.impl;
 import com.example.gym.dao.TraineeDAO;
 import com.example.gym.dao.TrainerDAO;
 import com.example.gym.dao.TrainingDAO;
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TimeSlot;
 import com.example.gym.dto.TrainingRequestDto;
+import com.example.gym.dto.TrainingVolume;
+import com.example.gym.dto.VolumePeriod;
 import com.example.gym.exception.InvalidInputException;
 import com.example.gym.exception.NotFoundException;
+import com.example.gym.exception.ScheduleConflictException;
+import com.example.gym.exception.VersionConflictException;
 import com.example.gym.models.Trainee;
 import com.example.gym.models.Trainer;
 import com.example.gym.models.Training;
 import com.example.gym.models.TrainingType;
 import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.EntityKind;
+import com.example.gym.storage.KeysetIndex;
+import com.example.gym.storage.ReferenceTracker;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.StorageSnapshot;
+import com.example.gym.storage.TrainingAggregates;
+import com.example.gym.storage.TrainingIndex;
+import com.example.gym.storage.TrainingSchedule;
+import com.example.gym.storage.TrainingTypeRegistry;
 import com.example.gym.util.UtilService;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the TrainingDAO interface for managing Training entities.
@@ -26,11 +51,9 @@ import java.util.*;
 public class TrainingDAOImpl implements TrainingDAO {
     private Map<UUID, Training> trainingStorage;
 
-    private UtilService utilService;
-
-    private Map<UUID, Trainee> traineeStorage;
+    private InMemoryStorage storage;
 
-    private Map<UUID, Trainer> trainerStorage;
+    private UtilService utilService;
 
     private Map<UUID, TrainingType> trainingTypeStorage;
 
@@ -38,10 +61,25 @@ public class TrainingDAOImpl implements TrainingDAO {
 
     private TrainerDAO trainerDAO;
 
+    private StorageLocks storageLocks;
+
+    private final TrainingIndex trainingIndex = new TrainingIndex();
+
+    private final KeysetIndex<UUID> trainingsById = new KeysetIndex<>(UUID::fromString, UUID::toString);
+
+    private final TrainingTypeRegistry trainingTypeRegistry = new TrainingTypeRegistry();
+
+    private final TrainingAggregates trainingAggregates = new TrainingAggregates();
+
+    private final TrainingSchedule trainingSchedule = new TrainingSchedule();
+
+    private TrainingSchedule.ConflictPolicy conflictPolicy = TrainingSchedule.ConflictPolicy.REJECT;
+
     private static final Logger logger = LoggerFactory.getLogger(TrainingDAOImpl.class);
 
     @Autowired
     public void setTrainingStorage(InMemoryStorage storage) {
+        this.storage = storage;
         this.trainingStorage = storage.getTrainingStorage();
     }
 
@@ -61,18 +99,41 @@ public class TrainingDAOImpl implements TrainingDAO {
     }
 
     @Autowired
-    public void setTrainerStorage(InMemoryStorage storage) {
-        this.trainerStorage = storage.getTrainerStorage();
+    public void setUtilService(UtilService utilService) {
+        this.utilService = utilService;
     }
 
     @Autowired
-    public void setTraineeStorage(InMemoryStorage storage) {
-        this.traineeStorage = storage.getTraineeStorage();
+    public void setStorageLocks(StorageLocks storageLocks) {
+        this.storageLocks = storageLocks;
+    }
+
+    @Value("${storage.schedule.conflicts:REJECT}")
+    public void setConflictPolicy(TrainingSchedule.ConflictPolicy conflictPolicy) {
+        this.conflictPolicy = conflictPolicy;
     }
 
     @Autowired
-    public void setUtilService(UtilService utilService) {
-        this.utilService = utilService;
+    public void setReferenceTracker(ReferenceTracker referenceTracker) {
+        referenceTracker.register(EntityKind.TRAINEE,
+                new TrainingReferrers(trainingIndex::findByTraineeId, Training::getTraineeId, Training::setTraineeId));
+        referenceTracker.register(EntityKind.TRAINER,
+                new TrainingReferrers(trainingIndex::findByTrainerId, Training::getTrainerId, Training::setTrainerId));
+    }
+
+    @PostConstruct
+    public void buildIndexes() {
+        TrainingTypeRegistry.Rebuild rebuild = trainingTypeRegistry.rebuild(trainingTypeStorage, trainingStorage.values());
+        rebuild.remappedTrainings().forEach(training -> trainingStorage.put(training.getId(), training));
+        rebuild.unreferencedTypeIds().forEach(trainingTypeStorage::remove);
+        if (!rebuild.unreferencedTypeIds().isEmpty()) {
+            logger.info("Merged or dropped {} duplicate training types", rebuild.unreferencedTypeIds().size());
+        }
+        trainingIndex.rebuild(trainingStorage.values());
+        trainingAggregates.rebuild(trainingStorage.values());
+        trainingSchedule.rebuild(trainingStorage.values());
+        trainingsById.clear();
+        trainingStorage.keySet().forEach(id -> trainingsById.put(id, id));
     }
 
     @Override
@@ -84,24 +145,101 @@ public class TrainingDAOImpl implements TrainingDAO {
         training.setId(utilService.generateUniqueKey(trainingStorage));
         training.setDate(trainingRequestDto.getDate());
         training.setDuration(trainingRequestDto.getDuration());
+        training.setStartTime(trainingRequestDto.getStartTime());
         training.setName(trainingRequestDto.getName());
-        TrainingType trainingType = new TrainingType();
-        trainingType.setId(utilService.generateUniqueKey(trainingTypeStorage));
-        trainingType.setTypeName(trainingRequestDto.getTrainingTypeName());
-        training.setTrainingTypeId(trainingType.getId());
-        Optional<Trainee> optionalTrainee = traineeDAO.findById(trainingRequestDto.getTraineeId());
-        if (optionalTrainee.isEmpty()) {
-            throw new NotFoundException("Trainee with " + trainingRequestDto.getTraineeId() + " Not found");
-        }
-        Optional<Trainer> optionalTrainer = trainerDAO.findById(trainingRequestDto.getTrainerId());
-        if (optionalTrainer.isEmpty()) {
-            throw new NotFoundException("Trainer with " + trainingRequestDto.getTraineeId() + " Not found");
-        }
         training.setTrainerId(trainingRequestDto.getTrainerId());
         training.setTraineeId(trainingRequestDto.getTraineeId());
-        trainingStorage.put(training.getId(), training);
-        trainingTypeStorage.put(trainingType.getId(), trainingType);
-        return training;
+        return storageLocks.supplyLocked(() -> {
+            Optional<Trainee> optionalTrainee = traineeDAO.findById(trainingRequestDto.getTraineeId());
+            if (optionalTrainee.isEmpty()) {
+                throw new NotFoundException("Trainee with " + trainingRequestDto.getTraineeId() + " Not found");
+            }
+            Optional<Trainer> optionalTrainer = trainerDAO.findById(trainingRequestDto.getTrainerId());
+            if (optionalTrainer.isEmpty()) {
+                throw new NotFoundException("Trainer with " + trainingRequestDto.getTraineeId() + " Not found");
+            }
+            checkSchedule(training);
+            TrainingType trainingType = acquireTrainingType(trainingRequestDto.getTrainingTypeName());
+            training.setTrainingTypeId(trainingType.getId());
+            trainingStorage.put(training.getId(), training);
+            trainingIndex.put(training);
+            trainingAggregates.add(training);
+            trainingSchedule.add(training);
+            trainingsById.put(training.getId(), training.getId());
+            return training;
+        }, training.getId(), training.getTraineeId(), training.getTrainerId());
+    }
+
+    /**
+     * Validates the whole batch in parallel, then inserts every valid training under one lock
+     * acquisition covering the trainings and all the trainees and trainers they reference.
+     * Each distinct trainee and trainer is looked up once, however many trainings reference it.
+     */
+    @Override
+    public BatchResult<Training> saveAll(List<TrainingRequestDto> trainingRequestDtos) {
+        int size = trainingRequestDtos.size();
+        Training[] trainings = new Training[size];
+        Map<Integer, String> errors = new ConcurrentHashMap<>();
+        IntStream.range(0, size).parallel().forEach(i -> {
+            TrainingRequestDto trainingRequestDto = trainingRequestDtos.get(i);
+            if (!areFieldsValid(trainingRequestDto)) {
+                errors.put(i, "Missing required fields for creating a training.");
+                return;
+            }
+            Training training = new Training();
+            training.setId(utilService.generateUniqueKey(trainingStorage));
+            training.setDate(trainingRequestDto.getDate());
+            training.setDuration(trainingRequestDto.getDuration());
+            training.setStartTime(trainingRequestDto.getStartTime());
+            training.setName(trainingRequestDto.getName());
+            training.setTrainerId(trainingRequestDto.getTrainerId());
+            training.setTraineeId(trainingRequestDto.getTraineeId());
+            trainings[i] = training;
+        });
+        Set<UUID> keys = new HashSet<>();
+        for (Training training : trainings) {
+            if (training != null) {
+                keys.add(training.getId());
+                keys.add(training.getTraineeId());
+                keys.add(training.getTrainerId());
+            }
+        }
+        List<Training> saved = storageLocks.supplyLocked(() -> {
+            Map<UUID, Boolean> traineeExists = new HashMap<>();
+            Map<UUID, Boolean> trainerExists = new HashMap<>();
+            List<Training> inserted = new ArrayList<>(size - errors.size());
+            for (int i = 0; i < size; i++) {
+                Training training = trainings[i];
+                if (training == null) {
+                    continue;
+                }
+                if (!traineeExists.computeIfAbsent(training.getTraineeId(), id -> traineeDAO.findById(id).isPresent())) {
+                    errors.put(i, "Trainee with " + training.getTraineeId() + " Not found");
+                    continue;
+                }
+                if (!trainerExists.computeIfAbsent(training.getTrainerId(), id -> trainerDAO.findById(id).isPresent())) {
+                    errors.put(i, "Trainer with " + training.getTrainerId() + " Not found");
+                    continue;
+                }
+                try {
+                    checkSchedule(training);
+                } catch (ScheduleConflictException e) {
+                    errors.put(i, e.getMessage());
+                    continue;
+                }
+                TrainingType trainingType = acquireTrainingType(trainingRequestDtos.get(i).getTrainingTypeName());
+                training.setTrainingTypeId(trainingType.getId());
+                trainingStorage.put(training.getId(), training);
+                trainingIndex.put(training);
+                trainingAggregates.add(training);
+                trainingSchedule.add(training);
+                trainingsById.put(training.getId(), training.getId());
+                inserted.add(training);
+            }
+            return inserted;
+        }, keys.toArray());
+        logger.info("Training batch saved: {} created, {} rejected", saved.size(), errors.size());
+        return new BatchResult<>(saved, new TreeMap<>(errors));
     }
 
     @Override
@@ -114,27 +252,88 @@ public class TrainingDAOImpl implements TrainingDAO {
         return new ArrayList<>(trainingStorage.values());
     }
 
+    /**
+     * Streams the trainings of a snapshot opened by this call. Closing the stream closes the snapshot.
+     */
+    @Override
+    public Stream<Training> stream() {
+        StorageSnapshot snapshot = storage.openSnapshot();
+        return snapshot.getTrainingStorage().values().stream().onClose(snapshot::close);
+    }
+
+    /**
+     * Deletes the training only. Its trainee and trainer stay, even without trainings; they are deleted
+     * through their own DAOs.
+     */
     @Override
     public void delete(UUID id) {
-        Optional<Training> trainingOptional = findById(id);
-        if (trainingOptional.isPresent()) {
-            trainingStorage.remove(id);
-            trainerStorage.remove(trainingOptional.get().getTrainerId());
-            traineeStorage.remove(trainingOptional.get().getTraineeId());
-            trainingTypeStorage.remove(trainingOptional.get().getTrainingTypeId());
-        } else {
-            logger.error("Training not found");
-            throw new NotFoundException("Training not found");
-        }
+        boolean deleted;
+        do {
+            Optional<Training> trainingOptional = findById(id);
+            if (trainingOptional.isEmpty()) {
+                logger.error("Training not found");
+                throw new NotFoundException("Training not found");
+            }
+            Training training = trainingOptional.get();
+            UUID traineeId = training.getTraineeId();
+            UUID trainerId = training.getTrainerId();
+            deleted = storageLocks.supplyLocked(() -> {
+                // the references may have been reassigned before we got the locks
+                if (trainingStorage.get(id) != training
+                        || !Objects.equals(traineeId, training.getTraineeId())
+                        || !Objects.equals(trainerId, training.getTrainerId())) {
+                    return false;
+                }
+                removeLocked(training);
+                return true;
+            }, id, traineeId, trainerId);
+        } while (!deleted);
     }
 
     @Override
     public Training update(UUID id, TrainingRequestDto trainingRequestDto) {
+        return update(id, null, trainingRequestDto);
+    }
+
+    @Override
+    public Training updateIfVersion(UUID id, long expectedVersion, TrainingRequestDto trainingRequestDto) {
+        return update(id, (Long) expectedVersion, trainingRequestDto);
+    }
+
+    private Training update(UUID id, Long expectedVersion, TrainingRequestDto trainingRequestDto) {
+        while (true) {
+            // the current trainee and trainer are locked too: the training stays booked for them if the request keeps them
+            Training current = trainingStorage.get(id);
+            if (expectedVersion != null) {
+                // a stale version fails before taking the locks
+                checkVersion(id, current, expectedVersion);
+            }
+            UUID traineeId = current == null ? null : current.getTraineeId();
+            UUID trainerId = current == null ? null : current.getTrainerId();
+            Optional<Training> updated = storageLocks.supplyLocked(() -> {
+                Training previous = trainingStorage.get(id);
+                if (previous != null && (!Objects.equals(traineeId, previous.getTraineeId())
+                        || !Objects.equals(trainerId, previous.getTrainerId()))) {
+                    return Optional.empty();
+                }
+                return Optional.of(updateLocked(id, expectedVersion, trainingRequestDto));
+            }, id, trainingRequestDto.getTraineeId(), trainingRequestDto.getTrainerId(), traineeId, trainerId);
+            if (updated.isPresent()) {
+                return updated.get();
+            }
+        }
+    }
+
+    private Training updateLocked(UUID id, Long expectedVersion, TrainingRequestDto trainingRequestDto) {
         if (!trainingStorage.containsKey(id)) {
             throw new NotFoundException("Training not found with ID: " + id);
         }
-        Training training = trainingStorage.get(id);
-
+        Training previous = trainingStorage.get(id);
+        if (expectedVersion != null) {
+            checkVersion(id, previous, expectedVersion);
+        }
+        Training training = Training.copyOf(previous);
+        training.setVersion(training.getVersion() + 1);
 
         if (trainingRequestDto.getName() != null && !trainingRequestDto.getName().isEmpty()) {
             training.setName(trainingRequestDto.getName());
@@ -148,10 +347,8 @@ public class TrainingDAOImpl implements TrainingDAO {
             training.setDuration(trainingRequestDto.getDuration());
         }
 
-        if (trainingRequestDto.getTrainingTypeName() != null && !trainingRequestDto.getTrainingTypeName().isEmpty()) {
-            TrainingType trainingType = trainingTypeStorage.get(training.getTrainingTypeId());
-            trainingType.setTypeName(trainingRequestDto.getTrainingTypeName());
-            trainingTypeStorage.put(trainingType.getId(), trainingType);
+        if (trainingRequestDto.getStartTime() != null) {
+            training.setStartTime(trainingRequestDto.getStartTime());
         }
 
         if (trainingRequestDto.getTraineeId() != null) {
@@ -169,10 +366,220 @@ public class TrainingDAOImpl implements TrainingDAO {
             }
             training.setTrainerId(trainingRequestDto.getTrainerId());
         }
-        trainingStorage.put(training.getId(), training);
+
+        checkSchedule(training);
+
+        if (trainingRequestDto.getTrainingTypeName() != null && !trainingRequestDto.getTrainingTypeName().isEmpty()) {
+            UUID previousTypeId = training.getTrainingTypeId();
+            boolean sameType = trainingTypeRegistry.findById(previousTypeId)
+                    .map(type -> type.getTypeName().equals(trainingRequestDto.getTrainingTypeName()))
+                    .orElse(false);
+            if (!sameType) {
+                // types are shared, so the training moves to another type instead of renaming its own
+                training.setTrainingTypeId(acquireTrainingType(trainingRequestDto.getTrainingTypeName()).getId());
+                releaseTrainingType(previousTypeId);
+            }
+        }
+        replaceLocked(previous, training);
         return training;
     }
 
+    private static void checkVersion(UUID id, Training training, long expectedVersion) {
+        if (training != null && training.getVersion() != expectedVersion) {
+            throw new VersionConflictException("Training " + id + " is at version " + training.getVersion()
+                    + ", not " + expectedVersion);
+        }
+    }
+
+    private void replaceLocked(Training previous, Training training) {
+        trainingStorage.put(training.getId(), training);
+        trainingIndex.put(training);
+        trainingAggregates.remove(previous);
+        trainingAggregates.add(training);
+        trainingSchedule.remove(previous);
+        trainingSchedule.add(training);
+    }
+
+    private void removeLocked(Training training) {
+        trainingStorage.remove(training.getId());
+        trainingIndex.remove(training.getId());
+        trainingAggregates.remove(training);
+        trainingSchedule.remove(training);
+        trainingsById.remove(training.getId());
+        releaseTrainingType(training.getTrainingTypeId());
+    }
+
+    @Override
+    public List<Training> findByTraineeId(UUID traineeId) {
+        return resolve(trainingIndex.findByTraineeId(traineeId));
+    }
+
+    @Override
+    public List<Training> findByTrainerId(UUID trainerId) {
+        return resolve(trainingIndex.findByTrainerId(trainerId));
+    }
+
+    @Override
+    public List<Training> findByTraineeIdAndDateRange(UUID traineeId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return resolve(trainingIndex.findByTraineeId(traineeId, from, to));
+    }
+
+    @Override
+    public List<Training> findByTrainerIdAndDateRange(UUID trainerId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return resolve(trainingIndex.findByTrainerId(trainerId, from, to));
+    }
+
+    @Override
+    public List<Training> findByDateRange(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return resolve(trainingIndex.findByDateRange(from, to));
+    }
+
+    @Override
+    public Page<Training> findPage(String cursor, int limit) {
+        return trainingsById.page(cursor, limit, trainingStorage::get);
+    }
+
+    @Override
+    public Page<Training> findPageOrderedByDate(String cursor, int limit) {
+        return trainingIndex.pageByDate(cursor, limit, trainingStorage::get);
+    }
+
+    @Override
+    public Map<TrainingType, List<Training>> groupByTrainingType() {
+        List<List<Training>> buckets = new ArrayList<>(Collections.nCopies(trainingTypeRegistry.ordinalBound(), null));
+        for (Training training : trainingStorage.values()) {
+            int ordinal = trainingTypeRegistry.ordinal(training.getTrainingTypeId());
+            if (ordinal < 0) {
+                continue;
+            }
+            if (ordinal >= buckets.size()) {
+                // a type created while we were iterating
+                buckets.addAll(Collections.nCopies(ordinal + 1 - buckets.size(), null));
+            }
+            List<Training> bucket = buckets.get(ordinal);
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                buckets.set(ordinal, bucket);
+            }
+            bucket.add(training);
+        }
+        Map<TrainingType, List<Training>> trainingsByType = new LinkedHashMap<>();
+        for (List<Training> bucket : buckets) {
+            if (bucket != null) {
+                trainingTypeRegistry.findById(bucket.get(0).getTrainingTypeId())
+                        .ifPresent(type -> trainingsByType.put(type, bucket));
+            }
+        }
+        return trainingsByType;
+    }
+
+    @Override
+    public Optional<TrainingType> findTrainingTypeByName(String typeName) {
+        return trainingTypeRegistry.findByName(typeName);
+    }
+
+    @Override
+    public Optional<TrainingType> findTrainingTypeById(UUID typeId) {
+        return trainingTypeRegistry.findById(typeId);
+    }
+
+    @Override
+    public TrainingVolume findTraineeVolume(UUID traineeId, VolumePeriod period, LocalDate date) {
+        validateBucket(period, date);
+        return trainingAggregates.findByTraineeId(traineeId, period, date);
+    }
+
+    @Override
+    public TrainingVolume findTrainerVolume(UUID trainerId, VolumePeriod period, LocalDate date) {
+        validateBucket(period, date);
+        return trainingAggregates.findByTrainerId(trainerId, period, date);
+    }
+
+    @Override
+    public TrainingVolume findTrainingTypeVolume(String typeName, VolumePeriod period, LocalDate date) {
+        validateBucket(period, date);
+        UUID trainingTypeId = trainingTypeRegistry.findByName(typeName).map(TrainingType::getId).orElse(null);
+        return trainingAggregates.findByTrainingTypeId(trainingTypeId, period, date);
+    }
+
+    @Override
+    public List<Training> findConflicts(UUID id) {
+        Training training = trainingStorage.get(id);
+        if (training == null) {
+            throw new NotFoundException("Training not found with ID: " + id);
+        }
+        return resolve(new ArrayList<>(trainingSchedule.findConflicts(training)));
+    }
+
+    @Override
+    public List<TimeSlot> findTraineeFreeSlots(UUID traineeId, LocalDateTime from, LocalDateTime to, long minMinutes) {
+        validateSlotRange(from, to, minMinutes);
+        return trainingSchedule.findTraineeFreeSlots(traineeId, from, to, minMinutes);
+    }
+
+    @Override
+    public List<TimeSlot> findTrainerFreeSlots(UUID trainerId, LocalDateTime from, LocalDateTime to, long minMinutes) {
+        validateSlotRange(from, to, minMinutes);
+        return trainingSchedule.findTrainerFreeSlots(trainerId, from, to, minMinutes);
+    }
+
+    /**
+     * Refuse or log a training that overlaps another training of its trainee or trainer, as the conflict policy says.
+     * Must be called holding the locks of the training's trainee and trainer.
+     */
+    private void checkSchedule(Training training) {
+        Set<UUID> conflicts = trainingSchedule.findConflicts(training);
+        if (conflicts.isEmpty()) {
+            return;
+        }
+        if (conflictPolicy == TrainingSchedule.ConflictPolicy.REJECT) {
+            throw new ScheduleConflictException("Training on " + TrainingSchedule.startOf(training)
+                    + " overlaps trainings " + conflicts + " of its trainee or trainer");
+        }
+        logger.warn("Training {} on {} overlaps trainings {} of its trainee or trainer",
+                training.getId(), TrainingSchedule.startOf(training), conflicts);
+    }
+
+    private TrainingType acquireTrainingType(String typeName) {
+        return trainingTypeRegistry.acquire(typeName, () -> utilService.generateUniqueKey(trainingTypeStorage),
+                trainingType -> trainingTypeStorage.put(trainingType.getId(), trainingType));
+    }
+
+    private void releaseTrainingType(UUID trainingTypeId) {
+        trainingTypeRegistry.release(trainingTypeId, trainingType -> trainingTypeStorage.remove(trainingType.getId()));
+    }
+
+    private List<Training> resolve(List<UUID> ids) {
+        List<Training> trainings = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            Training training = trainingStorage.get(id);
+            if (training != null) {
+                trainings.add(training);
+            }
+        }
+        return trainings;
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new InvalidInputException("Invalid date range: " + from + " - " + to);
+        }
+    }
+
+    private void validateSlotRange(LocalDateTime from, LocalDateTime to, long minMinutes) {
+        if (from == null || to == null || !from.isBefore(to) || minMinutes < 0) {
+            throw new InvalidInputException("Invalid time range: " + from + " - " + to + " for slots of " + minMinutes + " minutes");
+        }
+    }
+
+    private void validateBucket(VolumePeriod period, LocalDate date) {
+        if (period == null || date == null) {
+            throw new InvalidInputException("Invalid period: " + period + " of " + date);
+        }
+    }
 
     private boolean areFieldsValid(TrainingRequestDto trainingRequestDto) {
         return trainingRequestDto != null &&
@@ -186,4 +593,59 @@ public class TrainingDAOImpl implements TrainingDAO {
                 !trainingRequestDto.getTrainingTypeName().isEmpty();
     }
 
-}
\ No newline at end of file
+    /**
+     * The trainings referring to trainees, or to trainers, found through the training index.
+     */
+    private class TrainingReferrers implements ReferenceTracker.Referrers {
+
+        private final Function<UUID, List<UUID>> index;
+
+        private final Function<Training, UUID> reference;
+
+        private final BiConsumer<Training, UUID> setReference;
+
+        TrainingReferrers(Function<UUID, List<UUID>> index, Function<Training, UUID> reference,
+                          BiConsumer<Training, UUID> setReference) {
+            this.index = index;
+            this.reference = reference;
+            this.setReference = setReference;
+        }
+
+        @Override
+        public List<UUID> find(UUID referencedId) {
+            return index.apply(referencedId);
+        }
+
+        /**
+         * The training's trainee and trainer: removing or detaching it changes their entries in the
+         * training index and schedule.
+         */
+        @Override
+        public List<UUID> references(UUID trainingId) {
+            Training training = trainingStorage.get(trainingId);
+            if (training == null) {
+                return List.of();
+            }
+            return Stream.of(training.getTraineeId(), training.getTrainerId()).filter(Objects::nonNull).toList();
+        }
+
+        @Override
+        public void delete(UUID trainingId, UUID referencedId) {
+            Training training = trainingStorage.get(trainingId);
+            if (training != null && referencedId.equals(reference.apply(training))) {
+                removeLocked(training);
+            }
+        }
+
+        @Override
+        public void detach(UUID trainingId, UUID referencedId) {
+            Training training = trainingStorage.get(trainingId);
+            if (training != null && referencedId.equals(reference.apply(training))) {
+                Training detached = Training.copyOf(training);
+                setReference.accept(detached, null);
+                detached.setVersion(detached.getVersion() + 1);
+                replaceLocked(training, detached);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.gym.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a batch create: the created entities in request order, and an error message
+ * for every rejected request, keyed by its position in the batch.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchResult<T> {
+
+    private List<T> saved;
+    private Map<Integer, String> errors;
+
+}
@@ -0,0 +1,18 @@
+package com.example.gym.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of an error response of the REST API.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ErrorResponse {
+
+    private int status;
+    private String message;
+
+}
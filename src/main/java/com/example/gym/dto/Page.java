@@ -0,0 +1,20 @@
+package com.example.gym.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. nextCursor is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Page<T> {
+
+    private List<T> items;
+    private String nextCursor;
+
+}
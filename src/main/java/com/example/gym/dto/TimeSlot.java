@@ -0,0 +1,20 @@
+package com.example.gym.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stretch of time from start, inclusive, to end, exclusive.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimeSlot {
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+}
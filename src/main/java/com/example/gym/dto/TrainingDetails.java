@@ -0,0 +1,24 @@
+package com.example.gym.dto;
+
+import com.example.gym.models.Trainee;
+import com.example.gym.models.Trainer;
+import com.example.gym.models.Training;
+import com.example.gym.models.TrainingType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A training with its trainee, trainer and training type. Each of them is null if it no longer exists.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrainingDetails {
+
+    private Training training;
+    private Trainee trainee;
+    private Trainer trainer;
+    private TrainingType trainingType;
+
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.UUID;
 
 @Data
@@ -19,5 +20,6 @@ public class TrainingRequestDto {
     private LocalDate date;
     private Number duration;
     private String trainingTypeName;
+    private LocalTime startTime;
 
 }
@@ -0,0 +1,25 @@
+package com.example.gym.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Training volume of one trainee, trainer or training type in one calendar bucket.
+ * firstDate and lastDate are null when the bucket has no trainings.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrainingVolume {
+
+    private VolumePeriod period;
+    private LocalDate periodStart;
+    private long count;
+    private double totalDuration;
+    private LocalDate firstDate;
+    private LocalDate lastDate;
+
+}
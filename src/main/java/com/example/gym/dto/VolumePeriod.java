@@ -0,0 +1,26 @@
+package com.example.gym.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Calendar buckets that training volumes are aggregated by. Weeks start on Monday.
+ */
+public enum VolumePeriod {
+
+    DAY,
+    WEEK,
+    MONTH;
+
+    /**
+     * @return The first day of the bucket of this period that contains the date.
+     */
+    public LocalDate start(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+}
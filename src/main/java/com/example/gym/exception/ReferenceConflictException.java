@@ -0,0 +1,7 @@
+package com.example.gym.exception;
+
+public class ReferenceConflictException extends RuntimeException {
+    public ReferenceConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.gym.metrics;
+
+import com.example.gym.exception.InvalidInputException;
+import com.example.gym.exception.NotFoundException;
+import com.example.gym.exception.ReferenceConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records latency, call count and expected-error counts of every call to a DAO or service.
+ * <p>
+ * Meters:
+ * <ul>
+ *     <li>gym.operation: timer with percentile histogram, tagged layer, type and method. Percentiles are
+ *     computed by the monitoring backend from the histogram buckets, not in the process.</li>
+ *     <li>gym.operation.errors: counter, same tags plus exception (not_found, invalid_input or reference_conflict)</li>
+ * </ul>
+ * Meters are looked up once per method and cached, so a call costs two nanoTime reads,
+ * a map lookup and a lock-free timer update.
+ */
+public class OperationMetricsInterceptor implements MethodInterceptor {
+
+    private final Supplier<MeterRegistry> meterRegistry;
+
+    private final String layer;
+
+    private final String type;
+
+    private final ConcurrentHashMap<Method, OperationMeters> metersByMethod = new ConcurrentHashMap<>();
+
+    public OperationMetricsInterceptor(Supplier<MeterRegistry> meterRegistry, String layer, String type) {
+        this.meterRegistry = meterRegistry;
+        this.layer = layer;
+        this.type = type;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        OperationMeters meters = metersByMethod.get(method);
+        if (meters == null) {
+            meters = metersByMethod.computeIfAbsent(method, this::register);
+        }
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } catch (NotFoundException e) {
+            meters.notFound.increment();
+            throw e;
+        } catch (InvalidInputException e) {
+            meters.invalidInput.increment();
+            throw e;
+        } catch (ReferenceConflictException e) {
+            meters.referenceConflict.increment();
+            throw e;
+        } finally {
+            meters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private OperationMeters register(Method method) {
+        MeterRegistry registry = meterRegistry.get();
+        Timer timer = Timer.builder("gym.operation")
+                .description("Latency of DAO and service calls")
+                .tags("layer", layer, "type", type, "method", method.getName())
+                .publishPercentileHistogram()
+                .register(registry);
+        return new OperationMeters(timer, errorCounter(registry, method, "not_found"),
+                errorCounter(registry, method, "invalid_input"), errorCounter(registry, method, "reference_conflict"));
+    }
+
+    private Counter errorCounter(MeterRegistry registry, Method method, String exception) {
+        return Counter.builder("gym.operation.errors")
+                .description("DAO and service calls that failed with an expected error")
+                .tags("layer", layer, "type", type, "method", method.getName(), "exception", exception)
+                .register(registry);
+    }
+
+    private record OperationMeters(Timer timer, Counter notFound, Counter invalidInput, Counter referenceConflict) {
+    }
+}
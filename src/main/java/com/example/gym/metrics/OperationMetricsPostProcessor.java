@@ -0,0 +1,65 @@
+package com.example.gym.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Wraps every DAO (@Repository) and service (@Service) under com.example.gym.dao and
+ * com.example.gym.service in a proxy that records operation metrics.
+ * DAOs are proxied through their interfaces, services through a subclass. The asynchronous
+ * services are left alone: they return before the work is done, and the blocking services they
+ * delegate to already record it.
+ * Disabled with metrics.operations.enabled=false.
+ */
+@Component
+public class OperationMetricsPostProcessor implements BeanPostProcessor {
+
+    private static final String BASE_PACKAGE = "com.example.gym.";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final boolean enabled;
+
+    public OperationMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                         @Value("${metrics.operations.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled) {
+            return bean;
+        }
+        Class<?> beanClass = bean.getClass();
+        String layer = layerOf(beanClass);
+        if (layer == null) {
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(layer.equals("service"));
+        proxyFactory.addAdvice(new OperationMetricsInterceptor(() -> meterRegistry.getObject(), layer, beanClass.getSimpleName()));
+        return proxyFactory.getProxy(beanClass.getClassLoader());
+    }
+
+    private static String layerOf(Class<?> beanClass) {
+        String packageName = beanClass.getPackageName();
+        if (packageName.startsWith(BASE_PACKAGE + "dao")
+                && AnnotationUtils.findAnnotation(beanClass, Repository.class) != null) {
+            return "dao";
+        }
+        if (packageName.startsWith(BASE_PACKAGE + "service")
+                && AnnotationUtils.findAnnotation(beanClass, Service.class) != null
+                && !beanClass.getSimpleName().endsWith("AsyncService")) {
+            return "service";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.gym.metrics;
+
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.EntityKind;
+import com.example.gym.storage.OffHeapTrainingMap;
+import com.example.gym.util.PasswordPool;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Gauges over the in-memory storage: one gym.storage.size gauge per storage map, tagged with the entity,
+ * the off-heap memory of the training columns when they are kept off-heap,
+ * and the fill level and miss count of the new-user password pool.
+ */
+@Component
+public class StorageMetrics implements MeterBinder {
+
+    private final InMemoryStorage inMemoryStorage;
+
+    private final PasswordPool passwordPool;
+
+    public StorageMetrics(InMemoryStorage inMemoryStorage, PasswordPool passwordPool) {
+        this.inMemoryStorage = inMemoryStorage;
+        this.passwordPool = passwordPool;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (EntityKind kind : EntityKind.values()) {
+            Map<?, ?> storage = inMemoryStorage.getStorage(kind);
+            Gauge.builder("gym.storage.size", storage, Map::size)
+                    .description("Number of entities in a storage map")
+                    .tag("entity", kind.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        if (inMemoryStorage.getTrainingStorage() instanceof OffHeapTrainingMap offHeap) {
+            Gauge.builder("gym.storage.off-heap.bytes", offHeap, OffHeapTrainingMap::getOffHeapBytes)
+                    .description("Off-heap memory held by the training column segments")
+                    .baseUnit("bytes")
+                    .register(registry);
+        }
+        Gauge.builder("gym.password.pool.size", passwordPool, PasswordPool::size)
+                .description("Ready passwords in the new-user password pool")
+                .register(registry);
+        FunctionCounter.builder("gym.password.pool.misses", passwordPool, PasswordPool::getMisses)
+                .description("New users that found the password pool empty")
+                .register(registry);
+    }
+}
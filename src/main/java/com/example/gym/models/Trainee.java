@@ -20,17 +20,33 @@ public class Trainee {
 
     private String address;
 
+    private long version;
+
+    /**
+     * A trainee at version 0, as trainees were before they had versions.
+     */
+    public Trainee(UUID id, UUID userId, String address) {
+        this(id, userId, address, 0);
+    }
+
+    /**
+     * @return A field-by-field copy of the trainee, or null for null.
+     */
+    public static Trainee copyOf(Trainee trainee) {
+        return trainee == null ? null : new Trainee(trainee.getId(), trainee.getUserId(), trainee.getAddress(), trainee.getVersion());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Trainee trainee = (Trainee) o;
-        return Objects.equals(id, trainee.id) && Objects.equals(userId, trainee.userId) && Objects.equals(address, trainee.address);
+        return Objects.equals(id, trainee.id) && Objects.equals(userId, trainee.userId) && Objects.equals(address, trainee.address) && version == trainee.version;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, userId, address);
+        return Objects.hash(id, userId, address, version);
     }
 
     @Override
@@ -39,6 +55,7 @@ public class Trainee {
                 "id=" + id +
                 ", userId=" + userId +
                 ", address='" + address + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
@@ -17,17 +17,32 @@ public class Trainer {
     private UUID id;
     private String specialization;
     private UUID userId;
+    private long version;
+
+    /**
+     * A trainer at version 0, as trainers were before they had versions.
+     */
+    public Trainer(UUID id, String specialization, UUID userId) {
+        this(id, specialization, userId, 0);
+    }
+
+    /**
+     * @return A field-by-field copy of the trainer, or null for null.
+     */
+    public static Trainer copyOf(Trainer trainer) {
+        return trainer == null ? null : new Trainer(trainer.getId(), trainer.getSpecialization(), trainer.getUserId(), trainer.getVersion());
+    }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Trainer trainer = (Trainer) o;
-        return Objects.equals(id, trainer.id) && Objects.equals(specialization, trainer.specialization) && Objects.equals(userId, trainer.userId);
+        return Objects.equals(id, trainer.id) && Objects.equals(specialization, trainer.specialization) && Objects.equals(userId, trainer.userId) && version == trainer.version;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, specialization, userId);
+        return Objects.hash(id, specialization, userId, version);
     }
 }
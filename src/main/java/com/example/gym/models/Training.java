@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -20,17 +21,43 @@ public class Training {
     private String name;
     private LocalDate date;
     private Number duration;
+    private LocalTime startTime;
+    private long version;
+
+    /**
+     * A training without a start time, as trainings were before they had one.
+     */
+    public Training(UUID id, UUID traineeId, UUID trainerId, UUID trainingTypeId, String name, LocalDate date, Number duration) {
+        this(id, traineeId, trainerId, trainingTypeId, name, date, duration, null);
+    }
+
+    /**
+     * A training at version 0, as trainings were before they had versions.
+     */
+    public Training(UUID id, UUID traineeId, UUID trainerId, UUID trainingTypeId, String name, LocalDate date,
+                    Number duration, LocalTime startTime) {
+        this(id, traineeId, trainerId, trainingTypeId, name, date, duration, startTime, 0);
+    }
+
+    /**
+     * @return A field-by-field copy of the training, or null for null.
+     */
+    public static Training copyOf(Training training) {
+        return training == null ? null : new Training(training.getId(), training.getTraineeId(), training.getTrainerId(),
+                training.getTrainingTypeId(), training.getName(), training.getDate(), training.getDuration(),
+                training.getStartTime(), training.getVersion());
+    }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Training training = (Training) o;
-        return Objects.equals(id, training.id) && Objects.equals(traineeId, training.traineeId) && Objects.equals(trainerId, training.trainerId) && Objects.equals(trainingTypeId, training.trainingTypeId) && Objects.equals(name, training.name) && Objects.equals(date, training.date) && Objects.equals(duration, training.duration);
+        return Objects.equals(id, training.id) && Objects.equals(traineeId, training.traineeId) && Objects.equals(trainerId, training.trainerId) && Objects.equals(trainingTypeId, training.trainingTypeId) && Objects.equals(name, training.name) && Objects.equals(date, training.date) && Objects.equals(duration, training.duration) && Objects.equals(startTime, training.startTime) && version == training.version;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, traineeId, trainerId, trainingTypeId, name, date, duration);
+        return Objects.hash(id, traineeId, trainerId, trainingTypeId, name, date, duration, startTime, version);
     }
 }
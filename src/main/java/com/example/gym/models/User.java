@@ -20,17 +20,35 @@ public class User {
     private String username;
     private String password;
     private boolean isActive;
+    private long version;
+
+    /**
+     * A user at version 0, as users were before they had versions.
+     */
+    public User(UUID id, String firstName, String lastName, String username, String password, boolean isActive) {
+        this(id, firstName, lastName, username, password, isActive, 0);
+    }
+
+    /**
+     * Stored entities are never mutated, so updates change a copy and put it back.
+     *
+     * @return A field-by-field copy of the user, or null for null.
+     */
+    public static User copyOf(User user) {
+        return user == null ? null : new User(user.getId(), user.getFirstName(), user.getLastName(),
+                user.getUsername(), user.getPassword(), user.isActive(), user.getVersion());
+    }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         User user = (User) o;
-        return isActive == user.isActive && Objects.equals(firstName, user.firstName) && Objects.equals(lastName, user.lastName) && Objects.equals(username, user.username) && Objects.equals(password, user.password);
+        return isActive == user.isActive && Objects.equals(firstName, user.firstName) && Objects.equals(lastName, user.lastName) && Objects.equals(username, user.username) && Objects.equals(password, user.password) && version == user.version;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(firstName, lastName, username, password, isActive);
+        return Objects.hash(firstName, lastName, username, password, isActive, version);
     }
 }
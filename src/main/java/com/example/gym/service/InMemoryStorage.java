@@ -1,18 +1,20 @@
 package com.example.gym.service;
 
 import com.example.gym.models.*;
-import com.example.gym.util.JSONData;
+import com.example.gym.storage.*;
 import com.example.gym.util.UtilService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -20,60 +22,182 @@ import java.util.UUID;
 @Data
 @Component
 public class InMemoryStorage {
-    private Map<UUID, Trainer> trainerStorage = new HashMap<>();
+    private final StorageVersions versions = new StorageVersions();
 
-    private Map<UUID, Trainee> traineeStorage = new HashMap<>();
+    private Map<UUID, Trainer> trainerStorage = new StorageMap<>(EntityKind.TRAINER, versions);
 
-    private Map<UUID, Training> trainingStorage = new HashMap<>();
+    private Map<UUID, Trainee> traineeStorage = new StorageMap<>(EntityKind.TRAINEE, versions);
 
-    private Map<UUID, User> userStorage = new HashMap<>();
+    private Map<UUID, Training> trainingStorage = new StorageMap<>(EntityKind.TRAINING, versions);
 
-    private Map<UUID, TrainingType> trainingTypeStorage = new HashMap<>();
+    private Map<UUID, User> userStorage = new StorageMap<>(EntityKind.USER, versions);
+
+    private Map<UUID, TrainingType> trainingTypeStorage = new StorageMap<>(EntityKind.TRAINING_TYPE, versions);
+
+    /**
+     * Trainer ids by specialization, built here once the trainers are loaded and kept up to date by the trainer DAO.
+     */
+    private final SpecializationIndex specializationIndex = new SpecializationIndex();
 
     private UtilService utilService;
 
+    private SnapshotStore snapshotStore;
+
+    private StorageJournal storageJournal;
+
+    private ChangeStream changeStream;
+
     private static final Logger logger = LoggerFactory.getLogger(InMemoryStorage.class);
 
     @Value("${user.file.path}")
     private String userFilePath;
 
+    @Value("${user.file.batch-size:10000}")
+    private int seedBatchSize;
+
     public InMemoryStorage(UtilService utilService) {
         this.utilService = utilService;
     }
 
+    @Autowired
+    public void setSnapshotStore(SnapshotStore snapshotStore) {
+        this.snapshotStore = snapshotStore;
+    }
+
+    @Autowired
+    public void setStorageJournal(StorageJournal storageJournal) {
+        this.storageJournal = storageJournal;
+    }
+
+    /**
+     * Publish every mutation after the initial load to the change stream.
+     */
+    @Autowired
+    public void setChangeStream(ChangeStream changeStream) {
+        this.changeStream = changeStream;
+    }
+
+    /**
+     * Keep trainings in off-heap columns instead of objects. Must be set before anything is stored.
+     */
+    @Value("${storage.training.off-heap:false}")
+    public void setTrainingOffHeap(boolean offHeap) {
+        if (offHeap && !(trainingStorage instanceof OffHeapTrainingMap)) {
+            trainingStorage = new OffHeapTrainingMap(versions);
+        } else if (!offHeap && trainingStorage instanceof OffHeapTrainingMap) {
+            trainingStorage = new StorageMap<>(EntityKind.TRAINING, versions);
+        }
+    }
+
+    /**
+     * Make each locked action one write, so snapshots never see part of it.
+     */
+    @Autowired
+    public void setStorageLocks(StorageLocks storageLocks) {
+        storageLocks.setVersions(versions);
+    }
+
     @PostConstruct
     public void initializeStorage() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        try {
-            JSONData[] jsonData = objectMapper.readValue(new File(userFilePath), JSONData[].class);
-            for (JSONData data : jsonData) {
-                logger.info("Creating User with first name: {} and last name: {}", data.getFirstName(), data.getLastName());
-                User newUser = User.builder()
-                        .id(utilService.generateUniqueKey(userStorage))
-                        .firstName(data.getFirstName())
-                        .lastName(data.getLastName())
-                        .username(utilService.generateUsername(data.getFirstName(), data.getLastName(), userStorage))
-                        .isActive(true)
-                        .password(utilService.generateRandomPassword(10))
-                        .build();
-                if (data.getRole().equalsIgnoreCase("trainee")) {
-                    Trainee trainee = Trainee.builder()
-                            .id(utilService.generateUniqueKey(traineeStorage))
-                            .userId(newUser.getId())
-                            .build();
-                    traineeStorage.put(trainee.getId(), trainee);
-                } else if (data.getRole().equalsIgnoreCase("trainer")) {
-                    Trainer trainer = Trainer.builder()
-                            .id(utilService.generateUniqueKey(trainerStorage))
-                            .specialization(data.getSpecialization())
-                            .userId(newUser.getId())
-                            .build();
-                    trainerStorage.put(trainer.getId(), trainer);
-                }
-                userStorage.put(newUser.getId(), newUser);
+        boolean restored = restore();
+        if (storageJournal != null && storageJournal.isEnabled()) {
+            try {
+                storageJournal.open(this, restored);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to open storage journal", e);
             }
+        }
+        if (restored) {
+            utilService.rebuildUsernameIndex(userStorage.values());
+        }
+        specializationIndex.rebuild(trainerStorage.values());
+        if (changeStream != null) {
+            addListener(changeStream);
+        }
+    }
+
+    /**
+     * The storage map holding entities of the given kind.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<UUID, Object> getStorage(EntityKind kind) {
+        Map<UUID, ?> storage = switch (kind) {
+            case USER -> userStorage;
+            case TRAINEE -> traineeStorage;
+            case TRAINER -> trainerStorage;
+            case TRAINING_TYPE -> trainingTypeStorage;
+            case TRAINING -> trainingStorage;
+        };
+        return (Map<UUID, Object>) storage;
+    }
+
+    /**
+     * Open a point-in-time snapshot of all five maps. Reading it never blocks writers,
+     * and it must be closed once the caller is done with it.
+     */
+    public StorageSnapshot openSnapshot() {
+        StorageVersions.Snapshot snapshot = versions.openSnapshot();
+        Map<EntityKind, Map<UUID, ?>> views = new EnumMap<>(EntityKind.class);
+        for (EntityKind kind : EntityKind.values()) {
+            Map<UUID, Object> storage = getStorage(kind);
+            views.put(kind, storage instanceof VersionedMap<Object> versionedMap
+                    ? versionedMap.at(snapshot)
+                    : Collections.unmodifiableMap(new HashMap<>(storage)));
+        }
+        return new StorageSnapshot(snapshot, views);
+    }
+
+    public void addListener(StorageListener listener) {
+        for (EntityKind kind : EntityKind.values()) {
+            if (getStorage(kind) instanceof VersionedMap<?> versionedMap) {
+                versionedMap.addListener(listener);
+            }
+        }
+    }
+
+    public void removeListener(StorageListener listener) {
+        for (EntityKind kind : EntityKind.values()) {
+            if (getStorage(kind) instanceof VersionedMap<?> versionedMap) {
+                versionedMap.removeListener(listener);
+            }
+        }
+    }
+
+    /**
+     * Log every mutation of every map to the given log before it is applied, or stop logging with null.
+     */
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        for (EntityKind kind : EntityKind.values()) {
+            if (getStorage(kind) instanceof VersionedMap<?> versionedMap) {
+                versionedMap.setWriteAheadLog(writeAheadLog);
+            }
+        }
+    }
+
+    private boolean restore() {
+        if (snapshotStore != null && snapshotStore.isEnabled() && snapshotStore.exists()) {
+            try {
+                snapshotStore.restore(this);
+                return true;
+            } catch (IOException e) {
+                logger.error("Failed to restore snapshot {}, loading users from {}", snapshotStore.getPath(), userFilePath, e);
+                clear();
+            }
+        }
+        try {
+            new UserSeedLoader(utilService, seedBatchSize).load(new File(userFilePath), this);
         } catch (IOException e) {
-            e.printStackTrace();
+            logger.error("Failed to load users from {}", userFilePath, e);
         }
+        return false;
+    }
+
+    public void clear() {
+        trainingStorage.clear();
+        traineeStorage.clear();
+        trainerStorage.clear();
+        trainingTypeStorage.clear();
+        userStorage.clear();
+        specializationIndex.clear();
     }
 }
@@ -0,0 +1,106 @@
+package com.example.gym.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * The bounded thread pool the asynchronous services run on.
+ * <p>
+ * The queue is bounded too. When it is full, new calls fail at once with a
+ * {@link RejectedExecutionException} instead of queueing without limit, so callers can back off.
+ * A call cancelled while it is still queued is dropped from the queue and never runs. A call
+ * that is already running finishes, and its result is discarded.
+ */
+@Component
+public class ServiceExecutor {
+
+    private final ThreadPoolExecutor executor;
+
+    public ServiceExecutor(@Value("${service.async.threads:8}") int threads,
+                           @Value("${service.async.queue-capacity:1024}") int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "service-async-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> action) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(action.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                executor.remove(task);
+            }
+        });
+        return future;
+    }
+
+    public CompletableFuture<Void> run(Runnable action) {
+        return supply(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * A publisher that streams the source to each subscriber on this executor, as fast as the subscriber requests.
+     * The source is opened once per subscriber, on its first request.
+     */
+    public <T> Flow.Publisher<T> publish(Supplier<Stream<T>> source) {
+        return new StreamPublisher<>(source, executor);
+    }
+
+    /**
+     * Make cancelling the downstream future also cancel the futures it was composed from.
+     *
+     * @return The downstream future.
+     */
+    public static <T> CompletableFuture<T> cancelling(CompletableFuture<T> downstream, CompletableFuture<?>... upstream) {
+        downstream.whenComplete((result, error) -> {
+            if (downstream.isCancelled()) {
+                for (CompletableFuture<?> future : upstream) {
+                    future.cancel(false);
+                }
+            }
+        });
+        return downstream;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
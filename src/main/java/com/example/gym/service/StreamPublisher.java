@@ -0,0 +1,169 @@
+package com.example.gym.service;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Flow.Publisher} over a stream, emitting no more items than requested.
+ * <p>
+ * Each subscription drains on the executor, one task at a time, so signals to a subscriber never
+ * overlap. A task emits at most {@link #BATCH} items before giving the thread back, so an
+ * unbounded request does not take a pool thread for the length of the stream.
+ */
+final class StreamPublisher<T> implements Flow.Publisher<T> {
+
+    static final int BATCH = 256;
+
+    private final Supplier<Stream<T>> source;
+
+    private final Executor executor;
+
+    StreamPublisher(Supplier<Stream<T>> source, Executor executor) {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        subscriber.onSubscribe(new StreamSubscription<>(subscriber, source, executor));
+    }
+
+    private static final class StreamSubscription<T> implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final Supplier<Stream<T>> source;
+
+        private final Executor executor;
+
+        private final AtomicLong demand = new AtomicLong();
+
+        // drain tasks requested and not yet handled; only the task that raised it from 0 drains
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        private volatile IllegalArgumentException invalidRequest;
+
+        private Stream<T> stream;
+
+        private Iterator<T> iterator;
+
+        private boolean done;
+
+        StreamSubscription(Flow.Subscriber<? super T> subscriber, Supplier<Stream<T>> source, Executor executor) {
+            this.subscriber = subscriber;
+            this.source = source;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                submit();
+            }
+        }
+
+        private void submit() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // a saturated or stopped pool must not strand the subscriber
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                if (drain()) {
+                    submit();
+                    return;
+                }
+                missed = pending.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return true if the batch ran out while there is still demand.
+         */
+        private boolean drain() {
+            if (done) {
+                return false;
+            }
+            if (cancelled) {
+                finish();
+                return false;
+            }
+            if (invalidRequest != null) {
+                finish();
+                subscriber.onError(invalidRequest);
+                return false;
+            }
+            try {
+                if (iterator == null) {
+                    stream = source.get();
+                    iterator = stream.iterator();
+                }
+                long requested = demand.get();
+                long emitted = 0;
+                while (emitted < requested && emitted < BATCH) {
+                    if (cancelled) {
+                        finish();
+                        return false;
+                    }
+                    if (!iterator.hasNext()) {
+                        break;
+                    }
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+                if (!cancelled && !iterator.hasNext()) {
+                    finish();
+                    subscriber.onComplete();
+                    return false;
+                }
+                long remaining = requested == Long.MAX_VALUE ? requested : demand.addAndGet(-emitted);
+                return remaining > 0 && !cancelled;
+            } catch (Throwable e) {
+                finish();
+                subscriber.onError(e);
+                return false;
+            }
+        }
+
+        private void finish() {
+            done = true;
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+}
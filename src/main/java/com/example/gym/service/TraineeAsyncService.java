@@ -0,0 +1,70 @@
+package com.example.gym.service;
+
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TraineeRequestDto;
+import com.example.gym.models.Trainee;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Non-blocking variant of {@link TraineeService}. Every call runs on the {@link ServiceExecutor} and
+ * completes its future with the result or with the exception the blocking call would have thrown.
+ */
+@Service
+public class TraineeAsyncService {
+
+    @Autowired
+    private TraineeService traineeService;
+
+    @Autowired
+    private ServiceExecutor serviceExecutor;
+
+    public CompletableFuture<Trainee> save(TraineeRequestDto traineeRequestDto) {
+        return serviceExecutor.supply(() -> traineeService.save(traineeRequestDto));
+    }
+
+    public CompletableFuture<BatchResult<Trainee>> saveAll(List<TraineeRequestDto> traineeRequestDtos) {
+        return serviceExecutor.supply(() -> traineeService.saveAll(traineeRequestDtos));
+    }
+
+    /**
+     * @return A future of the Trainee, or of an empty Optional if it is not found or the id is null.
+     */
+    public CompletableFuture<Optional<Trainee>> findById(UUID id) {
+        if (id == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return serviceExecutor.supply(() -> traineeService.findById(id));
+    }
+
+    public CompletableFuture<Trainee> update(UUID id, TraineeRequestDto traineeRequestDto) {
+        return serviceExecutor.supply(() -> traineeService.update(id, traineeRequestDto));
+    }
+
+    public CompletableFuture<Void> delete(UUID id) {
+        return serviceExecutor.run(() -> traineeService.delete(id));
+    }
+
+    public CompletableFuture<Page<Trainee>> findPage(String cursor, int limit) {
+        return serviceExecutor.supply(() -> traineeService.findPage(cursor, limit));
+    }
+
+    public CompletableFuture<Page<Trainee>> findPageOrderedByLastName(String cursor, int limit) {
+        return serviceExecutor.supply(() -> traineeService.findPageOrderedByLastName(cursor, limit));
+    }
+
+    /**
+     * Publish all Trainees, no faster than the subscriber requests them.
+     * Each subscriber gets its own weakly consistent pass over the storage.
+     */
+    public Flow.Publisher<Trainee> publishAll() {
+        return serviceExecutor.publish(traineeService::stream);
+    }
+}
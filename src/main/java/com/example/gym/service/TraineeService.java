@@ -1,16 +1,22 @@
 package com.example.gym.service;
 
 import com.example.gym.dao.TraineeDAO;
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
 import com.example.gym.dto.TraineeRequestDto;
 import com.example.gym.exception.InvalidInputException;
 import com.example.gym.exception.NotFoundException;
+import com.example.gym.exception.VersionConflictException;
 import com.example.gym.models.Trainee;
+import com.example.gym.util.OptimisticRetry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Service for managing Trainee entities.
@@ -32,6 +38,17 @@ public class TraineeService {
         return traineeDAO.save(traineeRequestDto);
     }
 
+    /**
+     * Save a batch of new Trainee entities. Invalid requests are reported instead of failing the batch;
+     * all valid Trainees are created together in one commit.
+     *
+     * @param traineeRequestDtos The TraineeRequestDtos containing the trainees' information.
+     * @return The created Trainee entities and an error message per rejected request, keyed by its index.
+     */
+    public BatchResult<Trainee> saveAll(List<TraineeRequestDto> traineeRequestDtos) {
+        return traineeDAO.saveAll(traineeRequestDtos);
+    }
+
     /**
      * Find a Trainee by its unique identifier (UUID).
      *
@@ -51,6 +68,18 @@ public class TraineeService {
         return traineeDAO.findAll();
     }
 
+    /**
+     * Stream all Trainees straight from the data storage, without copying them into a list.
+     * The stream is lazy and reads one point-in-time snapshot of the storage taken at the call, so it
+     * never fails on concurrent changes, splits well for parallel use and stops early on
+     * short-circuiting operations. Close it when done, so the snapshot is released.
+     *
+     * @return A Stream of all Trainees in the data storage.
+     */
+    public Stream<Trainee> stream() {
+        return traineeDAO.stream();
+    }
+
     /**
      * Delete a Trainee by its unique identifier (UUID).
      *
@@ -72,4 +101,75 @@ public class TraineeService {
         return traineeDAO.update(id, traineeRequestDto);
     }
 
+    /**
+     * Update an existing Trainee only if it is still at the version the caller read, so a concurrent
+     * change is never silently overwritten. Every update moves the Trainee to the next version.
+     *
+     * @param id                The unique identifier of the Trainee to be updated.
+     * @param expectedVersion   The version the change was based on.
+     * @param traineeRequestDto The updated information.
+     * @return The updated Trainee entity.
+     * @throws NotFoundException        When the Trainee with the specified ID is not found.
+     * @throws VersionConflictException When the Trainee is no longer at the expected version.
+     */
+    public Trainee updateIfVersion(UUID id, long expectedVersion, TraineeRequestDto traineeRequestDto) {
+        return traineeDAO.updateIfVersion(id, expectedVersion, traineeRequestDto);
+    }
+
+    /**
+     * Update an existing Trainee with a change computed from its current state. When another writer
+     * changes it in between, it is read again and the change recomputed, up to maxAttempts times.
+     *
+     * @param id          The unique identifier of the Trainee to be updated.
+     * @param change      Computes the update from the current Trainee; may run more than once.
+     * @param maxAttempts How often to try at most.
+     * @return The updated Trainee entity.
+     * @throws NotFoundException        When the Trainee with the specified ID is not found.
+     * @throws VersionConflictException When every attempt lost to a concurrent change.
+     */
+    public Trainee updateWithRetry(UUID id, Function<Trainee, TraineeRequestDto> change, int maxAttempts) {
+        return OptimisticRetry.retry(maxAttempts, () -> {
+            Trainee current = traineeDAO.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Trainee not found with ID: " + id));
+            return traineeDAO.updateIfVersion(id, current.getVersion(), change.apply(current));
+        });
+    }
+
+
+    /**
+     * Retrieve one page of Trainees ordered by their unique identifier.
+     *
+     * @param cursor The next cursor of the previous page, or null for the first page.
+     * @param limit  The maximum number of Trainees on the page.
+     * @return The page of Trainees and the cursor of the page after it.
+     * @throws InvalidInputException When the cursor is malformed or the limit is out of range.
+     */
+    public Page<Trainee> findPage(String cursor, int limit) {
+        return traineeDAO.findPage(cursor, limit);
+    }
+
+    /**
+     * Retrieve one page of Trainees ordered by the last name of their user, ignoring case.
+     *
+     * @param cursor The next cursor of the previous page, or null for the first page.
+     * @param limit  The maximum number of Trainees on the page.
+     * @return The page of Trainees and the cursor of the page after it.
+     * @throws InvalidInputException When the cursor is malformed or the limit is out of range.
+     */
+    public Page<Trainee> findPageOrderedByLastName(String cursor, int limit) {
+        return traineeDAO.findPageOrderedByLastName(cursor, limit);
+    }
+
+    /**
+     * Find Trainees by a typed fragment of their first name, last name or username, ignoring case.
+     * Exact and prefix matches rank first, then names with a typo or two; every word of the query must match.
+     *
+     * @param query The words to look for.
+     * @param limit The maximum number of Trainees to return.
+     * @return The best matching Trainees, best first.
+     * @throws InvalidInputException When the query is blank or the limit is out of range.
+     */
+    public List<Trainee> search(String query, int limit) {
+        return traineeDAO.search(query, limit);
+    }
 }
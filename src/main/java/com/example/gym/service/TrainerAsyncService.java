@@ -0,0 +1,70 @@
+package com.example.gym.service;
+
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TrainerRequestDto;
+import com.example.gym.models.Trainer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Non-blocking variant of {@link TrainerService}. Every call runs on the {@link ServiceExecutor} and
+ * completes its future with the result or with the exception the blocking call would have thrown.
+ */
+@Service
+public class TrainerAsyncService {
+
+    @Autowired
+    private TrainerService trainerService;
+
+    @Autowired
+    private ServiceExecutor serviceExecutor;
+
+    public CompletableFuture<Trainer> save(TrainerRequestDto trainerRequestDto) {
+        return serviceExecutor.supply(() -> trainerService.save(trainerRequestDto));
+    }
+
+    public CompletableFuture<BatchResult<Trainer>> saveAll(List<TrainerRequestDto> trainerRequestDtos) {
+        return serviceExecutor.supply(() -> trainerService.saveAll(trainerRequestDtos));
+    }
+
+    /**
+     * @return A future of the Trainer, or of an empty Optional if it is not found or the id is null.
+     */
+    public CompletableFuture<Optional<Trainer>> findById(UUID id) {
+        if (id == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return serviceExecutor.supply(() -> trainerService.findById(id));
+    }
+
+    public CompletableFuture<Trainer> update(UUID id, TrainerRequestDto trainerRequestDto) {
+        return serviceExecutor.supply(() -> trainerService.update(id, trainerRequestDto));
+    }
+
+    public CompletableFuture<Void> delete(UUID id) {
+        return serviceExecutor.run(() -> trainerService.delete(id));
+    }
+
+    public CompletableFuture<Page<Trainer>> findPage(String cursor, int limit) {
+        return serviceExecutor.supply(() -> trainerService.findPage(cursor, limit));
+    }
+
+    public CompletableFuture<Page<Trainer>> findPageOrderedByLastName(String cursor, int limit) {
+        return serviceExecutor.supply(() -> trainerService.findPageOrderedByLastName(cursor, limit));
+    }
+
+    /**
+     * Publish all Trainers, no faster than the subscriber requests them.
+     * Each subscriber gets its own weakly consistent pass over the storage.
+     */
+    public Flow.Publisher<Trainer> publishAll() {
+        return serviceExecutor.publish(trainerService::stream);
+    }
+}
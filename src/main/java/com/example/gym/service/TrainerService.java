@@ -1,16 +1,24 @@
 package com.example.gym.service;
 
 import com.example.gym.dao.TrainerDAO;
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
 import com.example.gym.dto.TrainerRequestDto;
 import com.example.gym.exception.InvalidInputException;
 import com.example.gym.exception.NotFoundException;
+import com.example.gym.exception.VersionConflictException;
 import com.example.gym.models.Trainer;
+import com.example.gym.util.OptimisticRetry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.SortedMap;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Service for managing Trainer entities.
@@ -32,6 +40,17 @@ public class TrainerService {
         return trainerDAO.save(trainerRequestDto);
     }
 
+    /**
+     * Save a batch of new Trainer entities. Invalid requests are reported instead of failing the batch;
+     * all valid Trainers are created together in one commit.
+     *
+     * @param trainerRequestDtos The TrainerRequestDtos containing the trainers' information.
+     * @return The created Trainer entities and an error message per rejected request, keyed by its index.
+     */
+    public BatchResult<Trainer> saveAll(List<TrainerRequestDto> trainerRequestDtos) {
+        return trainerDAO.saveAll(trainerRequestDtos);
+    }
+
     /**
      * Find a Trainer by its unique identifier (UUID).
      *
@@ -51,6 +70,18 @@ public class TrainerService {
         return trainerDAO.findAll();
     }
 
+    /**
+     * Stream all Trainers straight from the data storage, without copying them into a list.
+     * The stream is lazy and reads one point-in-time snapshot of the storage taken at the call, so it
+     * never fails on concurrent changes, splits well for parallel use and stops early on
+     * short-circuiting operations. Close it when done, so the snapshot is released.
+     *
+     * @return A Stream of all Trainers in the data storage.
+     */
+    public Stream<Trainer> stream() {
+        return trainerDAO.stream();
+    }
+
     /**
      * Delete a Trainer by its unique identifier (UUID).
      *
@@ -72,4 +103,106 @@ public class TrainerService {
         return trainerDAO.update(id, trainerRequestDto);
     }
 
+    /**
+     * Update an existing Trainer only if it is still at the version the caller read, so a concurrent
+     * change is never silently overwritten. Every update moves the Trainer to the next version.
+     *
+     * @param id                The unique identifier of the Trainer to be updated.
+     * @param expectedVersion   The version the change was based on.
+     * @param trainerRequestDto The updated information.
+     * @return The updated Trainer entity.
+     * @throws NotFoundException        When the Trainer with the specified ID is not found.
+     * @throws VersionConflictException When the Trainer is no longer at the expected version.
+     */
+    public Trainer updateIfVersion(UUID id, long expectedVersion, TrainerRequestDto trainerRequestDto) {
+        return trainerDAO.updateIfVersion(id, expectedVersion, trainerRequestDto);
+    }
+
+    /**
+     * Update an existing Trainer with a change computed from its current state. When another writer
+     * changes it in between, it is read again and the change recomputed, up to maxAttempts times.
+     *
+     * @param id          The unique identifier of the Trainer to be updated.
+     * @param change      Computes the update from the current Trainer; may run more than once.
+     * @param maxAttempts How often to try at most.
+     * @return The updated Trainer entity.
+     * @throws NotFoundException        When the Trainer with the specified ID is not found.
+     * @throws VersionConflictException When every attempt lost to a concurrent change.
+     */
+    public Trainer updateWithRetry(UUID id, Function<Trainer, TrainerRequestDto> change, int maxAttempts) {
+        return OptimisticRetry.retry(maxAttempts, () -> {
+            Trainer current = trainerDAO.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Trainer not found with ID: " + id));
+            return trainerDAO.updateIfVersion(id, current.getVersion(), change.apply(current));
+        });
+    }
+
+
+    /**
+     * Retrieve one page of Trainers ordered by their unique identifier.
+     *
+     * @param cursor The next cursor of the previous page, or null for the first page.
+     * @param limit  The maximum number of Trainers on the page.
+     * @return The page of Trainers and the cursor of the page after it.
+     * @throws InvalidInputException When the cursor is malformed or the limit is out of range.
+     */
+    public Page<Trainer> findPage(String cursor, int limit) {
+        return trainerDAO.findPage(cursor, limit);
+    }
+
+    /**
+     * Retrieve one page of Trainers ordered by the last name of their user, ignoring case.
+     *
+     * @param cursor The next cursor of the previous page, or null for the first page.
+     * @param limit  The maximum number of Trainers on the page.
+     * @return The page of Trainers and the cursor of the page after it.
+     * @throws InvalidInputException When the cursor is malformed or the limit is out of range.
+     */
+    public Page<Trainer> findPageOrderedByLastName(String cursor, int limit) {
+        return trainerDAO.findPageOrderedByLastName(cursor, limit);
+    }
+
+    /**
+     * Find Trainers by a typed fragment of their first name, last name or username, ignoring case.
+     * Exact and prefix matches rank first, then names with a typo or two; every word of the query must match.
+     *
+     * @param query The words to look for.
+     * @param limit The maximum number of Trainers to return.
+     * @return The best matching Trainers, best first.
+     * @throws InvalidInputException When the query is blank or the limit is out of range.
+     */
+    public List<Trainer> search(String query, int limit) {
+        return trainerDAO.search(query, limit);
+    }
+
+    /**
+     * Find the Trainers having at least one of the given specializations, ignoring case and extra spaces.
+     *
+     * @param specializations The specializations to look for; an entry may list several separated by commas.
+     * @return The matching Trainers, ordered by their unique identifier.
+     * @throws InvalidInputException When no specialization is given.
+     */
+    public List<Trainer> findByAnySpecialization(Collection<String> specializations) {
+        return trainerDAO.findByAnySpecialization(specializations);
+    }
+
+    /**
+     * Find the Trainers having every one of the given specializations, ignoring case and extra spaces.
+     *
+     * @param specializations The specializations to look for; an entry may list several separated by commas.
+     * @return The matching Trainers, ordered by their unique identifier.
+     * @throws InvalidInputException When no specialization is given.
+     */
+    public List<Trainer> findByAllSpecializations(Collection<String> specializations) {
+        return trainerDAO.findByAllSpecializations(specializations);
+    }
+
+    /**
+     * Count the Trainers per specialization.
+     *
+     * @return Every specialization some Trainer has, normalized to lower case, with its number of Trainers.
+     */
+    public SortedMap<String, Integer> countBySpecialization() {
+        return trainerDAO.countBySpecialization();
+    }
 }
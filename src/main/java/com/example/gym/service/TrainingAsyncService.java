@@ -0,0 +1,135 @@
+package com.example.gym.service;
+
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TrainingDetails;
+import com.example.gym.dto.TrainingRequestDto;
+import com.example.gym.models.Trainee;
+import com.example.gym.models.Trainer;
+import com.example.gym.models.Training;
+import com.example.gym.models.TrainingType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Non-blocking variant of {@link TrainingService}, plus lookups that fan out over the training's
+ * trainee, trainer and type. Every call runs on the {@link ServiceExecutor}. Cancelling a composed
+ * future also cancels the lookups it is waiting for.
+ */
+@Service
+public class TrainingAsyncService {
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private TraineeAsyncService traineeAsyncService;
+
+    @Autowired
+    private TrainerAsyncService trainerAsyncService;
+
+    @Autowired
+    private ServiceExecutor serviceExecutor;
+
+    public CompletableFuture<Training> save(TrainingRequestDto trainingRequestDto) {
+        return serviceExecutor.supply(() -> trainingService.save(trainingRequestDto));
+    }
+
+    public CompletableFuture<BatchResult<Training>> saveAll(List<TrainingRequestDto> trainingRequestDtos) {
+        return serviceExecutor.supply(() -> trainingService.saveAll(trainingRequestDtos));
+    }
+
+    public CompletableFuture<Optional<Training>> findById(UUID id) {
+        return serviceExecutor.supply(() -> trainingService.findById(id));
+    }
+
+    public CompletableFuture<Training> update(UUID id, TrainingRequestDto trainingRequestDto) {
+        return serviceExecutor.supply(() -> trainingService.update(id, trainingRequestDto));
+    }
+
+    public CompletableFuture<Void> delete(UUID id) {
+        return serviceExecutor.run(() -> trainingService.delete(id));
+    }
+
+    public CompletableFuture<List<Training>> findByTraineeId(UUID traineeId) {
+        return serviceExecutor.supply(() -> trainingService.findByTraineeId(traineeId));
+    }
+
+    public CompletableFuture<List<Training>> findByTrainerId(UUID trainerId) {
+        return serviceExecutor.supply(() -> trainingService.findByTrainerId(trainerId));
+    }
+
+    public CompletableFuture<List<Training>> findByDateRange(LocalDate from, LocalDate to) {
+        return serviceExecutor.supply(() -> trainingService.findByDateRange(from, to));
+    }
+
+    public CompletableFuture<Page<Training>> findPage(String cursor, int limit) {
+        return serviceExecutor.supply(() -> trainingService.findPage(cursor, limit));
+    }
+
+    public CompletableFuture<Page<Training>> findPageOrderedByDate(String cursor, int limit) {
+        return serviceExecutor.supply(() -> trainingService.findPageOrderedByDate(cursor, limit));
+    }
+
+    public CompletableFuture<Optional<TrainingType>> findTrainingTypeById(UUID typeId) {
+        if (typeId == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return serviceExecutor.supply(() -> trainingService.findTrainingTypeById(typeId));
+    }
+
+    /**
+     * Find a training and then, concurrently, its trainee, trainer and training type.
+     *
+     * @return A future of the details, or of an empty Optional if the training is not found.
+     */
+    public CompletableFuture<Optional<TrainingDetails>> findDetails(UUID id) {
+        CompletableFuture<Optional<Training>> training = findById(id);
+        CompletableFuture<Optional<TrainingDetails>> details = training.thenCompose(found -> found.isEmpty()
+                ? CompletableFuture.completedFuture(Optional.empty())
+                : detailsOf(found.get()).thenApply(Optional::of));
+        return ServiceExecutor.cancelling(details, training);
+    }
+
+    /**
+     * Find one page of trainings ordered by date, with the details of every training on it looked up concurrently.
+     */
+    public CompletableFuture<Page<TrainingDetails>> findDetailsPage(String cursor, int limit) {
+        CompletableFuture<Page<Training>> page = findPageOrderedByDate(cursor, limit);
+        CompletableFuture<Page<TrainingDetails>> details = page.thenCompose(trainings -> {
+            List<CompletableFuture<TrainingDetails>> lookups = trainings.getItems().stream()
+                    .map(this::detailsOf)
+                    .toList();
+            CompletableFuture<Page<TrainingDetails>> all = CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new))
+                    .thenApply(ignored -> new Page<>(lookups.stream().map(CompletableFuture::join).toList(),
+                            trainings.getNextCursor()));
+            return ServiceExecutor.cancelling(all, lookups.toArray(CompletableFuture[]::new));
+        });
+        return ServiceExecutor.cancelling(details, page);
+    }
+
+    /**
+     * Publish all trainings, no faster than the subscriber requests them.
+     * Each subscriber gets its own weakly consistent pass over the storage.
+     */
+    public Flow.Publisher<Training> publishAll() {
+        return serviceExecutor.publish(trainingService::stream);
+    }
+
+    private CompletableFuture<TrainingDetails> detailsOf(Training training) {
+        CompletableFuture<Optional<Trainee>> trainee = traineeAsyncService.findById(training.getTraineeId());
+        CompletableFuture<Optional<Trainer>> trainer = trainerAsyncService.findById(training.getTrainerId());
+        CompletableFuture<Optional<TrainingType>> type = findTrainingTypeById(training.getTrainingTypeId());
+        CompletableFuture<TrainingDetails> details = CompletableFuture.allOf(trainee, trainer, type)
+                .thenApply(ignored -> new TrainingDetails(training, trainee.join().orElse(null),
+                        trainer.join().orElse(null), type.join().orElse(null)));
+        return ServiceExecutor.cancelling(details, trainee, trainer, type);
+    }
+}
@@ -1,16 +1,30 @@
 package com.example.gym.service;
 
 import com.example.gym.dao.TrainingDAO;
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TimeSlot;
 import com.example.gym.dto.TrainingRequestDto;
+import com.example.gym.dto.TrainingVolume;
+import com.example.gym.dto.VolumePeriod;
 import com.example.gym.exception.InvalidInputException;
 import com.example.gym.exception.NotFoundException;
+import com.example.gym.exception.ScheduleConflictException;
+import com.example.gym.exception.VersionConflictException;
 import com.example.gym.models.Training;
+import com.example.gym.models.TrainingType;
+import com.example.gym.util.OptimisticRetry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Service for managing Training entities.
@@ -28,11 +42,23 @@ public class TrainingService {
      * @return The newly created Training record.
      * @throws InvalidInputException if any required field is missing or invalid.
      * @throws NotFoundException if the associated Trainee or Trainer does not exist.
+     * @throws ScheduleConflictException if the training overlaps another of its Trainee or Trainer and overlaps are rejected.
      */
     public Training save(TrainingRequestDto trainingRequestDto) {
         return trainingDAO.save(trainingRequestDto);
     }
 
+    /**
+     * Creates and saves a batch of training records. Invalid requests and requests referencing a missing
+     * Trainee or Trainer are reported instead of failing the batch; all valid records are saved in one commit.
+     *
+     * @param trainingRequestDtos The data required to create each training record.
+     * @return The created Training records and an error message per rejected request, keyed by its index.
+     */
+    public BatchResult<Training> saveAll(List<TrainingRequestDto> trainingRequestDtos) {
+        return trainingDAO.saveAll(trainingRequestDtos);
+    }
+
     /**
      * Retrieves a training record by its unique ID.
      *
@@ -53,7 +79,19 @@ public class TrainingService {
     }
 
     /**
-     * Deletes a training record by its unique ID. This method also removes associated trainer, trainee, and training type records.
+     * Streams all training records straight from storage, without copying them into a list.
+     * The stream is lazy and reads one point-in-time snapshot of the storage taken at the call, so it
+     * never fails on concurrent changes, splits well for parallel use and stops early on
+     * short-circuiting operations. Close it when done, so the snapshot is released.
+     *
+     * @return A Stream of all training records.
+     */
+    public Stream<Training> stream() {
+        return trainingDAO.stream();
+    }
+
+    /**
+     * Deletes a training record by its unique ID. Its trainee and trainer are kept; the training type goes with its last training.
      *
      * @param id The unique ID of the training record to delete.
      */
@@ -68,8 +106,237 @@ public class TrainingService {
      * @param trainingRequestDto The data used to update the training record.
      * @return The updated Training record.
      * @throws NotFoundException if the associated Trainee or Trainer does not exist.
+     * @throws ScheduleConflictException if the training overlaps another of its Trainee or Trainer and overlaps are rejected.
      */
     public Training update(UUID id, TrainingRequestDto trainingRequestDto) {
         return trainingDAO.update(id, trainingRequestDto);
     }
+
+    /**
+     * Update an existing Training only if it is still at the version the caller read, so a concurrent
+     * change is never silently overwritten. Every update moves the Training to the next version.
+     *
+     * @param id                 The unique identifier of the Training to be updated.
+     * @param expectedVersion    The version the change was based on.
+     * @param trainingRequestDto The updated information.
+     * @return The updated Training entity.
+     * @throws NotFoundException         When the Training with the specified ID is not found.
+     * @throws VersionConflictException  When the Training is no longer at the expected version.
+     * @throws ScheduleConflictException When the Training would overlap another of its Trainee or Trainer and overlaps are rejected.
+     */
+    public Training updateIfVersion(UUID id, long expectedVersion, TrainingRequestDto trainingRequestDto) {
+        return trainingDAO.updateIfVersion(id, expectedVersion, trainingRequestDto);
+    }
+
+    /**
+     * Update an existing Training with a change computed from its current state. When another writer
+     * changes it in between, it is read again and the change recomputed, up to maxAttempts times.
+     *
+     * @param id          The unique identifier of the Training to be updated.
+     * @param change      Computes the update from the current Training; may run more than once.
+     * @param maxAttempts How often to try at most.
+     * @return The updated Training entity.
+     * @throws NotFoundException        When the Training with the specified ID is not found.
+     * @throws VersionConflictException When every attempt lost to a concurrent change.
+     */
+    public Training updateWithRetry(UUID id, Function<Training, TrainingRequestDto> change, int maxAttempts) {
+        return OptimisticRetry.retry(maxAttempts, () -> {
+            Training current = trainingDAO.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Training not found with ID: " + id));
+            return trainingDAO.updateIfVersion(id, current.getVersion(), change.apply(current));
+        });
+    }
+
+    /**
+     * Retrieves all training records of a trainee, ordered by date.
+     *
+     * @param traineeId The unique ID of the trainee.
+     * @return A List of the trainee's training records, empty if there are none.
+     */
+    public List<Training> findByTraineeId(UUID traineeId) {
+        return trainingDAO.findByTraineeId(traineeId);
+    }
+
+    /**
+     * Retrieves all training records of a trainer, ordered by date.
+     *
+     * @param trainerId The unique ID of the trainer.
+     * @return A List of the trainer's training records, empty if there are none.
+     */
+    public List<Training> findByTrainerId(UUID trainerId) {
+        return trainingDAO.findByTrainerId(trainerId);
+    }
+
+    /**
+     * Retrieves the training records of a trainee dated within the given range, ordered by date.
+     *
+     * @param traineeId The unique ID of the trainee.
+     * @param from      The first date of the range, inclusive.
+     * @param to        The last date of the range, inclusive.
+     * @return A List of matching training records.
+     * @throws InvalidInputException if the range is missing or from is after to.
+     */
+    public List<Training> findByTraineeIdAndDateRange(UUID traineeId, LocalDate from, LocalDate to) {
+        return trainingDAO.findByTraineeIdAndDateRange(traineeId, from, to);
+    }
+
+    /**
+     * Retrieves the training records of a trainer dated within the given range, ordered by date.
+     *
+     * @param trainerId The unique ID of the trainer.
+     * @param from      The first date of the range, inclusive.
+     * @param to        The last date of the range, inclusive.
+     * @return A List of matching training records.
+     * @throws InvalidInputException if the range is missing or from is after to.
+     */
+    public List<Training> findByTrainerIdAndDateRange(UUID trainerId, LocalDate from, LocalDate to) {
+        return trainingDAO.findByTrainerIdAndDateRange(trainerId, from, to);
+    }
+
+    /**
+     * Retrieves all training records dated within the given range, ordered by date.
+     *
+     * @param from The first date of the range, inclusive.
+     * @param to   The last date of the range, inclusive.
+     * @return A List of matching training records.
+     * @throws InvalidInputException if the range is missing or from is after to.
+     */
+    public List<Training> findByDateRange(LocalDate from, LocalDate to) {
+        return trainingDAO.findByDateRange(from, to);
+    }
+
+    /**
+     * Retrieves one page of training records ordered by their unique ID.
+     *
+     * @param cursor The next cursor of the previous page, or null for the first page.
+     * @param limit  The maximum number of training records on the page.
+     * @return The page of training records and the cursor of the page after it.
+     * @throws InvalidInputException if the cursor is malformed or the limit is out of range.
+     */
+    public Page<Training> findPage(String cursor, int limit) {
+        return trainingDAO.findPage(cursor, limit);
+    }
+
+    /**
+     * Retrieves one page of training records ordered by date.
+     *
+     * @param cursor The next cursor of the previous page, or null for the first page.
+     * @param limit  The maximum number of training records on the page.
+     * @return The page of training records and the cursor of the page after it.
+     * @throws InvalidInputException if the cursor is malformed or the limit is out of range.
+     */
+    public Page<Training> findPageOrderedByDate(String cursor, int limit) {
+        return trainingDAO.findPageOrderedByDate(cursor, limit);
+    }
+
+    /**
+     * Groups all training records by their training type.
+     *
+     * @return A Map from each training type in use to its training records.
+     */
+    public Map<TrainingType, List<Training>> groupByTrainingType() {
+        return trainingDAO.groupByTrainingType();
+    }
+
+    /**
+     * Retrieves a training type by its name.
+     *
+     * @param typeName The name of the training type.
+     * @return An Optional containing the training type, or an empty Optional if no training uses it.
+     */
+    public Optional<TrainingType> findTrainingTypeByName(String typeName) {
+        return trainingDAO.findTrainingTypeByName(typeName);
+    }
+
+    /**
+     * Retrieves a training type by its unique ID.
+     *
+     * @param typeId The unique ID of the training type.
+     * @return An Optional containing the training type, or an empty Optional if no training uses it.
+     */
+    public Optional<TrainingType> findTrainingTypeById(UUID typeId) {
+        return trainingDAO.findTrainingTypeById(typeId);
+    }
+
+    /**
+     * Retrieves the training volume of a trainee in the day, week or month containing the given date.
+     * Volumes are maintained as trainings change, so this does not scan the trainings.
+     *
+     * @param traineeId The unique ID of the trainee.
+     * @param period    The calendar bucket to aggregate by.
+     * @param date      Any date within the bucket.
+     * @return The count, total duration and first and last date of the trainee's trainings in the bucket.
+     * @throws InvalidInputException if the period or date is missing.
+     */
+    public TrainingVolume findTraineeVolume(UUID traineeId, VolumePeriod period, LocalDate date) {
+        return trainingDAO.findTraineeVolume(traineeId, period, date);
+    }
+
+    /**
+     * Retrieves the training volume of a trainer in the day, week or month containing the given date.
+     *
+     * @param trainerId The unique ID of the trainer.
+     * @param period    The calendar bucket to aggregate by.
+     * @param date      Any date within the bucket.
+     * @return The count, total duration and first and last date of the trainer's trainings in the bucket.
+     * @throws InvalidInputException if the period or date is missing.
+     */
+    public TrainingVolume findTrainerVolume(UUID trainerId, VolumePeriod period, LocalDate date) {
+        return trainingDAO.findTrainerVolume(trainerId, period, date);
+    }
+
+    /**
+     * Retrieves the training volume of a training type in the day, week or month containing the given date.
+     *
+     * @param typeName The name of the training type.
+     * @param period   The calendar bucket to aggregate by.
+     * @param date     Any date within the bucket.
+     * @return The count, total duration and first and last date of the type's trainings in the bucket;
+     *         an empty volume if no training uses the type.
+     * @throws InvalidInputException if the period or date is missing.
+     */
+    public TrainingVolume findTrainingTypeVolume(String typeName, VolumePeriod period, LocalDate date) {
+        return trainingDAO.findTrainingTypeVolume(typeName, period, date);
+    }
+
+    /**
+     * Retrieves the trainings of the same trainee or trainer whose time overlaps the given training.
+     * Only trainings with a start time have a time; a training without one overlaps nothing.
+     *
+     * @param id The unique ID of the training.
+     * @return A List of the overlapping training records, empty if there are none.
+     * @throws NotFoundException if the training does not exist.
+     */
+    public List<Training> findConflicts(UUID id) {
+        return trainingDAO.findConflicts(id);
+    }
+
+    /**
+     * Retrieves the stretches between from and to in which a trainee has no training, looked up in the
+     * trainee's schedule index rather than by scanning trainings.
+     *
+     * @param traineeId  The unique ID of the trainee.
+     * @param from       The start of the range, inclusive.
+     * @param to         The end of the range, exclusive.
+     * @param minMinutes The shortest free stretch worth returning.
+     * @return The free time slots in chronological order.
+     * @throws InvalidInputException if the range is missing or empty, or minMinutes is negative.
+     */
+    public List<TimeSlot> findTraineeFreeSlots(UUID traineeId, LocalDateTime from, LocalDateTime to, long minMinutes) {
+        return trainingDAO.findTraineeFreeSlots(traineeId, from, to, minMinutes);
+    }
+
+    /**
+     * Retrieves the stretches between from and to in which a trainer has no training.
+     *
+     * @param trainerId  The unique ID of the trainer.
+     * @param from       The start of the range, inclusive.
+     * @param to         The end of the range, exclusive.
+     * @param minMinutes The shortest free stretch worth returning.
+     * @return The free time slots in chronological order.
+     * @throws InvalidInputException if the range is missing or empty, or minMinutes is negative.
+     */
+    public List<TimeSlot> findTrainerFreeSlots(UUID trainerId, LocalDateTime from, LocalDateTime to, long minMinutes) {
+        return trainingDAO.findTrainerFreeSlots(trainerId, from, to, minMinutes);
+    }
 }
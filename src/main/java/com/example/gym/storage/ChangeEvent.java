@@ -0,0 +1,42 @@
+package com.example.gym.storage;
+
+import java.util.UUID;
+
+/**
+ * One put or remove on a storage map, as published by the {@link ChangeStream}.
+ *
+ * @param sequence Position of the event in the stream, one more than the event before it.
+ * @param kind     The map that changed.
+ * @param id       The id of the entity that changed.
+ * @param before   The entity before the change, or null if it was created.
+ * @param after    The entity after the change, or null if it was deleted.
+ */
+public record ChangeEvent(long sequence, EntityKind kind, UUID id, Object before, Object after) {
+
+    public enum Type {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    public Type type() {
+        if (before == null) {
+            return Type.CREATE;
+        }
+        return after == null ? Type.DELETE : Type.UPDATE;
+    }
+
+    /**
+     * @return The entity before the change, as the given type.
+     */
+    public <T> T before(Class<T> type) {
+        return type.cast(before);
+    }
+
+    /**
+     * @return The entity after the change, as the given type.
+     */
+    public <T> T after(Class<T> type) {
+        return type.cast(after);
+    }
+}
@@ -0,0 +1,374 @@
+package com.example.gym.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * In-process change data capture: every put and remove on the storage maps, published to
+ * subscribers through a preallocated ring buffer.
+ * <p>
+ * A writer claims the next sequence number and fills the slot of that sequence in place.
+ * Nothing is allocated or locked on the write path.
+ * <p>
+ * Each subscription has its own cursor and thread, and takes events in batches.
+ * <ul>
+ *     <li>A {@link Overflow#DROP} subscription never holds writers back. When it falls a full ring
+ *     behind, it skips what was overwritten and counts it as dropped.</li>
+ *     <li>A {@link Overflow#BLOCK} subscription makes writers wait once the ring is full. Writers
+ *     publish inside their locked action, so a slow blocking subscriber also stalls other writers
+ *     of the same ids.</li>
+ * </ul>
+ * Events are delivered in sequence order. Writes to one id are serialized by {@link StorageLocks}, so
+ * its events arrive in the order it was written. With no subscription, publishing is a single read.
+ */
+@Component
+public class ChangeStream implements StorageListener {
+
+    public enum Overflow {
+        /**
+         * Skip the events a slow subscriber was lapped on.
+         */
+        DROP,
+        /**
+         * Make writers wait for a slow subscriber.
+         */
+        BLOCK
+    }
+
+    public static final int DEFAULT_BATCH = 256;
+
+    // the slot is being written
+    private static final long IN_PROGRESS = Long.MIN_VALUE;
+
+    private static final int SPIN_TRIES = 100;
+
+    private static final int YIELD_TRIES = 100;
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStream.class);
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final Overflow defaultOverflow;
+
+    private final Slot[] slots;
+
+    // the sequence each slot holds; a slot holds a sequence until the writer one lap later claims it
+    private final AtomicLongArray published;
+
+    private final AtomicLong next = new AtomicLong();
+
+    private volatile Subscription[] subscriptions = new Subscription[0];
+
+    private volatile Subscription[] blocking = new Subscription[0];
+
+    public ChangeStream(@Value("${storage.changes.capacity:65536}") int capacity,
+                        @Value("${storage.changes.overflow:DROP}") Overflow defaultOverflow) {
+        this.capacity = Integer.highestOneBit(Math.max(1, capacity - 1) << 1);
+        this.mask = this.capacity - 1;
+        this.defaultOverflow = defaultOverflow;
+        this.slots = new Slot[this.capacity];
+        this.published = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            slots[i] = new Slot();
+            published.set(i, i - this.capacity);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The sequence number the next event will get.
+     */
+    public long getSequence() {
+        return next.get();
+    }
+
+    @Override
+    public void onPut(EntityKind kind, UUID id, Object previous, Object value) {
+        publish(kind, id, previous, value);
+    }
+
+    @Override
+    public void onRemove(EntityKind kind, UUID id, Object previous) {
+        publish(kind, id, previous, null);
+    }
+
+    /**
+     * Subscribe to every kind of entity, with the default batch size and overflow policy.
+     */
+    public Subscription subscribe(String name, Consumer<List<ChangeEvent>> handler) {
+        return subscribe(name, EnumSet.allOf(EntityKind.class), DEFAULT_BATCH, defaultOverflow, handler);
+    }
+
+    /**
+     * Start a subscription at the current end of the stream. Its handler runs on a thread of its own,
+     * with up to maxBatch events at a time, in sequence order. A handler that throws loses its batch
+     * and is called with the next one. The handler of a blocking subscription must not write to the
+     * storage, or it may wait for itself.
+     *
+     * @param name     Name of the subscription and its thread.
+     * @param kinds    The entity kinds to deliver; events of other kinds are skipped.
+     * @param maxBatch The most events to hand to the handler at once, at least 1.
+     * @param overflow What happens when the subscription falls a full ring behind.
+     * @param handler  Takes each batch; the list is the handler's to keep.
+     */
+    public Subscription subscribe(String name, Set<EntityKind> kinds, int maxBatch, Overflow overflow,
+                                  Consumer<List<ChangeEvent>> handler) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(handler);
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be at least 1");
+        }
+        Subscription subscription;
+        synchronized (this) {
+            subscription = new Subscription(name, EnumSet.copyOf(kinds), maxBatch, overflow, handler, next.get());
+            subscriptions = append(subscriptions, subscription);
+            if (overflow == Overflow.BLOCK) {
+                blocking = append(blocking, subscription);
+            }
+        }
+        subscription.thread.start();
+        logger.info("Change stream subscription {} started at sequence {}", name, subscription.cursor);
+        return subscription;
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    private void publish(EntityKind kind, UUID id, Object before, Object after) {
+        if (subscriptions.length == 0) {
+            return;
+        }
+        long sequence = next.getAndIncrement();
+        long wrapPoint = sequence - capacity;
+        if (blocking.length > 0) {
+            for (int idle = 0; wrapPoint >= minCursor(blocking); idle++) {
+                backOff(idle);
+            }
+        }
+        int index = (int) sequence & mask;
+        // the writer one lap earlier may not have finished with the slot yet
+        for (int idle = 0; !published.compareAndSet(index, wrapPoint, IN_PROGRESS); idle++) {
+            backOff(idle);
+        }
+        Slot slot = slots[index];
+        slot.kind = kind;
+        slot.id = id;
+        slot.before = before;
+        slot.after = after;
+        published.setRelease(index, sequence);
+    }
+
+    private static long minCursor(Subscription[] subscriptions) {
+        long min = Long.MAX_VALUE;
+        for (Subscription subscription : subscriptions) {
+            min = Math.min(min, subscription.cursor);
+        }
+        return min;
+    }
+
+    private synchronized void remove(Subscription subscription) {
+        subscriptions = without(subscriptions, subscription);
+        blocking = without(blocking, subscription);
+    }
+
+    private static Subscription[] append(Subscription[] subscriptions, Subscription subscription) {
+        Subscription[] result = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        result[subscriptions.length] = subscription;
+        return result;
+    }
+
+    private static Subscription[] without(Subscription[] subscriptions, Subscription subscription) {
+        return Arrays.stream(subscriptions).filter(other -> other != subscription).toArray(Subscription[]::new);
+    }
+
+    /**
+     * Spin, then yield, then park for longer and longer, up to a millisecond.
+     */
+    private static void backOff(int idle) {
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1_000L << Math.min(idle - SPIN_TRIES - YIELD_TRIES, 20)));
+        }
+    }
+
+    private static final class Slot {
+
+        private EntityKind kind;
+
+        private UUID id;
+
+        private Object before;
+
+        private Object after;
+    }
+
+    /**
+     * A subscriber's position in the stream, and the thread that delivers to it.
+     */
+    public final class Subscription implements AutoCloseable, Runnable {
+
+        private final String name;
+
+        private final Set<EntityKind> kinds;
+
+        private final int maxBatch;
+
+        private final Overflow overflow;
+
+        private final Consumer<List<ChangeEvent>> handler;
+
+        private final Thread thread;
+
+        // the next sequence to hand to the handler; writes only by the subscription's thread
+        private volatile long cursor;
+
+        private volatile long dropped;
+
+        private volatile boolean closed;
+
+        private Subscription(String name, Set<EntityKind> kinds, int maxBatch, Overflow overflow,
+                             Consumer<List<ChangeEvent>> handler, long cursor) {
+            this.name = name;
+            this.kinds = kinds;
+            this.maxBatch = maxBatch;
+            this.overflow = overflow;
+            this.handler = handler;
+            this.cursor = cursor;
+            this.thread = new Thread(this, "change-stream-" + name);
+            thread.setDaemon(true);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Overflow getOverflow() {
+            return overflow;
+        }
+
+        /**
+         * @return The sequence number of the next event to deliver.
+         */
+        public long getCursor() {
+            return cursor;
+        }
+
+        /**
+         * @return How many events were published and not delivered yet.
+         */
+        public long getLag() {
+            return Math.max(0, next.get() - cursor);
+        }
+
+        /**
+         * @return How many events were skipped because writers lapped the subscription.
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * Stop the subscription and wait for a running handler to return. Events not yet
+         * delivered are not delivered anymore.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            remove(this);
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join(CLOSE_TIMEOUT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            logger.info("Change stream subscription {} closed at sequence {}, {} events dropped", name, cursor, dropped);
+        }
+
+        @Override
+        public void run() {
+            List<ChangeEvent> batch = new ArrayList<>();
+            int idle = 0;
+            while (!closed) {
+                long position = cursor;
+                long start = position;
+                while (position - start < maxBatch) {
+                    int index = (int) position & mask;
+                    long sequence = published.getAcquire(index);
+                    if (sequence == position) {
+                        Slot slot = slots[index];
+                        EntityKind kind = slot.kind;
+                        UUID id = slot.id;
+                        Object before = slot.before;
+                        Object after = slot.after;
+                        VarHandle.loadLoadFence();
+                        if (published.get(index) == position) {
+                            if (kinds.contains(kind)) {
+                                batch.add(new ChangeEvent(position, kind, id, before, after));
+                            }
+                            position++;
+                            continue;
+                        }
+                    } else if (sequence == IN_PROGRESS || sequence < position) {
+                        // not published yet
+                        break;
+                    }
+                    // a writer a lap ahead took the slot; go on half a ring behind the writers,
+                    // so the next reads do not race them for the oldest slots again
+                    long resume = Math.max(position + 1, next.get() - capacity / 2);
+                    dropped += resume - position;
+                    logger.warn("Change stream subscription {} fell behind, dropped {} events", name, resume - position);
+                    position = resume;
+                    start = position;
+                }
+                if (!batch.isEmpty()) {
+                    try {
+                        handler.accept(batch);
+                    } catch (RuntimeException e) {
+                        logger.error("Change stream subscription {} failed on events {} to {}", name,
+                                batch.get(0).sequence(), batch.get(batch.size() - 1).sequence(), e);
+                    }
+                    batch = new ArrayList<>();
+                }
+                if (position == cursor) {
+                    backOff(idle++);
+                    idle = Math.min(idle, SPIN_TRIES + YIELD_TRIES + 20);
+                } else {
+                    cursor = position;
+                    idle = 0;
+                }
+            }
+        }
+    }
+}
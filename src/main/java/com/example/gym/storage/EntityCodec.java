@@ -0,0 +1,236 @@
+package com.example.gym.storage;
+
+import com.example.gym.models.*;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of the storage entities, shared by snapshots and the journal.
+ * A null UUID is written as the nil UUID, a null string as length -1.
+ * <p>
+ * Version 2 appends the start time to a training, version 3 the entity version to users, trainees,
+ * trainers and trainings. Journal records carry no format version, so a record that ends before
+ * a field appended later is read as written before that field existed: no start time, version 0.
+ */
+public final class EntityCodec {
+
+    public static final short VERSION = 3;
+
+    private static final int NULL_DATE = Integer.MIN_VALUE;
+
+    private static final int NULL_TIME = -1;
+
+    private static final byte NULL_NUMBER = 0;
+
+    private static final byte LONG_NUMBER = 1;
+
+    private static final byte DOUBLE_NUMBER = 2;
+
+    private EntityCodec() {
+    }
+
+    public static void write(DataOutput out, EntityKind kind, Object value) throws IOException {
+        switch (kind) {
+            case USER -> writeUser(out, (User) value);
+            case TRAINEE -> writeTrainee(out, (Trainee) value);
+            case TRAINER -> writeTrainer(out, (Trainer) value);
+            case TRAINING_TYPE -> writeTrainingType(out, (TrainingType) value);
+            case TRAINING -> writeTraining(out, (Training) value);
+        }
+    }
+
+    public static Object read(ByteBuffer in, EntityKind kind) {
+        return read(in, kind, VERSION);
+    }
+
+    public static Object read(ByteBuffer in, EntityKind kind, short version) {
+        return switch (kind) {
+            case USER -> readUser(in, version);
+            case TRAINEE -> readTrainee(in, version);
+            case TRAINER -> readTrainer(in, version);
+            case TRAINING_TYPE -> readTrainingType(in);
+            case TRAINING -> readTraining(in, version);
+        };
+    }
+
+    public static UUID idOf(EntityKind kind, Object value) {
+        return switch (kind) {
+            case USER -> ((User) value).getId();
+            case TRAINEE -> ((Trainee) value).getId();
+            case TRAINER -> ((Trainer) value).getId();
+            case TRAINING_TYPE -> ((TrainingType) value).getId();
+            case TRAINING -> ((Training) value).getId();
+        };
+    }
+
+    public static void writeUser(DataOutput out, User user) throws IOException {
+        writeUuid(out, user.getId());
+        writeString(out, user.getFirstName());
+        writeString(out, user.getLastName());
+        writeString(out, user.getUsername());
+        writeString(out, user.getPassword());
+        out.writeBoolean(user.isActive());
+        out.writeLong(user.getVersion());
+    }
+
+    public static User readUser(ByteBuffer in) {
+        return readUser(in, VERSION);
+    }
+
+    public static User readUser(ByteBuffer in, short version) {
+        return User.builder()
+                .id(readUuid(in))
+                .firstName(readString(in))
+                .lastName(readString(in))
+                .username(readString(in))
+                .password(readString(in))
+                .isActive(in.get() != 0)
+                .version(readVersion(in, version))
+                .build();
+    }
+
+    public static void writeTrainee(DataOutput out, Trainee trainee) throws IOException {
+        writeUuid(out, trainee.getId());
+        writeUuid(out, trainee.getUserId());
+        writeString(out, trainee.getAddress());
+        out.writeLong(trainee.getVersion());
+    }
+
+    public static Trainee readTrainee(ByteBuffer in) {
+        return readTrainee(in, VERSION);
+    }
+
+    public static Trainee readTrainee(ByteBuffer in, short version) {
+        return Trainee.builder()
+                .id(readUuid(in))
+                .userId(readUuid(in))
+                .address(readString(in))
+                .version(readVersion(in, version))
+                .build();
+    }
+
+    public static void writeTrainer(DataOutput out, Trainer trainer) throws IOException {
+        writeUuid(out, trainer.getId());
+        writeUuid(out, trainer.getUserId());
+        writeString(out, trainer.getSpecialization());
+        out.writeLong(trainer.getVersion());
+    }
+
+    public static Trainer readTrainer(ByteBuffer in) {
+        return readTrainer(in, VERSION);
+    }
+
+    public static Trainer readTrainer(ByteBuffer in, short version) {
+        return Trainer.builder()
+                .id(readUuid(in))
+                .userId(readUuid(in))
+                .specialization(readString(in))
+                .version(readVersion(in, version))
+                .build();
+    }
+
+    public static void writeTraining(DataOutput out, Training training) throws IOException {
+        writeUuid(out, training.getId());
+        writeUuid(out, training.getTraineeId());
+        writeUuid(out, training.getTrainerId());
+        writeUuid(out, training.getTrainingTypeId());
+        writeString(out, training.getName());
+        out.writeInt(training.getDate() == null ? NULL_DATE : (int) training.getDate().toEpochDay());
+        writeNumber(out, training.getDuration());
+        out.writeInt(training.getStartTime() == null ? NULL_TIME : training.getStartTime().toSecondOfDay());
+        out.writeLong(training.getVersion());
+    }
+
+    public static Training readTraining(ByteBuffer in) {
+        return readTraining(in, VERSION);
+    }
+
+    public static Training readTraining(ByteBuffer in, short version) {
+        Training training = new Training();
+        training.setId(readUuid(in));
+        training.setTraineeId(readUuid(in));
+        training.setTrainerId(readUuid(in));
+        training.setTrainingTypeId(readUuid(in));
+        training.setName(readString(in));
+        int epochDay = in.getInt();
+        training.setDate(epochDay == NULL_DATE ? null : LocalDate.ofEpochDay(epochDay));
+        training.setDuration(readNumber(in));
+        if (version >= 2 && in.remaining() >= Integer.BYTES) {
+            int secondOfDay = in.getInt();
+            training.setStartTime(secondOfDay == NULL_TIME ? null : LocalTime.ofSecondOfDay(secondOfDay));
+        }
+        training.setVersion(readVersion(in, version));
+        return training;
+    }
+
+    public static void writeTrainingType(DataOutput out, TrainingType trainingType) throws IOException {
+        writeUuid(out, trainingType.getId());
+        writeString(out, trainingType.getTypeName());
+    }
+
+    public static TrainingType readTrainingType(ByteBuffer in) {
+        return new TrainingType(readUuid(in), readString(in));
+    }
+
+    private static long readVersion(ByteBuffer in, short version) {
+        return version >= 3 && in.remaining() >= Long.BYTES ? in.getLong() : 0;
+    }
+
+    public static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+        out.writeLong(uuid == null ? 0 : uuid.getMostSignificantBits());
+        out.writeLong(uuid == null ? 0 : uuid.getLeastSignificantBits());
+    }
+
+    public static UUID readUuid(ByteBuffer in) {
+        long most = in.getLong();
+        long least = in.getLong();
+        return most == 0 && least == 0 ? null : new UUID(most, least);
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNumber(DataOutput out, Number number) throws IOException {
+        if (number == null) {
+            out.writeByte(NULL_NUMBER);
+        } else if (number instanceof Double || number instanceof Float) {
+            out.writeByte(DOUBLE_NUMBER);
+            out.writeDouble(number.doubleValue());
+        } else {
+            out.writeByte(LONG_NUMBER);
+            out.writeLong(number.longValue());
+        }
+    }
+
+    private static Number readNumber(ByteBuffer in) {
+        byte kind = in.get();
+        if (kind == LONG_NUMBER) {
+            long value = in.getLong();
+            return value == (int) value ? (Number) (int) value : (Number) value;
+        }
+        return kind == DOUBLE_NUMBER ? in.getDouble() : null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.gym.storage;
+
+/**
+ * The five entity maps of InMemoryStorage, with the tag used for them in snapshots and the journal.
+ */
+public enum EntityKind {
+    USER((byte) 1),
+    TRAINEE((byte) 2),
+    TRAINER((byte) 3),
+    TRAINING_TYPE((byte) 4),
+    TRAINING((byte) 5);
+
+    private final byte tag;
+
+    EntityKind(byte tag) {
+        this.tag = tag;
+    }
+
+    public byte getTag() {
+        return tag;
+    }
+
+    public static EntityKind fromTag(byte tag) {
+        for (EntityKind kind : values()) {
+            if (kind.tag == tag) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown entity tag " + tag);
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.gym.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Half-open intervals [start, end) in an AVL tree ordered by start, end and id. Every node also
+ * keeps the largest end in its subtree, so an overlap query descends only into subtrees that can
+ * still reach the queried interval: O(log n) plus the number of overlaps found.
+ * Not thread-safe.
+ */
+public final class IntervalTree {
+
+    public record Interval(long start, long end, UUID id) {
+    }
+
+    private Node root;
+
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public void insert(long start, long end, UUID id) {
+        root = insert(root, new Interval(start, end, id));
+    }
+
+    /**
+     * @return true if the interval was in the tree.
+     */
+    public boolean remove(long start, long end, UUID id) {
+        int before = size;
+        root = remove(root, new Interval(start, end, id));
+        return size < before;
+    }
+
+    /**
+     * @return The intervals overlapping [start, end), ordered by start.
+     */
+    public List<Interval> overlapping(long start, long end) {
+        List<Interval> found = new ArrayList<>();
+        collect(root, start, end, found);
+        return found;
+    }
+
+    private static void collect(Node node, long start, long end, List<Interval> found) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, found);
+        if (node.interval.start() >= end) {
+            return;
+        }
+        if (node.interval.end() > start) {
+            found.add(node.interval);
+        }
+        collect(node.right, start, end, found);
+    }
+
+    private Node insert(Node node, Interval interval) {
+        if (node == null) {
+            size++;
+            return new Node(interval);
+        }
+        int order = compare(interval, node.interval);
+        if (order < 0) {
+            node.left = insert(node.left, interval);
+        } else if (order > 0) {
+            node.right = insert(node.right, interval);
+        } else {
+            return node;
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, Interval interval) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(interval, node.interval);
+        if (order < 0) {
+            node.left = remove(node.left, interval);
+        } else if (order > 0) {
+            node.right = remove(node.right, interval);
+        } else {
+            size--;
+            if (node.left == null || node.right == null) {
+                return node.left != null ? node.left : node.right;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = removeMin(node.right);
+            successor.left = node.left;
+            successor.right = node.right;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private static Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.interval.end();
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int compare(Interval a, Interval b) {
+        int order = Long.compare(a.start(), b.start());
+        if (order == 0) {
+            order = Long.compare(a.end(), b.end());
+        }
+        return order != 0 ? order : a.id().compareTo(b.id());
+    }
+
+    private static final class Node {
+
+        private final Interval interval;
+
+        private Node left;
+
+        private Node right;
+
+        private int height = 1;
+
+        private long maxEnd;
+
+        private Node(Interval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.end();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.gym.storage;
+
+import com.example.gym.dto.Page;
+import com.example.gym.exception.InvalidInputException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Entity ids ordered by a sort key, with the id as tie breaker, for keyset pagination.
+ * A page starts right after the (sort key, id) pair encoded in the cursor, so fetching it costs
+ * O(log n + page size) regardless of how deep into the listing it is.
+ * <p>
+ * Cursors are opaque URL-safe strings. They stay valid across inserts and deletes: a page
+ * never repeats or skips an entity whose sort key did not change in between.
+ */
+public class KeysetIndex<S extends Comparable<? super S>> {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private static final UUID MAX_ID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final Function<String, S> sortKeyParser;
+
+    private final Function<S, String> sortKeyFormatter;
+
+    private final ConcurrentHashMap<UUID, Key<S>> keysById = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListSet<Key<S>> keys = new ConcurrentSkipListSet<>();
+
+    /**
+     * @param sortKeyParser    Reads a sort key back from its cursor form.
+     * @param sortKeyFormatter Writes a sort key into a cursor.
+     */
+    public KeysetIndex(Function<String, S> sortKeyParser, Function<S, String> sortKeyFormatter) {
+        this.sortKeyParser = sortKeyParser;
+        this.sortKeyFormatter = sortKeyFormatter;
+    }
+
+    /**
+     * Index an id under a sort key, replacing its previous position.
+     * Calls for the same id must not run concurrently.
+     */
+    public void put(UUID id, S sortKey) {
+        Key<S> key = new Key<>(Objects.requireNonNull(sortKey), id);
+        Key<S> previous = keysById.put(id, key);
+        if (key.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            keys.remove(previous);
+        }
+        keys.add(key);
+    }
+
+    public void remove(UUID id) {
+        Key<S> previous = keysById.remove(id);
+        if (previous != null) {
+            keys.remove(previous);
+        }
+    }
+
+    public void clear() {
+        keysById.clear();
+        keys.clear();
+    }
+
+    public int size() {
+        return keysById.size();
+    }
+
+    /**
+     * Ids with a sort key between from and to, both inclusive, in order.
+     */
+    public List<UUID> range(S from, S to) {
+        if (from.compareTo(to) > 0) {
+            return List.of();
+        }
+        List<UUID> ids = new ArrayList<>();
+        for (Key<S> key : keys.subSet(new Key<>(from, MIN_ID), true, new Key<>(to, MAX_ID), true)) {
+            ids.add(key.id());
+        }
+        return ids;
+    }
+
+    /**
+     * Read the page that follows the cursor.
+     *
+     * @param cursor   The nextCursor of the previous page, or null for the first page.
+     * @param limit    The maximum number of items, between 1 and {@link #MAX_PAGE_SIZE}.
+     * @param resolver Looks up the entity of an id; ids resolving to null (deleted meanwhile) are skipped.
+     * @return The page, with a null nextCursor if nothing follows it.
+     * @throws InvalidInputException if the cursor is malformed or the limit is out of range.
+     */
+    public <T> Page<T> page(String cursor, int limit, Function<UUID, T> resolver) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidInputException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        NavigableSet<Key<S>> remaining = cursor == null ? keys : keys.tailSet(decode(cursor), false);
+        List<T> items = new ArrayList<>(limit);
+        Key<S> last = null;
+        Iterator<Key<S>> iterator = remaining.iterator();
+        while (items.size() < limit && iterator.hasNext()) {
+            Key<S> key = iterator.next();
+            T item = resolver.apply(key.id());
+            if (item != null) {
+                items.add(item);
+                last = key;
+            }
+        }
+        String nextCursor = last != null && hasLiveKey(iterator, resolver) ? encode(last) : null;
+        return new Page<>(items, nextCursor);
+    }
+
+    /**
+     * Look ahead for a key whose entity still exists, so a page is never followed by an empty one.
+     */
+    private static <S extends Comparable<? super S>> boolean hasLiveKey(Iterator<Key<S>> iterator, Function<UUID, ?> resolver) {
+        while (iterator.hasNext()) {
+            if (resolver.apply(iterator.next().id()) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String encode(Key<S> key) {
+        String plain = sortKeyFormatter.apply(key.sortKey()) + "\n" + key.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Key<S> decode(String cursor) {
+        try {
+            String plain = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = plain.lastIndexOf('\n');
+            if (separator < 0) {
+                throw new InvalidInputException("Invalid page cursor: " + cursor);
+            }
+            S sortKey = sortKeyParser.apply(plain.substring(0, separator));
+            return new Key<>(Objects.requireNonNull(sortKey), UUID.fromString(plain.substring(separator + 1)));
+        } catch (InvalidInputException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new InvalidInputException("Invalid page cursor: " + cursor);
+        }
+    }
+
+    private record Key<S extends Comparable<? super S>>(S sortKey, UUID id) implements Comparable<Key<S>> {
+
+        @Override
+        public int compareTo(Key<S> other) {
+            int bySortKey = sortKey.compareTo(other.sortKey);
+            return bySortKey != 0 ? bySortKey : id.compareTo(other.id);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.gym.storage;
+
+import com.example.gym.exception.InvalidInputException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Search over the first names, last names and usernames of the users behind entities, for lookups by
+ * a typed fragment of a name.
+ * <p>
+ * Every word of a name and every username is a term, kept in sorted sets so the terms starting with a
+ * prefix are one range, and each term maps to the ids using it. Name terms, of which there are far
+ * fewer than users, are also indexed by their bigrams and where in the word each one is: a word within
+ * a few typos of the query shares most of its bigrams, each at most as many places away as there are
+ * typos, so only terms sharing enough of them are compared with the query at all.
+ * <p>
+ * Results are ranked exact word first, then words or usernames starting with the query, then words
+ * within one typo (queries of 3 to 7 characters) or two (longer queries) of it, fewest typos first.
+ * A typo is an inserted, missing, changed or swapped character, and may also be in the part of a
+ * word typed so far. In a query of several words the longest word finds the candidates and every
+ * other word must match a term of the same entity the same way.
+ */
+public class NameSearchIndex {
+
+    public static final int MAX_RESULTS = 100;
+
+    // candidates examined for a query of several words before giving up on filling the result
+    private static final int MAX_CANDIDATES = 10_000;
+
+    private static final char START = '$';
+
+    private final ConcurrentMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Set<UUID>> idsByName = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Set<UUID>> idsByUsername = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListSet<String> names = new ConcurrentSkipListSet<>();
+
+    private final ConcurrentSkipListSet<String> usernames = new ConcurrentSkipListSet<>();
+
+    private final ConcurrentMap<String, Set<String>> namesByBigram = new ConcurrentHashMap<>();
+
+    /**
+     * Index an id under the given names, replacing what it was indexed under before. Null names are skipped.
+     * Calls for the same id must not run concurrently.
+     */
+    public void put(UUID id, String firstName, String lastName, String username) {
+        Entry entry = new Entry(words(firstName, lastName), username == null ? null : normalize(username));
+        Entry previous = entries.put(id, entry);
+        if (entry.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            unlink(id, previous);
+        }
+        entry.names().forEach(name -> link(idsByName, names, name, id, true));
+        if (entry.username() != null) {
+            link(idsByUsername, usernames, entry.username(), id, false);
+        }
+    }
+
+    /**
+     * Calls for the same id must not run concurrently.
+     */
+    public void remove(UUID id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            unlink(id, previous);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        idsByName.clear();
+        idsByUsername.clear();
+        names.clear();
+        usernames.clear();
+        namesByBigram.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param query    One or more words, matched ignoring case.
+     * @param limit    The maximum number of results, between 1 and {@link #MAX_RESULTS}.
+     * @param resolver Looks up the entity of an id; ids resolving to null (deleted meanwhile) are skipped.
+     * @return The best matches, best first.
+     * @throws InvalidInputException if the query is blank or the limit is out of range.
+     */
+    public <T> List<T> search(String query, int limit, Function<UUID, T> resolver) {
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new InvalidInputException("Search limit must be between 1 and " + MAX_RESULTS);
+        }
+        List<String> tokens = query == null ? List.of() : words(query);
+        if (tokens.isEmpty()) {
+            throw new InvalidInputException("Search query must not be blank");
+        }
+        String primary = tokens.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+        List<String> others = new ArrayList<>(tokens);
+        others.remove(primary);
+
+        List<T> results = new ArrayList<>(limit);
+        Set<UUID> seen = new HashSet<>();
+        int[] examined = {0};
+        Function<Set<UUID>, Boolean> collect = ids -> {
+            for (UUID id : ids) {
+                if (results.size() == limit || examined[0] == MAX_CANDIDATES) {
+                    return false;
+                }
+                if (!seen.add(id)) {
+                    continue;
+                }
+                examined[0]++;
+                Entry entry = entries.get(id);
+                if (entry == null || !others.stream().allMatch(entry::matches)) {
+                    continue;
+                }
+                T result = resolver.apply(id);
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+            return true;
+        };
+
+        for (String name : names.tailSet(primary)) {
+            if (!name.startsWith(primary) || !collect.apply(idsOf(idsByName, name))) {
+                break;
+            }
+        }
+        for (String username : usernames.tailSet(primary)) {
+            if (!username.startsWith(primary) || !collect.apply(idsOf(idsByUsername, username))) {
+                break;
+            }
+        }
+        if (results.size() == limit || examined[0] == MAX_CANDIDATES) {
+            return results;
+        }
+        for (String name : similarNames(primary)) {
+            if (!collect.apply(idsOf(idsByName, name))) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The name terms within the allowed typos of the query but not starting with it, fewest typos first.
+     */
+    private List<String> similarNames(String query) {
+        int maxEdits = maxEdits(query.length());
+        if (maxEdits == 0) {
+            return List.of();
+        }
+        List<String> bigrams = bigrams(query);
+        // every typo changes at most three bigrams, a swap being the worst; sharing none is no match
+        int required = Math.max(1, bigrams.size() - 3 * maxEdits);
+        List<List<Set<String>>> postings = new ArrayList<>(bigrams.size());
+        for (int position = 0; position < bigrams.size(); position++) {
+            List<Set<String>> placed = new ArrayList<>();
+            for (int shift = Math.max(0, position - maxEdits); shift <= position + maxEdits; shift++) {
+                Set<String> named = namesByBigram.get(bigrams.get(position) + (char) shift);
+                if (named != null) {
+                    placed.add(named);
+                }
+            }
+            postings.add(placed);
+        }
+        // a term sharing the required number of bigrams shares one of any others plus one of them,
+        // so only the rarest of those are read
+        postings.sort(Comparator.comparingInt(placed -> placed.stream().mapToInt(Set::size).sum()));
+        Set<String> candidates = new HashSet<>();
+        for (List<Set<String>> placed : postings.subList(0, bigrams.size() - required + 1)) {
+            placed.forEach(candidates::addAll);
+        }
+        List<Map.Entry<String, Integer>> matches = new ArrayList<>();
+        for (String name : candidates) {
+            if (!name.startsWith(query)) {
+                int distance = prefixDistance(query, name, maxEdits);
+                if (distance <= maxEdits) {
+                    matches.add(Map.entry(name, distance));
+                }
+            }
+        }
+        matches.sort(Map.Entry.<String, Integer>comparingByValue()
+                .thenComparingInt(match -> match.getKey().length())
+                .thenComparing(Map.Entry::getKey));
+        return matches.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private void link(ConcurrentMap<String, Set<UUID>> idsByTerm, Set<String> terms, String term, UUID id, boolean name) {
+        idsByTerm.compute(term, (key, ids) -> {
+            if (ids == null) {
+                ids = ConcurrentHashMap.newKeySet();
+                terms.add(term);
+                if (name) {
+                    // add inside compute, so an unlink of another term cannot drop the set in between
+                    placedBigrams(term).forEach(bigram -> namesByBigram.compute(bigram, (k, named) -> {
+                        named = named == null ? ConcurrentHashMap.newKeySet() : named;
+                        named.add(term);
+                        return named;
+                    }));
+                }
+            }
+            ids.add(id);
+            return ids;
+        });
+    }
+
+    private void unlink(UUID id, Entry entry) {
+        entry.names().forEach(name -> unlink(idsByName, names, name, id, true));
+        if (entry.username() != null) {
+            unlink(idsByUsername, usernames, entry.username(), id, false);
+        }
+    }
+
+    private void unlink(ConcurrentMap<String, Set<UUID>> idsByTerm, Set<String> terms, String term, UUID id, boolean name) {
+        idsByTerm.computeIfPresent(term, (key, ids) -> {
+            ids.remove(id);
+            if (!ids.isEmpty()) {
+                return ids;
+            }
+            terms.remove(term);
+            if (name) {
+                placedBigrams(term).forEach(bigram -> namesByBigram.computeIfPresent(bigram, (k, named) -> {
+                    named.remove(term);
+                    return named.isEmpty() ? null : named;
+                }));
+            }
+            return null;
+        });
+    }
+
+    private static Set<UUID> idsOf(Map<String, Set<UUID>> idsByTerm, String term) {
+        return idsByTerm.getOrDefault(term, Set.of());
+    }
+
+    private static int maxEdits(int length) {
+        return length < 3 ? 0 : length < 8 ? 1 : 2;
+    }
+
+    private static List<String> bigrams(String term) {
+        String padded = START + term;
+        List<String> bigrams = new ArrayList<>(term.length());
+        for (int i = 0; i + 2 <= padded.length(); i++) {
+            bigrams.add(padded.substring(i, i + 2));
+        }
+        return bigrams;
+    }
+
+    /**
+     * The bigrams of a term, each followed by its position as a char.
+     */
+    private static List<String> placedBigrams(String term) {
+        List<String> bigrams = bigrams(term);
+        List<String> placed = new ArrayList<>(bigrams.size());
+        for (int position = 0; position < bigrams.size(); position++) {
+            placed.add(bigrams.get(position) + (char) position);
+        }
+        return placed;
+    }
+
+    /**
+     * The fewest typos turning the query into the whole term or into a start of it, or maxEdits + 1
+     * if that is more than maxEdits. Adjacent swaps count as one typo.
+     */
+    static int prefixDistance(String query, String term, int maxEdits) {
+        int rows = query.length();
+        int columns = Math.min(term.length(), rows + maxEdits);
+        int[] before = new int[columns + 1];
+        int[] previous = new int[columns + 1];
+        int[] current = new int[columns + 1];
+        for (int j = 0; j <= columns; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= rows; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= columns; j++) {
+                int cost = query.charAt(i - 1) == term.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && query.charAt(i - 1) == term.charAt(j - 2) && query.charAt(i - 2) == term.charAt(j - 1)) {
+                    value = Math.min(value, before[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = before;
+            before = previous;
+            previous = current;
+            current = recycled;
+        }
+        int best = maxEdits + 1;
+        for (int j = 0; j <= columns; j++) {
+            best = Math.min(best, previous[j]);
+        }
+        return best;
+    }
+
+    private static List<String> words(String... values) {
+        List<String> words = new ArrayList<>();
+        for (String value : values) {
+            if (value != null) {
+                for (String word : normalize(value).split("\\s+")) {
+                    if (!word.isEmpty() && !words.contains(word)) {
+                        words.add(word);
+                    }
+                }
+            }
+        }
+        return words;
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(List<String> names, String username) {
+
+        /**
+         * Whether a word of a query matches one of the entry's terms the way a single-word query would.
+         */
+        boolean matches(String token) {
+            if (username != null && username.startsWith(token)) {
+                return true;
+            }
+            int maxEdits = maxEdits(token.length());
+            for (String name : names) {
+                if (name.startsWith(token) || maxEdits > 0 && prefixDistance(token, name, maxEdits) <= maxEdits) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,902 @@
+package com.example.gym.storage;
+
+import com.example.gym.models.Training;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Training map that keeps its rows in off-heap, fixed-width columnar segments instead of objects:
+ * ids as pairs of longs, dates as epoch days, start times as seconds of the day, durations as primitive bits, and names as codes into a
+ * dictionary. The training's own version is a plain long column, unrelated to the row versions below. Apart from the dictionary and a primitive hash index, nothing per training lives on the
+ * heap, so tens of millions of trainings add almost nothing for the garbage collector to trace.
+ * <p>
+ * Reads decode a short-lived Training from the columns; changing it does not change the map.
+ * A training's id must be null or its key, as the key column doubles as the id column.
+ * Rows are never changed once written: a put ends the current row and appends a new one, so snapshots
+ * see rows whose version range contains theirs. Ended rows are freed for reuse once no snapshot can
+ * see them.
+ * <p>
+ * Writes are serialized by a map-wide lock held only while rows and the index are changed.
+ * Reads are optimistic and retry under the read lock when a write got in between.
+ */
+public class OffHeapTrainingMap extends AbstractMap<UUID, Training> implements VersionedMap<Training> {
+
+    public static final int DEFAULT_SEGMENT_ROWS = 1 << 16;
+
+    private static final int NO_ROW = -1;
+
+    private static final int NO_NAME = -1;
+
+    private static final int NO_START_TIME = -1;
+
+    // end of a row that is still current, and begin of a free row
+    private static final long OPEN = Long.MAX_VALUE;
+
+    // reads of the newest rows, uncommitted ones included, like StorageMap
+    private static final long LATEST = Long.MAX_VALUE - 1;
+
+    private static final byte NULL_ID = 1;
+
+    private static final byte NULL_TRAINEE = 1 << 1;
+
+    private static final byte NULL_TRAINER = 1 << 2;
+
+    private static final byte NULL_TYPE = 1 << 3;
+
+    private static final byte NULL_DATE = 1 << 4;
+
+    private static final byte LONG_DURATION = 1 << 5;
+
+    private static final byte DOUBLE_DURATION = 1 << 6;
+
+    private final StorageVersions versions;
+
+    private final int segmentRows;
+
+    private final int segmentShift;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final List<StorageListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile WriteAheadLog writeAheadLog;
+
+    private volatile Segment[] segments = new Segment[0];
+
+    // all fields below are guarded by lock
+
+    private volatile int rowCount;
+
+    private volatile int live;
+
+    private int[] freeRows = new int[16];
+
+    private int freeCount;
+
+    // open addressing, linear probing: head row + 1 of each key, 0 for an empty slot
+    private int[] index = new int[16];
+
+    private int indexed;
+
+    private final Map<String, Integer> nameCodes = new HashMap<>();
+
+    private volatile String[] names = new String[16];
+
+    public OffHeapTrainingMap(StorageVersions versions) {
+        this(versions, DEFAULT_SEGMENT_ROWS);
+    }
+
+    /**
+     * @param segmentRows Rows per segment, rounded up to a power of two.
+     */
+    public OffHeapTrainingMap(StorageVersions versions, int segmentRows) {
+        this.versions = versions;
+        this.segmentRows = Integer.highestOneBit(Math.max(2, segmentRows - 1) << 1);
+        this.segmentShift = Integer.numberOfTrailingZeros(this.segmentRows);
+    }
+
+    @Override
+    public EntityKind getKind() {
+        return EntityKind.TRAINING;
+    }
+
+    @Override
+    public void addListener(StorageListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(StorageListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    /**
+     * {@inheritDoc} Its size is counted by scanning the rows.
+     */
+    @Override
+    public Map<UUID, Training> at(StorageVersions.Snapshot snapshot) {
+        return new SnapshotView(snapshot.getVersion());
+    }
+
+    /**
+     * @return The off-heap memory held by the column segments, in bytes.
+     */
+    public long getOffHeapBytes() {
+        return (long) segments.length * segmentRows * Segment.ROW_BYTES;
+    }
+
+    /**
+     * @return The number of distinct training names in the dictionary.
+     */
+    public int getDictionarySize() {
+        return read(nameCodes::size);
+    }
+
+    @Override
+    public Training get(Object key) {
+        return key instanceof UUID id ? read(() -> visible(find(id), LATEST)) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return live;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return live == 0;
+    }
+
+    @Override
+    public Training put(UUID key, Training value) {
+        Objects.requireNonNull(value);
+        Training previous = install(key, value, current -> true);
+        fire(listener -> listener.onPut(EntityKind.TRAINING, key, previous, value));
+        return previous;
+    }
+
+    @Override
+    public Training putIfAbsent(UUID key, Training value) {
+        Objects.requireNonNull(value);
+        Training previous = install(key, value, Objects::isNull);
+        if (previous == null) {
+            fire(listener -> listener.onPut(EntityKind.TRAINING, key, null, value));
+        }
+        return previous;
+    }
+
+    /**
+     * Puts all values as a single write.
+     */
+    @Override
+    public void putAll(Map<? extends UUID, ? extends Training> values) {
+        versions.write(write -> {
+            values.forEach(this::put);
+            return null;
+        });
+    }
+
+    @Override
+    public Training remove(Object key) {
+        if (!(key instanceof UUID id)) {
+            return null;
+        }
+        Training previous = install(id, null, Objects::nonNull);
+        if (previous != null) {
+            fire(listener -> listener.onRemove(EntityKind.TRAINING, id, previous));
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!(key instanceof UUID id) || value == null) {
+            return false;
+        }
+        boolean[] removed = new boolean[1];
+        install(id, null, current -> removed[0] = value.equals(current));
+        if (removed[0]) {
+            fire(listener -> listener.onRemove(EntityKind.TRAINING, id, value));
+        }
+        return removed[0];
+    }
+
+    @Override
+    public boolean replace(UUID key, Training oldValue, Training newValue) {
+        Objects.requireNonNull(newValue);
+        boolean[] replaced = new boolean[1];
+        install(key, newValue, current -> replaced[0] = current != null && current.equals(oldValue));
+        if (replaced[0]) {
+            fire(listener -> listener.onPut(EntityKind.TRAINING, key, oldValue, newValue));
+        }
+        return replaced[0];
+    }
+
+    @Override
+    public Training replace(UUID key, Training value) {
+        Objects.requireNonNull(value);
+        Training previous = install(key, value, Objects::nonNull);
+        if (previous != null) {
+            fire(listener -> listener.onPut(EntityKind.TRAINING, key, previous, value));
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        for (UUID key : new ArrayList<>(keySet())) {
+            remove(key);
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super UUID, ? super Training> action) {
+        entrySet().forEach(entry -> action.accept(entry.getKey(), entry.getValue()));
+    }
+
+    @Override
+    public Set<UUID> keySet() {
+        return new KeyView(LATEST);
+    }
+
+    @Override
+    public Collection<Training> values() {
+        return new ValueView(LATEST);
+    }
+
+    @Override
+    public Set<Entry<UUID, Training>> entrySet() {
+        return new EntryView(LATEST);
+    }
+
+    @Override
+    public int versionCount(UUID key) {
+        return read(() -> {
+            int count = 0;
+            for (int row = find(key); row != NO_ROW; row = segment(row).previous.get(offset(row))) {
+                count++;
+            }
+            return count;
+        });
+    }
+
+    @Override
+    public void prune(UUID key, long horizon) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slot(key);
+            if (index[slot] == 0) {
+                return;
+            }
+            int head = trim(index[slot] - 1, horizon);
+            if (head == NO_ROW) {
+                unlink(slot);
+            } else {
+                index[slot] = head + 1;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Put a new row for the key, or end the current one when value is null, if the condition holds
+     * for the current value. The mutation is logged ahead under the write lock, before any row changes,
+     * so if the log refuses it, the map is left unchanged.
+     *
+     * @return The value before the call, or null if there was none.
+     */
+    private Training install(UUID key, Training value, Condition condition) {
+        if (value != null) {
+            checkEncodable(key, value);
+        }
+        return versions.write(write -> {
+            long stamp = lock.writeLock();
+            try {
+                int slot = slot(key);
+                int head = index[slot] - 1;
+                Training current = visible(head, LATEST);
+                if (!condition.test(current) || (current == null && value == null)) {
+                    return current;
+                }
+                log(key, value);
+                int older = head;
+                if (head != NO_ROW && segment(head).begins.get(offset(head)) == write.version()) {
+                    // a row of the running write is invisible to every snapshot, so it is simply replaced
+                    older = segment(head).previous.get(offset(head));
+                    free(head);
+                } else if (current != null) {
+                    segment(head).ends.put(offset(head), write.version());
+                }
+                older = trim(older, write.horizon());
+                if (value != null) {
+                    int row = allocate();
+                    writeRow(row, key, value, write.version(), older);
+                    link(slot, row);
+                } else if (older != NO_ROW) {
+                    index[slot] = older + 1;
+                } else {
+                    unlink(slot);
+                }
+                if (current == null) {
+                    live++;
+                } else if (value == null) {
+                    live--;
+                }
+                if (older != NO_ROW) {
+                    versions.retire(this, key, write.version());
+                }
+                return current;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        });
+    }
+
+    /**
+     * Free the rows of the chain that ended at or before the horizon. Rows are chained newest first
+     * and each ends where the next newer one begins, so those rows are always a tail of the chain.
+     *
+     * @return The head of what is left of the chain, or NO_ROW if nothing is.
+     */
+    private int trim(int head, long horizon) {
+        int newer = NO_ROW;
+        int row = head;
+        while (row != NO_ROW && segment(row).ends.get(offset(row)) > horizon) {
+            newer = row;
+            row = segment(row).previous.get(offset(row));
+        }
+        if (row == NO_ROW) {
+            return head;
+        }
+        if (newer != NO_ROW) {
+            segment(newer).previous.put(offset(newer), NO_ROW);
+        }
+        while (row != NO_ROW) {
+            int next = segment(row).previous.get(offset(row));
+            free(row);
+            row = next;
+        }
+        return newer == NO_ROW ? NO_ROW : head;
+    }
+
+    private static void checkEncodable(UUID key, Training training) {
+        if (training.getId() != null && !training.getId().equals(key)) {
+            throw new IllegalArgumentException("Training id " + training.getId() + " does not match its key " + key);
+        }
+        LocalDate date = training.getDate();
+        if (date != null && date.toEpochDay() != (int) date.toEpochDay()) {
+            throw new IllegalArgumentException("Training date out of range: " + date);
+        }
+    }
+
+    /**
+     * The value of the newest row of the chain that the snapshot sees, or null.
+     */
+    private Training visible(int head, long snapshot) {
+        int row = head;
+        while (row != NO_ROW) {
+            Segment segment = segment(row);
+            int offset = offset(row);
+            if (segment.begins.get(offset) <= snapshot) {
+                return segment.ends.get(offset) > snapshot ? decode(segment, offset) : null;
+            }
+            row = segment.previous.get(offset);
+        }
+        return null;
+    }
+
+    private boolean isVisible(int row, long snapshot) {
+        Segment segment = segment(row);
+        int offset = offset(row);
+        return segment.begins.get(offset) <= snapshot && segment.ends.get(offset) > snapshot;
+    }
+
+    private Training decode(Segment segment, int offset) {
+        byte flags = segment.flags.get(offset);
+        Training training = new Training();
+        training.setId((flags & NULL_ID) != 0 ? null : new UUID(segment.keys.get(2 * offset), segment.keys.get(2 * offset + 1)));
+        training.setTraineeId(uuid(segment.trainees, offset, flags, NULL_TRAINEE));
+        training.setTrainerId(uuid(segment.trainers, offset, flags, NULL_TRAINER));
+        training.setTrainingTypeId(uuid(segment.types, offset, flags, NULL_TYPE));
+        int nameCode = segment.names.get(offset);
+        training.setName(nameCode == NO_NAME ? null : names[nameCode]);
+        training.setDate((flags & NULL_DATE) != 0 ? null : LocalDate.ofEpochDay(segment.days.get(offset)));
+        long duration = segment.durations.get(offset);
+        if ((flags & LONG_DURATION) != 0) {
+            training.setDuration(duration == (int) duration ? (Number) (int) duration : (Number) duration);
+        } else if ((flags & DOUBLE_DURATION) != 0) {
+            training.setDuration(Double.longBitsToDouble(duration));
+        }
+        int startTime = segment.startTimes.get(offset);
+        training.setStartTime(startTime == NO_START_TIME ? null : LocalTime.ofSecondOfDay(startTime));
+        training.setVersion(segment.entityVersions.get(offset));
+        return training;
+    }
+
+    private UUID keyOf(int row) {
+        Segment segment = segment(row);
+        int offset = offset(row);
+        return new UUID(segment.keys.get(2 * offset), segment.keys.get(2 * offset + 1));
+    }
+
+    private boolean matches(int row, UUID key) {
+        Segment segment = segment(row);
+        int offset = offset(row);
+        return segment.keys.get(2 * offset) == key.getMostSignificantBits()
+                && segment.keys.get(2 * offset + 1) == key.getLeastSignificantBits();
+    }
+
+    private void writeRow(int row, UUID key, Training training, long version, int previous) {
+        Segment segment = segment(row);
+        int offset = offset(row);
+        byte flags = 0;
+        segment.keys.put(2 * offset, key.getMostSignificantBits());
+        segment.keys.put(2 * offset + 1, key.getLeastSignificantBits());
+        if (training.getId() == null) {
+            flags |= NULL_ID;
+        }
+        flags |= putUuid(segment.trainees, offset, training.getTraineeId(), NULL_TRAINEE);
+        flags |= putUuid(segment.trainers, offset, training.getTrainerId(), NULL_TRAINER);
+        flags |= putUuid(segment.types, offset, training.getTrainingTypeId(), NULL_TYPE);
+        segment.names.put(offset, nameCode(training.getName()));
+        LocalDate date = training.getDate();
+        if (date == null) {
+            flags |= NULL_DATE;
+        } else {
+            segment.days.put(offset, (int) date.toEpochDay());
+        }
+        Number duration = training.getDuration();
+        if (duration instanceof Double || duration instanceof Float) {
+            flags |= DOUBLE_DURATION;
+            segment.durations.put(offset, Double.doubleToRawLongBits(duration.doubleValue()));
+        } else if (duration != null) {
+            flags |= LONG_DURATION;
+            segment.durations.put(offset, duration.longValue());
+        }
+        LocalTime startTime = training.getStartTime();
+        segment.startTimes.put(offset, startTime == null ? NO_START_TIME : startTime.toSecondOfDay());
+        segment.entityVersions.put(offset, training.getVersion());
+        segment.flags.put(offset, flags);
+        segment.previous.put(offset, previous);
+        segment.ends.put(offset, OPEN);
+        segment.begins.put(offset, version);
+    }
+
+    private static byte putUuid(LongBuffer column, int offset, UUID value, byte nullFlag) {
+        if (value == null) {
+            return nullFlag;
+        }
+        column.put(2 * offset, value.getMostSignificantBits());
+        column.put(2 * offset + 1, value.getLeastSignificantBits());
+        return 0;
+    }
+
+    private static UUID uuid(LongBuffer column, int offset, byte flags, byte nullFlag) {
+        return (flags & nullFlag) != 0 ? null : new UUID(column.get(2 * offset), column.get(2 * offset + 1));
+    }
+
+    private int nameCode(String name) {
+        if (name == null) {
+            return NO_NAME;
+        }
+        Integer code = nameCodes.get(name);
+        if (code != null) {
+            return code;
+        }
+        int next = nameCodes.size();
+        if (next == names.length) {
+            names = Arrays.copyOf(names, next * 2);
+        }
+        names[next] = name;
+        nameCodes.put(name, next);
+        return next;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        int row = rowCount;
+        if ((row >>> segmentShift) == segments.length) {
+            Segment[] grown = Arrays.copyOf(segments, segments.length + 1);
+            grown[segments.length] = new Segment(segmentRows);
+            segments = grown;
+        }
+        rowCount = row + 1;
+        return row;
+    }
+
+    private void free(int row) {
+        segment(row).begins.put(offset(row), OPEN);
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    private Segment segment(int row) {
+        return segments[row >>> segmentShift];
+    }
+
+    private int offset(int row) {
+        return row & (segmentRows - 1);
+    }
+
+    private int find(UUID key) {
+        int[] table = index;
+        int mask = table.length - 1;
+        for (int slot = hash(key) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int row = table[slot] - 1;
+            if (matches(row, key)) {
+                return row;
+            }
+        }
+        return NO_ROW;
+    }
+
+    /**
+     * The slot of the key, or the empty slot where it would go.
+     */
+    private int slot(UUID key) {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (index[slot] != 0 && !matches(index[slot] - 1, key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void link(int slot, int row) {
+        if (index[slot] != 0) {
+            index[slot] = row + 1;
+            return;
+        }
+        index[slot] = row + 1;
+        if (++indexed * 2 > index.length) {
+            resize();
+        }
+    }
+
+    /**
+     * Remove the slot's key, shifting later keys of its probe sequence back so lookups still find them.
+     */
+    private void unlink(int slot) {
+        int mask = index.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; index[next] != 0; next = (next + 1) & mask) {
+            int home = hash(keyOf(index[next] - 1)) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                index[hole] = index[next];
+                hole = next;
+            }
+        }
+        index[hole] = 0;
+        indexed--;
+    }
+
+    private void resize() {
+        int[] old = index;
+        int[] grown = new int[old.length * 2];
+        int mask = grown.length - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                int slot = hash(keyOf(entry - 1)) & mask;
+                while (grown[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                grown[slot] = entry;
+            }
+        }
+        index = grown;
+    }
+
+    private static int hash(UUID key) {
+        long bits = key.getMostSignificantBits() ^ key.getLeastSignificantBits();
+        int hash = (int) (bits ^ (bits >>> 32));
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Run the read optimistically, and again under the read lock if a write got in between.
+     * A read that races a write may see torn rows and fail; its result is discarded either way.
+     */
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = reader.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void log(UUID key, Training value) {
+        WriteAheadLog log = writeAheadLog;
+        if (log == null) {
+            return;
+        }
+        if (value == null) {
+            log.logRemove(EntityKind.TRAINING, key);
+        } else {
+            log.logPut(EntityKind.TRAINING, key, value);
+        }
+    }
+
+    private void fire(Consumer<StorageListener> event) {
+        for (StorageListener listener : listeners) {
+            event.accept(listener);
+        }
+    }
+
+    private interface Condition {
+
+        boolean test(Training current);
+    }
+
+    private static final class Segment {
+
+        // key, trainee, trainer and type as two longs each, duration, entity version, begin, end;
+        // name, day, start time, previous; flags
+        static final int ROW_BYTES = 12 * Long.BYTES + 4 * Integer.BYTES + 1;
+
+        final LongBuffer keys;
+
+        final LongBuffer trainees;
+
+        final LongBuffer trainers;
+
+        final LongBuffer types;
+
+        final LongBuffer durations;
+
+        final LongBuffer entityVersions;
+
+        final LongBuffer begins;
+
+        final LongBuffer ends;
+
+        final IntBuffer names;
+
+        final IntBuffer days;
+
+        final IntBuffer startTimes;
+
+        final IntBuffer previous;
+
+        final ByteBuffer flags;
+
+        Segment(int rows) {
+            keys = longs(2 * rows);
+            trainees = longs(2 * rows);
+            trainers = longs(2 * rows);
+            types = longs(2 * rows);
+            durations = longs(rows);
+            entityVersions = longs(rows);
+            begins = longs(rows);
+            ends = longs(rows);
+            names = ints(rows);
+            days = ints(rows);
+            startTimes = ints(rows);
+            previous = ints(rows);
+            flags = ByteBuffer.allocateDirect(rows);
+        }
+
+        private static LongBuffer longs(int count) {
+            return ByteBuffer.allocateDirect(count * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+
+        private static IntBuffer ints(int count) {
+            return ByteBuffer.allocateDirect(count * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+
+    private final class SnapshotView extends AbstractMap<UUID, Training> {
+
+        private final long snapshot;
+
+        private SnapshotView(long snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Training get(Object key) {
+            return key instanceof UUID id ? read(() -> visible(find(id), snapshot)) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<UUID> keySet() {
+            return new KeyView(snapshot);
+        }
+
+        @Override
+        public Collection<Training> values() {
+            return new ValueView(snapshot);
+        }
+
+        @Override
+        public Set<Entry<UUID, Training>> entrySet() {
+            return new EntryView(snapshot);
+        }
+    }
+
+    private final class ValueView extends AbstractCollection<Training> {
+
+        private final long snapshot;
+
+        private ValueView(long snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Iterator<Training> iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+
+        @Override
+        public Spliterator<Training> spliterator() {
+            return new RowSpliterator<>(0, rowCount, snapshot,
+                    row -> decode(segment(row), offset(row)));
+        }
+
+        @Override
+        public int size() {
+            return snapshot == LATEST ? live : count(spliterator());
+        }
+    }
+
+    private final class KeyView extends AbstractSet<UUID> {
+
+        private final long snapshot;
+
+        private KeyView(long snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Iterator<UUID> iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+
+        @Override
+        public Spliterator<UUID> spliterator() {
+            return new RowSpliterator<>(0, rowCount, snapshot, OffHeapTrainingMap.this::keyOf);
+        }
+
+        @Override
+        public int size() {
+            return snapshot == LATEST ? live : count(spliterator());
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return key instanceof UUID id && read(() -> visible(find(id), snapshot)) != null;
+        }
+    }
+
+    private final class EntryView extends AbstractSet<Entry<UUID, Training>> {
+
+        private final long snapshot;
+
+        private EntryView(long snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Iterator<Entry<UUID, Training>> iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+
+        @Override
+        public Spliterator<Entry<UUID, Training>> spliterator() {
+            return new RowSpliterator<>(0, rowCount, snapshot,
+                    row -> new SimpleImmutableEntry<>(keyOf(row), decode(segment(row), offset(row))));
+        }
+
+        @Override
+        public int size() {
+            return snapshot == LATEST ? live : count(spliterator());
+        }
+    }
+
+    private static int count(Spliterator<?> spliterator) {
+        int[] count = new int[1];
+        spliterator.forEachRemaining(element -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Walks a range of rows in row order, handing out those the snapshot sees. Each row is read
+     * optimistically on its own, so a scan never holds the lock and never blocks writers.
+     */
+    private final class RowSpliterator<T> implements Spliterator<T> {
+
+        private int row;
+
+        private final int end;
+
+        private final long snapshot;
+
+        private final IntFunction<T> mapper;
+
+        private RowSpliterator(int row, int end, long snapshot, IntFunction<T> mapper) {
+            this.row = row;
+            this.end = end;
+            this.snapshot = snapshot;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (row < end) {
+                int current = row++;
+                T element = read(() -> isVisible(current, snapshot) ? mapper.apply(current) : null);
+                if (element != null) {
+                    action.accept(element);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int middle = (row + end) >>> 1;
+            if (end - row < 2 * segmentRows) {
+                return null;
+            }
+            Spliterator<T> prefix = new RowSpliterator<>(row, middle, snapshot, mapper);
+            row = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - row;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.CONCURRENT | Spliterator.NONNULL;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.gym.storage;
+
+import com.example.gym.exception.ReferenceConflictException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Referential integrity between entities: which records refer to an entity, and what happens to them
+ * when it is deleted. The owner of the referring records registers {@link Referrers} for each kind
+ * they refer to, backed by its own reverse index, so a delete costs time proportional to the records
+ * it affects rather than a scan.
+ * <p>
+ * Deletes with up to asyncThreshold references are handled in the same locked write as the delete.
+ * Larger ones remove the entity right away and work through the referrers in batches on a background
+ * thread; until its batch is done, a referrer still points at the deleted entity.
+ * <p>
+ * Training types are reference counted by {@link TrainingTypeRegistry}, and users are owned by exactly
+ * one trainee or trainer and deleted with it, so neither is tracked here.
+ */
+@Component
+public class ReferenceTracker {
+
+    public enum CascadePolicy {
+        /**
+         * Refuse to delete an entity that is still referenced.
+         */
+        RESTRICT,
+        /**
+         * Delete the referring records along with the entity.
+         */
+        CASCADE,
+        /**
+         * Keep the referring records and clear their reference.
+         */
+        DETACH
+    }
+
+    /**
+     * The records referring to entities of one kind.
+     */
+    public interface Referrers {
+
+        /**
+         * @return The ids of the records currently referring to the entity.
+         */
+        List<UUID> find(UUID referencedId);
+
+        /**
+         * @return The ids the record refers to, whose locks must be held along with the record's own
+         * while it is deleted or detached. Empty if the record does not exist.
+         */
+        List<UUID> references(UUID referrerId);
+
+        /**
+         * Delete the record, unless it no longer refers to the entity. Called with the record and its references locked.
+         */
+        void delete(UUID referrerId, UUID referencedId);
+
+        /**
+         * Clear the record's reference to the entity, unless it no longer refers to it. Called with the record and its references locked.
+         */
+        void detach(UUID referrerId, UUID referencedId);
+    }
+
+    private final StorageLocks storageLocks;
+
+    private final Map<EntityKind, Referrers> referrers = new ConcurrentHashMap<>();
+
+    private final Map<EntityKind, CascadePolicy> policies = new ConcurrentHashMap<>();
+
+    private final int asyncThreshold;
+
+    private final int batchSize;
+
+    private final AtomicInteger pendingCascades = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceTracker.class);
+
+    public ReferenceTracker(StorageLocks storageLocks,
+                            @Value("${storage.references.trainee:CASCADE}") CascadePolicy traineePolicy,
+                            @Value("${storage.references.trainer:CASCADE}") CascadePolicy trainerPolicy,
+                            @Value("${storage.references.async-threshold:10000}") int asyncThreshold,
+                            @Value("${storage.references.batch-size:1000}") int batchSize) {
+        this.storageLocks = storageLocks;
+        this.policies.put(EntityKind.TRAINEE, traineePolicy);
+        this.policies.put(EntityKind.TRAINER, trainerPolicy);
+        this.asyncThreshold = asyncThreshold;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public void register(EntityKind kind, Referrers referrers) {
+        this.referrers.put(kind, referrers);
+    }
+
+    public CascadePolicy getPolicy(EntityKind kind) {
+        return policies.getOrDefault(kind, CascadePolicy.RESTRICT);
+    }
+
+    public void setPolicy(EntityKind kind, CascadePolicy policy) {
+        policies.put(kind, policy);
+    }
+
+    public int countReferences(EntityKind kind, UUID id) {
+        Referrers registered = referrers.get(kind);
+        return registered == null ? 0 : registered.find(id).size();
+    }
+
+    /**
+     * Delete an entity and apply the cascade policy of its kind to the records referring to it.
+     * The removal runs with the entity and, for synchronous cascades, all its referrers and everything
+     * they refer to locked.
+     *
+     * @param kind    The kind of the entity.
+     * @param id      The id of the entity.
+     * @param removal Removes the entity from storage; throws if it does not exist.
+     * @throws ReferenceConflictException if the policy is RESTRICT and the entity is still referenced.
+     */
+    public void delete(EntityKind kind, UUID id, Runnable removal) {
+        Referrers registered = referrers.get(kind);
+        if (registered == null) {
+            storageLocks.runLocked(removal, id);
+            return;
+        }
+        CascadePolicy policy = getPolicy(kind);
+        boolean deleted;
+        do {
+            List<UUID> expected = registered.find(id);
+            if (policy != CascadePolicy.RESTRICT && expected.size() > asyncThreshold) {
+                deleteAsync(kind, id, registered, policy, removal, expected.size());
+                return;
+            }
+            Map<UUID, List<UUID>> references = referencesOf(registered, expected);
+            deleted = storageLocks.supplyLocked(() -> {
+                List<UUID> current = registered.find(id);
+                // a record may have started referring to the entity, or to someone else, before we got the locks
+                if (!unchanged(registered, references, current)) {
+                    return false;
+                }
+                if (policy == CascadePolicy.RESTRICT && !current.isEmpty()) {
+                    throw new ReferenceConflictException(kind + " " + id + " is referenced by " + current.size() + " records");
+                }
+                removal.run();
+                current.forEach(referrerId -> apply(registered, policy, referrerId, id));
+                return true;
+            }, lockKeys(references, id));
+        } while (!deleted);
+    }
+
+    /**
+     * @return The number of background cascades that have not finished yet.
+     */
+    public int pendingCascades() {
+        return pendingCascades.get();
+    }
+
+    /**
+     * Wait until every background cascade started so far has finished.
+     *
+     * @return false if they did not finish within the timeout.
+     */
+    public boolean awaitCascades(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            executor().submit(() -> {
+            }).get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        ExecutorService running;
+        synchronized (this) {
+            running = executor;
+        }
+        if (running != null) {
+            running.shutdown();
+            running.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private void deleteAsync(EntityKind kind, UUID id, Referrers registered, CascadePolicy policy, Runnable removal, int count) {
+        storageLocks.runLocked(removal, id);
+        logger.info("Deleted {} {}, applying {} to its {} references in the background", kind, id, policy, count);
+        pendingCascades.incrementAndGet();
+        executor().execute(() -> {
+            try {
+                // the entity is gone, so no new references can appear and this terminates
+                for (List<UUID> remaining = registered.find(id); !remaining.isEmpty(); remaining = registered.find(id)) {
+                    for (int from = 0; from < remaining.size(); from += batchSize) {
+                        List<UUID> batch = remaining.subList(from, Math.min(remaining.size(), from + batchSize));
+                        boolean applied;
+                        do {
+                            Map<UUID, List<UUID>> references = referencesOf(registered, batch);
+                            applied = storageLocks.supplyLocked(() -> {
+                                if (!unchanged(registered, references, batch)) {
+                                    return false;
+                                }
+                                batch.forEach(referrerId -> apply(registered, policy, referrerId, id));
+                                return true;
+                            }, lockKeys(references, id));
+                        } while (!applied);
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.error("Cascade from {} {} failed", kind, id, e);
+            } finally {
+                pendingCascades.decrementAndGet();
+            }
+        });
+    }
+
+    private static Map<UUID, List<UUID>> referencesOf(Referrers referrers, List<UUID> referrerIds) {
+        Map<UUID, List<UUID>> references = new HashMap<>();
+        for (UUID referrerId : referrerIds) {
+            references.put(referrerId, referrers.references(referrerId));
+        }
+        return references;
+    }
+
+    /**
+     * @return Whether every current referrer was locked and still refers to what it referred to then.
+     */
+    private static boolean unchanged(Referrers referrers, Map<UUID, List<UUID>> references, List<UUID> current) {
+        for (UUID referrerId : current) {
+            List<UUID> locked = references.get(referrerId);
+            if (locked == null || !locked.equals(referrers.references(referrerId))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object[] lockKeys(Map<UUID, List<UUID>> references, UUID id) {
+        Set<UUID> keys = new HashSet<>(references.keySet());
+        references.values().forEach(keys::addAll);
+        keys.add(id);
+        return keys.toArray();
+    }
+
+    private static void apply(Referrers referrers, CascadePolicy policy, UUID referrerId, UUID referencedId) {
+        if (policy == CascadePolicy.CASCADE) {
+            referrers.delete(referrerId, referencedId);
+        } else if (policy == CascadePolicy.DETACH) {
+            referrers.detach(referrerId, referencedId);
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "reference-cascade");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.gym.storage;
+
+import com.example.gym.service.InMemoryStorage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes storage snapshots on a background thread at a fixed interval and once more on shutdown.
+ * With the journal enabled every snapshot also compacts the journal.
+ */
+@Component
+public class SnapshotScheduler {
+
+    private final InMemoryStorage inMemoryStorage;
+
+    private final SnapshotStore snapshotStore;
+
+    private final StorageJournal storageJournal;
+
+    private final long intervalSeconds;
+
+    private ScheduledExecutorService executor;
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotScheduler.class);
+
+    public SnapshotScheduler(InMemoryStorage inMemoryStorage, SnapshotStore snapshotStore, StorageJournal storageJournal,
+                             @Value("${storage.snapshot.interval-seconds:300}") long intervalSeconds) {
+        this.inMemoryStorage = inMemoryStorage;
+        this.snapshotStore = snapshotStore;
+        this.storageJournal = storageJournal;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!snapshotStore.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::snapshot, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        // no shutdownNow: an interrupt would close the channel of a snapshot being written
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshot();
+    }
+
+    public void snapshot() {
+        try {
+            if (storageJournal.isEnabled()) {
+                storageJournal.compact(inMemoryStorage);
+            } else {
+                snapshotStore.write(inMemoryStorage);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to write snapshot {}", snapshotStore.getPath(), e);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.gym.storage;
+
+import com.example.gym.service.InMemoryStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of all five storage maps.
+ * <p>
+ * Layout: a header (magic, format version, creation time) followed by blocks of at most
+ * {@value #BLOCK_RECORDS} records of one map each. Every block carries its map tag, record count,
+ * payload length and a CRC32 of the payload, so blocks can be mapped, verified and decoded
+ * independently and in parallel. A zero tag ends the file.
+ * <p>
+ * Writing reads one point-in-time {@link StorageSnapshot} of the storage without blocking writers,
+ * so the file holds every write that finished before it was opened and no part of any later one.
+ * <p>
+ * Snapshots are opt-in: set storage.snapshot.enabled, or run with the durable profile to enable
+ * them together with the {@link StorageJournal}.
+ */
+@Component
+public class SnapshotStore {
+
+    static final int MAGIC = 0x47594D53;
+
+    static final short VERSION = EntityCodec.VERSION;
+
+    private static final int BLOCK_RECORDS = 65_536;
+
+    private static final int BLOCK_HEADER_BYTES = 13;
+
+    private static final int FILE_HEADER_BYTES = 14;
+
+    private static final byte END = 0;
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private final Path path;
+
+    private final boolean enabled;
+
+    public SnapshotStore(@Value("${storage.snapshot.path:data/gym.snapshot}") String path,
+                         @Value("${storage.snapshot.enabled:false}") boolean enabled) {
+        this.path = Paths.get(path);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean exists() {
+        return Files.isRegularFile(path);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Write a snapshot of the storage. The file is written next to the current one and moved into place,
+     * so a crash while writing never leaves a broken snapshot behind. Writes still in flight when the
+     * snapshot is opened are left out.
+     *
+     * @param storage The storage to snapshot.
+     * @return Number of records written.
+     */
+    public synchronized long write(InMemoryStorage storage) throws IOException {
+        long start = System.nanoTime();
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = parent.resolve(path.getFileName() + ".tmp");
+        long records = 0;
+        try (StorageSnapshot snapshot = storage.openSnapshot();
+             FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            for (EntityKind kind : EntityKind.values()) {
+                records += writeSection(out, kind, snapshot.getStorage(kind).values());
+            }
+            out.writeByte(END);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Wrote snapshot of {} records to {} in {} ms", records, path, (System.nanoTime() - start) / 1_000_000);
+        return records;
+    }
+
+    /**
+     * Load the snapshot into the storage through a memory-mapped file.
+     * All block checksums are verified before anything is put into the storage.
+     *
+     * @param storage The storage to fill.
+     * @return Number of records restored.
+     * @throws IOException When the file is missing, of an unknown version or corrupt.
+     */
+    public long restore(InMemoryStorage storage) throws IOException {
+        long start = System.nanoTime();
+        List<Block> blocks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FILE_HEADER_BYTES) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            short version = header.getShort();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + path);
+            }
+            long position = FILE_HEADER_BYTES;
+            while (true) {
+                if (position + 1 > size) {
+                    throw new IOException("Truncated snapshot file: " + path);
+                }
+                ByteBuffer blockHeader = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(BLOCK_HEADER_BYTES, size - position));
+                byte tag = blockHeader.get();
+                if (tag == END) {
+                    break;
+                }
+                if (blockHeader.remaining() < BLOCK_HEADER_BYTES - 1) {
+                    throw new IOException("Truncated snapshot file: " + path);
+                }
+                int count = blockHeader.getInt();
+                int length = blockHeader.getInt();
+                int checksum = blockHeader.getInt();
+                if (length < 0 || position + BLOCK_HEADER_BYTES + length > size) {
+                    throw new IOException("Truncated snapshot file: " + path);
+                }
+                MappedByteBuffer payload = channel.map(FileChannel.MapMode.READ_ONLY, position + BLOCK_HEADER_BYTES, length);
+                blocks.add(new Block(tag, version, count, checksum, payload));
+                position += BLOCK_HEADER_BYTES + length;
+            }
+        }
+        for (Block block : blocks) {
+            CRC32 crc = new CRC32();
+            crc.update(block.payload().duplicate());
+            if ((int) crc.getValue() != block.checksum()) {
+                throw new IOException("Checksum mismatch in snapshot " + path);
+            }
+        }
+        long records = blocks.parallelStream().mapToLong(block -> decode(block, storage)).sum();
+        logger.info("Restored {} records from snapshot {} in {} ms", records, path, (System.nanoTime() - start) / 1_000_000);
+        return records;
+    }
+
+    private long writeSection(DataOutputStream out, EntityKind kind, Collection<?> values) throws IOException {
+        BlockBuffer buffer = new BlockBuffer();
+        DataOutputStream block = new DataOutputStream(buffer);
+        int count = 0;
+        long written = 0;
+        for (Object value : values) {
+            EntityCodec.write(block, kind, value);
+            if (++count == BLOCK_RECORDS) {
+                writeBlock(out, kind.getTag(), count, buffer);
+                written += count;
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            writeBlock(out, kind.getTag(), count, buffer);
+            written += count;
+        }
+        return written;
+    }
+
+    private void writeBlock(DataOutputStream out, byte tag, int count, BlockBuffer buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.bytes(), 0, buffer.size());
+        out.writeByte(tag);
+        out.writeInt(count);
+        out.writeInt(buffer.size());
+        out.writeInt((int) crc.getValue());
+        out.write(buffer.bytes(), 0, buffer.size());
+        buffer.reset();
+    }
+
+    private long decode(Block block, InMemoryStorage storage) {
+        EntityKind kind = EntityKind.fromTag(block.tag());
+        ByteBuffer payload = block.payload().duplicate();
+        Map<UUID, Object> decoded = new HashMap<>(block.count() * 4 / 3 + 1);
+        for (int i = 0; i < block.count(); i++) {
+            Object value = EntityCodec.read(payload, kind, block.version());
+            decoded.put(EntityCodec.idOf(kind, value), value);
+        }
+        storage.getStorage(kind).putAll(decoded);
+        return block.count();
+    }
+
+    private record Block(byte tag, short version, int count, int checksum, ByteBuffer payload) {
+    }
+
+    /**
+     * ByteArrayOutputStream that exposes its buffer, so blocks can be checksummed without copying.
+     */
+    private static class BlockBuffer extends ByteArrayOutputStream {
+        BlockBuffer() {
+            super(1 << 20);
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.gym.storage;
+
+import com.example.gym.exception.InvalidInputException;
+import com.example.gym.models.Trainer;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * The specializations trainers have, each mapped to the ids of the trainers having it, so trainers
+ * are found by specialization without looking at the others.
+ * <p>
+ * A trainer's specialization text may list several specializations separated by commas. Each is
+ * normalized to lower case with single spaces, so "Box", " box " and "BOX" are one specialization,
+ * and interned: every trainer with it refers to the same name, which is dropped from the catalog
+ * with its last trainer.
+ */
+public class SpecializationIndex {
+
+    private static final Pattern SEPARATOR = Pattern.compile(",");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<UUID, List<String>> specializationsById = new ConcurrentHashMap<>();
+
+    /**
+     * Index a trainer under the specializations in the text, replacing those it was indexed under before.
+     * Calls for the same id must not run concurrently.
+     */
+    public void put(UUID id, String specialization) {
+        List<String> names = parse(specialization);
+        List<String> previous = specializationsById.get(id);
+        if (names.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            previous.forEach(name -> unlink(name, id));
+        }
+        if (names.isEmpty()) {
+            specializationsById.remove(id);
+            return;
+        }
+        List<String> interned = new ArrayList<>(names.size());
+        for (String name : names) {
+            interned.add(entries.compute(name, (key, entry) -> {
+                Entry linked = entry == null ? new Entry(key) : entry;
+                linked.ids.add(id);
+                return linked;
+            }).name);
+        }
+        specializationsById.put(id, List.copyOf(interned));
+    }
+
+    /**
+     * Calls for the same id must not run concurrently.
+     */
+    public void remove(UUID id) {
+        List<String> previous = specializationsById.remove(id);
+        if (previous != null) {
+            previous.forEach(name -> unlink(name, id));
+        }
+    }
+
+    /**
+     * Index the given trainers in place of everything indexed before. Must not run concurrently with changes.
+     */
+    public void rebuild(Collection<Trainer> trainers) {
+        clear();
+        trainers.forEach(trainer -> put(trainer.getId(), trainer.getSpecialization()));
+    }
+
+    public void clear() {
+        entries.clear();
+        specializationsById.clear();
+    }
+
+    /**
+     * @return The specializations the trainer is indexed under, as interned names.
+     */
+    public List<String> specializationsOf(UUID id) {
+        return specializationsById.getOrDefault(id, List.of());
+    }
+
+    /**
+     * @return The ids of the trainers having at least one of the specializations.
+     * @throws InvalidInputException if no specialization is given.
+     */
+    public Set<UUID> findAny(Collection<String> specializations) {
+        Set<UUID> ids = new HashSet<>();
+        for (Set<UUID> matching : idSets(specializations)) {
+            ids.addAll(matching);
+        }
+        return ids;
+    }
+
+    /**
+     * @return The ids of the trainers having all of the specializations.
+     * @throws InvalidInputException if no specialization is given.
+     */
+    public Set<UUID> findAll(Collection<String> specializations) {
+        List<Set<UUID>> idSets = idSets(specializations);
+        // walk the smallest set and look the others up
+        idSets.sort(Comparator.comparingInt(Set::size));
+        Set<UUID> ids = new HashSet<>();
+        for (UUID id : idSets.get(0)) {
+            if (idSets.stream().allMatch(matching -> matching.contains(id))) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return The number of trainers having the specialization, 0 if none has it.
+     */
+    public int count(String specialization) {
+        Entry entry = entries.get(normalize(specialization));
+        return entry == null ? 0 : entry.ids.size();
+    }
+
+    /**
+     * @return Every specialization some trainer has, in alphabetical order, with its number of trainers.
+     */
+    public SortedMap<String, Integer> counts() {
+        SortedMap<String, Integer> counts = new TreeMap<>();
+        entries.forEach((name, entry) -> {
+            int count = entry.ids.size();
+            if (count > 0) {
+                counts.put(name, count);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * @return The distinct normalized specializations listed in the text, in the order listed.
+     */
+    public static List<String> parse(String specialization) {
+        if (specialization == null) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>(1);
+        for (String part : SEPARATOR.split(specialization)) {
+            String name = normalize(part);
+            if (!name.isEmpty() && !names.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private static String normalize(String specialization) {
+        return WHITESPACE.matcher(specialization.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private List<Set<UUID>> idSets(Collection<String> specializations) {
+        List<Set<UUID>> idSets = new ArrayList<>();
+        if (specializations != null) {
+            for (String specialization : specializations) {
+                for (String name : parse(specialization)) {
+                    Entry entry = entries.get(name);
+                    idSets.add(entry == null ? Set.of() : entry.ids);
+                }
+            }
+        }
+        if (idSets.isEmpty()) {
+            throw new InvalidInputException("At least one specialization is required");
+        }
+        return idSets;
+    }
+
+    private void unlink(String name, UUID id) {
+        entries.computeIfPresent(name, (key, entry) -> {
+            entry.ids.remove(id);
+            return entry.ids.isEmpty() ? null : entry;
+        });
+    }
+
+    private static final class Entry {
+
+        private final String name;
+
+        private final Set<UUID> ids = ConcurrentHashMap.newKeySet();
+
+        private Entry(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.example.gym.storage;
+
+import com.example.gym.service.InMemoryStorage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of every storage mutation.
+ * <p>
+ * Each put or remove is appended before it is applied, while the storage map holds the key, so
+ * the journal is in the order the mutations were applied. If the append fails, the mutation is
+ * refused and the map is left unchanged; the journal then refuses every later mutation too, since
+ * recovery stops at the first torn record.
+ * <p>
+ * With {@link FsyncPolicy#PER_WRITE} each record is on disk before the map changes. With
+ * {@link FsyncPolicy#GROUP} a write waits for its records to be durable before it ends, that is
+ * before snapshots can see it and before a locked action releases its locks. Plain map reads can
+ * see a value from the moment it is applied, so they may briefly read a value whose record is not
+ * yet on disk, but no writer can act on it under the same locks until it is.
+ * <p>
+ * Each mutation is appended as a record
+ * {@code [length][crc32][lsn][op][entity tag][entity or id]}. The journal lives in numbered segment
+ * files next to the snapshot. Compaction seals the current segment, writes a snapshot and drops the
+ * sealed segments. Recovery restores the snapshot and replays the remaining segments, stopping at
+ * the first torn or corrupt record.
+ * <p>
+ * Records are only ordered per key if writes to the same key are serialized, which
+ * {@link StorageLocks} guarantees for the DAOs.
+ * <p>
+ * The journal is opt-in: set storage.journal.enabled together with storage.snapshot.enabled, or run
+ * with the durable profile.
+ */
+@Component
+public class StorageJournal implements WriteAheadLog {
+
+    public enum FsyncPolicy {
+        /**
+         * Force the file after every record, before the mutation is applied.
+         */
+        PER_WRITE,
+        /**
+         * Writers wait for durability at the end of their write, before its locks are released; one of
+         * them forces the file for all.
+         */
+        GROUP,
+        /**
+         * A background thread forces the file periodically; writers never wait.
+         */
+        ASYNC
+    }
+
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private static final byte PUT = 1;
+
+    private static final byte REMOVE = 2;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageJournal.class);
+
+    private final Path directory;
+
+    private final boolean enabled;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private final long asyncIntervalMillis;
+
+    private final SnapshotStore snapshotStore;
+
+    private final Object appendLock = new Object();
+
+    private final Object forceLock = new Object();
+
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    private final Condition committed = commitLock.newCondition();
+
+    private final ThreadLocal<RecordBuffer> recordBuffers = ThreadLocal.withInitial(RecordBuffer::new);
+
+    private final ThreadLocal<long[]> pendingLsn = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final CRC32 crc = new CRC32();
+
+    private final ByteBuffer lsnBytes = ByteBuffer.allocate(Long.BYTES);
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    private FileChannel channel;
+
+    private long segment;
+
+    private long lastLsn;
+
+    private long durableLsn;
+
+    private boolean flushing;
+
+    // guarded by appendLock
+    private IOException failure;
+
+    private InMemoryStorage storage;
+
+    private ScheduledExecutorService asyncFlusher;
+
+    public StorageJournal(@Value("${storage.journal.directory:data/journal}") String directory,
+                          @Value("${storage.journal.enabled:false}") boolean enabled,
+                          @Value("${storage.journal.fsync:GROUP}") FsyncPolicy fsyncPolicy,
+                          @Value("${storage.journal.async-interval-ms:50}") long asyncIntervalMillis,
+                          SnapshotStore snapshotStore) {
+        this.directory = Paths.get(directory);
+        this.enabled = enabled;
+        this.fsyncPolicy = fsyncPolicy;
+        this.asyncIntervalMillis = asyncIntervalMillis;
+        this.snapshotStore = snapshotStore;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * Replay the journal into the storage and start journaling its mutations.
+     *
+     * @param storage  The storage, already filled from the snapshot or the seed file.
+     * @param restored Whether the storage was restored from a snapshot. If not, existing segments
+     *                 cannot be applied and are dropped, and a base snapshot is written instead.
+     */
+    public void open(InMemoryStorage storage, boolean restored) throws IOException {
+        if (!snapshotStore.isEnabled()) {
+            throw new IllegalStateException("storage.journal.enabled requires storage.snapshot.enabled");
+        }
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments();
+        if (restored) {
+            for (Path path : segments) {
+                replay(path, storage);
+            }
+        } else if (!segments.isEmpty()) {
+            logger.warn("No snapshot to apply the journal in {} to, discarding {} segments", directory, segments.size());
+            deleteSegmentsUpTo(Long.MAX_VALUE);
+        }
+        durableLsn = lastLsn;
+        segment = segments.isEmpty() || !restored ? 1 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+        channel = openSegment(segment);
+        this.storage = storage;
+        storage.setWriteAheadLog(this);
+        if (fsyncPolicy == FsyncPolicy.GROUP) {
+            storage.getVersions().setCommitHook(this::awaitPending);
+        }
+        if (fsyncPolicy == FsyncPolicy.ASYNC) {
+            asyncFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "storage-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            asyncFlusher.scheduleWithFixedDelay(this::flushQuietly, asyncIntervalMillis, asyncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        if (!restored) {
+            compact(storage);
+        }
+    }
+
+    /**
+     * Fold the journal into a fresh snapshot: seal the current segment, write the snapshot and delete
+     * the sealed segments. Writers keep appending to the new segment meanwhile.
+     * <p>
+     * A write may have appended to the sealed segments and still be in flight. The snapshot is opened only
+     * once those writes have finished, so it holds everything the deleted segments did.
+     */
+    public synchronized void compact(InMemoryStorage storage) throws IOException {
+        long sealed = rotate();
+        storage.getVersions().awaitWrites();
+        snapshotStore.write(storage);
+        deleteSegmentsUpTo(sealed);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        if (asyncFlusher != null) {
+            // no shutdownNow: interrupting a thread inside force() closes the channel under everyone
+            asyncFlusher.shutdown();
+            awaitTermination(asyncFlusher);
+        }
+        storage.setWriteAheadLog(null);
+        storage.getVersions().setCommitHook(() -> {
+        });
+        synchronized (forceLock) {
+            synchronized (appendLock) {
+                drain();
+                channel.force(false);
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    @Override
+    public void logPut(EntityKind kind, UUID id, Object value) {
+        append(PUT, kind, id, value);
+    }
+
+    @Override
+    public void logRemove(EntityKind kind, UUID id) {
+        append(REMOVE, kind, id, null);
+    }
+
+    /**
+     * Wait until every record appended by the current thread is on disk.
+     * With group commit, whichever waiting writer gets here first forces the file for all of them.
+     */
+    public void awaitPending() {
+        long[] pending = pendingLsn.get();
+        long lsn = pending[0];
+        if (lsn == 0) {
+            return;
+        }
+        pending[0] = 0;
+        commitLock.lock();
+        try {
+            while (durableLsn < lsn) {
+                if (flushing) {
+                    committed.awaitUninterruptibly();
+                    continue;
+                }
+                flushing = true;
+                commitLock.unlock();
+                long flushed = 0;
+                try {
+                    flushed = flush();
+                } finally {
+                    commitLock.lock();
+                    flushing = false;
+                    durableLsn = Math.max(durableLsn, flushed);
+                    committed.signalAll();
+                }
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void append(byte op, EntityKind kind, UUID id, Object value) {
+        RecordBuffer record = recordBuffers.get();
+        record.reset();
+        try {
+            record.data.writeByte(op);
+            record.data.writeByte(kind.getTag());
+            if (op == PUT) {
+                EntityCodec.write(record.data, kind, value);
+            } else {
+                EntityCodec.writeUuid(record.data, id);
+            }
+            long lsn;
+            synchronized (appendLock) {
+                checkWritable();
+                lsn = ++lastLsn;
+                lsnBytes.clear();
+                lsnBytes.putLong(lsn).flip();
+                crc.reset();
+                crc.update(lsnBytes);
+                crc.update(record.bytes(), 0, record.size());
+                int length = Long.BYTES + record.size();
+                if (buffer.remaining() < RECORD_HEADER_BYTES + length) {
+                    drain();
+                }
+                if (buffer.remaining() < RECORD_HEADER_BYTES + length) {
+                    ByteBuffer large = ByteBuffer.allocate(RECORD_HEADER_BYTES + length);
+                    large.putInt(length).putInt((int) crc.getValue()).putLong(lsn).put(record.bytes(), 0, record.size()).flip();
+                    writeFully(large);
+                } else {
+                    buffer.putInt(length).putInt((int) crc.getValue()).putLong(lsn).put(record.bytes(), 0, record.size());
+                }
+                if (fsyncPolicy == FsyncPolicy.PER_WRITE) {
+                    drain();
+                    channel.force(false);
+                }
+            }
+            pendingLsn.get()[0] = lsn;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to storage journal", fail(e));
+        }
+    }
+
+    // called with appendLock held
+    private void checkWritable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Storage journal failed earlier, refusing further writes", failure);
+        }
+        if (channel == null) {
+            throw new IOException("Storage journal is closed");
+        }
+    }
+
+    /**
+     * Stop taking records after an I/O error: what follows a torn record would never be replayed.
+     * A refused mutation may still be recovered if its record reached the disk before the error.
+     */
+    private IOException fail(IOException e) {
+        synchronized (appendLock) {
+            if (failure == null && channel != null) {
+                failure = e;
+                logger.error("Storage journal failed, refusing further writes", e);
+            }
+        }
+        return e;
+    }
+
+    private long flush() {
+        try {
+            synchronized (forceLock) {
+                long target;
+                FileChannel current;
+                synchronized (appendLock) {
+                    target = lastLsn;
+                    drain();
+                    current = channel;
+                }
+                current.force(false);
+                return target;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to flush storage journal", fail(e));
+        }
+    }
+
+    private static void awaitTermination(ScheduledExecutorService executor) {
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Journal flusher did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            logger.error("Background journal flush failed", e);
+        }
+    }
+
+    private long rotate() throws IOException {
+        synchronized (forceLock) {
+            synchronized (appendLock) {
+                drain();
+                channel.force(false);
+                channel.close();
+                long sealed = segment;
+                segment++;
+                channel = openSegment(segment);
+                return sealed;
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private void replay(Path path, InMemoryStorage storage) throws IOException {
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            CRC32 checksum = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int expected;
+                byte[] payload;
+                try {
+                    expected = in.readInt();
+                    payload = in.readNBytes(Math.max(0, length));
+                } catch (EOFException e) {
+                    payload = new byte[0];
+                    expected = 0;
+                }
+                if (length < Long.BYTES + 2 || payload.length < length) {
+                    logger.warn("Torn record at the end of journal segment {}", path);
+                    break;
+                }
+                checksum.reset();
+                checksum.update(payload);
+                if ((int) checksum.getValue() != expected) {
+                    logger.warn("Corrupt record in journal segment {}, ignoring the rest of it", path);
+                    break;
+                }
+                apply(ByteBuffer.wrap(payload), storage);
+                records++;
+            }
+        }
+        logger.info("Replayed {} records from journal segment {}", records, path);
+    }
+
+    private void apply(ByteBuffer record, InMemoryStorage storage) {
+        lastLsn = Math.max(lastLsn, record.getLong());
+        byte op = record.get();
+        EntityKind kind = EntityKind.fromTag(record.get());
+        if (op == PUT) {
+            Object value = EntityCodec.read(record, kind);
+            storage.getStorage(kind).put(EntityCodec.idOf(kind, value), value);
+        } else {
+            storage.getStorage(kind).remove(EntityCodec.readUuid(record));
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    private long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void deleteSegmentsUpTo(long number) throws IOException {
+        for (Path path : listSegments()) {
+            if (segmentNumber(path) <= number) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static class RecordBuffer extends ByteArrayOutputStream {
+
+        private final DataOutputStream data = new DataOutputStream(this);
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
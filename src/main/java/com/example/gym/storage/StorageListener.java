@@ -0,0 +1,17 @@
+package com.example.gym.storage;
+
+import java.util.UUID;
+
+/**
+ * Callback for every mutation of a {@link VersionedMap}. Called on the writing thread,
+ * after the map has been changed.
+ */
+public interface StorageListener {
+
+    /**
+     * @param previous The value the put replaced, or null if there was none.
+     */
+    void onPut(EntityKind kind, UUID id, Object previous, Object value);
+
+    void onRemove(EntityKind kind, UUID id, Object previous);
+}
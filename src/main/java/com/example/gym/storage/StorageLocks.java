@@ -0,0 +1,91 @@
+package com.example.gym.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped write locks for mutations that touch more than one storage map.
+ * Reads never lock; they go straight to the concurrent maps in InMemoryStorage.
+ */
+@Component
+public class StorageLocks {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantLock[] stripes;
+
+    private final int mask;
+
+    private volatile StorageVersions versions;
+
+    public StorageLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public StorageLocks(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Make every locked action a single write of the given storage versions, so snapshots see all
+     * of its mutations or none. The write commits, durably when the journal is on, before the locks
+     * are released.
+     */
+    public void setVersions(StorageVersions versions) {
+        this.versions = versions;
+    }
+
+    /**
+     * Run the action while holding the stripes of all given keys.
+     * Stripes are always taken in ascending order, so callers cannot deadlock each other.
+     * Null keys are ignored.
+     *
+     * @param action The mutation to run.
+     * @param keys   The entity ids the mutation touches.
+     * @return The result of the action.
+     */
+    public <T> T supplyLocked(Supplier<T> action, Object... keys) {
+        int[] indexes = stripeIndexes(keys);
+        for (int index : indexes) {
+            stripes[index].lock();
+        }
+        StorageVersions versions = this.versions;
+        try {
+            return versions == null ? action.get() : versions.write(write -> action.get());
+        } finally {
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    public void runLocked(Runnable action, Object... keys) {
+        supplyLocked(() -> {
+            action.run();
+            return null;
+        }, keys);
+    }
+
+    private int[] stripeIndexes(Object[] keys) {
+        int[] indexes = new int[keys.length];
+        int count = 0;
+        for (Object key : keys) {
+            if (key != null) {
+                indexes[count++] = spread(key.hashCode()) & mask;
+            }
+        }
+        return Arrays.stream(indexes, 0, count).sorted().distinct().toArray();
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
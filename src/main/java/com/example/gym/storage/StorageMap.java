@@ -0,0 +1,586 @@
+package com.example.gym.storage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Concurrent, multi-version entity map that logs every mutation ahead and reports it to its listeners.
+ * <p>
+ * Each key holds a chain of versions, newest first, stamped by the shared {@link StorageVersions}.
+ * The map itself always reads the newest version; {@link #at(StorageVersions.Snapshot)} reads the
+ * versions a snapshot sees. Values are never changed once put, so callers replace an entity with
+ * an updated copy instead of mutating it. A removal leaves a tombstone until no snapshot can see
+ * the removed value anymore.
+ * <p>
+ * The key, value and entry views are read-only, so no mutation can bypass the listeners.
+ */
+public class StorageMap<V> extends AbstractMap<UUID, V> implements VersionedMap<V> {
+
+    private final EntityKind kind;
+
+    private final StorageVersions versions;
+
+    private final ConcurrentHashMap<UUID, Version<V>> delegate = new ConcurrentHashMap<>();
+
+    private final LongAdder live = new LongAdder();
+
+    private final List<StorageListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile WriteAheadLog writeAheadLog;
+
+    public StorageMap(EntityKind kind) {
+        this(kind, new StorageVersions());
+    }
+
+    public StorageMap(EntityKind kind, StorageVersions versions) {
+        this.kind = kind;
+        this.versions = versions;
+    }
+
+    @Override
+    public EntityKind getKind() {
+        return kind;
+    }
+
+    @Override
+    public void addListener(StorageListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(StorageListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    /**
+     * {@inheritDoc} Its size is counted by iterating.
+     */
+    @Override
+    public Map<UUID, V> at(StorageVersions.Snapshot snapshot) {
+        return new SnapshotView(snapshot.getVersion());
+    }
+
+    @Override
+    public V get(Object key) {
+        Version<V> head = delegate.get(key);
+        return head == null ? null : head.value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (Version<V> head : delegate.values()) {
+            if (head.value != null && head.value.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return (int) live.sum();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public V put(UUID key, V value) {
+        Objects.requireNonNull(value);
+        V previous = install(key, value, current -> true);
+        firePut(key, previous, value);
+        return previous;
+    }
+
+    @Override
+    public V putIfAbsent(UUID key, V value) {
+        Objects.requireNonNull(value);
+        Object[] previous = new Object[1];
+        install(key, value, current -> {
+            previous[0] = current;
+            return current == null;
+        });
+        if (previous[0] == null) {
+            firePut(key, null, value);
+        }
+        return valueOf(previous[0]);
+    }
+
+    /**
+     * Puts all values as a single write.
+     */
+    @Override
+    public void putAll(Map<? extends UUID, ? extends V> values) {
+        versions.write(write -> {
+            values.forEach(this::put);
+            return null;
+        });
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof UUID id)) {
+            return null;
+        }
+        V previous = install(id, null, Objects::nonNull);
+        if (previous != null) {
+            fireRemove(id, previous);
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!(key instanceof UUID id) || value == null) {
+            return false;
+        }
+        boolean[] removed = new boolean[1];
+        install(id, null, current -> removed[0] = value.equals(current));
+        if (removed[0]) {
+            fireRemove(id, value);
+        }
+        return removed[0];
+    }
+
+    @Override
+    public boolean replace(UUID key, V oldValue, V newValue) {
+        Objects.requireNonNull(newValue);
+        boolean[] replaced = new boolean[1];
+        install(key, newValue, current -> replaced[0] = current != null && current.equals(oldValue));
+        if (replaced[0]) {
+            firePut(key, oldValue, newValue);
+        }
+        return replaced[0];
+    }
+
+    @Override
+    public V replace(UUID key, V value) {
+        Objects.requireNonNull(value);
+        V previous = install(key, value, Objects::nonNull);
+        if (previous != null) {
+            firePut(key, previous, value);
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        for (UUID key : delegate.keySet()) {
+            remove(key);
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super UUID, ? super V> action) {
+        delegate.forEach((key, head) -> {
+            if (head.value != null) {
+                action.accept(key, head.value);
+            }
+        });
+    }
+
+    @Override
+    public Set<UUID> keySet() {
+        return new KeyView(Long.MAX_VALUE);
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new ValueView(Long.MAX_VALUE);
+    }
+
+    @Override
+    public Set<Entry<UUID, V>> entrySet() {
+        return new EntryView(Long.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc} The key itself goes when all that is left is a tombstone.
+     */
+    @Override
+    public void prune(UUID key, long horizon) {
+        delegate.computeIfPresent(key, (k, head) -> trim(head, horizon));
+    }
+
+    @Override
+    public int versionCount(UUID key) {
+        int count = 0;
+        for (Version<V> version = delegate.get(key); version != null; version = version.previous) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Put a new version of the key, or a tombstone when value is null, if the condition holds
+     * for the current value. The mutation is logged ahead while the key's bin is locked, so if the
+     * log refuses it, the map is left unchanged.
+     *
+     * @return The value before the call, or null if there was none.
+     */
+    private V install(UUID key, V value, Condition<V> condition) {
+        return versions.write(write -> {
+            Object[] previous = new Object[1];
+            delegate.compute(key, (k, head) -> {
+                V current = head == null ? null : head.value;
+                previous[0] = current;
+                if (!condition.test(current) || (current == null && value == null)) {
+                    return head;
+                }
+                log(key, value);
+                if (current == null) {
+                    live.increment();
+                } else if (value == null) {
+                    live.decrement();
+                }
+                // a version of the running write is invisible to every snapshot, so it is simply replaced
+                Version<V> older = head != null && head.version == write.version() ? head.previous : head;
+                older = trim(older, write.horizon());
+                if (value == null && older == null) {
+                    return null;
+                }
+                if (older != null || value == null) {
+                    versions.retire(this, key, write.version());
+                }
+                return new Version<>(value, write.version(), older);
+            });
+            return valueOf(previous[0]);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueOf(Object value) {
+        return (V) value;
+    }
+
+    private static <V> Version<V> trim(Version<V> head, long horizon) {
+        Version<V> newer = null;
+        for (Version<V> version = head; version != null; newer = version, version = version.previous) {
+            if (version.version <= horizon) {
+                // the newest version at or below the horizon is the oldest one any snapshot can see
+                version.previous = null;
+                if (version.value != null) {
+                    return head;
+                }
+                if (newer == null) {
+                    return null;
+                }
+                newer.previous = null;
+                return head;
+            }
+        }
+        return head;
+    }
+
+    private static <V> V resolve(Version<V> head, long snapshot) {
+        Version<V> version = head;
+        while (version != null && version.version > snapshot) {
+            version = version.previous;
+        }
+        return version == null ? null : version.value;
+    }
+
+    private void log(UUID key, V value) {
+        WriteAheadLog log = writeAheadLog;
+        if (log == null) {
+            return;
+        }
+        if (value == null) {
+            log.logRemove(kind, key);
+        } else {
+            log.logPut(kind, key, value);
+        }
+    }
+
+    private void firePut(UUID key, V previous, V value) {
+        for (StorageListener listener : listeners) {
+            listener.onPut(kind, key, previous, value);
+        }
+    }
+
+    private void fireRemove(UUID key, Object previous) {
+        for (StorageListener listener : listeners) {
+            listener.onRemove(kind, key, previous);
+        }
+    }
+
+    private interface Condition<V> {
+
+        boolean test(V current);
+    }
+
+    private static final class Version<V> {
+
+        private final V value;
+
+        private final long version;
+
+        private volatile Version<V> previous;
+
+        private Version(V value, long version, Version<V> previous) {
+            this.value = value;
+            this.version = version;
+            this.previous = previous;
+        }
+    }
+
+    private final class SnapshotView extends AbstractMap<UUID, V> {
+
+        private final long snapshot;
+
+        private SnapshotView(long snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public V get(Object key) {
+            return resolve(delegate.get(key), snapshot);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super UUID, ? super V> action) {
+            delegate.forEach((key, head) -> {
+                V value = resolve(head, snapshot);
+                if (value != null) {
+                    action.accept(key, value);
+                }
+            });
+        }
+
+        @Override
+        public Set<UUID> keySet() {
+            return new KeyView(snapshot);
+        }
+
+        @Override
+        public Collection<V> values() {
+            return new ValueView(snapshot);
+        }
+
+        @Override
+        public Set<Entry<UUID, V>> entrySet() {
+            return new EntryView(snapshot);
+        }
+    }
+
+    private final class ValueView extends AbstractCollection<V> {
+
+        private final long snapshot;
+
+        private ValueView(long snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new VisibleIterator<>(delegate.values().iterator(), head -> resolve(head, snapshot));
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return new VisibleSpliterator<>(delegate.values().spliterator(), head -> resolve(head, snapshot));
+        }
+
+        @Override
+        public int size() {
+            return snapshot == Long.MAX_VALUE ? StorageMap.this.size() : count(spliterator());
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return snapshot == Long.MAX_VALUE ? containsValue(value) : super.contains(value);
+        }
+    }
+
+    private final class KeyView extends AbstractSet<UUID> {
+
+        private final long snapshot;
+
+        private KeyView(long snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Iterator<UUID> iterator() {
+            return new VisibleIterator<>(delegate.entrySet().iterator(), this::keyOf);
+        }
+
+        @Override
+        public Spliterator<UUID> spliterator() {
+            return new VisibleSpliterator<>(delegate.entrySet().spliterator(), this::keyOf);
+        }
+
+        private UUID keyOf(Entry<UUID, Version<V>> entry) {
+            return resolve(entry.getValue(), snapshot) == null ? null : entry.getKey();
+        }
+
+        @Override
+        public int size() {
+            return snapshot == Long.MAX_VALUE ? StorageMap.this.size() : count(spliterator());
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return resolve(delegate.get(key), snapshot) != null;
+        }
+    }
+
+    private final class EntryView extends AbstractSet<Entry<UUID, V>> {
+
+        private final long snapshot;
+
+        private EntryView(long snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Iterator<Entry<UUID, V>> iterator() {
+            return new VisibleIterator<>(delegate.entrySet().iterator(), this::entryOf);
+        }
+
+        @Override
+        public Spliterator<Entry<UUID, V>> spliterator() {
+            return new VisibleSpliterator<>(delegate.entrySet().spliterator(), this::entryOf);
+        }
+
+        private Entry<UUID, V> entryOf(Entry<UUID, Version<V>> entry) {
+            V value = resolve(entry.getValue(), snapshot);
+            return value == null ? null : new SimpleImmutableEntry<>(entry.getKey(), value);
+        }
+
+        @Override
+        public int size() {
+            return snapshot == Long.MAX_VALUE ? StorageMap.this.size() : count(spliterator());
+        }
+    }
+
+    private static int count(Spliterator<?> spliterator) {
+        int[] count = new int[1];
+        spliterator.forEachRemaining(element -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Maps the elements of the underlying map and skips those that map to null.
+     */
+    private static final class VisibleIterator<S, T> implements Iterator<T> {
+
+        private final Iterator<S> source;
+
+        private final Function<S, T> mapper;
+
+        private T next;
+
+        private VisibleIterator(Iterator<S> source, Function<S, T> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && source.hasNext()) {
+                next = mapper.apply(source.next());
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T element = next;
+            next = null;
+            return element;
+        }
+    }
+
+    /**
+     * Spliterator version of {@link VisibleIterator}, keeping the underlying spliterator's ability to split.
+     */
+    private static final class VisibleSpliterator<S, T> implements Spliterator<T>, Consumer<S> {
+
+        private final Spliterator<S> source;
+
+        private final Function<S, T> mapper;
+
+        private T next;
+
+        private VisibleSpliterator(Spliterator<S> source, Function<S, T> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void accept(S element) {
+            next = mapper.apply(element);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (source.tryAdvance(this)) {
+                T element = next;
+                next = null;
+                if (element != null) {
+                    action.accept(element);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            source.forEachRemaining(element -> {
+                T mapped = mapper.apply(element);
+                if (mapped != null) {
+                    action.accept(mapped);
+                }
+            });
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            Spliterator<S> split = source.trySplit();
+            return split == null ? null : new VisibleSpliterator<>(split, mapper);
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.CONCURRENT | Spliterator.NONNULL;
+        }
+    }
+}
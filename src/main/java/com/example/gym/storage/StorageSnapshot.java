@@ -0,0 +1,63 @@
+package com.example.gym.storage;
+
+import com.example.gym.models.*;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A point-in-time, read-only view of all storage maps. Every map shows the same writes, so entities
+ * read from different maps are consistent with each other, and iterating never blocks writers.
+ * Close the snapshot when done, so the versions it pins can be reclaimed.
+ */
+public class StorageSnapshot implements AutoCloseable {
+
+    private final StorageVersions.Snapshot snapshot;
+
+    private final Map<EntityKind, Map<UUID, ?>> views;
+
+    public StorageSnapshot(StorageVersions.Snapshot snapshot, Map<EntityKind, Map<UUID, ?>> views) {
+        this.snapshot = snapshot;
+        this.views = new EnumMap<>(views);
+    }
+
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<UUID, Object> getStorage(EntityKind kind) {
+        return (Map<UUID, Object>) views.get(kind);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<UUID, User> getUserStorage() {
+        return (Map<UUID, User>) views.get(EntityKind.USER);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<UUID, Trainee> getTraineeStorage() {
+        return (Map<UUID, Trainee>) views.get(EntityKind.TRAINEE);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<UUID, Trainer> getTrainerStorage() {
+        return (Map<UUID, Trainer>) views.get(EntityKind.TRAINER);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<UUID, TrainingType> getTrainingTypeStorage() {
+        return (Map<UUID, TrainingType>) views.get(EntityKind.TRAINING_TYPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<UUID, Training> getTrainingStorage() {
+        return (Map<UUID, Training>) views.get(EntityKind.TRAINING);
+    }
+
+    @Override
+    public void close() {
+        snapshot.close();
+    }
+}
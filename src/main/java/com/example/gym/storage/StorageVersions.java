@@ -0,0 +1,244 @@
+package com.example.gym.storage;
+
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Version clock shared by the storage maps of one InMemoryStorage.
+ * <p>
+ * Every mutation belongs to a write, which is stamped with a version taken from the clock. A locked action
+ * is one write, however many maps it touches; a mutation outside a locked action is a write of its own.
+ * A snapshot sees exactly the writes whose version is below the oldest write still in flight, so it
+ * never sees part of a write, and it keeps seeing the same versions for as long as it is open.
+ * <p>
+ * Maps keep the versions that open snapshots, or snapshots that may still be opened, can see.
+ * Replaced versions are queued as garbage and pruned in batches once the oldest snapshot has moved
+ * past them.
+ */
+public class StorageVersions {
+
+    private static final int RECLAIM_BATCH = 64;
+
+    private static final int SPIN_TRIES = 100;
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    // guarded by this
+    private long clock;
+
+    // guarded by this, snapshot version to number of open snapshots at that version
+    private final TreeMap<Long, Integer> readers = new TreeMap<>();
+
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    private final ThreadLocal<Write> currentWrite = new ThreadLocal<>();
+
+    private final ConcurrentLinkedQueue<Garbage> garbage = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger garbageCount = new AtomicInteger();
+
+    private final AtomicInteger nextReclaimAt = new AtomicInteger(RECLAIM_BATCH);
+
+    private final AtomicBoolean reclaiming = new AtomicBoolean();
+
+    private volatile Runnable commitHook = () -> {
+    };
+
+    /**
+     * Set the hook that runs at the end of every write, before snapshots can see it and, for a locked
+     * action, before its locks are released. Nested writes leave it to the outermost one.
+     * The journal uses it to wait until the write's records are durable.
+     */
+    public void setCommitHook(Runnable commitHook) {
+        this.commitHook = commitHook;
+    }
+
+    /**
+     * Run the action as one write. Nested calls on the same thread join the outer write.
+     */
+    public <T> T write(Function<Write, T> action) {
+        Write write = currentWrite.get();
+        if (write != null) {
+            return action.apply(write);
+        }
+        write = begin();
+        currentWrite.set(write);
+        try {
+            T result;
+            try {
+                result = action.apply(write);
+            } catch (RuntimeException | Error e) {
+                // what the action applied before it failed is logged too
+                commitQuietly(e);
+                throw e;
+            }
+            commitHook.run();
+            return result;
+        } finally {
+            currentWrite.remove();
+            inFlight.remove(write.version());
+            if (garbageCount.get() >= nextReclaimAt.get()) {
+                reclaim();
+            }
+        }
+    }
+
+    /**
+     * Open a point-in-time snapshot. It must be closed, or the versions it sees are never reclaimed.
+     */
+    public Snapshot openSnapshot() {
+        long version;
+        synchronized (this) {
+            version = inFlight.isEmpty() ? clock : inFlight.first() - 1;
+            readers.merge(version, 1, Integer::sum);
+        }
+        return new Snapshot(version);
+    }
+
+    /**
+     * Wait until every write begun before the call has finished, so a snapshot opened afterwards sees all
+     * of them. Writes begun later do not hold the caller back. Must not be called from inside a write.
+     */
+    public void awaitWrites() {
+        if (currentWrite.get() != null) {
+            throw new IllegalStateException("Cannot wait for writes from inside a write");
+        }
+        long target;
+        synchronized (this) {
+            target = clock;
+        }
+        for (int idle = 0; inFlight.floor(target) != null; idle++) {
+            if (idle < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(MAX_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * @return The number of snapshots currently open.
+     */
+    public synchronized int openSnapshots() {
+        int open = 0;
+        for (int count : readers.values()) {
+            open += count;
+        }
+        return open;
+    }
+
+    /**
+     * @return The number of replaced versions and tombstones waiting to be pruned.
+     */
+    public int pendingGarbage() {
+        return garbageCount.get();
+    }
+
+    /**
+     * Prune every queued version that no open or future snapshot can see anymore.
+     */
+    public void reclaim() {
+        if (!reclaiming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long horizon;
+            synchronized (this) {
+                horizon = horizon();
+            }
+            Garbage next;
+            while ((next = garbage.peek()) != null && next.version() <= horizon) {
+                garbage.poll();
+                garbageCount.decrementAndGet();
+                next.map().prune(next.key(), horizon);
+            }
+            // a long-lived snapshot pins the queue, so back off instead of rescanning on every write
+            nextReclaimAt.set(Math.max(RECLAIM_BATCH, garbageCount.get() * 2));
+        } finally {
+            reclaiming.set(false);
+        }
+    }
+
+    private void commitQuietly(Throwable failure) {
+        try {
+            commitHook.run();
+        } catch (RuntimeException | Error e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    void retire(VersionedMap<?> map, UUID key, long version) {
+        garbage.add(new Garbage(map, key, version));
+        garbageCount.incrementAndGet();
+    }
+
+    private synchronized Write begin() {
+        long version = ++clock;
+        inFlight.add(version);
+        return new Write(version, horizon());
+    }
+
+    private void release(long version) {
+        synchronized (this) {
+            readers.computeIfPresent(version, (v, count) -> count == 1 ? null : count - 1);
+        }
+        reclaim();
+    }
+
+    /**
+     * The oldest version any open or future snapshot can be at. Snapshots opened later start at or after
+     * the oldest write in flight now, since versions are handed out in increasing order.
+     */
+    private long horizon() {
+        long horizon = inFlight.isEmpty() ? clock : inFlight.first() - 1;
+        return readers.isEmpty() ? horizon : Math.min(horizon, readers.firstKey());
+    }
+
+    /**
+     * A write in progress.
+     *
+     * @param version The version every mutation of the write is stamped with.
+     * @param horizon Versions older than the newest one at or below this are invisible to every snapshot.
+     */
+    public record Write(long version, long horizon) {
+    }
+
+    /**
+     * An open point-in-time view of the storage. Sees the writes up to and including its version and nothing newer.
+     */
+    public final class Snapshot implements AutoCloseable {
+
+        private final long version;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Snapshot(long version) {
+            this.version = version;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public boolean isClosed() {
+            return closed.get();
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(version);
+            }
+        }
+    }
+
+    private record Garbage(VersionedMap<?> map, UUID key, long version) {
+    }
+}
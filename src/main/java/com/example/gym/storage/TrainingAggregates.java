@@ -0,0 +1,135 @@
+package com.example.gym.storage;
+
+import com.example.gym.dto.TrainingVolume;
+import com.example.gym.dto.VolumePeriod;
+import com.example.gym.models.Training;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Training volume (count, total duration, first and last date) per trainee, trainer and training type,
+ * for every day, week and month. Kept up to date as trainings are added and removed, so a lookup is
+ * a single map read instead of a scan. Lookups never lock.
+ * <p>
+ * Trainings without a date belong to no bucket and are not counted.
+ */
+public class TrainingAggregates {
+
+    private static final VolumePeriod[] PERIODS = VolumePeriod.values();
+
+    private final ConcurrentHashMap<Key, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public void add(Training training) {
+        apply(training, 1);
+    }
+
+    /**
+     * Take back a training that was added before. Must be given the training as it was added,
+     * not a later copy of it.
+     */
+    public void remove(Training training) {
+        apply(training, -1);
+    }
+
+    public void rebuild(Collection<Training> trainings) {
+        buckets.clear();
+        trainings.forEach(this::add);
+    }
+
+    public TrainingVolume findByTraineeId(UUID traineeId, VolumePeriod period, LocalDate date) {
+        return find(Dimension.TRAINEE, traineeId, period, date);
+    }
+
+    public TrainingVolume findByTrainerId(UUID trainerId, VolumePeriod period, LocalDate date) {
+        return find(Dimension.TRAINER, trainerId, period, date);
+    }
+
+    public TrainingVolume findByTrainingTypeId(UUID trainingTypeId, VolumePeriod period, LocalDate date) {
+        return find(Dimension.TRAINING_TYPE, trainingTypeId, period, date);
+    }
+
+    /**
+     * @return The number of non-empty buckets across all dimensions and periods.
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    private TrainingVolume find(Dimension dimension, UUID id, VolumePeriod period, LocalDate date) {
+        LocalDate start = period.start(date);
+        Bucket bucket = id == null ? null : buckets.get(new Key(dimension, id, period, start));
+        Totals totals = bucket == null ? Totals.EMPTY : bucket.totals;
+        return new TrainingVolume(period, start, totals.count(), totals.duration(), totals.first(), totals.last());
+    }
+
+    private void apply(Training training, int sign) {
+        LocalDate date = training.getDate();
+        if (date == null) {
+            return;
+        }
+        double duration = training.getDuration() == null ? 0 : training.getDuration().doubleValue();
+        for (VolumePeriod period : PERIODS) {
+            LocalDate start = period.start(date);
+            apply(new Key(Dimension.TRAINEE, training.getTraineeId(), period, start), date, duration, sign);
+            apply(new Key(Dimension.TRAINER, training.getTrainerId(), period, start), date, duration, sign);
+            apply(new Key(Dimension.TRAINING_TYPE, training.getTrainingTypeId(), period, start), date, duration, sign);
+        }
+    }
+
+    private void apply(Key key, LocalDate date, double duration, int sign) {
+        if (key.id() == null) {
+            return;
+        }
+        buckets.compute(key, (k, bucket) -> {
+            Bucket target = bucket == null ? new Bucket() : bucket;
+            return target.apply(date, duration, sign) ? target : null;
+        });
+    }
+
+    private enum Dimension {
+        TRAINEE,
+        TRAINER,
+        TRAINING_TYPE
+    }
+
+    private record Key(Dimension dimension, UUID id, VolumePeriod period, LocalDate start) {
+    }
+
+    private record Totals(long count, double duration, LocalDate first, LocalDate last) {
+
+        static final Totals EMPTY = new Totals(0, 0, null, null);
+    }
+
+    /**
+     * Mutated only inside {@link ConcurrentHashMap#compute}; readers only see the published totals.
+     * The per-date counts keep first and last correct on removal, and hold at most 31 dates.
+     */
+    private static class Bucket {
+
+        private final TreeMap<LocalDate, Integer> dates = new TreeMap<>();
+
+        private long count;
+
+        private double duration;
+
+        private volatile Totals totals = Totals.EMPTY;
+
+        /**
+         * @return false once the bucket is empty and can be dropped.
+         */
+        boolean apply(LocalDate date, double delta, int sign) {
+            dates.merge(date, sign, (a, b) -> a + b == 0 ? null : a + b);
+            count += sign;
+            if (count <= 0) {
+                return false;
+            }
+            duration += sign * delta;
+            totals = new Totals(count, duration, dates.firstKey(), dates.lastKey());
+            return true;
+        }
+    }
+}
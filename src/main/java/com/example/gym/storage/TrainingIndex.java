@@ -0,0 +1,163 @@
+package com.example.gym.storage;
+
+import com.example.gym.dto.Page;
+import com.example.gym.models.Training;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Secondary indexes over trainings: by trainee, by trainer and by date.
+ * Every index is ordered by (date, training id), so per-person lookups, date ranges and
+ * date-ordered pages are sub-set views instead of scans. Lookups never lock.
+ * <p>
+ * An update replaces a training with a changed copy, so the index remembers what it indexed each
+ * training under and uses that to drop the stale entries.
+ */
+public class TrainingIndex {
+
+    private final ConcurrentHashMap<UUID, Key> keysById = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<UUID, ConcurrentSkipListSet<Key>> byTrainee = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<UUID, ConcurrentSkipListSet<Key>> byTrainer = new ConcurrentHashMap<>();
+
+    private final KeysetIndex<LocalDate> byDate = new KeysetIndex<>(LocalDate::parse, LocalDate::toString);
+
+    /**
+     * Index a new training, or re-index one whose trainee, trainer or date changed.
+     * Calls for the same training must not run concurrently.
+     */
+    public void put(Training training) {
+        Key key = new Key(training.getId(), training.getTraineeId(), training.getTrainerId(),
+                training.getDate() == null ? LocalDate.MIN : training.getDate());
+        Key previous = keysById.put(training.getId(), key);
+        if (key.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            unindex(previous);
+        }
+        if (key.traineeId() != null) {
+            addTo(byTrainee, key.traineeId(), key);
+        }
+        if (key.trainerId() != null) {
+            addTo(byTrainer, key.trainerId(), key);
+        }
+        byDate.put(key.trainingId(), key.date());
+    }
+
+    public void remove(UUID trainingId) {
+        Key previous = keysById.remove(trainingId);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    public void rebuild(Collection<Training> trainings) {
+        keysById.clear();
+        byTrainee.clear();
+        byTrainer.clear();
+        byDate.clear();
+        trainings.forEach(this::put);
+    }
+
+    public List<UUID> findByTraineeId(UUID traineeId) {
+        return ids(byTrainee.get(traineeId));
+    }
+
+    public List<UUID> findByTrainerId(UUID trainerId) {
+        return ids(byTrainer.get(trainerId));
+    }
+
+    public List<UUID> findByTraineeId(UUID traineeId, LocalDate from, LocalDate to) {
+        return ids(range(byTrainee.get(traineeId), from, to));
+    }
+
+    public List<UUID> findByTrainerId(UUID trainerId, LocalDate from, LocalDate to) {
+        return ids(range(byTrainer.get(trainerId), from, to));
+    }
+
+    /**
+     * Ids of all trainings dated between from and to, both inclusive, in date order.
+     */
+    public List<UUID> findByDateRange(LocalDate from, LocalDate to) {
+        return byDate.range(from, to);
+    }
+
+    /**
+     * Page through all trainings in (date, training id) order.
+     *
+     * @see KeysetIndex#page(String, int, java.util.function.Function)
+     */
+    public <T> Page<T> pageByDate(String cursor, int limit, Function<UUID, T> resolver) {
+        return byDate.page(cursor, limit, resolver);
+    }
+
+    private void unindex(Key key) {
+        if (key.traineeId() != null) {
+            removeFrom(byTrainee, key.traineeId(), key);
+        }
+        if (key.trainerId() != null) {
+            removeFrom(byTrainer, key.trainerId(), key);
+        }
+        byDate.remove(key.trainingId());
+    }
+
+    private void addTo(ConcurrentHashMap<UUID, ConcurrentSkipListSet<Key>> index, UUID personId, Key key) {
+        index.compute(personId, (id, keys) -> {
+            ConcurrentSkipListSet<Key> target = keys == null ? new ConcurrentSkipListSet<>() : keys;
+            target.add(key);
+            return target;
+        });
+    }
+
+    private void removeFrom(ConcurrentHashMap<UUID, ConcurrentSkipListSet<Key>> index, UUID personId, Key key) {
+        index.computeIfPresent(personId, (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static NavigableSet<Key> range(NavigableSet<Key> keys, LocalDate from, LocalDate to) {
+        if (keys == null || from.isAfter(to)) {
+            return null;
+        }
+        return keys.subSet(Key.lowest(from), true, Key.highest(to), true);
+    }
+
+    private static List<UUID> ids(Set<Key> keys) {
+        if (keys == null) {
+            return List.of();
+        }
+        List<UUID> ids = new ArrayList<>();
+        for (Key key : keys) {
+            ids.add(key.trainingId());
+        }
+        return ids;
+    }
+
+    private record Key(UUID trainingId, UUID traineeId, UUID trainerId, LocalDate date) implements Comparable<Key> {
+
+        private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+        private static final UUID MAX_ID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+        static Key lowest(LocalDate date) {
+            return new Key(MIN_ID, null, null, date);
+        }
+
+        static Key highest(LocalDate date) {
+            return new Key(MAX_ID, null, null, date);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byDate = date.compareTo(other.date);
+            return byDate != 0 ? byDate : trainingId.compareTo(other.trainingId);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.gym.storage;
+
+import com.example.gym.dto.TimeSlot;
+import com.example.gym.models.Training;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * When each trainee and trainer is booked: one {@link IntervalTree} of trainings per person, so a
+ * double booking or the free time in a range is found without scanning the trainings.
+ * <p>
+ * A training is booked from its date and start time for its duration in minutes. Trainings without
+ * a start time, as all trainings created before start times existed, are not booked and never conflict.
+ * Changes for one person are expected to be serialized by the caller; lookups may run alongside them.
+ */
+public class TrainingSchedule {
+
+    public enum ConflictPolicy {
+        /**
+         * A training overlapping another of the same trainee or trainer is refused.
+         */
+        REJECT,
+        /**
+         * Overlapping trainings are accepted and logged; {@code findConflicts} lists them.
+         */
+        FLAG
+    }
+
+    private final ConcurrentHashMap<UUID, IntervalTree> byTrainee = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<UUID, IntervalTree> byTrainer = new ConcurrentHashMap<>();
+
+    public static boolean isBooked(Training training) {
+        return training.getDate() != null && training.getStartTime() != null && training.getDuration() != null;
+    }
+
+    public static LocalDateTime startOf(Training training) {
+        return training.getDate().atTime(training.getStartTime());
+    }
+
+    public static LocalDateTime endOf(Training training) {
+        return startOf(training).plusSeconds(durationSeconds(training));
+    }
+
+    public void add(Training training) {
+        if (isBooked(training)) {
+            long start = seconds(startOf(training));
+            long end = start + durationSeconds(training);
+            book(byTrainee, training.getTraineeId(), tree -> tree.insert(start, end, training.getId()));
+            book(byTrainer, training.getTrainerId(), tree -> tree.insert(start, end, training.getId()));
+        }
+    }
+
+    /**
+     * Take back a training that was added before. Must be given the training as it was added,
+     * not a later copy of it.
+     */
+    public void remove(Training training) {
+        if (isBooked(training)) {
+            long start = seconds(startOf(training));
+            long end = start + durationSeconds(training);
+            book(byTrainee, training.getTraineeId(), tree -> tree.remove(start, end, training.getId()));
+            book(byTrainer, training.getTrainerId(), tree -> tree.remove(start, end, training.getId()));
+        }
+    }
+
+    public void rebuild(Collection<Training> trainings) {
+        byTrainee.clear();
+        byTrainer.clear();
+        trainings.forEach(this::add);
+    }
+
+    /**
+     * @return The ids of the other trainings of the training's trainee or trainer that overlap it,
+     * empty if it is not booked.
+     */
+    public Set<UUID> findConflicts(Training training) {
+        if (!isBooked(training)) {
+            return Set.of();
+        }
+        long start = seconds(startOf(training));
+        long end = start + durationSeconds(training);
+        Set<UUID> conflicts = new LinkedHashSet<>();
+        for (IntervalTree.Interval interval : overlapping(byTrainee, training.getTraineeId(), start, end)) {
+            conflicts.add(interval.id());
+        }
+        for (IntervalTree.Interval interval : overlapping(byTrainer, training.getTrainerId(), start, end)) {
+            conflicts.add(interval.id());
+        }
+        conflicts.remove(training.getId());
+        return conflicts;
+    }
+
+    public List<TimeSlot> findTraineeFreeSlots(UUID traineeId, LocalDateTime from, LocalDateTime to, long minMinutes) {
+        return freeSlots(byTrainee, traineeId, from, to, minMinutes);
+    }
+
+    public List<TimeSlot> findTrainerFreeSlots(UUID trainerId, LocalDateTime from, LocalDateTime to, long minMinutes) {
+        return freeSlots(byTrainer, trainerId, from, to, minMinutes);
+    }
+
+    private static List<TimeSlot> freeSlots(Map<UUID, IntervalTree> trees, UUID id, LocalDateTime from,
+                                            LocalDateTime to, long minMinutes) {
+        long start = seconds(from);
+        long end = seconds(to);
+        long minSeconds = Math.max(1, minMinutes * 60);
+        List<TimeSlot> slots = new ArrayList<>();
+        long free = start;
+        // bookings may overlap each other under FLAG, so the free time resumes after the latest end so far
+        for (IntervalTree.Interval interval : overlapping(trees, id, start, end)) {
+            if (interval.start() - free >= minSeconds) {
+                slots.add(new TimeSlot(time(free), time(interval.start())));
+            }
+            free = Math.max(free, interval.end());
+        }
+        if (end - free >= minSeconds) {
+            slots.add(new TimeSlot(time(free), time(end)));
+        }
+        return slots;
+    }
+
+    private static List<IntervalTree.Interval> overlapping(Map<UUID, IntervalTree> trees, UUID id, long start, long end) {
+        IntervalTree tree = id == null ? null : trees.get(id);
+        if (tree == null) {
+            return List.of();
+        }
+        synchronized (tree) {
+            return tree.overlapping(start, end);
+        }
+    }
+
+    private static void book(ConcurrentHashMap<UUID, IntervalTree> trees, UUID id, Consumer<IntervalTree> change) {
+        if (id == null) {
+            return;
+        }
+        trees.compute(id, (key, tree) -> {
+            IntervalTree changed = tree == null ? new IntervalTree() : tree;
+            synchronized (changed) {
+                change.accept(changed);
+                return changed.isEmpty() ? null : changed;
+            }
+        });
+    }
+
+    private static long durationSeconds(Training training) {
+        return Math.max(0, (long) Math.ceil(training.getDuration().doubleValue() * 60));
+    }
+
+    private static long seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime time(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+}
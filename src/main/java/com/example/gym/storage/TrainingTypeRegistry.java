@@ -0,0 +1,158 @@
+package com.example.gym.storage;
+
+import com.example.gym.models.Training;
+import com.example.gym.models.TrainingType;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Interned training types: one TrainingType per distinct name, shared by every training of that type
+ * and reference counted, so a type disappears together with its last training.
+ * <p>
+ * Each type also gets a small ordinal, so per-type grouping can use arrays instead of hashing type ids.
+ * Ordinals are never reused within a run.
+ */
+public class TrainingTypeRegistry {
+
+    private final ConcurrentHashMap<String, Entry> entriesByName = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<UUID, Entry> entriesById = new ConcurrentHashMap<>();
+
+    private final AtomicInteger ordinals = new AtomicInteger();
+
+    /**
+     * Take a reference to the type with the given name, creating it when it does not exist yet.
+     *
+     * @param typeName   The type name.
+     * @param idSupplier Supplies the id of a newly created type.
+     * @param onCreate   Called with a newly created type before any other thread can see it.
+     * @return The canonical type for the name.
+     */
+    public TrainingType acquire(String typeName, Supplier<UUID> idSupplier, Consumer<TrainingType> onCreate) {
+        Entry entry = entriesByName.compute(typeName, (name, existing) -> {
+            if (existing != null) {
+                existing.references++;
+                return existing;
+            }
+            Entry created = new Entry(new TrainingType(idSupplier.get(), name), ordinals.getAndIncrement());
+            created.references = 1;
+            entriesById.put(created.type.getId(), created);
+            onCreate.accept(created.type);
+            return created;
+        });
+        return entry.type;
+    }
+
+    /**
+     * Drop a reference to a type. When it was the last one the type is unregistered and handed to onRetire.
+     */
+    public void release(UUID typeId, Consumer<TrainingType> onRetire) {
+        Entry entry = typeId == null ? null : entriesById.get(typeId);
+        if (entry == null) {
+            return;
+        }
+        entriesByName.computeIfPresent(entry.type.getTypeName(), (name, current) -> {
+            if (current != entry || --current.references > 0) {
+                return current;
+            }
+            entriesById.remove(typeId);
+            onRetire.accept(current.type);
+            return null;
+        });
+    }
+
+    public Optional<TrainingType> findByName(String typeName) {
+        Entry entry = typeName == null ? null : entriesByName.get(typeName);
+        return entry == null ? Optional.empty() : Optional.of(entry.type);
+    }
+
+    public Optional<TrainingType> findById(UUID typeId) {
+        Entry entry = typeId == null ? null : entriesById.get(typeId);
+        return entry == null ? Optional.empty() : Optional.of(entry.type);
+    }
+
+    /**
+     * @return The ordinal of the type, or -1 if it is not registered.
+     */
+    public int ordinal(UUID typeId) {
+        Entry entry = typeId == null ? null : entriesById.get(typeId);
+        return entry == null ? -1 : entry.ordinal;
+    }
+
+    /**
+     * @return An exclusive upper bound of all ordinals handed out so far.
+     */
+    public int ordinalBound() {
+        return ordinals.get();
+    }
+
+    public int referenceCount(UUID typeId) {
+        Entry entry = typeId == null ? null : entriesById.get(typeId);
+        return entry == null ? 0 : entry.references;
+    }
+
+    public int size() {
+        return entriesById.size();
+    }
+
+    /**
+     * Rebuild the registry from stored types and trainings. Duplicate types left by older versions
+     * are merged into the first type seen with that name, and the trainings using them are pointed
+     * at it. Must run before the registry is used concurrently.
+     *
+     * @param types     The stored types, by id.
+     * @param trainings The stored trainings.
+     * @return Updated copies of the trainings whose type id changed, to be put back, and the type ids
+     * no training references anymore.
+     */
+    public Rebuild rebuild(Map<UUID, TrainingType> types, Collection<Training> trainings) {
+        entriesByName.clear();
+        entriesById.clear();
+        ordinals.set(0);
+        List<Training> remapped = new ArrayList<>();
+        for (Training training : trainings) {
+            TrainingType type = types.get(training.getTrainingTypeId());
+            if (type == null) {
+                continue;
+            }
+            Entry entry = entriesByName.computeIfAbsent(type.getTypeName(),
+                    name -> new Entry(type, ordinals.getAndIncrement()));
+            entriesById.putIfAbsent(entry.type.getId(), entry);
+            entry.references++;
+            if (!entry.type.getId().equals(training.getTrainingTypeId())) {
+                Training remappedTraining = Training.copyOf(training);
+                remappedTraining.setTrainingTypeId(entry.type.getId());
+                remapped.add(remappedTraining);
+            }
+        }
+        List<UUID> unreferenced = new ArrayList<>();
+        for (UUID typeId : types.keySet()) {
+            if (!entriesById.containsKey(typeId)) {
+                unreferenced.add(typeId);
+            }
+        }
+        return new Rebuild(remapped, unreferenced);
+    }
+
+    public record Rebuild(List<Training> remappedTrainings, List<UUID> unreferencedTypeIds) {
+    }
+
+    private static final class Entry {
+
+        private final TrainingType type;
+
+        private final int ordinal;
+
+        // guarded by the entriesByName bin lock of the type name
+        private volatile int references;
+
+        private Entry(TrainingType type, int ordinal) {
+            this.type = type;
+            this.ordinal = ordinal;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.gym.storage;
+
+import com.example.gym.models.Trainee;
+import com.example.gym.models.Trainer;
+import com.example.gym.models.User;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.util.JSONData;
+import com.example.gym.util.UtilService;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the users seed file into the storage.
+ * The file is parsed token by token, each batch is validated and built in parallel
+ * while the next one is being parsed, so at most two batches are held in memory.
+ * Array elements that are not objects are skipped with a warning and counted as rejected.
+ */
+public class UserSeedLoader {
+
+    private static final long PROGRESS_INTERVAL = 100_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSeedLoader.class);
+
+    private final UtilService utilService;
+
+    private final int batchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong loaded = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private long startNanos;
+
+    private long nextProgress;
+
+    public UserSeedLoader(UtilService utilService, int batchSize) {
+        this.utilService = utilService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Load all users of the given file into the storage.
+     *
+     * @param file    JSON file holding an array of users.
+     * @param storage The storage to fill.
+     * @return Number of users loaded.
+     * @throws IOException When the file cannot be read or is not a complete JSON array.
+     */
+    public long load(File file, InMemoryStorage storage) throws IOException {
+        startNanos = System.nanoTime();
+        nextProgress = PROGRESS_INTERVAL;
+        CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+        try (JsonParser parser = objectMapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array of users in " + file);
+            }
+            List<JSONData> batch = new ArrayList<>(batchSize);
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    throw new IOException("Unterminated array of users in " + file);
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    logger.warn("Skipping seed element that is not an object at {}", parser.getTokenLocation());
+                    rejected.incrementAndGet();
+                    parser.skipChildren();
+                    continue;
+                }
+                batch.add(objectMapper.readValue(parser, JSONData.class));
+                if (batch.size() == batchSize) {
+                    pending = submit(pending, batch, storage);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            pending = submit(pending, batch, storage);
+        } catch (IOException | RuntimeException e) {
+            awaitQuietly(pending, e);
+            throw e;
+        }
+        pending.join();
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        logger.info("Loaded {} users from {} in {} ms ({} users/s), {} rejected",
+                loaded.get(), file, elapsedMillis, loaded.get() * 1000 / elapsedMillis, rejected.get());
+        return loaded.get();
+    }
+
+    /**
+     * Let the batch in flight finish before the failure is rethrown, keeping its own failure as suppressed
+     * so it does not hide the one that stopped the load.
+     */
+    private static void awaitQuietly(CompletableFuture<Void> pending, Exception failure) {
+        try {
+            pending.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause != failure && cause != failure.getCause()) {
+                failure.addSuppressed(cause);
+            }
+        }
+    }
+
+    private CompletableFuture<Void> submit(CompletableFuture<Void> previous, List<JSONData> batch, InMemoryStorage storage) {
+        previous.join();
+        if (batch.isEmpty()) {
+            return previous;
+        }
+        return CompletableFuture.runAsync(() -> insert(build(batch, storage), storage));
+    }
+
+    /**
+     * Validate and build the batch in parallel, then reserve the usernames in file order, so users
+     * with the same name get the same usernames on every load.
+     */
+    private List<SeedEntry> build(List<JSONData> batch, InMemoryStorage storage) {
+        List<SeedEntry> entries = batch.parallelStream()
+                .map(data -> toEntry(data, storage))
+                .filter(Objects::nonNull)
+                .toList();
+        for (SeedEntry entry : entries) {
+            User user = entry.user();
+            user.setUsername(utilService.generateUsername(user.getFirstName(), user.getLastName(), user.getId()));
+        }
+        return entries;
+    }
+
+    private SeedEntry toEntry(JSONData data, InMemoryStorage storage) {
+        String role = data.getRole();
+        if (!utilService.isValid(data.getFirstName()) || !utilService.isValid(data.getLastName())
+                || role == null || !(role.equalsIgnoreCase("trainee") || role.equalsIgnoreCase("trainer"))) {
+            logger.debug("Skipping invalid seed record {}", data);
+            rejected.incrementAndGet();
+            return null;
+        }
+        UUID userId = utilService.generateUniqueKey(storage.getUserStorage());
+        User user = User.builder()
+                .id(userId)
+                .firstName(data.getFirstName())
+                .lastName(data.getLastName())
+                .isActive(true)
+                .password(utilService.generateRandomPassword(10))
+                .build();
+        if (role.equalsIgnoreCase("trainee")) {
+            Trainee trainee = Trainee.builder()
+                    .id(utilService.generateUniqueKey(storage.getTraineeStorage()))
+                    .userId(userId)
+                    .address(data.getAddress())
+                    .build();
+            return new SeedEntry(user, trainee, null);
+        }
+        Trainer trainer = Trainer.builder()
+                .id(utilService.generateUniqueKey(storage.getTrainerStorage()))
+                .specialization(data.getSpecialization())
+                .userId(userId)
+                .build();
+        return new SeedEntry(user, null, trainer);
+    }
+
+    private void insert(List<SeedEntry> entries, InMemoryStorage storage) {
+        Map<UUID, User> users = new HashMap<>();
+        Map<UUID, Trainee> trainees = new HashMap<>();
+        Map<UUID, Trainer> trainers = new HashMap<>();
+        for (SeedEntry entry : entries) {
+            users.put(entry.user().getId(), entry.user());
+            if (entry.trainee() != null) {
+                trainees.put(entry.trainee().getId(), entry.trainee());
+            } else {
+                trainers.put(entry.trainer().getId(), entry.trainer());
+            }
+        }
+        storage.getUserStorage().putAll(users);
+        storage.getTraineeStorage().putAll(trainees);
+        storage.getTrainerStorage().putAll(trainers);
+        reportProgress(loaded.addAndGet(entries.size()));
+    }
+
+    private void reportProgress(long total) {
+        if (total < nextProgress) {
+            return;
+        }
+        nextProgress = (total / PROGRESS_INTERVAL + 1) * PROGRESS_INTERVAL;
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        logger.info("Loaded {} users so far ({} users/s)", total, total * 1000 / elapsedMillis);
+    }
+
+    private record SeedEntry(User user, Trainee trainee, Trainer trainer) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.gym.storage;
+
+import com.example.gym.models.User;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Secondary index from username to user id, with a serial counter per base username
+ * ("John.Smith" -> next free "John.Smith.N"). Reservations are atomic, so two
+ * concurrent saves can never end up with the same username.
+ */
+@Component
+public class UsernameIndex {
+
+    private final ConcurrentMap<String, UUID> userIdsByUsername = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicInteger> serialsByBaseUsername = new ConcurrentHashMap<>();
+
+    /**
+     * Reserve the base username, or the next free serial variant of it, for the given user.
+     *
+     * @param baseUsername The username without serial suffix.
+     * @param userId       The user the username is reserved for.
+     * @return The reserved username.
+     */
+    public String reserveNext(String baseUsername, UUID userId) {
+        if (reserve(baseUsername, userId)) {
+            return baseUsername;
+        }
+        AtomicInteger serial = serialsByBaseUsername.computeIfAbsent(baseUsername, key -> new AtomicInteger());
+        String candidate;
+        do {
+            candidate = baseUsername + "." + serial.incrementAndGet();
+        } while (!reserve(candidate, userId));
+        return candidate;
+    }
+
+    /**
+     * Reserve an exact username for the given user.
+     *
+     * @return true if the username is now owned by the user, false if another user holds it.
+     */
+    public boolean reserve(String username, UUID userId) {
+        UUID owner = userIdsByUsername.putIfAbsent(username, userId);
+        return owner == null || owner.equals(userId);
+    }
+
+    /**
+     * Release a username, if it is still owned by the given user.
+     */
+    public void release(String username, UUID userId) {
+        if (username != null && userId != null) {
+            userIdsByUsername.remove(username, userId);
+        }
+    }
+
+    public boolean contains(String username) {
+        return userIdsByUsername.containsKey(username);
+    }
+
+    public Optional<UUID> findUserId(String username) {
+        return Optional.ofNullable(userIdsByUsername.get(username));
+    }
+
+    /**
+     * Drop all reservations and index the given users again, e.g. after the storage was restored.
+     */
+    public void rebuild(Collection<User> users) {
+        userIdsByUsername.clear();
+        serialsByBaseUsername.clear();
+        for (User user : users) {
+            if (user.getUsername() != null) {
+                userIdsByUsername.put(user.getUsername(), user.getId());
+            }
+        }
+    }
+}
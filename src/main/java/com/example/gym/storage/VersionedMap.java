@@ -0,0 +1,41 @@
+package com.example.gym.storage;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An entity map whose writes are versioned by a {@link StorageVersions}, logged ahead to a
+ * {@link WriteAheadLog} and reported to listeners.
+ * Plain reads see the newest version; {@link #at(StorageVersions.Snapshot)} sees what a snapshot sees.
+ */
+public interface VersionedMap<V> extends ConcurrentMap<UUID, V> {
+
+    EntityKind getKind();
+
+    void addListener(StorageListener listener);
+
+    void removeListener(StorageListener listener);
+
+    /**
+     * Set the log mutations are written to before they are applied, or null for none.
+     */
+    void setWriteAheadLog(WriteAheadLog writeAheadLog);
+
+    /**
+     * A read-only view of the map as the snapshot sees it. The view stays valid, and unchanged,
+     * until the snapshot is closed.
+     */
+    Map<UUID, V> at(StorageVersions.Snapshot snapshot);
+
+    /**
+     * @return The number of versions kept for the key, tombstones included.
+     */
+    int versionCount(UUID key);
+
+    /**
+     * Drop the versions of the key that no snapshot at or after the horizon can see.
+     * Called by {@link StorageVersions} when it reclaims garbage.
+     */
+    void prune(UUID key, long horizon);
+}
@@ -0,0 +1,16 @@
+package com.example.gym.storage;
+
+import java.util.UUID;
+
+/**
+ * Log every mutation of a {@link VersionedMap} is written to before it is applied.
+ * Called on the writing thread, with the key locked in the map, once the mutation is certain
+ * and before readers can see it. If the call throws, the mutation is not applied.
+ * The log must not read or write the storage maps, which may hold a lock on the key meanwhile.
+ */
+public interface WriteAheadLog {
+
+    void logPut(EntityKind kind, UUID id, Object value);
+
+    void logRemove(EntityKind kind, UUID id);
+}
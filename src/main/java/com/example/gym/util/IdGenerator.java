@@ -0,0 +1,13 @@
+package com.example.gym.util;
+
+import java.util.UUID;
+
+/**
+ * Source of entity ids. Implementations must return a different id on every call,
+ * from any number of threads, without consulting the storage.
+ * The implementation is picked with the storage.id-generator property.
+ */
+public interface IdGenerator {
+
+    UUID nextId();
+}
@@ -0,0 +1,43 @@
+package com.example.gym.util;
+
+import com.example.gym.exception.VersionConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * Retries a read-modify-write that ends in a conditional update until it applies, for callers of the
+ * {@code updateIfVersion} methods. Each attempt must read the entity again and update it against the
+ * version it read; an attempt that loses to a concurrent writer is simply run again, without waiting.
+ */
+public final class OptimisticRetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private OptimisticRetry() {
+    }
+
+    /**
+     * @param maxAttempts How often to run the attempt at most, at least 1.
+     * @param attempt     Reads the current version and updates against it.
+     * @return What the first attempt that did not conflict returned.
+     * @throws VersionConflictException from the last attempt when every attempt conflicted.
+     */
+    public static <T> T retry(int maxAttempts, Supplier<T> attempt) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return attempt.get();
+            } catch (VersionConflictException e) {
+                if (attempts == maxAttempts) {
+                    logger.warn("Giving up after {} conflicting attempts: {}", attempts, e.getMessage());
+                    throw e;
+                }
+                logger.debug("Attempt {} conflicted, retrying: {}", attempts, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.gym.util;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pool of ready random passwords for new users, refilled by a background thread.
+ * The refiller tops the pool up to the high watermark and is woken as soon as a take leaves
+ * fewer than the low watermark, so registrations normally never generate a password themselves.
+ * When the pool is empty the caller generates one inline and the miss is counted.
+ * <p>
+ * Every thread keeps its own SecureRandom, so generation neither contends nor reseeds per call.
+ */
+@Component
+public class PasswordPool {
+
+    private static final String ALLOWED_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordPool.class);
+
+    private final int passwordLength;
+
+    private final int lowWatermark;
+
+    private final int highWatermark;
+
+    private final BlockingQueue<String> passwords;
+
+    private final ThreadLocal<SecureRandom> randoms = ThreadLocal.withInitial(SecureRandom::new);
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile Thread refiller;
+
+    /**
+     * A pool that is never refilled: every take generates inline. Used outside the Spring context.
+     */
+    public PasswordPool() {
+        this(10, 1024, 8192);
+    }
+
+    @Autowired
+    public PasswordPool(@Value("${user.password.length:10}") int passwordLength,
+                        @Value("${user.password.pool.low-watermark:1024}") int lowWatermark,
+                        @Value("${user.password.pool.high-watermark:8192}") int highWatermark) {
+        if (lowWatermark < 0 || highWatermark < 1 || lowWatermark > highWatermark) {
+            throw new IllegalArgumentException("Invalid password pool watermarks: " + lowWatermark + " / " + highWatermark);
+        }
+        this.passwordLength = passwordLength;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.passwords = new ArrayBlockingQueue<>(highWatermark);
+    }
+
+    @PostConstruct
+    public void start() {
+        Thread thread = new Thread(this::refill, "password-pool-refill");
+        thread.setDaemon(true);
+        refiller = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = refiller;
+        refiller = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * @return A password of the pool's length, from the pool when it has one.
+     */
+    public String take() {
+        String password = passwords.poll();
+        Thread thread = refiller;
+        if (password == null) {
+            if (thread != null) {
+                misses.incrementAndGet();
+            }
+            password = generate(passwordLength);
+        }
+        if (thread != null && passwords.size() < lowWatermark) {
+            LockSupport.unpark(thread);
+        }
+        return password;
+    }
+
+    public String generate(int length) {
+        SecureRandom random = randoms.get();
+        char[] password = new char[length];
+        for (int i = 0; i < length; i++) {
+            password[i] = ALLOWED_CHARACTERS.charAt(random.nextInt(ALLOWED_CHARACTERS.length()));
+        }
+        return new String(password);
+    }
+
+    public int getPasswordLength() {
+        return passwordLength;
+    }
+
+    public int size() {
+        return passwords.size();
+    }
+
+    /**
+     * @return How many takes found the pool empty since startup.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private void refill() {
+        Thread self = Thread.currentThread();
+        while (refiller == self) {
+            while (refiller == self && passwords.size() < highWatermark) {
+                passwords.offer(generate(passwordLength));
+            }
+            // woken early by take() below the low watermark, or by stop()
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        logger.debug("Password pool refiller stopped");
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.gym.util;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Random version 4 UUIDs, as ids were generated before time-ordered ids.
+ * Unique with overwhelming probability only, and every call goes through the shared SecureRandom.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.id-generator", havingValue = "random")
+public class RandomIdGenerator implements IdGenerator {
+
+    @Override
+    public UUID nextId() {
+        return UUID.randomUUID();
+    }
+}
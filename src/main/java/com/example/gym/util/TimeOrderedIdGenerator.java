@@ -0,0 +1,67 @@
+package com.example.gym.util;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time-ordered version 7 UUIDs (RFC 9562): a 48 bit millisecond timestamp, then a 12 bit sequence,
+ * then a slot number and a random generator id.
+ * <p>
+ * Threads are spread over slots by thread id. Each slot is a logical clock (timestamp and sequence
+ * packed in one long) advanced with a CAS, so ids from one slot strictly increase, and ids from
+ * different slots differ in the slot bits: no two ids of one generator can be equal. When a slot
+ * runs out of sequence numbers within a millisecond, or the wall clock goes back, the slot simply
+ * runs ahead of the wall clock until it catches up. The random generator id keeps instances apart.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.id-generator", havingValue = "time-ordered", matchIfMissing = true)
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+
+    private static final int SLOT_BITS = 8;
+
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    private static final int NODE_BITS = 62 - SLOT_BITS;
+
+    // one slot per 128 bytes, so neighbouring slots never share a cache line
+    private static final int STRIDE = 16;
+
+    private static final long VERSION = 7L << SEQUENCE_BITS;
+
+    private static final long VARIANT = 1L << 63;
+
+    private final AtomicLongArray clocks = new AtomicLongArray(SLOTS * STRIDE);
+
+    private final long node;
+
+    public TimeOrderedIdGenerator() {
+        this(new SecureRandom().nextLong());
+    }
+
+    public TimeOrderedIdGenerator(long node) {
+        this.node = node & ((1L << NODE_BITS) - 1);
+    }
+
+    @Override
+    public UUID nextId() {
+        int slot = (int) Thread.currentThread().getId() & (SLOTS - 1);
+        int index = slot * STRIDE;
+        long clock;
+        long next;
+        do {
+            clock = clocks.get(index);
+            next = Math.max(clock + 1, System.currentTimeMillis() << SEQUENCE_BITS);
+        } while (!clocks.compareAndSet(index, clock, next));
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        long mostSignificant = (timestamp << 16) | VERSION | sequence;
+        long leastSignificant = VARIANT | ((long) slot << NODE_BITS) | node;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
@@ -2,41 +2,43 @@ package com.example.gym.util;
 
 
 import com.example.gym.models.User;
+import com.example.gym.storage.UsernameIndex;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.security.SecureRandom;
+import java.util.Collection;
 import java.util.Map;
 import java.util.UUID;
 
 @Service
 public class UtilService {
 
-    private static final String ALLOWED_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private final UsernameIndex usernameIndex;
 
-    public String generateUsername(String firstName, String lastName, Map<UUID, User> users) {
-        String baseUsername = firstName + "." + lastName;
-        String generatedUsername = baseUsername;
-        int serialNumber = 1;
+    private final IdGenerator idGenerator;
 
-        while (usernameExists(users, generatedUsername)) {
-            generatedUsername = baseUsername + "." + serialNumber;
-            serialNumber++;
-        }
+    private final PasswordPool passwordPool;
 
-        return generatedUsername;
+    public UtilService(UsernameIndex usernameIndex) {
+        this(usernameIndex, new TimeOrderedIdGenerator(), new PasswordPool());
     }
 
-    public String generateRandomPassword(int length) {
-        SecureRandom random = new SecureRandom();
-        StringBuilder password = new StringBuilder(length);
+    @Autowired
+    public UtilService(UsernameIndex usernameIndex, IdGenerator idGenerator, PasswordPool passwordPool) {
+        this.usernameIndex = usernameIndex;
+        this.idGenerator = idGenerator;
+        this.passwordPool = passwordPool;
+    }
 
-        for (int i = 0; i < length; i++) {
-            int randomIndex = random.nextInt(ALLOWED_CHARACTERS.length());
-            char randomChar = ALLOWED_CHARACTERS.charAt(randomIndex);
-            password.append(randomChar);
-        }
+    public String generateUsername(String firstName, String lastName, UUID userId) {
+        return usernameIndex.reserveNext(firstName + "." + lastName, userId);
+    }
 
-        return password.toString();
+    public String generateRandomPassword(int length) {
+        if (length == passwordPool.getPasswordLength()) {
+            return passwordPool.take();
+        }
+        return passwordPool.generate(length);
     }
 
     public boolean isValidName(String name) {
@@ -55,21 +57,25 @@ public class UtilService {
         return name != null && !name.trim().isEmpty();
     }
 
-    public boolean usernameExists(Map<UUID, User> users, String username) {
-        for (User user : users.values()) {
-            if (user.getUsername() != null && user.getUsername().equals(username)) {
-                return true;
-            }
-        }
-        return false;
+    public boolean usernameExists(String username) {
+        return usernameIndex.contains(username);
+    }
+
+    public void releaseUsername(User user) {
+        usernameIndex.release(user.getUsername(), user.getId());
     }
 
+    public void rebuildUsernameIndex(Collection<User> users) {
+        usernameIndex.rebuild(users);
+    }
+
+    /**
+     * Generate a new key for the given storage map. Ids from the IdGenerator are unique by construction,
+     * so the map is not probed; it only fixes the key type for callers.
+     */
+    @SuppressWarnings("unchecked")
     public <K> K generateUniqueKey(Map<K, ?> map) {
-        K newKey;
-        do {
-            newKey = (K) UUID.randomUUID();
-        } while (map.containsKey(newKey));
-        return newKey;
+        return (K) idGenerator.nextId();
     }
 
     public void updateFirstName(User user, String firstName) {
@@ -84,9 +90,12 @@ public class UtilService {
         }
     }
 
-    public void updateUsername(User user, String username, Map<UUID, User> userStorage) {
+    public void updateUsername(User user, String username) {
         if (isValid(username) &&
-                !usernameExists(userStorage, username)) {
+                usernameIndex.reserve(username, user.getId())) {
+            if (!username.equals(user.getUsername())) {
+                usernameIndex.release(user.getUsername(), user.getId());
+            }
             user.setUsername(username);
         }
     }
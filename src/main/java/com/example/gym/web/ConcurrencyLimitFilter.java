@@ -0,0 +1,66 @@
+package com.example.gym.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of requests processed at once. With a thread per request the thread pool used to be
+ * the cap; virtual threads are unbounded, so this filter is. A request that cannot get a permit within
+ * the queue timeout is answered with 503 and a Retry-After header.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+
+    private final int limit;
+
+    private final long queueTimeoutMillis;
+
+    public ConcurrencyLimitFilter(int limit, long queueTimeoutMillis) {
+        this.permits = new Semaphore(limit);
+        this.limit = limit;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return The number of requests being processed right now.
+     */
+    public int getActive() {
+        return limit - permits.availablePermits();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.gym.web;
+
+import com.example.gym.exception.InvalidInputException;
+
+/**
+ * Entity versions as HTTP entity tags: an If-Match of "3" (quotes optional) asks to update only
+ * an entity still at version 3. No If-Match, or "*", updates whatever the current version is.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * @return The version the If-Match header asks for, or null if it asks for none.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("If-Match must be an entity version, not " + ifMatch);
+        }
+    }
+}
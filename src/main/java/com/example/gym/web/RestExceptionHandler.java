@@ -0,0 +1,49 @@
+package com.example.gym.web;
+
+import com.example.gym.dto.ErrorResponse;
+import com.example.gym.exception.InvalidInputException;
+import com.example.gym.exception.NotFoundException;
+import com.example.gym.exception.ReferenceConflictException;
+import com.example.gym.exception.ScheduleConflictException;
+import com.example.gym.exception.VersionConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps the service exceptions to HTTP statuses: not found to 404, invalid input to 400 and
+ * reference, schedule and version conflicts to 409.
+ */
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleNotFound(NotFoundException e) {
+        return error(HttpStatus.NOT_FOUND, e);
+    }
+
+    @ExceptionHandler(InvalidInputException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidInput(InvalidInputException e) {
+        return error(HttpStatus.BAD_REQUEST, e);
+    }
+
+    @ExceptionHandler(ReferenceConflictException.class)
+    public ResponseEntity<ErrorResponse> handleReferenceConflict(ReferenceConflictException e) {
+        return error(HttpStatus.CONFLICT, e);
+    }
+
+    @ExceptionHandler(ScheduleConflictException.class)
+    public ResponseEntity<ErrorResponse> handleScheduleConflict(ScheduleConflictException e) {
+        return error(HttpStatus.CONFLICT, e);
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<ErrorResponse> handleVersionConflict(VersionConflictException e) {
+        return error(HttpStatus.CONFLICT, e);
+    }
+
+    private static ResponseEntity<ErrorResponse> error(HttpStatus status, RuntimeException e) {
+        return ResponseEntity.status(status).body(new ErrorResponse(status.value(), e.getMessage()));
+    }
+}
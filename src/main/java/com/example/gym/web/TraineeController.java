@@ -0,0 +1,80 @@
+package com.example.gym.web;
+
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TraineeRequestDto;
+import com.example.gym.exception.NotFoundException;
+import com.example.gym.models.Trainee;
+import com.example.gym.service.TraineeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * REST endpoints for trainees, under /api/trainees.
+ */
+@RestController
+@RequestMapping("/api/trainees")
+public class TraineeController {
+
+    @Autowired
+    private TraineeService traineeService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Trainee create(@RequestBody TraineeRequestDto traineeRequestDto) {
+        return traineeService.save(traineeRequestDto);
+    }
+
+    @PostMapping("/batch")
+    public BatchResult<Trainee> createAll(@RequestBody List<TraineeRequestDto> traineeRequestDtos) {
+        return traineeService.saveAll(traineeRequestDtos);
+    }
+
+    /**
+     * Trainees whose name or username matches what was typed, best match first.
+     */
+    @GetMapping("/search")
+    public List<Trainee> search(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return traineeService.search(q, limit);
+    }
+
+    @GetMapping("/{id}")
+    public Trainee findById(@PathVariable UUID id) {
+        return traineeService.findById(id).orElseThrow(() -> new NotFoundException("Trainee not found with ID: " + id));
+    }
+
+    /**
+     * One page of trainees, ordered by id or, with sort=lastName, by last name.
+     */
+    @GetMapping
+    public Page<Trainee> findPage(@RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "50") int limit,
+                                  @RequestParam(defaultValue = "id") String sort) {
+        return sort.equals("lastName")
+                ? traineeService.findPageOrderedByLastName(cursor, limit)
+                : traineeService.findPage(cursor, limit);
+    }
+
+    /**
+     * With an If-Match of the version last read, the update is refused with 409 if the trainee changed since.
+     */
+    @PutMapping("/{id}")
+    public Trainee update(@PathVariable UUID id, @RequestBody TraineeRequestDto traineeRequestDto,
+                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = EntityTags.expectedVersion(ifMatch);
+        return expectedVersion == null
+                ? traineeService.update(id, traineeRequestDto)
+                : traineeService.updateIfVersion(id, expectedVersion, traineeRequestDto);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@PathVariable UUID id) {
+        traineeService.delete(id);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.gym.web;
+
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TrainerRequestDto;
+import com.example.gym.exception.NotFoundException;
+import com.example.gym.models.Trainer;
+import com.example.gym.service.TrainerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.SortedMap;
+import java.util.UUID;
+
+/**
+ * REST endpoints for trainers, under /api/trainers.
+ */
+@RestController
+@RequestMapping("/api/trainers")
+public class TrainerController {
+
+    @Autowired
+    private TrainerService trainerService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Trainer create(@RequestBody TrainerRequestDto trainerRequestDto) {
+        return trainerService.save(trainerRequestDto);
+    }
+
+    @PostMapping("/batch")
+    public BatchResult<Trainer> createAll(@RequestBody List<TrainerRequestDto> trainerRequestDtos) {
+        return trainerService.saveAll(trainerRequestDtos);
+    }
+
+    /**
+     * Trainers whose name or username matches what was typed, best match first.
+     */
+    @GetMapping("/search")
+    public List<Trainer> search(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return trainerService.search(q, limit);
+    }
+
+    /**
+     * Trainers having any (the default) or, with match=all, every one of the given specializations.
+     */
+    @GetMapping("/specialization")
+    public List<Trainer> findBySpecialization(@RequestParam List<String> name,
+                                              @RequestParam(defaultValue = "any") String match) {
+        return match.equals("all")
+                ? trainerService.findByAllSpecializations(name)
+                : trainerService.findByAnySpecialization(name);
+    }
+
+    @GetMapping("/specializations")
+    public SortedMap<String, Integer> countBySpecialization() {
+        return trainerService.countBySpecialization();
+    }
+
+    @GetMapping("/{id}")
+    public Trainer findById(@PathVariable UUID id) {
+        return trainerService.findById(id).orElseThrow(() -> new NotFoundException("Trainer not found with ID: " + id));
+    }
+
+    /**
+     * One page of trainers, ordered by id or, with sort=lastName, by last name.
+     */
+    @GetMapping
+    public Page<Trainer> findPage(@RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "50") int limit,
+                                  @RequestParam(defaultValue = "id") String sort) {
+        return sort.equals("lastName")
+                ? trainerService.findPageOrderedByLastName(cursor, limit)
+                : trainerService.findPage(cursor, limit);
+    }
+
+    /**
+     * With an If-Match of the version last read, the update is refused with 409 if the trainer changed since.
+     */
+    @PutMapping("/{id}")
+    public Trainer update(@PathVariable UUID id, @RequestBody TrainerRequestDto trainerRequestDto,
+                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = EntityTags.expectedVersion(ifMatch);
+        return expectedVersion == null
+                ? trainerService.update(id, trainerRequestDto)
+                : trainerService.updateIfVersion(id, expectedVersion, trainerRequestDto);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@PathVariable UUID id) {
+        trainerService.delete(id);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.gym.web;
+
+import com.example.gym.dto.*;
+import com.example.gym.exception.NotFoundException;
+import com.example.gym.models.Training;
+import com.example.gym.models.TrainingType;
+import com.example.gym.service.TrainingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * REST endpoints for trainings, under /api/trainings. Dates are ISO dates (2023-11-05), times ISO
+ * local date-times (2023-11-05T09:30).
+ */
+@RestController
+@RequestMapping("/api/trainings")
+public class TrainingController {
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Training create(@RequestBody TrainingRequestDto trainingRequestDto) {
+        return trainingService.save(trainingRequestDto);
+    }
+
+    @PostMapping("/batch")
+    public BatchResult<Training> createAll(@RequestBody List<TrainingRequestDto> trainingRequestDtos) {
+        return trainingService.saveAll(trainingRequestDtos);
+    }
+
+    @GetMapping("/{id}")
+    public Training findById(@PathVariable UUID id) {
+        return trainingService.findById(id).orElseThrow(() -> new NotFoundException("Training not found with ID: " + id));
+    }
+
+    /**
+     * One page of trainings, ordered by id or, with sort=date, by date.
+     */
+    @GetMapping
+    public Page<Training> findPage(@RequestParam(required = false) String cursor,
+                                   @RequestParam(defaultValue = "50") int limit,
+                                   @RequestParam(defaultValue = "id") String sort) {
+        return sort.equals("date")
+                ? trainingService.findPageOrderedByDate(cursor, limit)
+                : trainingService.findPage(cursor, limit);
+    }
+
+    /**
+     * With an If-Match of the version last read, the update is refused with 409 if the training changed since.
+     */
+    @PutMapping("/{id}")
+    public Training update(@PathVariable UUID id, @RequestBody TrainingRequestDto trainingRequestDto,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = EntityTags.expectedVersion(ifMatch);
+        return expectedVersion == null
+                ? trainingService.update(id, trainingRequestDto)
+                : trainingService.updateIfVersion(id, expectedVersion, trainingRequestDto);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@PathVariable UUID id) {
+        trainingService.delete(id);
+    }
+
+    /**
+     * The trainee's trainings in date order, all of them or, with from and to, those in the range.
+     */
+    @GetMapping("/trainee/{traineeId}")
+    public List<Training> findByTraineeId(@PathVariable UUID traineeId,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return from == null && to == null
+                ? trainingService.findByTraineeId(traineeId)
+                : trainingService.findByTraineeIdAndDateRange(traineeId, from, to);
+    }
+
+    /**
+     * The trainer's trainings in date order, all of them or, with from and to, those in the range.
+     */
+    @GetMapping("/trainer/{trainerId}")
+    public List<Training> findByTrainerId(@PathVariable UUID trainerId,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return from == null && to == null
+                ? trainingService.findByTrainerId(trainerId)
+                : trainingService.findByTrainerIdAndDateRange(trainerId, from, to);
+    }
+
+    @GetMapping("/dates")
+    public List<Training> findByDateRange(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return trainingService.findByDateRange(from, to);
+    }
+
+    /**
+     * All trainings grouped by the name of their training type.
+     */
+    @GetMapping("/types")
+    public Map<String, List<Training>> groupByTrainingType() {
+        Map<String, List<Training>> trainingsByTypeName = new LinkedHashMap<>();
+        trainingService.groupByTrainingType().forEach((type, trainings) -> trainingsByTypeName.put(type.getTypeName(), trainings));
+        return trainingsByTypeName;
+    }
+
+    @GetMapping("/types/{typeName}")
+    public TrainingType findTrainingTypeByName(@PathVariable String typeName) {
+        return trainingService.findTrainingTypeByName(typeName)
+                .orElseThrow(() -> new NotFoundException("Training type not found: " + typeName));
+    }
+
+    @GetMapping("/volume/trainee/{traineeId}")
+    public TrainingVolume findTraineeVolume(@PathVariable UUID traineeId, @RequestParam VolumePeriod period,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return trainingService.findTraineeVolume(traineeId, period, date);
+    }
+
+    @GetMapping("/volume/trainer/{trainerId}")
+    public TrainingVolume findTrainerVolume(@PathVariable UUID trainerId, @RequestParam VolumePeriod period,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return trainingService.findTrainerVolume(trainerId, period, date);
+    }
+
+    @GetMapping("/volume/type/{typeName}")
+    public TrainingVolume findTrainingTypeVolume(@PathVariable String typeName, @RequestParam VolumePeriod period,
+                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return trainingService.findTrainingTypeVolume(typeName, period, date);
+    }
+
+    @GetMapping("/{id}/conflicts")
+    public List<Training> findConflicts(@PathVariable UUID id) {
+        return trainingService.findConflicts(id);
+    }
+
+    @GetMapping("/slots/trainee/{traineeId}")
+    public List<TimeSlot> findTraineeFreeSlots(@PathVariable UUID traineeId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                               @RequestParam(defaultValue = "0") long minMinutes) {
+        return trainingService.findTraineeFreeSlots(traineeId, from, to, minMinutes);
+    }
+
+    @GetMapping("/slots/trainer/{trainerId}")
+    public List<TimeSlot> findTrainerFreeSlots(@PathVariable UUID trainerId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                               @RequestParam(defaultValue = "0") long minMinutes) {
+        return trainingService.findTrainerFreeSlots(trainerId, from, to, minMinutes);
+    }
+}
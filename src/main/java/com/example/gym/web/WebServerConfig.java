@@ -0,0 +1,85 @@
+package com.example.gym.web;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Request threading of the embedded Tomcat.
+ * <p>
+ * By default (web.executor=PLATFORM) requests run on Tomcat's pool, sized by server.tomcat.threads.max.
+ * <p>
+ * web.executor=VIRTUAL is an opt-in for Java 21 and later runtimes: every request runs on its own virtual
+ * thread, so requests blocked on a journal fsync or a lock no longer tie up a platform thread. The build
+ * targets Java 17, so the executor is looked up at runtime, and the application refuses to start if
+ * VIRTUAL is asked for on a runtime without virtual threads.
+ * <p>
+ * Either way web.concurrency.limit caps the requests under /api processed at once.
+ */
+@Configuration
+public class WebServerConfig {
+
+    public enum RequestExecutor {
+        VIRTUAL,
+        PLATFORM
+    }
+
+    private ExecutorService virtualThreads;
+
+    private static final Logger logger = LoggerFactory.getLogger(WebServerConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> requestExecutorCustomizer(
+            @Value("${web.executor:PLATFORM}") RequestExecutor requestExecutor) {
+        if (requestExecutor == RequestExecutor.VIRTUAL) {
+            virtualThreads = newVirtualThreadPerTaskExecutor();
+            if (virtualThreads == null) {
+                throw new IllegalStateException("web.executor=VIRTUAL needs Java 21 or later, running " + Runtime.version());
+            }
+            logger.info("Serving requests from virtual threads");
+        }
+        ExecutorService executor = virtualThreads;
+        return protocolHandler -> {
+            if (executor != null) {
+                protocolHandler.setExecutor(executor);
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${web.concurrency.limit:10000}") int limit,
+            @Value("${web.concurrency.queue-timeout-ms:1000}") long queueTimeoutMillis) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limit, queueTimeoutMillis));
+        registration.addUrlPatterns("/api/*");
+        registration.setEnabled(limit > 0);
+        return registration;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (virtualThreads != null) {
+            virtualThreads.shutdown();
+        }
+    }
+
+    /**
+     * @return Executors.newVirtualThreadPerTaskExecutor() on Java 21 and later, null before.
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
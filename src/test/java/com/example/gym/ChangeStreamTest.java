@@ -0,0 +1,199 @@
+package com.example.gym;
+
+import com.example.gym.dao.impl.TrainerDAOImpl;
+import com.example.gym.dto.TrainerRequestDto;
+import com.example.gym.models.Trainer;
+import com.example.gym.models.User;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.*;
+import com.example.gym.util.UtilService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeStreamTest {
+
+    private final List<ChangeStream> streams = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        streams.forEach(ChangeStream::close);
+    }
+
+    @Test
+    void testDaoMutationsArePublished() throws Exception {
+        UtilService utilService = new UtilService(new UsernameIndex());
+        StorageLocks storageLocks = new StorageLocks();
+        InMemoryStorage storage = new InMemoryStorage(utilService);
+        storage.setStorageLocks(storageLocks);
+        TrainerDAOImpl trainerDAO = new TrainerDAOImpl();
+        trainerDAO.setTrainerStorage(storage);
+        trainerDAO.setUserStorage(storage);
+        trainerDAO.setUtilService(utilService);
+        trainerDAO.setStorageLocks(storageLocks);
+        trainerDAO.setReferenceTracker(new ReferenceTracker(storageLocks, ReferenceTracker.CascadePolicy.CASCADE,
+                ReferenceTracker.CascadePolicy.CASCADE, 10_000, 1_000));
+        ChangeStream stream = newStream(16);
+        storage.addListener(stream);
+        BlockingQueue<ChangeEvent> trainerEvents = new LinkedBlockingQueue<>();
+        BlockingQueue<ChangeEvent> allEvents = new LinkedBlockingQueue<>();
+        stream.subscribe("trainers", EnumSet.of(EntityKind.TRAINER), 4, ChangeStream.Overflow.DROP, trainerEvents::addAll);
+        stream.subscribe("all", allEvents::addAll);
+
+        Trainer trainer = trainerDAO.save(trainerRequest("box"));
+        Trainer updated = trainerDAO.update(trainer.getId(), trainerRequest("yoga"));
+        trainerDAO.delete(trainer.getId());
+
+        ChangeEvent created = poll(trainerEvents);
+        assertEquals(ChangeEvent.Type.CREATE, created.type());
+        assertEquals(trainer.getId(), created.id());
+        assertEquals(trainer, created.after(Trainer.class));
+        ChangeEvent changed = poll(trainerEvents);
+        assertEquals(ChangeEvent.Type.UPDATE, changed.type());
+        assertEquals("box", changed.before(Trainer.class).getSpecialization());
+        assertEquals(updated, changed.after(Trainer.class));
+        ChangeEvent deleted = poll(trainerEvents);
+        assertEquals(ChangeEvent.Type.DELETE, deleted.type());
+        assertEquals(updated, deleted.before(Trainer.class));
+        assertTrue(created.sequence() < changed.sequence() && changed.sequence() < deleted.sequence());
+
+        List<ChangeEvent> all = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            all.add(poll(allEvents));
+        }
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L), all.stream().map(ChangeEvent::sequence).toList());
+        assertEquals(3, all.stream().filter(event -> event.kind() == EntityKind.USER).count());
+        assertEquals(6, stream.getSequence());
+    }
+
+    @Test
+    void testSlowDroppingSubscriberDoesNotStallWriters() throws Exception {
+        ChangeStream stream = newStream(8);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> sequences = new CopyOnWriteArrayList<>();
+        ChangeStream.Subscription subscription = stream.subscribe("slow", EnumSet.allOf(EntityKind.class), 2,
+                ChangeStream.Overflow.DROP, batch -> {
+                    await(release);
+                    batch.forEach(event -> sequences.add(event.sequence()));
+                });
+
+        publish(stream, 100);
+        release.countDown();
+        waitFor(() -> subscription.getCursor() == 100);
+
+        assertTrue(subscription.getDropped() > 0);
+        assertEquals(100, sequences.size() + subscription.getDropped());
+        for (int i = 1; i < sequences.size(); i++) {
+            assertTrue(sequences.get(i - 1) < sequences.get(i));
+        }
+    }
+
+    @Test
+    void testBlockingSubscriberHoldsWritersBack() throws Exception {
+        ChangeStream stream = newStream(8);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        List<Long> sequences = new CopyOnWriteArrayList<>();
+        ChangeStream.Subscription subscription = stream.subscribe("careful", EnumSet.allOf(EntityKind.class), 4,
+                ChangeStream.Overflow.BLOCK, batch -> {
+                    await(release);
+                    batchSizes.add(batch.size());
+                    batch.forEach(event -> sequences.add(event.sequence()));
+                });
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writes = writer.submit(() -> publish(stream, 50));
+
+            assertThrows(TimeoutException.class, () -> writes.get(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            writes.get(10, TimeUnit.SECONDS);
+        } finally {
+            writer.shutdownNow();
+        }
+        waitFor(() -> subscription.getCursor() == 50);
+
+        assertEquals(0, subscription.getDropped());
+        assertEquals(0, subscription.getLag());
+        assertEquals(50, sequences.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, sequences.get(i));
+        }
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 4));
+    }
+
+    @Test
+    void testClosedSubscriptionReleasesWriters() throws Exception {
+        ChangeStream stream = newStream(4);
+        ChangeStream.Subscription subscription = stream.subscribe("stuck", EnumSet.allOf(EntityKind.class), 1,
+                ChangeStream.Overflow.BLOCK, batch -> {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writes = writer.submit(() -> publish(stream, 100));
+            waitFor(() -> stream.getSequence() > stream.getCapacity());
+            subscription.close();
+            writes.get(10, TimeUnit.SECONDS);
+        } finally {
+            writer.shutdownNow();
+        }
+
+        // with no subscription left, the rest of the writes publish nothing
+        assertTrue(subscription.getCursor() < 100);
+        assertTrue(stream.getSequence() < 100);
+        assertThrows(IllegalArgumentException.class, () -> stream.subscribe("empty", EnumSet.allOf(EntityKind.class), 0,
+                ChangeStream.Overflow.DROP, batch -> {
+                }));
+    }
+
+    private ChangeStream newStream(int capacity) {
+        ChangeStream stream = new ChangeStream(capacity, ChangeStream.Overflow.DROP);
+        streams.add(stream);
+        return stream;
+    }
+
+    private static void publish(ChangeStream stream, int count) {
+        for (int i = 0; i < count; i++) {
+            UUID id = UUID.randomUUID();
+            stream.onPut(EntityKind.USER, id, null, User.builder().id(id).firstName("John").build());
+        }
+    }
+
+    private static ChangeEvent poll(BlockingQueue<ChangeEvent> events) throws InterruptedException {
+        ChangeEvent event = events.poll(10, TimeUnit.SECONDS);
+        assertNotNull(event);
+        return event;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.call()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private static TrainerRequestDto trainerRequest(String specialization) {
+        TrainerRequestDto request = new TrainerRequestDto();
+        request.setFirstName("Anna");
+        request.setLastName("Brown");
+        request.setSpecialization(specialization);
+        return request;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.gym;
+
+import com.example.gym.dto.Page;
+import com.example.gym.exception.InvalidInputException;
+import com.example.gym.storage.KeysetIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetIndexTest {
+
+    private KeysetIndex<String> index;
+
+    private Map<UUID, String> names;
+
+    @BeforeEach
+    public void setUp() {
+        index = new KeysetIndex<>(Function.identity(), Function.identity());
+        names = new HashMap<>();
+    }
+
+    @Test
+    void testPagesFollowSortOrder() {
+        for (String name : List.of("delta", "alpha", "echo", "charlie", "bravo")) {
+            add(name);
+        }
+
+        Page<String> first = index.page(null, 2, names::get);
+        Page<String> second = index.page(first.getNextCursor(), 2, names::get);
+        Page<String> last = index.page(second.getNextCursor(), 2, names::get);
+
+        assertEquals(List.of("alpha", "bravo"), first.getItems());
+        assertEquals(List.of("charlie", "delta"), second.getItems());
+        assertEquals(List.of("echo"), last.getItems());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void testCursorSurvivesConcurrentChanges() {
+        UUID alpha = add("alpha");
+        add("bravo");
+        add("delta");
+        Page<String> first = index.page(null, 2, names::get);
+
+        index.remove(alpha);
+        add("aaron");
+        add("charlie");
+
+        assertEquals(List.of("charlie", "delta"), index.page(first.getNextCursor(), 5, names::get).getItems());
+    }
+
+    @Test
+    void testNoCursorWhenOnlyDeletedEntitiesFollow() {
+        add("alpha");
+        add("bravo");
+        names.remove(add("charlie"));
+        names.remove(add("delta"));
+
+        Page<String> page = index.page(null, 2, names::get);
+
+        assertEquals(List.of("alpha", "bravo"), page.getItems());
+        assertNull(page.getNextCursor());
+        names.remove(add("echo"));
+        add("foxtrot");
+        assertEquals(List.of("foxtrot"), index.page(index.page(null, 2, names::get).getNextCursor(), 2, names::get).getItems());
+    }
+
+    @Test
+    void testEqualSortKeysAreOrderedById() {
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        index.put(second, "smith");
+        index.put(first, "smith");
+        Map<UUID, UUID> ids = Map.of(first, first, second, second);
+
+        Page<UUID> page = index.page(null, 1, ids::get);
+
+        assertEquals(List.of(first), page.getItems());
+        assertEquals(List.of(second), index.page(page.getNextCursor(), 1, ids::get).getItems());
+    }
+
+    @Test
+    void testPutMovesEntry() {
+        UUID id = add("alpha");
+        add("bravo");
+
+        names.put(id, "charlie");
+        index.put(id, "charlie");
+
+        assertEquals(List.of("bravo", "charlie"), index.page(null, 10, names::get).getItems());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testRange() {
+        add("alpha");
+        UUID bravo = add("bravo");
+        UUID charlie = add("charlie");
+        add("delta");
+
+        assertEquals(List.of(bravo, charlie), index.range("bravo", "charlie"));
+        assertTrue(index.range("delta", "alpha").isEmpty());
+    }
+
+    @Test
+    void testInvalidCursorAndLimit() {
+        assertThrows(InvalidInputException.class, () -> index.page("not a cursor", 10, names::get));
+        assertThrows(InvalidInputException.class, () -> index.page(null, 0, names::get));
+        assertThrows(InvalidInputException.class, () -> index.page(null, KeysetIndex.MAX_PAGE_SIZE + 1, names::get));
+    }
+
+    private UUID add(String name) {
+        UUID id = UUID.randomUUID();
+        names.put(id, name);
+        index.put(id, name);
+        return id;
+    }
+}
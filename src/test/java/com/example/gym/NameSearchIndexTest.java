@@ -0,0 +1,125 @@
+package com.example.gym;
+
+import com.example.gym.dao.impl.TrainerDAOImpl;
+import com.example.gym.dto.TrainerRequestDto;
+import com.example.gym.exception.InvalidInputException;
+import com.example.gym.models.Trainer;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.NameSearchIndex;
+import com.example.gym.storage.ReferenceTracker;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameSearchIndexTest {
+
+    private NameSearchIndex index;
+
+    private Map<UUID, String> people;
+
+    @BeforeEach
+    public void setUp() {
+        index = new NameSearchIndex();
+        people = new HashMap<>();
+    }
+
+    @Test
+    void testExactBeforePrefixBeforeTypo() {
+        add("Jon", "Brown");
+        add("Johnny", "Walker");
+        add("John", "Smith");
+        add("Jonathan", "Clark");
+
+        // "jon" and "jona" are one typo away from "john"
+        assertEquals(List.of("John Smith", "Johnny Walker", "Jon Brown", "Jonathan Clark"), search("john", 10));
+        assertEquals(List.of("John Smith"), search("john", 1));
+        assertEquals(List.of("Jon Brown", "Jonathan Clark", "John Smith", "Johnny Walker"), search("jon", 10));
+        assertEquals(List.of("Jon Brown", "John Smith", "Johnny Walker", "Jonathan Clark"), search("jhon", 10));
+        assertEquals(List.of("Jonathan Clark"), search("JONATAHN", 10));
+    }
+
+    @Test
+    void testEveryWordMustMatch() {
+        add("John", "Smith");
+        add("John", "Brown");
+        add("Anna", "Smith");
+
+        assertEquals(List.of("John Smith"), search("smith joh", 10));
+        assertEquals(List.of("John Smith"), search("jonh smiht", 10));
+        assertTrue(search("anna brown", 10).isEmpty());
+    }
+
+    @Test
+    void testUsernamePrefixAndReindexing() {
+        UUID id = add("Maria", "Young");
+        index.put(id, "Maria", "Young", "Maria.Young.2");
+
+        assertEquals(List.of("Maria Young"), search("maria.young.", 10));
+
+        people.put(id, "Mary Young");
+        index.put(id, "Mary", "Young", "Mary.Young");
+        assertTrue(search("maria", 10).isEmpty());
+        assertEquals(List.of("Mary Young"), search("mary", 10));
+
+        index.remove(id);
+        assertTrue(search("young", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testTrainerSearchFollowsUpdatesAndDeletes() {
+        UtilService utilService = new UtilService(new UsernameIndex());
+        StorageLocks storageLocks = new StorageLocks();
+        InMemoryStorage storage = new InMemoryStorage(utilService);
+        storage.setStorageLocks(storageLocks);
+        TrainerDAOImpl trainerDAO = new TrainerDAOImpl();
+        trainerDAO.setTrainerStorage(storage);
+        trainerDAO.setUserStorage(storage);
+        trainerDAO.setUtilService(utilService);
+        trainerDAO.setStorageLocks(storageLocks);
+        trainerDAO.setReferenceTracker(new ReferenceTracker(storageLocks, ReferenceTracker.CascadePolicy.CASCADE,
+                ReferenceTracker.CascadePolicy.CASCADE, 10_000, 1_000));
+        trainerDAO.buildIndexes();
+        TrainerRequestDto request = new TrainerRequestDto();
+        request.setFirstName("Laura");
+        request.setLastName("Lewis");
+        request.setSpecialization("Yoga");
+        Trainer trainer = trainerDAO.save(request);
+
+        assertEquals(List.of(trainer), trainerDAO.search("lwis", 10));
+
+        request.setLastName("Taylor");
+        trainerDAO.update(trainer.getId(), request);
+        assertTrue(trainerDAO.search("lewis", 10).isEmpty());
+        assertEquals(List.of(trainer.getId()), trainerDAO.search("laura tay", 10).stream().map(Trainer::getId).toList());
+
+        trainerDAO.delete(trainer.getId());
+        assertTrue(trainerDAO.search("laura", 10).isEmpty());
+    }
+
+    @Test
+    void testInvalidQueries() {
+        assertThrows(InvalidInputException.class, () -> index.search("  ", 10, Function.identity()));
+        assertThrows(InvalidInputException.class, () -> index.search(null, 10, Function.identity()));
+        assertThrows(InvalidInputException.class, () -> index.search("john", 0, Function.identity()));
+        assertThrows(InvalidInputException.class, () -> index.search("john", NameSearchIndex.MAX_RESULTS + 1, Function.identity()));
+    }
+
+    private UUID add(String firstName, String lastName) {
+        UUID id = UUID.randomUUID();
+        people.put(id, firstName + " " + lastName);
+        index.put(id, firstName, lastName, firstName + "." + lastName);
+        return id;
+    }
+
+    private List<String> search(String query, int limit) {
+        return index.search(query, limit, people::get);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.gym;
+
+import com.example.gym.models.Training;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.*;
+import com.example.gym.util.UtilService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTrainingMapTest {
+
+    @TempDir
+    Path tempDir;
+
+    private StorageVersions versions;
+
+    private OffHeapTrainingMap trainings;
+
+    @BeforeEach
+    public void setUp() {
+        versions = new StorageVersions();
+        trainings = new OffHeapTrainingMap(versions, 4);
+    }
+
+    @Test
+    void testRoundTripKeepsEveryField() {
+        Training full = newTraining(45);
+        Training longDuration = newTraining(5_000_000_000L);
+        Training doubleDuration = newTraining(42.5);
+        Training empty = new Training(UUID.randomUUID(), null, null, null, null, null, null);
+
+        for (Training training : List.of(full, longDuration, doubleDuration, empty)) {
+            trainings.put(training.getId(), training);
+        }
+
+        for (Training training : List.of(full, longDuration, doubleDuration, empty)) {
+            assertEquals(training, trainings.get(training.getId()));
+        }
+        assertEquals(4, trainings.size());
+        assertEquals(1, trainings.getDictionarySize());
+    }
+
+    @Test
+    void testChangingReadTrainingDoesNotChangeMap() {
+        Training training = newTraining(45);
+        trainings.put(training.getId(), training);
+
+        trainings.get(training.getId()).setName("Changed");
+
+        assertEquals("Morning run", trainings.get(training.getId()).getName());
+    }
+
+    @Test
+    void testBehavesLikeHashMap() {
+        Map<UUID, Training> expected = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 5 || ids.isEmpty()) {
+                Training training = newTraining(random.nextInt(120));
+                ids.add(training.getId());
+                assertEquals(expected.put(training.getId(), training), trainings.put(training.getId(), training));
+            } else if (operation < 8) {
+                Training updated = Training.copyOf(expected.get(ids.get(random.nextInt(ids.size()))));
+                if (updated != null) {
+                    updated.setDate(updated.getDate().plusDays(1));
+                    assertEquals(expected.put(updated.getId(), updated), trainings.put(updated.getId(), updated));
+                }
+            } else {
+                UUID id = ids.get(random.nextInt(ids.size()));
+                assertEquals(expected.remove(id), trainings.remove(id));
+            }
+        }
+
+        assertEquals(expected.size(), trainings.size());
+        assertEquals(expected, trainings);
+        assertEquals(expected.keySet(), trainings.keySet());
+        assertEquals(expected.size(), trainings.values().parallelStream().count());
+    }
+
+    @Test
+    void testSnapshotSeesOldRowsUntilClosed() {
+        Training training = newTraining(45);
+        Training removed = newTraining(30);
+        trainings.put(training.getId(), training);
+        trainings.put(removed.getId(), removed);
+
+        StorageVersions.Snapshot snapshot = versions.openSnapshot();
+        Map<UUID, Training> view = trainings.at(snapshot);
+        Training updated = Training.copyOf(training);
+        updated.setName("Evening run");
+        trainings.put(training.getId(), updated);
+        trainings.remove(removed.getId());
+
+        assertEquals(training, view.get(training.getId()));
+        assertEquals(removed, view.get(removed.getId()));
+        assertEquals(Set.of(training, removed), new HashSet<>(view.values()));
+        assertEquals(List.of(updated), List.copyOf(trainings.values()));
+        assertEquals(2, trainings.versionCount(training.getId()));
+
+        snapshot.close();
+
+        assertEquals(1, trainings.versionCount(training.getId()));
+        assertEquals(0, trainings.versionCount(removed.getId()));
+        assertEquals(updated, trainings.get(training.getId()));
+    }
+
+    @Test
+    void testRejectsIdThatIsNotTheKey() {
+        Training training = newTraining(45);
+
+        assertThrows(IllegalArgumentException.class, () -> trainings.put(UUID.randomUUID(), training));
+        assertTrue(trainings.isEmpty());
+    }
+
+    @Test
+    void testSnapshotStoreRestoresIntoOffHeapStorage() throws IOException {
+        SnapshotStore snapshotStore = new SnapshotStore(tempDir.resolve("gym.snapshot").toString(), true);
+        InMemoryStorage storage = newStorage();
+        Training training = newTraining(45);
+        storage.getTrainingStorage().put(training.getId(), training);
+        snapshotStore.write(storage);
+
+        InMemoryStorage restored = newStorage();
+        snapshotStore.restore(restored);
+
+        assertInstanceOf(OffHeapTrainingMap.class, restored.getTrainingStorage());
+        assertEquals(training, restored.getTrainingStorage().get(training.getId()));
+    }
+
+    private InMemoryStorage newStorage() {
+        InMemoryStorage storage = new InMemoryStorage(new UtilService(new UsernameIndex()));
+        storage.setTrainingOffHeap(true);
+        return storage;
+    }
+
+    private static Training newTraining(Number duration) {
+        return new Training(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                "Morning run", LocalDate.of(2023, 11, 5), duration, LocalTime.of(7, 30), 3);
+    }
+}
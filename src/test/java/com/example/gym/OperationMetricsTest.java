@@ -0,0 +1,98 @@
+package com.example.gym;
+
+import com.example.gym.dao.TraineeDAO;
+import com.example.gym.dao.impl.TraineeDAOImpl;
+import com.example.gym.dto.TraineeRequestDto;
+import com.example.gym.exception.InvalidInputException;
+import com.example.gym.exception.NotFoundException;
+import com.example.gym.metrics.OperationMetricsPostProcessor;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.ReferenceTracker;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationMetricsTest {
+
+    private MeterRegistry meterRegistry;
+
+    private TraineeDAO traineeDAO;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        UtilService utilService = new UtilService(new UsernameIndex());
+        InMemoryStorage inMemoryStorage = new InMemoryStorage(utilService);
+        TraineeDAOImpl traineeDAOImpl = new TraineeDAOImpl();
+        traineeDAOImpl.setTraineeStorage(inMemoryStorage);
+        traineeDAOImpl.setUserStorage(inMemoryStorage);
+        traineeDAOImpl.setUtilService(utilService);
+        StorageLocks storageLocks = new StorageLocks();
+        traineeDAOImpl.setStorageLocks(storageLocks);
+        traineeDAOImpl.setReferenceTracker(new ReferenceTracker(storageLocks, ReferenceTracker.CascadePolicy.CASCADE,
+                ReferenceTracker.CascadePolicy.CASCADE, 10_000, 1_000));
+        OperationMetricsPostProcessor postProcessor = new OperationMetricsPostProcessor(
+                meterRegistryProvider(meterRegistry), true);
+        traineeDAO = (TraineeDAO) postProcessor.postProcessAfterInitialization(traineeDAOImpl, "traineeDAOImpl");
+    }
+
+    @Test
+    void testRecordsLatencyPerMethod() {
+        TraineeRequestDto traineeRequestDto = new TraineeRequestDto();
+        traineeRequestDto.setFirstName("John");
+        traineeRequestDto.setLastName("Smith");
+
+        UUID id = traineeDAO.save(traineeRequestDto).getId();
+        traineeDAO.findById(id);
+        traineeDAO.findById(id);
+
+        assertEquals(1, timer("save").count());
+        assertEquals(2, timer("findById").count());
+    }
+
+    @Test
+    void testCountsErrorsByType() {
+        assertThrows(NotFoundException.class, () -> traineeDAO.delete(UUID.randomUUID()));
+        assertThrows(InvalidInputException.class, () -> traineeDAO.save(new TraineeRequestDto()));
+
+        assertEquals(1, errors("delete", "not_found"));
+        assertEquals(0, errors("delete", "invalid_input"));
+        assertEquals(1, errors("save", "invalid_input"));
+        assertEquals(1, timer("delete").count());
+    }
+
+    @Test
+    void testLeavesOtherBeansAlone() {
+        OperationMetricsPostProcessor postProcessor = new OperationMetricsPostProcessor(
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class), true);
+        UsernameIndex usernameIndex = new UsernameIndex();
+
+        assertSame(usernameIndex, postProcessor.postProcessAfterInitialization(usernameIndex, "usernameIndex"));
+    }
+
+    private Timer timer(String method) {
+        return meterRegistry.get("gym.operation").tags("layer", "dao", "type", "TraineeDAOImpl", "method", method).timer();
+    }
+
+    private double errors(String method, String exception) {
+        return meterRegistry.get("gym.operation.errors")
+                .tags("type", "TraineeDAOImpl", "method", method, "exception", exception).counter().count();
+    }
+
+    private static ObjectProvider<MeterRegistry> meterRegistryProvider(MeterRegistry meterRegistry) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+        return beanFactory.getBeanProvider(MeterRegistry.class);
+    }
+}
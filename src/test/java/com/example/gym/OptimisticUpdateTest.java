@@ -0,0 +1,186 @@
+package com.example.gym;
+
+import com.example.gym.dao.impl.TraineeDAOImpl;
+import com.example.gym.dao.impl.TrainerDAOImpl;
+import com.example.gym.dao.impl.TrainingDAOImpl;
+import com.example.gym.dto.TraineeRequestDto;
+import com.example.gym.dto.TrainerRequestDto;
+import com.example.gym.dto.TrainingRequestDto;
+import com.example.gym.exception.VersionConflictException;
+import com.example.gym.models.Trainee;
+import com.example.gym.models.Trainer;
+import com.example.gym.models.Training;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.service.TrainerService;
+import com.example.gym.storage.ReferenceTracker;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.OptimisticRetry;
+import com.example.gym.util.UtilService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticUpdateTest {
+
+    private InMemoryStorage storage;
+
+    private final TraineeDAOImpl traineeDAO = new TraineeDAOImpl();
+
+    private final TrainerDAOImpl trainerDAO = new TrainerDAOImpl();
+
+    private final TrainingDAOImpl trainingDAO = new TrainingDAOImpl();
+
+    private final TrainerService trainerService = new TrainerService();
+
+    @BeforeEach
+    public void setUp() {
+        UtilService utilService = new UtilService(new UsernameIndex());
+        StorageLocks storageLocks = new StorageLocks();
+        storage = new InMemoryStorage(utilService);
+        storage.setStorageLocks(storageLocks);
+        ReferenceTracker referenceTracker = new ReferenceTracker(storageLocks, ReferenceTracker.CascadePolicy.CASCADE,
+                ReferenceTracker.CascadePolicy.CASCADE, 10_000, 1_000);
+        traineeDAO.setTraineeStorage(storage);
+        traineeDAO.setUserStorage(storage);
+        traineeDAO.setUtilService(utilService);
+        traineeDAO.setStorageLocks(storageLocks);
+        traineeDAO.setReferenceTracker(referenceTracker);
+        trainerDAO.setTrainerStorage(storage);
+        trainerDAO.setUserStorage(storage);
+        trainerDAO.setUtilService(utilService);
+        trainerDAO.setStorageLocks(storageLocks);
+        trainerDAO.setReferenceTracker(referenceTracker);
+        trainingDAO.setTrainingStorage(storage);
+        trainingDAO.setTrainingTypeStorage(storage);
+        trainingDAO.setTraineeDAO(traineeDAO);
+        trainingDAO.setTrainerDAO(trainerDAO);
+        trainingDAO.setUtilService(utilService);
+        trainingDAO.setStorageLocks(storageLocks);
+        trainingDAO.setReferenceTracker(referenceTracker);
+        trainingDAO.buildIndexes();
+        ReflectionTestUtils.setField(trainerService, "trainerDAO", trainerDAO);
+    }
+
+    @Test
+    void testStaleVersionIsRefused() {
+        Trainee trainee = traineeDAO.save(traineeRequest("1 Main Street"));
+        assertEquals(0, trainee.getVersion());
+
+        Trainee updated = traineeDAO.updateIfVersion(trainee.getId(), 0, traineeRequest("2 Main Street"));
+
+        assertEquals(1, updated.getVersion());
+        assertEquals(1, storage.getUserStorage().get(trainee.getUserId()).getVersion());
+        assertThrows(VersionConflictException.class,
+                () -> traineeDAO.updateIfVersion(trainee.getId(), 0, traineeRequest("3 Main Street")));
+        assertEquals(updated, traineeDAO.findById(trainee.getId()).orElseThrow());
+
+        traineeDAO.update(trainee.getId(), traineeRequest("4 Main Street"));
+        assertEquals(2, traineeDAO.findById(trainee.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void testTrainingUpdatesMoveToNextVersion() {
+        UUID traineeId = traineeDAO.save(traineeRequest("1 Main Street")).getId();
+        UUID trainerId = trainerDAO.save(trainerRequest("Cardio")).getId();
+        Training training = trainingDAO.save(trainingRequest(traineeId, trainerId, "Morning run"));
+
+        trainingDAO.update(training.getId(), trainingRequest(traineeId, trainerId, "Evening run"));
+        Training updated = trainingDAO.updateIfVersion(training.getId(), 1, trainingRequest(traineeId, trainerId, "Night run"));
+
+        assertEquals(2, updated.getVersion());
+        assertEquals("Night run", updated.getName());
+        assertThrows(VersionConflictException.class,
+                () -> trainingDAO.updateIfVersion(training.getId(), 1, trainingRequest(traineeId, trainerId, "Lunch run")));
+        assertEquals("Night run", trainingDAO.findById(training.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void testRetryRecomputesChangeAfterConflict() {
+        Trainer trainer = trainerDAO.save(trainerRequest("box"));
+        AtomicInteger attempts = new AtomicInteger();
+
+        Trainer updated = trainerService.updateWithRetry(trainer.getId(), current -> {
+            if (attempts.incrementAndGet() == 1) {
+                // another writer gets in between the read and the write
+                trainerDAO.update(trainer.getId(), trainerRequest("yoga"));
+            }
+            return trainerRequest(current.getSpecialization() + ", cardio");
+        }, 3);
+
+        assertEquals(2, attempts.get());
+        assertEquals("yoga, cardio", updated.getSpecialization());
+        assertEquals(2, updated.getVersion());
+
+        assertThrows(VersionConflictException.class, () -> trainerService.updateWithRetry(trainer.getId(), current -> {
+            trainerDAO.update(trainer.getId(), trainerRequest("pilates"));
+            return trainerRequest("box");
+        }, 3));
+        assertEquals("pilates", trainerDAO.findById(trainer.getId()).orElseThrow().getSpecialization());
+        assertThrows(IllegalArgumentException.class, () -> OptimisticRetry.retry(0, () -> null));
+    }
+
+    @Test
+    void testConcurrentRetriesLoseNoUpdate() throws Exception {
+        Trainer trainer = trainerDAO.save(trainerRequest("0"));
+        int threads = 4;
+        int increments = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < increments; i++) {
+                        trainerService.updateWithRetry(trainer.getId(), current -> trainerRequest(
+                                String.valueOf(Integer.parseInt(current.getSpecialization()) + 1)), 1_000);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Trainer updated = trainerDAO.findById(trainer.getId()).orElseThrow();
+        assertEquals(String.valueOf(threads * increments), updated.getSpecialization());
+        assertEquals(threads * increments, updated.getVersion());
+    }
+
+    private static TraineeRequestDto traineeRequest(String address) {
+        TraineeRequestDto request = new TraineeRequestDto();
+        request.setFirstName("John");
+        request.setLastName("Smith");
+        request.setAddress(address);
+        return request;
+    }
+
+    private static TrainerRequestDto trainerRequest(String specialization) {
+        TrainerRequestDto request = new TrainerRequestDto();
+        request.setFirstName("Anna");
+        request.setLastName("Brown");
+        request.setSpecialization(specialization);
+        return request;
+    }
+
+    private static TrainingRequestDto trainingRequest(UUID traineeId, UUID trainerId, String name) {
+        TrainingRequestDto request = new TrainingRequestDto();
+        request.setTraineeId(traineeId);
+        request.setTrainerId(trainerId);
+        request.setName(name);
+        request.setDate(LocalDate.of(2023, 11, 5));
+        request.setDuration(45);
+        request.setTrainingTypeName("Cardio");
+        return request;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.gym;
+
+import com.example.gym.util.PasswordPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordPoolTest {
+
+    @Test
+    void testRefillsToHighWatermark() throws InterruptedException {
+        PasswordPool passwordPool = new PasswordPool(10, 4, 16);
+        passwordPool.start();
+        try {
+            awaitSize(passwordPool, 16);
+            Set<String> passwords = new HashSet<>();
+            for (int i = 0; i < 13; i++) {
+                String password = passwordPool.take();
+                assertEquals(10, password.length());
+                assertTrue(password.matches("[A-Za-z0-9]+"));
+                passwords.add(password);
+            }
+            assertEquals(13, passwords.size());
+            awaitSize(passwordPool, 16);
+        } finally {
+            passwordPool.stop();
+        }
+    }
+
+    @Test
+    void testUnstartedPoolGeneratesInline() {
+        PasswordPool passwordPool = new PasswordPool();
+
+        assertEquals(10, passwordPool.take().length());
+        assertEquals(12, passwordPool.generate(12).length());
+        assertEquals(0, passwordPool.size());
+        assertEquals(0, passwordPool.getMisses());
+    }
+
+    @Test
+    void testInvalidWatermarks() {
+        assertThrows(IllegalArgumentException.class, () -> new PasswordPool(10, 20, 10));
+    }
+
+    private static void awaitSize(PasswordPool passwordPool, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (passwordPool.size() < size) {
+            assertTrue(System.currentTimeMillis() < deadline, "pool was not refilled");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.gym;
+
+import com.example.gym.dao.impl.TraineeDAOImpl;
+import com.example.gym.dao.impl.TrainerDAOImpl;
+import com.example.gym.dao.impl.TrainingDAOImpl;
+import com.example.gym.dto.TraineeRequestDto;
+import com.example.gym.dto.TrainerRequestDto;
+import com.example.gym.dto.TrainingRequestDto;
+import com.example.gym.dto.VolumePeriod;
+import com.example.gym.exception.ReferenceConflictException;
+import com.example.gym.models.Training;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.EntityKind;
+import com.example.gym.storage.ReferenceTracker;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceTrackerTest {
+
+    private InMemoryStorage storage;
+
+    private ReferenceTracker referenceTracker;
+
+    private final TraineeDAOImpl traineeDAO = new TraineeDAOImpl();
+
+    private final TrainerDAOImpl trainerDAO = new TrainerDAOImpl();
+
+    private final TrainingDAOImpl trainingDAO = new TrainingDAOImpl();
+
+    private UUID traineeId;
+
+    private UUID trainerId;
+
+    @BeforeEach
+    public void setUp() {
+        UtilService utilService = new UtilService(new UsernameIndex());
+        StorageLocks storageLocks = new StorageLocks();
+        storage = new InMemoryStorage(utilService);
+        storage.setStorageLocks(storageLocks);
+        referenceTracker = new ReferenceTracker(storageLocks, ReferenceTracker.CascadePolicy.CASCADE,
+                ReferenceTracker.CascadePolicy.CASCADE, 2, 1);
+        traineeDAO.setTraineeStorage(storage);
+        traineeDAO.setUserStorage(storage);
+        traineeDAO.setUtilService(utilService);
+        traineeDAO.setStorageLocks(storageLocks);
+        traineeDAO.setReferenceTracker(referenceTracker);
+        trainerDAO.setTrainerStorage(storage);
+        trainerDAO.setUserStorage(storage);
+        trainerDAO.setUtilService(utilService);
+        trainerDAO.setStorageLocks(storageLocks);
+        trainerDAO.setReferenceTracker(referenceTracker);
+        trainingDAO.setTrainingStorage(storage);
+        trainingDAO.setTrainingTypeStorage(storage);
+        trainingDAO.setTraineeDAO(traineeDAO);
+        trainingDAO.setTrainerDAO(trainerDAO);
+        trainingDAO.setUtilService(utilService);
+        trainingDAO.setStorageLocks(storageLocks);
+        trainingDAO.setReferenceTracker(referenceTracker);
+        trainingDAO.buildIndexes();
+        traineeId = addTrainee();
+        trainerId = addTrainer();
+    }
+
+    @Test
+    void testCascadeDeletesTraineeTrainings() {
+        List<Training> trainings = addTrainings(traineeId, 2);
+        Training other = addTrainings(addTrainee(), 1).get(0);
+
+        traineeDAO.delete(traineeId);
+
+        assertTrue(trainingDAO.findByTraineeId(traineeId).isEmpty());
+        trainings.forEach(training -> assertFalse(storage.getTrainingStorage().containsKey(training.getId())));
+        assertEquals(List.of(other), trainingDAO.findAll());
+        assertEquals(1, trainingDAO.findTrainerVolume(trainerId, VolumePeriod.DAY, other.getDate()).getCount());
+        assertTrue(trainerDAO.findById(trainerId).isPresent());
+    }
+
+    @Test
+    void testDetachKeepsTrainingsWithoutTrainer() {
+        referenceTracker.setPolicy(EntityKind.TRAINER, ReferenceTracker.CascadePolicy.DETACH);
+        List<Training> trainings = addTrainings(traineeId, 2);
+
+        trainerDAO.delete(trainerId);
+
+        assertEquals(2, trainingDAO.findByTraineeId(traineeId).size());
+        trainingDAO.findAll().forEach(training -> assertNull(training.getTrainerId()));
+        assertEquals(0, referenceTracker.countReferences(EntityKind.TRAINER, trainerId));
+        assertEquals(trainings.get(0).getName(), trainingDAO.findById(trainings.get(0).getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void testRestrictRefusesReferencedTrainee() {
+        referenceTracker.setPolicy(EntityKind.TRAINEE, ReferenceTracker.CascadePolicy.RESTRICT);
+        addTrainings(traineeId, 1);
+
+        assertThrows(ReferenceConflictException.class, () -> traineeDAO.delete(traineeId));
+
+        assertTrue(traineeDAO.findById(traineeId).isPresent());
+        assertEquals(1, referenceTracker.countReferences(EntityKind.TRAINEE, traineeId));
+    }
+
+    @Test
+    void testLargeCascadeRunsInBackground() throws InterruptedException {
+        addTrainings(traineeId, 5);
+
+        traineeDAO.delete(traineeId);
+
+        assertTrue(traineeDAO.findById(traineeId).isEmpty());
+        assertTrue(referenceTracker.awaitCascades(10, TimeUnit.SECONDS));
+        assertEquals(0, referenceTracker.pendingCascades());
+        assertTrue(trainingDAO.findAll().isEmpty());
+    }
+
+    @Test
+    void testCascadeLocksWhatTheTrainingsReferTo() {
+        List<Training> trainings = addTrainings(traineeId, 2);
+        List<Set<Object>> locked = new ArrayList<>();
+        StorageLocks recordingLocks = new StorageLocks() {
+            @Override
+            public <T> T supplyLocked(Supplier<T> action, Object... keys) {
+                locked.add(new HashSet<>(Arrays.asList(keys)));
+                return super.supplyLocked(action, keys);
+            }
+        };
+        ReferenceTracker tracker = new ReferenceTracker(recordingLocks, ReferenceTracker.CascadePolicy.CASCADE,
+                ReferenceTracker.CascadePolicy.CASCADE, 10, 1);
+        trainingDAO.setReferenceTracker(tracker);
+        traineeDAO.setReferenceTracker(tracker);
+
+        traineeDAO.delete(traineeId);
+
+        assertEquals(Set.of(traineeId, trainerId, trainings.get(0).getId(), trainings.get(1).getId()), locked.get(0));
+        assertTrue(trainingDAO.findByTrainerId(trainerId).isEmpty());
+    }
+
+    @Test
+    void testTrainingDeleteKeepsTraineeAndTrainer() {
+        List<Training> trainings = addTrainings(traineeId, 2);
+
+        trainingDAO.delete(trainings.get(0).getId());
+        trainingDAO.delete(trainings.get(1).getId());
+
+        assertTrue(trainingDAO.findAll().isEmpty());
+        assertTrue(traineeDAO.findById(traineeId).isPresent());
+        assertTrue(trainerDAO.findById(trainerId).isPresent());
+        assertEquals(2, storage.getUserStorage().size());
+    }
+
+    private UUID addTrainee() {
+        TraineeRequestDto request = new TraineeRequestDto();
+        request.setFirstName("John");
+        request.setLastName("Smith");
+        return traineeDAO.save(request).getId();
+    }
+
+    private UUID addTrainer() {
+        TrainerRequestDto request = new TrainerRequestDto();
+        request.setFirstName("Anna");
+        request.setLastName("Brown");
+        request.setSpecialization("Cardio");
+        return trainerDAO.save(request).getId();
+    }
+
+    private List<Training> addTrainings(UUID traineeId, int count) {
+        List<Training> trainings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TrainingRequestDto request = new TrainingRequestDto();
+            request.setTraineeId(traineeId);
+            request.setTrainerId(trainerId);
+            request.setName("Session " + i);
+            request.setDate(LocalDate.of(2023, 11, 1 + i));
+            request.setDuration(45);
+            request.setTrainingTypeName("Cardio");
+            trainings.add(trainingDAO.save(request));
+        }
+        return trainings;
+    }
+}
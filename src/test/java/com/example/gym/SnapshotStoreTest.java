@@ -0,0 +1,132 @@
+package com.example.gym;
+
+import com.example.gym.models.*;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.SnapshotStore;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SnapshotStore snapshotStore;
+
+    private InMemoryStorage inMemoryStorage;
+
+    @BeforeEach
+    public void setUp() {
+        snapshotStore = new SnapshotStore(tempDir.resolve("gym.snapshot").toString(), true);
+        inMemoryStorage = newStorage();
+    }
+
+    @Test
+    void testWriteAndRestore() throws IOException {
+        User user = User.builder().id(UUID.randomUUID()).firstName("John").lastName("Smith")
+                .username("John.Smith").password("password12").isActive(true).version(2).build();
+        Trainee trainee = Trainee.builder().id(UUID.randomUUID()).userId(user.getId()).address(null).version(1).build();
+        Trainer trainer = Trainer.builder().id(UUID.randomUUID()).userId(user.getId()).specialization("box").version(4).build();
+        TrainingType trainingType = new TrainingType(UUID.randomUUID(), "cardio");
+        Training training = new Training(UUID.randomUUID(), trainee.getId(), trainer.getId(), trainingType.getId(),
+                "Morning run", LocalDate.of(2023, 11, 5), 60, LocalTime.of(7, 30));
+        inMemoryStorage.getUserStorage().put(user.getId(), user);
+        inMemoryStorage.getTraineeStorage().put(trainee.getId(), trainee);
+        inMemoryStorage.getTrainerStorage().put(trainer.getId(), trainer);
+        inMemoryStorage.getTrainingTypeStorage().put(trainingType.getId(), trainingType);
+        inMemoryStorage.getTrainingStorage().put(training.getId(), training);
+
+        assertEquals(5, snapshotStore.write(inMemoryStorage));
+
+        InMemoryStorage restored = newStorage();
+        assertEquals(5, snapshotStore.restore(restored));
+        assertEquals(user, restored.getUserStorage().get(user.getId()));
+        assertEquals(trainee, restored.getTraineeStorage().get(trainee.getId()));
+        assertEquals(trainer, restored.getTrainerStorage().get(trainer.getId()));
+        assertEquals(trainingType, restored.getTrainingTypeStorage().get(trainingType.getId()));
+        assertEquals(training, restored.getTrainingStorage().get(training.getId()));
+    }
+
+    @Test
+    void testRestoreDetectsCorruption() throws IOException {
+        TrainingType trainingType = new TrainingType(UUID.randomUUID(), "cardio");
+        inMemoryStorage.getTrainingTypeStorage().put(trainingType.getId(), trainingType);
+        snapshotStore.write(inMemoryStorage);
+
+        try (RandomAccessFile file = new RandomAccessFile(snapshotStore.getPath().toFile(), "rw")) {
+            file.seek(file.length() - 2);
+            file.write('X');
+        }
+
+        assertThrows(IOException.class, () -> snapshotStore.restore(newStorage()));
+    }
+
+    @Test
+    void testRestoreRejectsUnknownFile() throws IOException {
+        Files.writeString(snapshotStore.getPath(), "not a snapshot at all");
+
+        assertThrows(IOException.class, () -> snapshotStore.restore(newStorage()));
+    }
+
+    @Test
+    void testWriteLeavesOutWritesInFlight() throws Exception {
+        StorageLocks storageLocks = new StorageLocks();
+        inMemoryStorage.setStorageLocks(storageLocks);
+        TrainingType trainingType = new TrainingType(UUID.randomUUID(), "cardio");
+        inMemoryStorage.getTrainingTypeStorage().put(trainingType.getId(), trainingType);
+        User user = User.builder().id(UUID.randomUUID()).firstName("John").lastName("Smith")
+                .username("John.Smith").password("password12").isActive(true).build();
+        Trainee trainee = Trainee.builder().id(UUID.randomUUID()).userId(user.getId()).build();
+        CountDownLatch halfWritten = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        Thread writer = new Thread(() -> storageLocks.runLocked(() -> {
+            inMemoryStorage.getUserStorage().put(user.getId(), user);
+            halfWritten.countDown();
+            await(written);
+            inMemoryStorage.getTraineeStorage().put(trainee.getId(), trainee);
+        }, trainee.getId()));
+        writer.start();
+        assertTrue(halfWritten.await(5, TimeUnit.SECONDS));
+
+        try {
+            assertEquals(1, snapshotStore.write(inMemoryStorage));
+        } finally {
+            written.countDown();
+            writer.join();
+        }
+
+        InMemoryStorage restored = newStorage();
+        assertEquals(1, snapshotStore.restore(restored));
+        assertEquals(trainingType, restored.getTrainingTypeStorage().get(trainingType.getId()));
+        assertTrue(restored.getUserStorage().isEmpty());
+        assertTrue(restored.getTraineeStorage().isEmpty());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private InMemoryStorage newStorage() {
+        return new InMemoryStorage(new UtilService(new UsernameIndex()));
+    }
+}
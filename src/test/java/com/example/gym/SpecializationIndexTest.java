@@ -0,0 +1,78 @@
+package com.example.gym;
+
+import com.example.gym.exception.InvalidInputException;
+import com.example.gym.models.Trainer;
+import com.example.gym.storage.SpecializationIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpecializationIndexTest {
+
+    private SpecializationIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new SpecializationIndex();
+    }
+
+    @Test
+    void testNormalizesAndInterns() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        index.put(first, " Box ");
+        index.put(second, "BOX, kick  boxing");
+
+        assertEquals(List.of("box", "kick boxing"), index.specializationsOf(second));
+        assertSame(index.specializationsOf(first).get(0), index.specializationsOf(second).get(0));
+        assertEquals(2, index.count("box"));
+        assertEquals(1, index.count("Kick Boxing"));
+        assertEquals(new TreeMap<>(Map.of("box", 2, "kick boxing", 1)), index.counts());
+    }
+
+    @Test
+    void testUnionAndIntersection() {
+        UUID boxer = UUID.randomUUID();
+        UUID runner = UUID.randomUUID();
+        UUID both = UUID.randomUUID();
+        index.put(boxer, "box");
+        index.put(runner, "cardio");
+        index.put(both, "cardio, box");
+        index.put(UUID.randomUUID(), null);
+
+        assertEquals(Set.of(boxer, runner, both), index.findAny(List.of("box", "cardio")));
+        assertEquals(Set.of(both), index.findAll(List.of("Box", "Cardio")));
+        assertEquals(Set.of(both), index.findAll(List.of("box, cardio")));
+        assertTrue(index.findAll(List.of("box", "yoga")).isEmpty());
+        assertEquals(Set.of(boxer, both), index.findAny(List.of("box", "yoga")));
+    }
+
+    @Test
+    void testReindexingAndRemoval() {
+        UUID id = UUID.randomUUID();
+        index.put(id, "yoga");
+        index.put(id, "pilates");
+
+        assertEquals(0, index.count("yoga"));
+        assertEquals(Set.of(id), index.findAny(List.of("pilates")));
+
+        index.remove(id);
+        assertTrue(index.counts().isEmpty());
+        assertTrue(index.specializationsOf(id).isEmpty());
+
+        Trainer trainer = new Trainer(UUID.randomUUID(), "Swimming", UUID.randomUUID());
+        index.put(id, "box");
+        index.rebuild(List.of(trainer));
+        assertEquals(new TreeMap<>(Map.of("swimming", 1)), index.counts());
+    }
+
+    @Test
+    void testRequiresASpecialization() {
+        assertThrows(InvalidInputException.class, () -> index.findAny(List.of()));
+        assertThrows(InvalidInputException.class, () -> index.findAll(List.of(" ", ",")));
+        assertThrows(InvalidInputException.class, () -> index.findAny(null));
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.gym;
+
+import com.example.gym.models.Training;
+import com.example.gym.models.User;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.*;
+import com.example.gym.util.UtilService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SnapshotStore snapshotStore;
+
+    private StorageLocks storageLocks;
+
+    @BeforeEach
+    public void setUp() {
+        snapshotStore = new SnapshotStore(tempDir.resolve("gym.snapshot").toString(), true);
+        storageLocks = new StorageLocks();
+    }
+
+    @Test
+    void testReplayAfterRestart() throws IOException {
+        InMemoryStorage storage = newStorage();
+        StorageJournal journal = newJournal(StorageJournal.FsyncPolicy.GROUP);
+        journal.open(storage, false);
+        User user = newUser();
+        User removed = newUser();
+        Training training = new Training(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), null,
+                "Morning run", LocalDate.of(2023, 11, 5), 45, LocalTime.of(18, 0));
+        storageLocks.runLocked(() -> storage.getUserStorage().put(user.getId(), user), user.getId());
+        storageLocks.runLocked(() -> storage.getUserStorage().put(removed.getId(), removed), removed.getId());
+        storageLocks.runLocked(() -> storage.getTrainingStorage().put(training.getId(), training), training.getId());
+        storageLocks.runLocked(() -> storage.getUserStorage().remove(removed.getId()), removed.getId());
+        journal.close();
+
+        InMemoryStorage restarted = restart(StorageJournal.FsyncPolicy.GROUP);
+
+        assertEquals(1, restarted.getUserStorage().size());
+        assertEquals(user, restarted.getUserStorage().get(user.getId()));
+        assertEquals(training, restarted.getTrainingStorage().get(training.getId()));
+    }
+
+    @Test
+    void testReadsTrainingRecordWrittenBeforeStartTimes() throws IOException {
+        Training training = new Training(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), null,
+                "Morning run", LocalDate.of(2023, 11, 5), 45, LocalTime.of(18, 0), 7);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EntityCodec.writeTraining(new DataOutputStream(bytes), training);
+        assertEquals(training, EntityCodec.read(ByteBuffer.wrap(bytes.toByteArray()), EntityKind.TRAINING));
+        // version 2 ended with the start time, version 1 with the duration
+        byte[] withoutVersion = Arrays.copyOf(bytes.toByteArray(), bytes.size() - Long.BYTES);
+        byte[] withoutStartTime = Arrays.copyOf(withoutVersion, withoutVersion.length - Integer.BYTES);
+
+        Training readWithoutVersion = (Training) EntityCodec.read(ByteBuffer.wrap(withoutVersion), EntityKind.TRAINING);
+        Training readWithoutStartTime = (Training) EntityCodec.read(ByteBuffer.wrap(withoutStartTime), EntityKind.TRAINING);
+
+        training.setVersion(0);
+        assertEquals(training, readWithoutVersion);
+        training.setStartTime(null);
+        assertEquals(training, readWithoutStartTime);
+    }
+
+    @Test
+    void testTornTailIsIgnored() throws IOException {
+        InMemoryStorage storage = newStorage();
+        StorageJournal journal = newJournal(StorageJournal.FsyncPolicy.PER_WRITE);
+        journal.open(storage, false);
+        User user = newUser();
+        storage.getUserStorage().put(user.getId(), user);
+        journal.close();
+
+        Files.write(lastSegment(), new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        InMemoryStorage restarted = restart(StorageJournal.FsyncPolicy.PER_WRITE);
+
+        assertEquals(user, restarted.getUserStorage().get(user.getId()));
+    }
+
+    @Test
+    void testCompactFoldsJournalIntoSnapshot() throws IOException {
+        InMemoryStorage storage = newStorage();
+        StorageJournal journal = newJournal(StorageJournal.FsyncPolicy.ASYNC);
+        journal.open(storage, false);
+        User user = newUser();
+        storage.getUserStorage().put(user.getId(), user);
+
+        journal.compact(storage);
+        journal.close();
+
+        assertEquals(1, segments().size());
+        InMemoryStorage restored = newStorage();
+        snapshotStore.restore(restored);
+        assertEquals(user, restored.getUserStorage().get(user.getId()));
+    }
+
+    @Test
+    void testMutationIsLoggedBeforeItIsApplied() {
+        InMemoryStorage storage = newStorage();
+        storage.setTrainingOffHeap(true);
+        List<String> events = new ArrayList<>();
+        storage.addListener(new StorageListener() {
+            @Override
+            public void onPut(EntityKind kind, UUID id, Object previous, Object value) {
+                events.add("applied " + kind);
+            }
+
+            @Override
+            public void onRemove(EntityKind kind, UUID id, Object previous) {
+                events.add("removed " + kind);
+            }
+        });
+        storage.setWriteAheadLog(new WriteAheadLog() {
+            @Override
+            public void logPut(EntityKind kind, UUID id, Object value) {
+                // the off-heap map holds its write lock while logging, so only the user map is read here
+                if (kind == EntityKind.USER) {
+                    assertNull(storage.getUserStorage().get(id));
+                }
+                events.add("logged " + kind);
+            }
+
+            @Override
+            public void logRemove(EntityKind kind, UUID id) {
+                events.add("logged removal " + kind);
+            }
+        });
+        User user = newUser();
+        Training training = newTraining();
+
+        storage.getUserStorage().put(user.getId(), user);
+        storage.getTrainingStorage().put(training.getId(), training);
+        storage.getUserStorage().putIfAbsent(user.getId(), user);
+        storage.getTrainingStorage().remove(training.getId());
+
+        assertEquals(List.of("logged USER", "applied USER", "logged TRAINING", "applied TRAINING",
+                "logged removal TRAINING", "removed TRAINING"), events);
+    }
+
+    @Test
+    void testRefusedLogLeavesMapsUnchanged() {
+        InMemoryStorage storage = newStorage();
+        storage.setTrainingOffHeap(true);
+        User user = newUser();
+        Training training = newTraining();
+        storage.getUserStorage().put(user.getId(), user);
+        storage.getTrainingStorage().put(training.getId(), training);
+        storage.setWriteAheadLog(new WriteAheadLog() {
+            @Override
+            public void logPut(EntityKind kind, UUID id, Object value) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+
+            @Override
+            public void logRemove(EntityKind kind, UUID id) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+        });
+        User renamed = User.copyOf(user);
+        renamed.setLastName("Brown");
+
+        assertThrows(UncheckedIOException.class, () -> storage.getUserStorage().put(user.getId(), renamed));
+        assertThrows(UncheckedIOException.class, () -> storage.getUserStorage().put(UUID.randomUUID(), renamed));
+        assertThrows(UncheckedIOException.class, () -> storage.getTrainingStorage().remove(training.getId()));
+
+        assertEquals(1, storage.getUserStorage().size());
+        assertSame(user, storage.getUserStorage().get(user.getId()));
+        assertEquals(training, storage.getTrainingStorage().get(training.getId()));
+        assertEquals(1, storage.getTrainingStorage().size());
+    }
+
+    @Test
+    void testCommitHookRunsBeforeWriteIsVisible() throws Exception {
+        InMemoryStorage storage = newStorage();
+        storage.setStorageLocks(storageLocks);
+        User user = newUser();
+        User other = newUser();
+        List<Boolean> visibleToSnapshots = new ArrayList<>();
+        storage.getVersions().setCommitHook(() -> {
+            CompletableFuture<Boolean> visible = CompletableFuture.supplyAsync(() -> {
+                try (StorageSnapshot snapshot = storage.openSnapshot()) {
+                    return snapshot.getUserStorage().containsKey(user.getId());
+                }
+            });
+            visibleToSnapshots.add(visible.join());
+        });
+
+        storageLocks.runLocked(() -> {
+            storage.getUserStorage().put(user.getId(), user);
+            storageLocks.runLocked(() -> storage.getUserStorage().put(other.getId(), other), other.getId());
+        }, user.getId());
+
+        // one commit for the outer locked action, the nested one joined it
+        assertEquals(List.of(false), visibleToSnapshots);
+        storage.getUserStorage().remove(other.getId());
+        assertEquals(List.of(false, true), visibleToSnapshots);
+    }
+
+    private InMemoryStorage restart(StorageJournal.FsyncPolicy fsyncPolicy) throws IOException {
+        InMemoryStorage restarted = newStorage();
+        snapshotStore.restore(restarted);
+        StorageJournal journal = newJournal(fsyncPolicy);
+        journal.open(restarted, true);
+        journal.close();
+        return restarted;
+    }
+
+    private StorageJournal newJournal(StorageJournal.FsyncPolicy fsyncPolicy) {
+        return new StorageJournal(tempDir.resolve("journal").toString(), true, fsyncPolicy, 10, snapshotStore);
+    }
+
+    private InMemoryStorage newStorage() {
+        return new InMemoryStorage(new UtilService(new UsernameIndex()));
+    }
+
+    private static Training newTraining() {
+        return new Training(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), null,
+                "Morning run", LocalDate.of(2023, 11, 5), 45, LocalTime.of(18, 0));
+    }
+
+    private User newUser() {
+        return User.builder().id(UUID.randomUUID()).firstName("John").lastName("Smith")
+                .username("John.Smith").password("password12").isActive(true).build();
+    }
+
+    private Path lastSegment() throws IOException {
+        List<Path> segments = segments();
+        return segments.get(segments.size() - 1);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve("journal"))) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.gym;
+
+import com.example.gym.dao.impl.TraineeDAOImpl;
+import com.example.gym.dto.TraineeRequestDto;
+import com.example.gym.models.Trainee;
+import com.example.gym.models.User;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.ReferenceTracker;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.StorageMap;
+import com.example.gym.storage.StorageSnapshot;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageSnapshotTest {
+
+    private InMemoryStorage storage;
+
+    private StorageLocks storageLocks;
+
+    @BeforeEach
+    public void setUp() {
+        storage = new InMemoryStorage(new UtilService(new UsernameIndex()));
+        storageLocks = new StorageLocks();
+        storage.setStorageLocks(storageLocks);
+    }
+
+    @Test
+    void testSnapshotKeepsSeeingOldVersions() {
+        User user = newUser("Smith");
+        storage.getUserStorage().put(user.getId(), user);
+
+        try (StorageSnapshot snapshot = storage.openSnapshot()) {
+            User renamed = User.copyOf(user);
+            renamed.setLastName("Brown");
+            storage.getUserStorage().put(user.getId(), renamed);
+            User added = newUser("Clark");
+            storage.getUserStorage().put(added.getId(), added);
+
+            assertEquals("Smith", snapshot.getUserStorage().get(user.getId()).getLastName());
+            assertEquals(List.of(user), List.copyOf(snapshot.getUserStorage().values()));
+            assertEquals(1, snapshot.getUserStorage().size());
+            assertEquals("Brown", storage.getUserStorage().get(user.getId()).getLastName());
+            assertEquals(2, storage.getUserStorage().size());
+        }
+    }
+
+    @Test
+    void testSnapshotSeesRemovedEntities() {
+        User user = newUser("Smith");
+        storage.getUserStorage().put(user.getId(), user);
+
+        try (StorageSnapshot snapshot = storage.openSnapshot()) {
+            storage.getUserStorage().remove(user.getId());
+
+            assertEquals(user, snapshot.getUserStorage().get(user.getId()));
+            assertFalse(storage.getUserStorage().containsKey(user.getId()));
+            assertTrue(storage.getUserStorage().isEmpty());
+        }
+        try (StorageSnapshot snapshot = storage.openSnapshot()) {
+            assertTrue(snapshot.getUserStorage().isEmpty());
+        }
+    }
+
+    @Test
+    void testSnapshotNeverSeesPartOfLockedAction() throws Exception {
+        User user = newUser("Smith");
+        Trainee trainee = Trainee.builder().id(UUID.randomUUID()).userId(user.getId()).build();
+        CountDownLatch halfWritten = new CountDownLatch(1);
+        CountDownLatch snapshotTaken = new CountDownLatch(1);
+        Thread writer = new Thread(() -> storageLocks.runLocked(() -> {
+            storage.getUserStorage().put(user.getId(), user);
+            halfWritten.countDown();
+            await(snapshotTaken);
+            storage.getTraineeStorage().put(trainee.getId(), trainee);
+        }, trainee.getId()));
+        writer.start();
+        assertTrue(halfWritten.await(5, TimeUnit.SECONDS));
+
+        try (StorageSnapshot during = storage.openSnapshot()) {
+            snapshotTaken.countDown();
+            writer.join();
+
+            assertTrue(during.getUserStorage().isEmpty());
+            assertTrue(during.getTraineeStorage().isEmpty());
+        }
+        try (StorageSnapshot after = storage.openSnapshot()) {
+            assertEquals(user, after.getUserStorage().get(user.getId()));
+            assertEquals(trainee, after.getTraineeStorage().get(trainee.getId()));
+        }
+    }
+
+    @Test
+    void testAwaitWritesWaitsForWritesInFlight() throws Exception {
+        User user = newUser("Smith");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread(() -> storageLocks.runLocked(() -> {
+            started.countDown();
+            await(release);
+            storage.getUserStorage().put(user.getId(), user);
+        }, user.getId()));
+        writer.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Thread waiter = new Thread(() -> storage.getVersions().awaitWrites());
+        waiter.start();
+
+        waiter.join(200);
+        assertTrue(waiter.isAlive());
+        release.countDown();
+        waiter.join(5_000);
+        assertFalse(waiter.isAlive());
+        try (StorageSnapshot snapshot = storage.openSnapshot()) {
+            assertEquals(user, snapshot.getUserStorage().get(user.getId()));
+        }
+        writer.join();
+        assertThrows(IllegalStateException.class,
+                () -> storageLocks.runLocked(() -> storage.getVersions().awaitWrites(), user.getId()));
+    }
+
+    @Test
+    void testVersionsAreReclaimedAfterClose() {
+        StorageMap<User> users = (StorageMap<User>) storage.getUserStorage();
+        User user = newUser("Smith");
+        users.put(user.getId(), user);
+        User removed = newUser("Clark");
+        users.put(removed.getId(), removed);
+
+        StorageSnapshot snapshot = storage.openSnapshot();
+        for (String lastName : List.of("Brown", "Taylor", "Wilson")) {
+            User renamed = User.copyOf(user);
+            renamed.setLastName(lastName);
+            users.put(user.getId(), renamed);
+        }
+        users.remove(removed.getId());
+        assertEquals(4, users.versionCount(user.getId()));
+        assertEquals(2, users.versionCount(removed.getId()));
+
+        snapshot.close();
+
+        assertEquals(1, users.versionCount(user.getId()));
+        assertEquals(0, users.versionCount(removed.getId()));
+        assertEquals(0, storage.getVersions().pendingGarbage());
+        assertEquals("Wilson", users.get(user.getId()).getLastName());
+    }
+
+    @Test
+    void testDaoStreamReadsOneSnapshot() {
+        UtilService utilService = new UtilService(new UsernameIndex());
+        TraineeDAOImpl traineeDAO = new TraineeDAOImpl();
+        traineeDAO.setTraineeStorage(storage);
+        traineeDAO.setUserStorage(storage);
+        traineeDAO.setUtilService(utilService);
+        traineeDAO.setStorageLocks(storageLocks);
+        traineeDAO.setReferenceTracker(new ReferenceTracker(storageLocks, ReferenceTracker.CascadePolicy.CASCADE,
+                ReferenceTracker.CascadePolicy.CASCADE, 10_000, 1_000));
+        Trainee first = traineeDAO.save(traineeRequest());
+
+        try (Stream<Trainee> trainees = traineeDAO.stream()) {
+            traineeDAO.save(traineeRequest());
+            traineeDAO.delete(first.getId());
+
+            assertEquals(1, storage.getVersions().openSnapshots());
+            assertEquals(List.of(first), trainees.toList());
+        }
+        assertEquals(0, storage.getVersions().openSnapshots());
+        assertEquals(1, traineeDAO.stream().count());
+    }
+
+    private static TraineeRequestDto traineeRequest() {
+        TraineeRequestDto request = new TraineeRequestDto();
+        request.setFirstName("John");
+        request.setLastName("Smith");
+        return request;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static User newUser(String lastName) {
+        return User.builder().id(UUID.randomUUID()).firstName("John").lastName(lastName)
+                .username("John." + lastName).password("password12").isActive(true).build();
+    }
+}
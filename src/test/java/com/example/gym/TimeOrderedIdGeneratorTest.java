@@ -0,0 +1,55 @@
+package com.example.gym;
+
+import com.example.gym.util.TimeOrderedIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void testIdsAreVersion7AndIncreasing() {
+        TimeOrderedIdGenerator idGenerator = new TimeOrderedIdGenerator();
+        UUID previous = idGenerator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = idGenerator.nextId();
+            assertEquals(7, id.version());
+            assertEquals(2, id.variant());
+            assertTrue(Long.compareUnsigned(id.getMostSignificantBits(), previous.getMostSignificantBits()) > 0);
+            previous = id;
+        }
+    }
+
+    @Test
+    void testTimestampIsWallClock() {
+        long before = System.currentTimeMillis();
+        UUID id = new TimeOrderedIdGenerator().nextId();
+
+        long timestamp = id.getMostSignificantBits() >>> 16;
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void testConcurrentIdsAreUnique() throws Exception {
+        TimeOrderedIdGenerator idGenerator = new TimeOrderedIdGenerator();
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    ids.add(idGenerator.nextId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(16 * 20_000, ids.size());
+    }
+}
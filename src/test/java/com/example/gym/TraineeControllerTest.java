@@ -0,0 +1,135 @@
+package com.example.gym;
+
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TraineeRequestDto;
+import com.example.gym.exception.InvalidInputException;
+import com.example.gym.exception.ReferenceConflictException;
+import com.example.gym.models.Trainee;
+import com.example.gym.service.TraineeService;
+import com.example.gym.web.ConcurrencyLimitFilter;
+import com.example.gym.web.RestExceptionHandler;
+import com.example.gym.web.TraineeController;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class TraineeControllerTest {
+
+    @InjectMocks
+    private TraineeController traineeController;
+
+    @Mock
+    private TraineeService traineeService;
+
+    private final ConcurrencyLimitFilter concurrencyLimitFilter = new ConcurrencyLimitFilter(1, 10);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(traineeController)
+                .setControllerAdvice(new RestExceptionHandler())
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json()
+                        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build()))
+                .addFilter(concurrencyLimitFilter, "/api/*")
+                .build();
+    }
+
+    @Test
+    void testCreate() throws Exception {
+        Trainee trainee = new Trainee(UUID.randomUUID(), UUID.randomUUID(), "Main street 1");
+        when(traineeService.save(new TraineeRequestDto("John", "Smith", "Main street 1", null, null))).thenReturn(trainee);
+
+        mockMvc.perform(post("/api/trainees").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"John\",\"lastName\":\"Smith\",\"address\":\"Main street 1\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(trainee.getId().toString()))
+                .andExpect(jsonPath("$.address").value("Main street 1"));
+    }
+
+    @Test
+    void testFindByIdNotFound() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(traineeService.findById(id)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/trainees/{id}", id))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404));
+    }
+
+    @Test
+    void testFindPageOrderedByLastName() throws Exception {
+        Trainee trainee = new Trainee(UUID.randomUUID(), UUID.randomUUID(), null);
+        when(traineeService.findPageOrderedByLastName("abc", 10)).thenReturn(new Page<>(List.of(trainee), null));
+
+        mockMvc.perform(get("/api/trainees").param("cursor", "abc").param("limit", "10").param("sort", "lastName"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(trainee.getId().toString()));
+        verify(traineeService, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    void testErrorsMapToStatuses() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(traineeService.update(eq(id), any())).thenThrow(new InvalidInputException("Invalid firstname"));
+        doThrow(new ReferenceConflictException("referenced")).when(traineeService).delete(id);
+
+        mockMvc.perform(put("/api/trainees/{id}", id).contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid firstname"));
+        mockMvc.perform(delete("/api/trainees/{id}", id))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/api/trainees/not-a-uuid"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testRejectsRequestsOverConcurrencyLimit() throws Exception {
+        UUID id = UUID.randomUUID();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(traineeService.findById(id)).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+        Thread first = new Thread(() -> {
+            try {
+                mockMvc.perform(get("/api/trainees/{id}", id));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        first.start();
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        mockMvc.perform(get("/api/trainees/{id}", UUID.randomUUID()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+        assertEquals(1, concurrencyLimitFilter.getActive());
+
+        release.countDown();
+        first.join();
+        assertEquals(0, concurrencyLimitFilter.getActive());
+    }
+}
@@ -1,12 +1,16 @@
 package com.example.gym;
 
 import com.example.gym.dao.impl.TraineeDAOImpl;
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
 import com.example.gym.dto.TraineeRequestDto;
 import com.example.gym.exception.InvalidInputException;
 import com.example.gym.exception.NotFoundException;
 import com.example.gym.models.Trainee;
 import com.example.gym.models.User;
 import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.ReferenceTracker;
+import com.example.gym.storage.StorageLocks;
 import com.example.gym.util.UtilService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +33,13 @@ class TraineeDAOImplTest {
     @Mock
     private UtilService utilService;
 
+    @Spy
+    private StorageLocks storageLocks = new StorageLocks();
+
+    @Spy
+    private ReferenceTracker referenceTracker = new ReferenceTracker(storageLocks, ReferenceTracker.CascadePolicy.CASCADE,
+            ReferenceTracker.CascadePolicy.CASCADE, 10_000, 1_000);
+
     @Spy
     private Map<UUID, User> userStorage = new HashMap<>();
 
@@ -62,7 +73,7 @@ class TraineeDAOImplTest {
         when(utilService.isValidName("Doe")).thenReturn(true);
         when(utilService.generateUniqueKey(traineeStorage)).thenReturn(UUID.fromString("d87c669f-3cb0-4d6a-9cca-d2ce64968a8c"));
         when(utilService.generateUniqueKey(userStorage)).thenReturn(UUID.fromString("732200fc-d2f1-45c0-b3dd-fb148cfcc1e5"));
-        when(utilService.generateUsername("John", "Doe", userStorage)).thenReturn("Davo");
+        when(utilService.generateUsername(eq("John"), eq("Doe"), any(UUID.class))).thenReturn("Davo");
         when(utilService.generateRandomPassword(10)).thenReturn("randomPassword");
 
         Trainee savedTrainee = traineeDAO.save(traineeRequestDto);
@@ -84,6 +95,49 @@ class TraineeDAOImplTest {
     }
 
 
+    @Test
+    void testSaveAllReportsInvalidItems() {
+        when(utilService.isValidName("John")).thenReturn(true);
+        when(utilService.isValidName("Doe")).thenReturn(true);
+        when(utilService.generateUniqueKey(anyMap())).thenAnswer(invocation -> UUID.randomUUID());
+        when(utilService.generateUsername(eq("John"), eq("Doe"), any(UUID.class))).thenReturn("John.Doe", "John.Doe.1");
+        TraineeRequestDto first = new TraineeRequestDto();
+        first.setFirstName("John");
+        first.setLastName("Doe");
+        first.setAddress("123 Main St");
+        TraineeRequestDto invalid = new TraineeRequestDto();
+        invalid.setFirstName("John");
+        invalid.setLastName("");
+        TraineeRequestDto second = new TraineeRequestDto();
+        second.setFirstName("John");
+        second.setLastName("Doe");
+
+        BatchResult<Trainee> result = traineeDAO.saveAll(List.of(first, invalid, second));
+
+        assertEquals(2, result.getSaved().size());
+        assertEquals(Set.of(1), result.getErrors().keySet());
+        assertEquals("123 Main St", result.getSaved().get(0).getAddress());
+        assertEquals(2, traineeStorage.size());
+        assertEquals(2, userStorage.size());
+        assertEquals("John.Doe", userStorage.get(result.getSaved().get(0).getUserId()).getUsername());
+        assertEquals("John.Doe.1", userStorage.get(result.getSaved().get(1).getUserId()).getUsername());
+    }
+
+    @Test
+    void testFindPageOrderedByLastName() {
+        Trainee smith = storeTrainee("smith");
+        Trainee adams = storeTrainee("Adams");
+        Trainee jones = storeTrainee("Jones");
+        traineeDAO.buildIndexes();
+
+        Page<Trainee> first = traineeDAO.findPageOrderedByLastName(null, 2);
+        Page<Trainee> second = traineeDAO.findPageOrderedByLastName(first.getNextCursor(), 2);
+
+        assertEquals(List.of(adams, jones), first.getItems());
+        assertEquals(List.of(smith), second.getItems());
+        assertNull(second.getNextCursor());
+    }
+
     @Test
     void testFindById() {
         try {
@@ -160,7 +214,7 @@ class TraineeDAOImplTest {
         traineeStorage.put(traineeUnderTest.getId(), traineeUnderTest);
 
         doNothing().when(utilService).updateLastName(any(User.class), anyString());
-        doNothing().when(utilService).updateUsername(any(User.class), anyString(), anyMap());
+        doNothing().when(utilService).updateUsername(any(User.class), anyString());
         doNothing().when(utilService).updatePassword(any(User.class), anyString());
 
         when(traineeStorage.get(any(UUID.class))).thenReturn(traineeUnderTest);
@@ -175,8 +229,10 @@ class TraineeDAOImplTest {
 
         assertNotNull(updatedTrainee);
 
-        verify(utilService).updateFirstName(user, "Abraham");
-        assertEquals("New Address", traineeStorage.get(updatedTrainee.getId()).getAddress());
+        verify(utilService).updateFirstName(argThat(updatedUser -> updatedUser.getId().equals(user.getId())), eq("Abraham"));
+        assertEquals("New Address", updatedTrainee.getAddress());
+        assertEquals("Set Address", traineeUnderTest.getAddress());
+        verify(traineeStorage).put(updatedTrainee.getId(), updatedTrainee);
     }
 
 
@@ -198,7 +254,9 @@ class TraineeDAOImplTest {
         TraineeRequestDto updatedDto = new TraineeRequestDto();
         updatedDto.setAddress(null);
 
-        assertThrows(InvalidInputException.class, () -> traineeDAO.update(traineeId, updatedDto));
+        // the trainee has no user to update
+        assertThrows(NotFoundException.class, () -> traineeDAO.update(traineeId, updatedDto));
+        assertSame(trainee, traineeStorage.get(traineeId));
     }
 
 
@@ -222,5 +280,12 @@ class TraineeDAOImplTest {
         when(trainee.getAddress()).thenReturn("Set Address");
     }
 
-}
 
+    private Trainee storeTrainee(String lastName) {
+        User storedUser = User.builder().id(UUID.randomUUID()).firstName("John").lastName(lastName).build();
+        Trainee storedTrainee = Trainee.builder().id(UUID.randomUUID()).userId(storedUser.getId()).build();
+        userStorage.put(storedUser.getId(), storedUser);
+        traineeStorage.put(storedTrainee.getId(), storedTrainee);
+        return storedTrainee;
+    }
+}
@@ -7,6 +7,9 @@ import com.example.gym.exception.NotFoundException;
 import com.example.gym.models.Trainer;
 import com.example.gym.models.User;
 import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.ReferenceTracker;
+import com.example.gym.storage.SpecializationIndex;
+import com.example.gym.storage.StorageLocks;
 import com.example.gym.util.UtilService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,6 +35,16 @@ class TrainerDAOImplTest {
     @Mock
     private UtilService utilService;
 
+    @Spy
+    private StorageLocks storageLocks = new StorageLocks();
+
+    @Spy
+    private ReferenceTracker referenceTracker = new ReferenceTracker(storageLocks, ReferenceTracker.CascadePolicy.CASCADE,
+            ReferenceTracker.CascadePolicy.CASCADE, 10_000, 1_000);
+
+    @Spy
+    private SpecializationIndex specializationIndex = new SpecializationIndex();
+
     @Spy
     private Map<UUID, User> userStorage = new HashMap<>();
 
@@ -65,7 +78,7 @@ class TrainerDAOImplTest {
         when(utilService.isValidName("Doe")).thenReturn(true);
         when(utilService.generateUniqueKey(trainerStorage)).thenReturn(UUID.fromString("d87c669f-3cb0-4d6a-9cca-d2ce64968a8c"));
         when(utilService.generateUniqueKey(userStorage)).thenReturn(UUID.fromString("732200fc-d2f1-45c0-b3dd-fb148cfcc1e5"));
-        when(utilService.generateUsername("John", "Doe", userStorage)).thenReturn("JohnDoe");
+        when(utilService.generateUsername(eq("John"), eq("Doe"), any(UUID.class))).thenReturn("JohnDoe");
         when(utilService.generateRandomPassword(10)).thenReturn("randomPassword");
 
         Trainer savedTrainer = trainerDAO.save(trainerRequestDto);
@@ -74,6 +87,7 @@ class TrainerDAOImplTest {
         assertEquals(userStorage.get(UUID.fromString("732200fc-d2f1-45c0-b3dd-fb148cfcc1e5")).getFirstName(), user.getFirstName());
         assertEquals(1, userStorage.size());
         assertEquals("Fitness", savedTrainer.getSpecialization());
+        assertEquals(List.of(savedTrainer), trainerDAO.findByAnySpecialization(List.of("fitness")));
     }
 
     @Test
@@ -163,7 +177,7 @@ class TrainerDAOImplTest {
 
         doNothing().when(utilService).updateFirstName(any(User.class), anyString());
         doNothing().when(utilService).updateLastName(any(User.class), anyString());
-        doNothing().when(utilService).updateUsername(any(User.class), anyString(), anyMap());
+        doNothing().when(utilService).updateUsername(any(User.class), anyString());
         doNothing().when(utilService).updatePassword(any(User.class), anyString());
 
         when(trainerStorage.get(any(UUID.class))).thenReturn(trainerUnderTest);
@@ -179,9 +193,12 @@ class TrainerDAOImplTest {
 
         assertNotNull(updatedTrainer);
 
-        verify(utilService).updateFirstName(user, "Michael");
-        verify(utilService).updateLastName(user, "Brown");
-        assertEquals("Yoga", trainerStorage.get(updatedTrainer.getId()).getSpecialization());
+        verify(utilService).updateFirstName(argThat(updatedUser -> updatedUser.getId().equals(user.getId())), eq("Michael"));
+        verify(utilService).updateLastName(argThat(updatedUser -> updatedUser.getId().equals(user.getId())), eq("Brown"));
+        assertEquals("Yoga", updatedTrainer.getSpecialization());
+        assertEquals("Fitness", trainerUnderTest.getSpecialization());
+        verify(trainerStorage).put(updatedTrainer.getId(), updatedTrainer);
+        assertEquals(Map.of("yoga", 1), trainerDAO.countBySpecialization());
     }
 
 
@@ -194,6 +211,18 @@ class TrainerDAOImplTest {
         assertThrows(NotFoundException.class, () -> trainerDAO.update(nonExistentTrainerId, updatedDto));
     }
 
+    @Test
+    void testUpdateTrainerWithoutUser() {
+        UUID trainerId = UUID.randomUUID();
+        Trainer trainer = new Trainer();
+        trainer.setId(trainerId);
+        trainer.setUserId(UUID.randomUUID());
+        trainerStorage.put(trainerId, trainer);
+
+        assertThrows(NotFoundException.class, () -> trainerDAO.update(trainerId, new TrainerRequestDto()));
+        assertSame(trainer, trainerStorage.get(trainerId));
+    }
+
     private void mockUser() throws Exception {
         user = PowerMockito.mock(User.class);
         PowerMockito.whenNew(User.class).withNoArguments().thenReturn(user);
@@ -0,0 +1,217 @@
+package com.example.gym;
+
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TrainingDetails;
+import com.example.gym.models.Trainee;
+import com.example.gym.models.Trainer;
+import com.example.gym.models.Training;
+import com.example.gym.models.TrainingType;
+import com.example.gym.service.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TrainingAsyncServiceTest {
+
+    private final TrainingService trainingService = Mockito.mock(TrainingService.class);
+
+    private final TraineeService traineeService = Mockito.mock(TraineeService.class);
+
+    private final TrainerService trainerService = Mockito.mock(TrainerService.class);
+
+    private ServiceExecutor serviceExecutor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        serviceExecutor.stop();
+    }
+
+    @Test
+    void testFindDetailsLooksUpConcurrently() throws Exception {
+        TrainingAsyncService service = newService(4, 16);
+        Training training = newTraining();
+        Trainee trainee = new Trainee(training.getTraineeId(), UUID.randomUUID(), "Street 1");
+        Trainer trainer = new Trainer(training.getTrainerId(), "Cardio", UUID.randomUUID());
+        TrainingType type = new TrainingType(training.getTrainingTypeId(), "Cardio");
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(trainingService.findById(training.getId())).thenReturn(Optional.of(training));
+        when(traineeService.findById(trainee.getId())).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            return Optional.of(trainee);
+        });
+        when(trainerService.findById(trainer.getId())).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            return Optional.of(trainer);
+        });
+        when(trainingService.findTrainingTypeById(type.getId())).thenReturn(Optional.of(type));
+
+        TrainingDetails details = service.findDetails(training.getId()).get(10, TimeUnit.SECONDS).orElseThrow();
+
+        assertEquals(new TrainingDetails(training, trainee, trainer, type), details);
+        when(trainingService.findById(any())).thenReturn(Optional.empty());
+        assertTrue(service.findDetails(UUID.randomUUID()).get(10, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    void testFindDetailsPageKeepsOrderAndCursor() throws Exception {
+        TrainingAsyncService service = newService(4, 64);
+        List<Training> trainings = List.of(newTraining(), newTraining(), newTraining());
+        when(trainingService.findPageOrderedByDate("cursor", 3)).thenReturn(new Page<>(trainings, "next"));
+        when(traineeService.findById(any())).thenReturn(Optional.empty());
+        when(trainerService.findById(any())).thenReturn(Optional.empty());
+        when(trainingService.findTrainingTypeById(any())).thenReturn(Optional.empty());
+
+        Page<TrainingDetails> page = service.findDetailsPage("cursor", 3).get(10, TimeUnit.SECONDS);
+
+        assertEquals(trainings, page.getItems().stream().map(TrainingDetails::getTraining).toList());
+        assertEquals("next", page.getNextCursor());
+    }
+
+    @Test
+    void testCancelledCallNeverRuns() throws Exception {
+        TrainingAsyncService service = newService(1, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = serviceExecutor.run(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        CompletableFuture<Optional<TrainingDetails>> details = service.findDetails(UUID.randomUUID());
+        assertEquals(1, serviceExecutor.getQueueSize());
+        assertTrue(details.cancel(false));
+        assertEquals(0, serviceExecutor.getQueueSize());
+        release.countDown();
+        blocker.get(10, TimeUnit.SECONDS);
+
+        verify(trainingService, never()).findById(any());
+    }
+
+    @Test
+    void testFullQueueRejects() throws Exception {
+        TrainingAsyncService service = newService(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        serviceExecutor.run(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        CompletableFuture<Page<Training>> queued = service.findPage(null, 10);
+        CompletableFuture<Page<Training>> rejected = service.findPage(null, 10);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        release.countDown();
+        queued.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testPublisherEmitsOnlyWhatIsRequested() throws Exception {
+        TrainingAsyncService service = newService(2, 16);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(trainingService.stream()).thenAnswer(invocation -> IntStream.range(0, 1000)
+                .mapToObj(i -> newTraining())
+                .onClose(() -> closed.set(true)));
+        BlockingQueue<Training> received = new LinkedBlockingQueue<>();
+        CompletableFuture<Flow.Subscription> subscribed = new CompletableFuture<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        service.publishAll().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscribed.complete(subscription);
+            }
+
+            @Override
+            public void onNext(Training item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+        });
+        Flow.Subscription subscription = subscribed.get(10, TimeUnit.SECONDS);
+
+        subscription.request(10);
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(received.poll(10, TimeUnit.SECONDS));
+        }
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+
+        subscription.request(Long.MAX_VALUE);
+        completed.get(10, TimeUnit.SECONDS);
+        assertEquals(990, received.size());
+        assertTrue(closed.get());
+
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        service.publishAll().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(0);
+            }
+
+            @Override
+            public void onNext(Training item) {
+                failed.complete(null);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                failed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                failed.complete(null);
+            }
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    private TrainingAsyncService newService(int threads, int queueCapacity) {
+        serviceExecutor = new ServiceExecutor(threads, queueCapacity);
+        TraineeAsyncService traineeAsyncService = new TraineeAsyncService();
+        ReflectionTestUtils.setField(traineeAsyncService, "traineeService", traineeService);
+        ReflectionTestUtils.setField(traineeAsyncService, "serviceExecutor", serviceExecutor);
+        TrainerAsyncService trainerAsyncService = new TrainerAsyncService();
+        ReflectionTestUtils.setField(trainerAsyncService, "trainerService", trainerService);
+        ReflectionTestUtils.setField(trainerAsyncService, "serviceExecutor", serviceExecutor);
+        TrainingAsyncService trainingAsyncService = new TrainingAsyncService();
+        ReflectionTestUtils.setField(trainingAsyncService, "trainingService", trainingService);
+        ReflectionTestUtils.setField(trainingAsyncService, "traineeAsyncService", traineeAsyncService);
+        ReflectionTestUtils.setField(trainingAsyncService, "trainerAsyncService", trainerAsyncService);
+        ReflectionTestUtils.setField(trainingAsyncService, "serviceExecutor", serviceExecutor);
+        return trainingAsyncService;
+    }
+
+    private static Training newTraining() {
+        return new Training(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                "Morning run", LocalDate.of(2023, 11, 5), 45);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.gym;
+
+import com.example.gym.dto.TrainingRequestDto;
+import com.example.gym.dto.TrainingVolume;
+import com.example.gym.dto.VolumePeriod;
+import com.example.gym.models.Training;
+import com.example.gym.models.TrainingType;
+import com.example.gym.service.TrainingService;
+import com.example.gym.web.RestExceptionHandler;
+import com.example.gym.web.TrainingController;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class TrainingControllerTest {
+
+    @InjectMocks
+    private TrainingController trainingController;
+
+    @Mock
+    private TrainingService trainingService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(trainingController)
+                .setControllerAdvice(new RestExceptionHandler())
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json()
+                        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build()))
+                .build();
+    }
+
+    @Test
+    void testCreateReadsDateAndDuration() throws Exception {
+        Training training = newTraining();
+        ArgumentCaptor<TrainingRequestDto> request = ArgumentCaptor.forClass(TrainingRequestDto.class);
+        when(trainingService.save(request.capture())).thenReturn(training);
+
+        mockMvc.perform(post("/api/trainings").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Morning run\",\"date\":\"2023-11-05\",\"duration\":45.5,\"trainingTypeName\":\"Cardio\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.date").value("2023-11-05"));
+
+        assertEquals(LocalDate.of(2023, 11, 5), request.getValue().getDate());
+        assertEquals(45.5, request.getValue().getDuration().doubleValue());
+    }
+
+    @Test
+    void testFindByTraineeIdWithAndWithoutRange() throws Exception {
+        UUID traineeId = UUID.randomUUID();
+        Training training = newTraining();
+        when(trainingService.findByTraineeId(traineeId)).thenReturn(List.of(training));
+        when(trainingService.findByTraineeIdAndDateRange(traineeId, LocalDate.of(2023, 11, 1), LocalDate.of(2023, 11, 30)))
+                .thenReturn(List.of());
+
+        mockMvc.perform(get("/api/trainings/trainee/{id}", traineeId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Morning run"));
+        mockMvc.perform(get("/api/trainings/trainee/{id}", traineeId).param("from", "2023-11-01").param("to", "2023-11-30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void testGroupByTrainingTypeName() throws Exception {
+        Training training = newTraining();
+        Map<TrainingType, List<Training>> groups = new LinkedHashMap<>();
+        groups.put(new TrainingType(training.getTrainingTypeId(), "Cardio"), List.of(training));
+        when(trainingService.groupByTrainingType()).thenReturn(groups);
+
+        mockMvc.perform(get("/api/trainings/types"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.Cardio[0].id").value(training.getId().toString()));
+    }
+
+    @Test
+    void testFindTrainerVolume() throws Exception {
+        UUID trainerId = UUID.randomUUID();
+        when(trainingService.findTrainerVolume(trainerId, VolumePeriod.MONTH, LocalDate.of(2023, 11, 15)))
+                .thenReturn(new TrainingVolume(VolumePeriod.MONTH, LocalDate.of(2023, 11, 1), 3, 135,
+                        LocalDate.of(2023, 11, 2), LocalDate.of(2023, 11, 20)));
+
+        mockMvc.perform(get("/api/trainings/volume/trainer/{id}", trainerId).param("period", "MONTH").param("date", "2023-11-15"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.periodStart").value("2023-11-01"));
+        mockMvc.perform(get("/api/trainings/volume/trainer/{id}", trainerId).param("period", "YEAR").param("date", "2023-11-15"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static Training newTraining() {
+        return new Training(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                "Morning run", LocalDate.of(2023, 11, 5), 45);
+    }
+}
@@ -3,14 +3,25 @@ package com.example.gym;
 import com.example.gym.dao.TraineeDAO;
 import com.example.gym.dao.TrainerDAO;
 import com.example.gym.dao.impl.TrainingDAOImpl;
+import com.example.gym.dto.BatchResult;
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TimeSlot;
 import com.example.gym.dto.TrainingRequestDto;
+import com.example.gym.dto.TrainingVolume;
+import com.example.gym.dto.VolumePeriod;
 import com.example.gym.exception.InvalidInputException;
 import com.example.gym.exception.NotFoundException;
+import com.example.gym.exception.ScheduleConflictException;
 import com.example.gym.models.Trainee;
 import com.example.gym.models.Trainer;
 import com.example.gym.models.Training;
 import com.example.gym.models.TrainingType;
 import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.EntityKind;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.StorageSnapshot;
+import com.example.gym.storage.StorageVersions;
+import com.example.gym.storage.TrainingSchedule;
 import com.example.gym.util.UtilService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,8 +30,13 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -36,6 +52,9 @@ class TrainingDAOImplTest {
     @Mock
     private UtilService utilService;
 
+    @Spy
+    private StorageLocks storageLocks = new StorageLocks();
+
     @Mock
     private TraineeDAO traineeDAO;
 
@@ -119,11 +138,14 @@ class TrainingDAOImplTest {
         when(traineeDAO.findById(traineeId)).thenReturn(Optional.of(trainee));
         when(trainerDAO.findById(trainerId)).thenReturn(Optional.of(trainer));
         when(trainingTypeStorage.get(trainingType.getId())).thenReturn(trainingType);
+        when(utilService.generateUniqueKey(trainingTypeStorage)).thenReturn(UUID.randomUUID());
 
-        trainingDAO.update(trainingId, updatedDto);
+        Training updated = trainingDAO.update(trainingId, updatedDto);
 
-        verify(training).setName(updatedDto.getName());
-        verify(training).setDate(updatedDto.getDate());
+        assertEquals(updatedDto.getName(), updated.getName());
+        assertEquals(updatedDto.getDate(), updated.getDate());
+        verify(training, never()).setName(any());
+        verify(trainingStorage).put(trainingId, updated);
     }
 
 
@@ -160,6 +182,26 @@ class TrainingDAOImplTest {
         assertEquals(2, trainings.size());
     }
 
+    @Test
+    void testStreamReadsSnapshot() {
+        Training first = saveTraining(createTrainingRequestDto());
+        Training second = saveTraining(createTrainingRequestDto());
+        StorageVersions versions = new StorageVersions();
+        InMemoryStorage storage = mock(InMemoryStorage.class);
+        when(storage.getTrainingStorage()).thenReturn(trainingStorage);
+        when(storage.openSnapshot()).thenAnswer(invocation -> new StorageSnapshot(versions.openSnapshot(),
+                Map.of(EntityKind.TRAINING, Map.copyOf(trainingStorage))));
+        trainingDAO.setTrainingStorage(storage);
+
+        try (Stream<Training> trainings = trainingDAO.stream()) {
+            assertEquals(Set.of(first, second), trainings.collect(Collectors.toSet()));
+        }
+        try (Stream<Training> trainings = trainingDAO.stream()) {
+            assertEquals(2, trainings.parallel().filter(training -> training.getDuration().intValue() == 60).count());
+        }
+        assertEquals(0, versions.openSnapshots());
+    }
+
     @Test
     void testDelete() {
         UUID trainingId = UUID.randomUUID();
@@ -173,6 +215,8 @@ class TrainingDAOImplTest {
         assertFalse(trainingStorage.containsKey(trainingId));
         assertFalse(traineeStorage.containsKey(traineeId));
         assertFalse(trainerStorage.containsKey(trainerId));
+        verify(traineeDAO, never()).delete(any());
+        verify(trainerDAO, never()).delete(any());
     }
 
     @Test
@@ -190,6 +234,259 @@ class TrainingDAOImplTest {
         assertThrows(NotFoundException.class, () -> trainingDAO.update(nonExistentTrainingId, updatedDto));
     }
 
+    @Test
+    void testFindByTraineeIdAndDateRange() {
+        TrainingRequestDto first = createTrainingRequestDto();
+        first.setDate(LocalDate.of(2023, 11, 1));
+        TrainingRequestDto second = createTrainingRequestDto();
+        second.setDate(LocalDate.of(2023, 11, 20));
+        second.setTraineeId(first.getTraineeId());
+        Training firstTraining = saveTraining(first);
+        Training secondTraining = saveTraining(second);
+
+        assertEquals(List.of(firstTraining, secondTraining), trainingDAO.findByTraineeId(first.getTraineeId()));
+        assertEquals(List.of(secondTraining), trainingDAO.findByTraineeIdAndDateRange(first.getTraineeId(),
+                LocalDate.of(2023, 11, 10), LocalDate.of(2023, 11, 30)));
+        assertEquals(List.of(firstTraining), trainingDAO.findByTrainerId(first.getTrainerId()));
+        assertEquals(List.of(firstTraining, secondTraining), trainingDAO.findByDateRange(
+                LocalDate.of(2023, 11, 1), LocalDate.of(2023, 11, 20)));
+    }
+
+    @Test
+    void testFindByDateRangeInvalid() {
+        assertThrows(InvalidInputException.class, () -> trainingDAO.findByDateRange(
+                LocalDate.of(2023, 11, 20), LocalDate.of(2023, 11, 1)));
+    }
+
+    @Test
+    void testIndexFollowsUpdateAndDelete() {
+        Training training = saveTraining(createTrainingRequestDto());
+        UUID oldTraineeId = training.getTraineeId();
+        TrainingRequestDto updatedDto = createTrainingRequestDto();
+        Trainee trainee = mockTrainee(updatedDto.getTraineeId());
+        Trainer trainer = mockTrainer(updatedDto.getTrainerId());
+        when(traineeDAO.findById(updatedDto.getTraineeId())).thenReturn(Optional.of(trainee));
+        when(trainerDAO.findById(updatedDto.getTrainerId())).thenReturn(Optional.of(trainer));
+
+        Training updated = trainingDAO.update(training.getId(), updatedDto);
+
+        assertTrue(trainingDAO.findByTraineeId(oldTraineeId).isEmpty());
+        assertEquals(List.of(updated), trainingDAO.findByTraineeId(updatedDto.getTraineeId()));
+        assertEquals(oldTraineeId, training.getTraineeId());
+
+        trainingDAO.delete(training.getId());
+
+        assertTrue(trainingDAO.findByTraineeId(updatedDto.getTraineeId()).isEmpty());
+        assertTrue(trainingDAO.findByDateRange(LocalDate.MIN, LocalDate.MAX).isEmpty());
+    }
+
+    @Test
+    void testSaveSharesTrainingType() {
+        Training first = saveTraining(createTrainingRequestDto());
+        Training second = saveTraining(createTrainingRequestDto());
+
+        assertEquals(first.getTrainingTypeId(), second.getTrainingTypeId());
+        assertEquals(1, trainingTypeStorage.size());
+        Map<TrainingType, List<Training>> trainingsByType = trainingDAO.groupByTrainingType();
+        assertEquals(1, trainingsByType.size());
+        assertEquals(Set.of(first, second), new HashSet<>(trainingsByType.get(trainingTypeStorage.get(first.getTrainingTypeId()))));
+    }
+
+    @Test
+    void testDeleteReclaimsUnreferencedTrainingType() {
+        Training first = saveTraining(createTrainingRequestDto());
+        Training second = saveTraining(createTrainingRequestDto());
+        UUID trainingTypeId = first.getTrainingTypeId();
+
+        trainingDAO.delete(first.getId());
+        assertTrue(trainingTypeStorage.containsKey(trainingTypeId));
+
+        trainingDAO.delete(second.getId());
+        assertFalse(trainingTypeStorage.containsKey(trainingTypeId));
+        assertTrue(trainingDAO.findTrainingTypeByName("Type 1").isEmpty());
+    }
+
+    @Test
+    void testUpdateMovesTrainingToOtherType() {
+        Training first = saveTraining(createTrainingRequestDto());
+        Training second = saveTraining(createTrainingRequestDto());
+        UUID sharedTypeId = first.getTrainingTypeId();
+        TrainingRequestDto updatedDto = new TrainingRequestDto();
+        updatedDto.setTrainingTypeName("Type 2");
+        when(utilService.generateUniqueKey(trainingTypeStorage)).thenReturn(UUID.randomUUID());
+
+        Training updated = trainingDAO.update(second.getId(), updatedDto);
+
+        assertNotEquals(sharedTypeId, updated.getTrainingTypeId());
+        assertEquals("Type 1", trainingTypeStorage.get(sharedTypeId).getTypeName());
+        assertEquals("Type 2", trainingTypeStorage.get(updated.getTrainingTypeId()).getTypeName());
+        assertEquals(2, trainingTypeStorage.size());
+    }
+
+    @Test
+    void testBuildIndexesMergesDuplicateTrainingTypes() {
+        TrainingType cardio = new TrainingType(UUID.randomUUID(), "cardio");
+        TrainingType duplicate = new TrainingType(UUID.randomUUID(), "cardio");
+        trainingTypeStorage.put(cardio.getId(), cardio);
+        trainingTypeStorage.put(duplicate.getId(), duplicate);
+        Training first = new Training(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), cardio.getId(),
+                "Run", LocalDate.of(2023, 11, 1), 30);
+        Training second = new Training(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), duplicate.getId(),
+                "Run", LocalDate.of(2023, 11, 2), 30);
+        trainingStorage.put(first.getId(), first);
+        trainingStorage.put(second.getId(), second);
+
+        trainingDAO.buildIndexes();
+
+        assertEquals(1, trainingTypeStorage.size());
+        UUID mergedTypeId = trainingStorage.get(first.getId()).getTrainingTypeId();
+        assertEquals(mergedTypeId, trainingStorage.get(second.getId()).getTrainingTypeId());
+        assertEquals(Optional.of(trainingTypeStorage.get(mergedTypeId)), trainingDAO.findTrainingTypeByName("cardio"));
+    }
+
+    @Test
+    void testFindPageOrderedByDate() {
+        List<Training> saved = new ArrayList<>();
+        for (int day = 5; day >= 1; day--) {
+            TrainingRequestDto trainingRequestDto = createTrainingRequestDto();
+            trainingRequestDto.setDate(LocalDate.of(2023, 11, day));
+            saved.add(0, saveTraining(trainingRequestDto));
+        }
+
+        Page<Training> first = trainingDAO.findPageOrderedByDate(null, 3);
+        Page<Training> second = trainingDAO.findPageOrderedByDate(first.getNextCursor(), 3);
+
+        assertEquals(saved.subList(0, 3), first.getItems());
+        assertEquals(saved.subList(3, 5), second.getItems());
+        assertNull(second.getNextCursor());
+        assertEquals(5, trainingDAO.findPage(null, 10).getItems().size());
+    }
+
+    @Test
+    void testSaveAllChecksReferencesOncePerPerson() {
+        TrainingRequestDto first = createTrainingRequestDto();
+        TrainingRequestDto second = createTrainingRequestDto();
+        second.setTraineeId(first.getTraineeId());
+        second.setTrainerId(first.getTrainerId());
+        TrainingRequestDto missingTrainer = createTrainingRequestDto();
+        missingTrainer.setTraineeId(first.getTraineeId());
+        TrainingRequestDto invalid = new TrainingRequestDto();
+        Trainee trainee = mockTrainee(first.getTraineeId());
+        Trainer trainer = mockTrainer(first.getTrainerId());
+        when(traineeDAO.findById(first.getTraineeId())).thenReturn(Optional.of(trainee));
+        when(trainerDAO.findById(first.getTrainerId())).thenReturn(Optional.of(trainer));
+        when(trainerDAO.findById(missingTrainer.getTrainerId())).thenReturn(Optional.empty());
+        when(utilService.generateUniqueKey(anyMap())).thenAnswer(invocation -> UUID.randomUUID());
+
+        BatchResult<Training> result = trainingDAO.saveAll(List.of(first, missingTrainer, second, invalid));
+
+        assertEquals(2, result.getSaved().size());
+        assertEquals(Set.of(1, 3), result.getErrors().keySet());
+        assertEquals(2, trainingStorage.size());
+        assertEquals(1, trainingTypeStorage.size());
+        verify(traineeDAO, times(1)).findById(first.getTraineeId());
+        assertEquals(new HashSet<>(result.getSaved()), new HashSet<>(trainingDAO.findByTraineeId(first.getTraineeId())));
+    }
+
+    @Test
+    void testVolumesFollowSaveUpdateAndDelete() {
+        TrainingRequestDto firstDto = createTrainingRequestDto();
+        firstDto.setDate(LocalDate.of(2023, 11, 6));
+        firstDto.setDuration(30);
+        TrainingRequestDto secondDto = createTrainingRequestDto();
+        secondDto.setTraineeId(firstDto.getTraineeId());
+        secondDto.setDate(LocalDate.of(2023, 11, 9));
+        secondDto.setDuration(45.5);
+        Training first = saveTraining(firstDto);
+        Training second = saveTraining(secondDto);
+
+        assertEquals(new TrainingVolume(VolumePeriod.WEEK, LocalDate.of(2023, 11, 6), 2, 75.5,
+                        LocalDate.of(2023, 11, 6), LocalDate.of(2023, 11, 9)),
+                trainingDAO.findTraineeVolume(first.getTraineeId(), VolumePeriod.WEEK, LocalDate.of(2023, 11, 12)));
+        assertEquals(2, trainingDAO.findTrainingTypeVolume("Type 1", VolumePeriod.MONTH, LocalDate.of(2023, 11, 30)).getCount());
+        assertEquals(1, trainingDAO.findTrainerVolume(second.getTrainerId(), VolumePeriod.DAY, LocalDate.of(2023, 11, 9)).getCount());
+
+        TrainingRequestDto moveDto = new TrainingRequestDto();
+        moveDto.setDate(LocalDate.of(2023, 12, 1));
+        trainingDAO.update(second.getId(), moveDto);
+
+        TrainingVolume november = trainingDAO.findTraineeVolume(first.getTraineeId(), VolumePeriod.MONTH, LocalDate.of(2023, 11, 1));
+        assertEquals(1, november.getCount());
+        assertEquals(30, november.getTotalDuration());
+        assertEquals(LocalDate.of(2023, 11, 6), november.getLastDate());
+        assertEquals(45.5, trainingDAO.findTraineeVolume(first.getTraineeId(), VolumePeriod.MONTH, LocalDate.of(2023, 12, 31)).getTotalDuration());
+
+        trainingDAO.delete(first.getId());
+
+        TrainingVolume empty = trainingDAO.findTraineeVolume(first.getTraineeId(), VolumePeriod.MONTH, LocalDate.of(2023, 11, 1));
+        assertEquals(0, empty.getCount());
+        assertNull(empty.getFirstDate());
+        assertThrows(InvalidInputException.class, () -> trainingDAO.findTrainerVolume(first.getTrainerId(), null, LocalDate.now()));
+    }
+
+    @Test
+    void testOverlappingTrainingsAreRejected() {
+        TrainingRequestDto morning = createTrainingRequestDto();
+        morning.setDate(LocalDate.of(2023, 11, 5));
+        morning.setStartTime(LocalTime.of(9, 0));
+        Training first = saveTraining(morning);
+
+        TrainingRequestDto overlapping = createTrainingRequestDto();
+        overlapping.setTrainerId(morning.getTrainerId());
+        overlapping.setDate(morning.getDate());
+        overlapping.setStartTime(LocalTime.of(9, 59));
+        assertThrows(ScheduleConflictException.class, () -> saveTraining(overlapping));
+
+        overlapping.setStartTime(LocalTime.of(10, 0));
+        Training second = saveTraining(overlapping);
+        TrainingRequestDto moveEarlier = new TrainingRequestDto();
+        moveEarlier.setStartTime(LocalTime.of(9, 30));
+        assertThrows(ScheduleConflictException.class, () -> trainingDAO.update(second.getId(), moveEarlier));
+        assertEquals(LocalTime.of(10, 0), trainingDAO.findById(second.getId()).orElseThrow().getStartTime());
+
+        List<TimeSlot> slots = trainingDAO.findTrainerFreeSlots(morning.getTrainerId(),
+                LocalDateTime.of(2023, 11, 5, 8, 0), LocalDateTime.of(2023, 11, 5, 12, 0), 30);
+        assertEquals(List.of(new TimeSlot(LocalDateTime.of(2023, 11, 5, 8, 0), LocalDateTime.of(2023, 11, 5, 9, 0)),
+                new TimeSlot(LocalDateTime.of(2023, 11, 5, 11, 0), LocalDateTime.of(2023, 11, 5, 12, 0))), slots);
+
+        trainingDAO.delete(first.getId());
+        trainingDAO.update(second.getId(), moveEarlier);
+        assertTrue(trainingDAO.findConflicts(second.getId()).isEmpty());
+    }
+
+    @Test
+    void testFlaggedOverlapsAreListedAsConflicts() {
+        trainingDAO.setConflictPolicy(TrainingSchedule.ConflictPolicy.FLAG);
+        TrainingRequestDto morning = createTrainingRequestDto();
+        morning.setStartTime(LocalTime.of(9, 0));
+        Training first = saveTraining(morning);
+        TrainingRequestDto overlapping = createTrainingRequestDto();
+        overlapping.setTraineeId(morning.getTraineeId());
+        overlapping.setDate(morning.getDate());
+        overlapping.setStartTime(LocalTime.of(9, 30));
+        Training second = saveTraining(overlapping);
+        TrainingRequestDto unscheduled = createTrainingRequestDto();
+        unscheduled.setTraineeId(morning.getTraineeId());
+        unscheduled.setDate(morning.getDate());
+        Training third = saveTraining(unscheduled);
+
+        assertEquals(List.of(second), trainingDAO.findConflicts(first.getId()));
+        assertEquals(List.of(first), trainingDAO.findConflicts(second.getId()));
+        assertTrue(trainingDAO.findConflicts(third.getId()).isEmpty());
+        assertThrows(InvalidInputException.class, () -> trainingDAO.findTraineeFreeSlots(morning.getTraineeId(),
+                LocalDateTime.of(2023, 11, 5, 12, 0), LocalDateTime.of(2023, 11, 5, 8, 0), 0));
+    }
+
+    private Training saveTraining(TrainingRequestDto trainingRequestDto) {
+        Trainee trainee = mockTrainee(trainingRequestDto.getTraineeId());
+        Trainer trainer = mockTrainer(trainingRequestDto.getTrainerId());
+        when(traineeDAO.findById(trainingRequestDto.getTraineeId())).thenReturn(Optional.of(trainee));
+        when(trainerDAO.findById(trainingRequestDto.getTrainerId())).thenReturn(Optional.of(trainer));
+        when(utilService.generateUniqueKey(trainingStorage)).thenReturn(UUID.randomUUID());
+        when(utilService.generateUniqueKey(trainingTypeStorage)).thenReturn(UUID.randomUUID());
+        return trainingDAO.save(trainingRequestDto);
+    }
+
     private TrainingRequestDto createTrainingRequestDto() {
         TrainingRequestDto trainingRequestDto = new TrainingRequestDto();
         trainingRequestDto.setName("Training 1");
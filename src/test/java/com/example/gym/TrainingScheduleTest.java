@@ -0,0 +1,97 @@
+package com.example.gym;
+
+import com.example.gym.dto.TimeSlot;
+import com.example.gym.models.Training;
+import com.example.gym.storage.IntervalTree;
+import com.example.gym.storage.TrainingSchedule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainingScheduleTest {
+
+    private static final LocalDate DAY = LocalDate.of(2023, 11, 5);
+
+    @Test
+    void testIntervalTreeMatchesScan() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<IntervalTree.Interval> intervals = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            if (!intervals.isEmpty() && random.nextInt(3) == 0) {
+                IntervalTree.Interval removed = intervals.remove(random.nextInt(intervals.size()));
+                assertTrue(tree.remove(removed.start(), removed.end(), removed.id()));
+            } else {
+                long start = random.nextInt(100_000);
+                IntervalTree.Interval added = new IntervalTree.Interval(start, start + random.nextInt(2_000), UUID.randomUUID());
+                tree.insert(added.start(), added.end(), added.id());
+                intervals.add(added);
+            }
+            long start = random.nextInt(100_000);
+            long end = start + random.nextInt(1_000) + 1;
+            Set<IntervalTree.Interval> expected = new HashSet<>();
+            for (IntervalTree.Interval interval : intervals) {
+                if (interval.start() < end && interval.end() > start) {
+                    expected.add(interval);
+                }
+            }
+            List<IntervalTree.Interval> found = tree.overlapping(start, end);
+            assertEquals(expected, new HashSet<>(found));
+            for (int j = 1; j < found.size(); j++) {
+                assertTrue(found.get(j - 1).start() <= found.get(j).start());
+            }
+        }
+        assertEquals(intervals.size(), tree.size());
+        assertFalse(tree.remove(0, 0, UUID.randomUUID()));
+    }
+
+    @Test
+    void testFreeSlotsSkipOverlappingBookings() {
+        TrainingSchedule schedule = new TrainingSchedule();
+        UUID trainerId = UUID.randomUUID();
+        schedule.add(newTraining(trainerId, LocalTime.of(9, 0), 60));
+        schedule.add(newTraining(trainerId, LocalTime.of(9, 30), 90));
+        schedule.add(newTraining(trainerId, LocalTime.of(13, 0), 60));
+        Training unscheduled = newTraining(trainerId, null, 60);
+        schedule.add(unscheduled);
+
+        assertEquals(List.of(slot(8, 0, 9, 0), slot(11, 0, 13, 0), slot(14, 0, 18, 0)),
+                schedule.findTrainerFreeSlots(trainerId, DAY.atTime(8, 0), DAY.atTime(18, 0), 30));
+        assertEquals(List.of(slot(14, 0, 18, 0)),
+                schedule.findTrainerFreeSlots(trainerId, DAY.atTime(8, 0), DAY.atTime(18, 0), 150));
+        assertEquals(List.of(slot(10, 0, 11, 0)),
+                schedule.findTraineeFreeSlots(UUID.randomUUID(), DAY.atTime(10, 0), DAY.atTime(11, 0), 0));
+        assertTrue(schedule.findConflicts(unscheduled).isEmpty());
+    }
+
+    @Test
+    void testRemoveTakesBackBooking() {
+        TrainingSchedule schedule = new TrainingSchedule();
+        UUID trainerId = UUID.randomUUID();
+        Training first = newTraining(trainerId, LocalTime.of(9, 0), 45);
+        Training second = newTraining(trainerId, LocalTime.of(9, 40), 30.5);
+        schedule.add(first);
+        schedule.add(second);
+
+        assertEquals(Set.of(second.getId()), schedule.findConflicts(first));
+        schedule.remove(second);
+
+        assertTrue(schedule.findConflicts(first).isEmpty());
+        assertEquals(List.of(slot(9, 45, 10, 0)),
+                schedule.findTrainerFreeSlots(trainerId, DAY.atTime(9, 0), DAY.atTime(10, 0), 1));
+    }
+
+    private static Training newTraining(UUID trainerId, LocalTime startTime, Number duration) {
+        return new Training(UUID.randomUUID(), UUID.randomUUID(), trainerId, UUID.randomUUID(),
+                "Session", DAY, duration, startTime);
+    }
+
+    private static TimeSlot slot(int fromHour, int fromMinute, int toHour, int toMinute) {
+        return new TimeSlot(LocalDateTime.of(DAY, LocalTime.of(fromHour, fromMinute)), LocalDateTime.of(DAY, LocalTime.of(toHour, toMinute)));
+    }
+}
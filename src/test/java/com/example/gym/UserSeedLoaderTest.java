@@ -0,0 +1,123 @@
+package com.example.gym;
+
+import com.example.gym.models.Trainee;
+import com.example.gym.models.User;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.UserSeedLoader;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserSeedLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryStorage inMemoryStorage;
+
+    private UserSeedLoader userSeedLoader;
+
+    @BeforeEach
+    public void setUp() {
+        UtilService utilService = new UtilService(new UsernameIndex());
+        inMemoryStorage = new InMemoryStorage(utilService);
+        userSeedLoader = new UserSeedLoader(utilService, 2);
+    }
+
+    @Test
+    void testLoad() throws IOException {
+        Path file = tempDir.resolve("users.json");
+        Files.writeString(file, """
+                [
+                  {"firstName": "John", "lastName": "Smith", "address": "1359 Maryland Avenue", "role": "trainee"},
+                  {"firstName": "John", "lastName": "Smith", "address": "2564 Prospect Valley Road", "role": "trainee"},
+                  {"firstName": "Anthony", "lastName": "Smith", "role": "trainer", "specialization": "box"},
+                  {"firstName": "", "lastName": "Morgan", "role": "trainer", "specialization": "cardio"},
+                  {"firstName": "Jack", "lastName": "Morgan", "role": "manager"}
+                ]
+                """);
+
+        long loaded = userSeedLoader.load(file.toFile(), inMemoryStorage);
+
+        assertEquals(3, loaded);
+        assertEquals(3, inMemoryStorage.getUserStorage().size());
+        assertEquals(2, inMemoryStorage.getTraineeStorage().size());
+        assertEquals(1, inMemoryStorage.getTrainerStorage().size());
+        assertEquals(2, inMemoryStorage.getUserStorage().values().stream()
+                .filter(user -> user.getUsername().startsWith("John.Smith")).distinct().count());
+    }
+
+    @Test
+    void testLoadSkipsNonObjectsAndKeepsFileOrder() throws IOException {
+        Path file = tempDir.resolve("users.json");
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 20; i++) {
+            json.append("{\"firstName\": \"John\", \"lastName\": \"Smith\", \"address\": \"")
+                    .append(i).append("\", \"role\": \"trainee\"},");
+        }
+        json.append("42, [\"John\", \"Smith\"], null,");
+        json.append("{\"firstName\": \"Anthony\", \"lastName\": \"Smith\", \"role\": \"trainer\"}]");
+        Files.writeString(file, json);
+
+        assertEquals(21, new UserSeedLoader(new UtilService(new UsernameIndex()), 8).load(file.toFile(), inMemoryStorage));
+
+        assertEquals(1, inMemoryStorage.getTrainerStorage().size());
+        for (Trainee trainee : inMemoryStorage.getTraineeStorage().values()) {
+            int position = Integer.parseInt(trainee.getAddress());
+            String username = inMemoryStorage.getUserStorage().get(trainee.getUserId()).getUsername();
+            assertEquals(position == 0 ? "John.Smith" : "John.Smith." + position, username);
+        }
+    }
+
+    @Test
+    void testLoadRejectsUnterminatedArray() throws IOException {
+        Path file = tempDir.resolve("users.json");
+        Files.writeString(file, "[{\"firstName\": \"John\", \"lastName\": \"Smith\", \"role\": \"trainee\"},");
+
+        assertThrows(IOException.class, () -> userSeedLoader.load(file.toFile(), inMemoryStorage));
+    }
+
+    @Test
+    void testParseErrorIsNotHiddenByFailedBatch() throws IOException {
+        Path file = tempDir.resolve("users.json");
+        Files.writeString(file, """
+                [
+                  {"firstName": "John", "lastName": "Smith", "role": "trainee"},
+                  {"firstName": "Anna", "lastName": "Brown", "role": "trainer"},
+                  {"firstName": "Jack",
+                """);
+        InMemoryStorage storage = spy(inMemoryStorage);
+        Map<UUID, User> users = new ConcurrentHashMap<>() {
+            @Override
+            public void putAll(Map<? extends UUID, ? extends User> map) {
+                throw new IllegalStateException("users are read-only");
+            }
+        };
+        when(storage.getUserStorage()).thenReturn(users);
+
+        IOException thrown = assertThrows(IOException.class, () -> userSeedLoader.load(file.toFile(), storage));
+
+        assertEquals(1, thrown.getSuppressed().length);
+        assertInstanceOf(IllegalStateException.class, thrown.getSuppressed()[0]);
+    }
+
+    @Test
+    void testLoadRejectsNonArray() throws IOException {
+        Path file = tempDir.resolve("users.json");
+        Files.writeString(file, "{\"firstName\": \"John\"}");
+
+        assertThrows(IOException.class, () -> userSeedLoader.load(file.toFile(), inMemoryStorage));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.gym;
+
+import com.example.gym.models.User;
+import com.example.gym.storage.UsernameIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsernameIndexTest {
+
+    private UsernameIndex usernameIndex;
+
+    @BeforeEach
+    public void setUp() {
+        usernameIndex = new UsernameIndex();
+    }
+
+    @Test
+    void testReserveNextAppendsSerial() {
+        assertEquals("John.Smith", usernameIndex.reserveNext("John.Smith", UUID.randomUUID()));
+        assertEquals("John.Smith.1", usernameIndex.reserveNext("John.Smith", UUID.randomUUID()));
+        assertEquals("John.Smith.2", usernameIndex.reserveNext("John.Smith", UUID.randomUUID()));
+    }
+
+    @Test
+    void testReserveNextSkipsTakenSerial() {
+        usernameIndex.reserve("John.Smith", UUID.randomUUID());
+        usernameIndex.reserve("John.Smith.1", UUID.randomUUID());
+
+        assertEquals("John.Smith.2", usernameIndex.reserveNext("John.Smith", UUID.randomUUID()));
+    }
+
+    @Test
+    void testReleaseFreesUsername() {
+        UUID userId = UUID.randomUUID();
+        usernameIndex.reserve("John.Smith", userId);
+
+        usernameIndex.release("John.Smith", UUID.randomUUID());
+        assertTrue(usernameIndex.contains("John.Smith"));
+
+        usernameIndex.release("John.Smith", userId);
+        assertFalse(usernameIndex.contains("John.Smith"));
+    }
+
+    @Test
+    void testRebuild() {
+        User user = User.builder().id(UUID.randomUUID()).username("Jack.Morgan").build();
+
+        usernameIndex.reserve("John.Smith", UUID.randomUUID());
+        usernameIndex.rebuild(List.of(user));
+
+        assertFalse(usernameIndex.contains("John.Smith"));
+        assertEquals(Optional.of(user.getId()), usernameIndex.findUserId("Jack.Morgan"));
+    }
+
+    @Test
+    void testConcurrentReservationsAreUnique() throws Exception {
+        int count = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(executor.submit(() -> usernameIndex.reserveNext("John.Smith", UUID.randomUUID())));
+        }
+        Set<String> usernames = new HashSet<>();
+        for (Future<String> future : futures) {
+            usernames.add(future.get());
+        }
+        executor.shutdown();
+
+        assertEquals(count, usernames.size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.gym;
+
+import com.example.gym.web.WebServerConfig;
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WebServerConfigTest {
+
+    private final WebServerConfig webServerConfig = new WebServerConfig();
+
+    @AfterEach
+    public void tearDown() {
+        webServerConfig.stop();
+    }
+
+    @Test
+    void testPlatformKeepsTomcatPool() {
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+
+        customize(WebServerConfig.RequestExecutor.PLATFORM, protocolHandler);
+
+        verify(protocolHandler, never()).setExecutor(any());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void testVirtualRunsRequestsOnVirtualThreads() throws Exception {
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+
+        customize(WebServerConfig.RequestExecutor.VIRTUAL, protocolHandler);
+
+        ArgumentCaptor<Executor> executor = ArgumentCaptor.forClass(Executor.class);
+        verify(protocolHandler).setExecutor(executor.capture());
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        executor.getValue().execute(() -> thread.complete(Thread.currentThread()));
+        Thread requestThread = thread.get(5, TimeUnit.SECONDS);
+        assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(requestThread));
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void testVirtualFailsWithoutVirtualThreads() {
+        assertThrows(IllegalStateException.class,
+                () -> webServerConfig.requestExecutorCustomizer(WebServerConfig.RequestExecutor.VIRTUAL));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void customize(WebServerConfig.RequestExecutor requestExecutor, ProtocolHandler protocolHandler) {
+        TomcatProtocolHandlerCustomizer<ProtocolHandler> customizer =
+                (TomcatProtocolHandlerCustomizer<ProtocolHandler>) webServerConfig.requestExecutorCustomizer(requestExecutor);
+        customizer.customize(protocolHandler);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.models.User;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.ChangeStream;
+import com.example.gym.storage.EntityKind;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What publishing to the change stream costs a writer: one locked user put, as a DAO save would do it,
+ * with no subscription, a dropping one and a blocking one. The subscriber only counts its events.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ChangeStreamBenchmark {
+
+    @Param({"NONE", "DROP", "BLOCK"})
+    public String subscriber;
+
+    private InMemoryStorage storage;
+
+    private StorageLocks storageLocks;
+
+    private ChangeStream stream;
+
+    private final LongAdder delivered = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new InMemoryStorage(new UtilService(new UsernameIndex()));
+        storageLocks = new StorageLocks();
+        storage.setStorageLocks(storageLocks);
+        stream = new ChangeStream(65536, ChangeStream.Overflow.DROP);
+        storage.addListener(stream);
+        if (!subscriber.equals("NONE")) {
+            stream.subscribe("benchmark", EnumSet.allOf(EntityKind.class), ChangeStream.DEFAULT_BATCH,
+                    ChangeStream.Overflow.valueOf(subscriber), batch -> delivered.add(batch.size()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stream.close();
+    }
+
+    @Benchmark
+    public void save() {
+        UUID id = UUID.randomUUID();
+        User user = User.builder().id(id).firstName("John").lastName("Smith")
+                .username("John.Smith").password("password12").isActive(true).build();
+        storageLocks.runLocked(() -> storage.getUserStorage().put(id, user), id);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.dao.impl.TraineeDAOImpl;
+import com.example.gym.dao.impl.TrainerDAOImpl;
+import com.example.gym.dao.impl.TrainingDAOImpl;
+import com.example.gym.dto.TraineeRequestDto;
+import com.example.gym.dto.TrainerRequestDto;
+import com.example.gym.dto.TrainingRequestDto;
+import com.example.gym.models.Trainee;
+import com.example.gym.models.Trainer;
+import com.example.gym.models.Training;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.ReferenceTracker;
+import com.example.gym.storage.StorageLocks;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The storage and the three DAOs wired together the way Spring wires them, without the context,
+ * journal or snapshots, plus request factories for the DAO benchmarks.
+ */
+final class GymFixture {
+
+    private static final String[] FIRST_NAMES = {"John", "Anna", "Peter", "Maria", "David", "Laura", "Mark", "Nina"};
+
+    private static final String[] LAST_NAMES = {"Smith", "Brown", "Taylor", "Wilson", "Clark", "Lewis", "Walker", "Young"};
+
+    private static final String[] TRAINING_TYPES = {"Cardio", "Strength", "Yoga", "Boxing", "Pilates", "Swimming"};
+
+    final InMemoryStorage storage;
+
+    final ReferenceTracker referenceTracker;
+
+    final TraineeDAOImpl traineeDAO = new TraineeDAOImpl();
+
+    final TrainerDAOImpl trainerDAO = new TrainerDAOImpl();
+
+    final TrainingDAOImpl trainingDAO = new TrainingDAOImpl();
+
+    GymFixture() {
+        UtilService utilService = new UtilService(new UsernameIndex());
+        StorageLocks storageLocks = new StorageLocks();
+        storage = new InMemoryStorage(utilService);
+        storage.setStorageLocks(storageLocks);
+        referenceTracker = new ReferenceTracker(storageLocks, ReferenceTracker.CascadePolicy.CASCADE,
+                ReferenceTracker.CascadePolicy.CASCADE, 10_000, 1_000);
+
+        traineeDAO.setTraineeStorage(storage);
+        traineeDAO.setUserStorage(storage);
+        traineeDAO.setUtilService(utilService);
+        traineeDAO.setStorageLocks(storageLocks);
+        traineeDAO.setReferenceTracker(referenceTracker);
+        traineeDAO.buildIndexes();
+
+        trainerDAO.setTrainerStorage(storage);
+        trainerDAO.setUserStorage(storage);
+        trainerDAO.setUtilService(utilService);
+        trainerDAO.setStorageLocks(storageLocks);
+        trainerDAO.setReferenceTracker(referenceTracker);
+        trainerDAO.buildIndexes();
+
+        trainingDAO.setTrainingStorage(storage);
+        trainingDAO.setTrainingTypeStorage(storage);
+        trainingDAO.setTraineeDAO(traineeDAO);
+        trainingDAO.setTrainerDAO(trainerDAO);
+        trainingDAO.setUtilService(utilService);
+        trainingDAO.setStorageLocks(storageLocks);
+        trainingDAO.setReferenceTracker(referenceTracker);
+        trainingDAO.buildIndexes();
+    }
+
+    UUID[] addTrainees(int count) {
+        List<TraineeRequestDto> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(traineeRequest());
+        }
+        return traineeDAO.saveAll(requests).getSaved().stream().map(Trainee::getId).toArray(UUID[]::new);
+    }
+
+    UUID[] addTrainers(int count) {
+        List<TrainerRequestDto> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(trainerRequest());
+        }
+        return trainerDAO.saveAll(requests).getSaved().stream().map(Trainer::getId).toArray(UUID[]::new);
+    }
+
+    UUID[] addTrainings(int count, UUID[] traineeIds, UUID[] trainerIds) {
+        List<TrainingRequestDto> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(trainingRequest(pick(traineeIds), pick(trainerIds)));
+        }
+        return trainingDAO.saveAll(requests).getSaved().stream().map(Training::getId).toArray(UUID[]::new);
+    }
+
+    static TraineeRequestDto traineeRequest() {
+        TraineeRequestDto request = new TraineeRequestDto();
+        request.setFirstName(pick(FIRST_NAMES));
+        request.setLastName(pick(LAST_NAMES));
+        request.setAddress(ThreadLocalRandom.current().nextInt(1, 9999) + " Maryland Avenue");
+        return request;
+    }
+
+    static TrainerRequestDto trainerRequest() {
+        TrainerRequestDto request = new TrainerRequestDto();
+        request.setFirstName(pick(FIRST_NAMES));
+        request.setLastName(pick(LAST_NAMES));
+        request.setSpecialization(pick(TRAINING_TYPES));
+        return request;
+    }
+
+    static TrainingRequestDto trainingRequest(UUID traineeId, UUID trainerId) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TrainingRequestDto request = new TrainingRequestDto();
+        request.setTraineeId(traineeId);
+        request.setTrainerId(trainerId);
+        request.setName("Session " + random.nextInt(1000));
+        request.setDate(LocalDate.of(2023, 1, 1).plusDays(random.nextInt(365)));
+        request.setDuration(15 + random.nextInt(90));
+        request.setTrainingTypeName(pick(TRAINING_TYPES));
+        return request;
+    }
+
+    static <T> T pick(T[] values) {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.util.IdGenerator;
+import com.example.gym.util.RandomIdGenerator;
+import com.example.gym.util.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ids per second of the random and the time-ordered generator at 1 to 64 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    @Param({"random", "time-ordered"})
+    public String generator;
+
+    private IdGenerator idGenerator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        idGenerator = generator.equals("random") ? new RandomIdGenerator() : new TimeOrderedIdGenerator();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public UUID threads1() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID threads4() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public UUID threads16() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public UUID threads64() {
+        return idGenerator.nextId();
+    }
+}
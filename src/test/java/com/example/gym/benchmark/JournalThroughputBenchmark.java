@@ -0,0 +1,69 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.models.User;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.*;
+import com.example.gym.util.UtilService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Journaled write throughput for the per-write, group commit and async fsync policies.
+ * Every operation is one locked user put, as a DAO save would do it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class JournalThroughputBenchmark {
+
+    @Param({"PER_WRITE", "GROUP", "ASYNC"})
+    public StorageJournal.FsyncPolicy fsync;
+
+    private Path directory;
+
+    private InMemoryStorage storage;
+
+    private StorageLocks storageLocks;
+
+    private StorageJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        SnapshotStore snapshotStore = new SnapshotStore(directory.resolve("gym.snapshot").toString(), true);
+        storage = new InMemoryStorage(new UtilService(new UsernameIndex()));
+        storageLocks = new StorageLocks();
+        storage.setStorageLocks(storageLocks);
+        journal = new StorageJournal(directory.resolve("journal").toString(), true, fsync, 10, snapshotStore);
+        journal.open(storage, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void save() {
+        UUID id = UUID.randomUUID();
+        User user = User.builder().id(id).firstName("John").lastName("Smith")
+                .username("John.Smith").password("password12").isActive(true).build();
+        storageLocks.runLocked(() -> storage.getUserStorage().put(id, user), id);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.storage.NameSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Top-10 name searches over a large population with made-up names: a prefix that fills the result
+ * from the sorted terms, a misspelled name that goes through the bigram candidates, and a
+ * two-word query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class NameSearchBenchmark {
+
+    private static final String[] SYLLABLES = {"an", "bel", "cor", "da", "el", "fin", "ga", "hal", "is", "jo",
+            "ka", "lin", "mar", "nor", "ol", "pet", "ra", "sa", "tor", "vi", "wen", "ya", "zel", "ru"};
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    private final NameSearchIndex index = new NameSearchIndex();
+
+    private final Function<UUID, UUID> resolver = Function.identity();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < users; i++) {
+            String firstName = name(random, 2);
+            String lastName = name(random, 3);
+            index.put(UUID.randomUUID(), firstName, lastName, firstName + "." + lastName + "." + i);
+        }
+    }
+
+    @Benchmark
+    public List<UUID> prefix() {
+        return index.search("mar", 10, resolver);
+    }
+
+    @Benchmark
+    public List<UUID> typo() {
+        return index.search("jolnor", 10, resolver);
+    }
+
+    @Benchmark
+    public List<UUID> twoWords() {
+        return index.search("marel tordaan", 10, resolver);
+    }
+
+    private static String name(Random random, int syllables) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+}
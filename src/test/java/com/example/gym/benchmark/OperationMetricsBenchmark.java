@@ -0,0 +1,74 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.dao.TraineeDAO;
+import com.example.gym.metrics.OperationMetricsPostProcessor;
+import com.example.gym.models.Trainee;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the operation metrics proxy: the same TraineeDAO calls on the plain DAO, on a proxy with
+ * an interceptor that does nothing, and on the instrumented proxy, for a cheap read and for a full save.
+ * The difference between proxied and instrumented is the cost of the meters themselves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OperationMetricsBenchmark {
+
+    @Param({"plain", "proxied", "instrumented"})
+    public String dao;
+
+    private GymFixture fixture;
+
+    private TraineeDAO traineeDAO;
+
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new GymFixture();
+        ids = fixture.addTrainees(100_000);
+        if (dao.equals("plain")) {
+            traineeDAO = fixture.traineeDAO;
+        } else if (dao.equals("proxied")) {
+            ProxyFactory proxyFactory = new ProxyFactory(fixture.traineeDAO);
+            proxyFactory.addAdvice((MethodInterceptor) MethodInvocation::proceed);
+            traineeDAO = (TraineeDAO) proxyFactory.getProxy();
+        } else {
+            MeterRegistry meterRegistry = new SimpleMeterRegistry();
+            OperationMetricsPostProcessor postProcessor = new OperationMetricsPostProcessor(
+                    meterRegistryProvider(meterRegistry), true);
+            traineeDAO = (TraineeDAO) postProcessor.postProcessAfterInitialization(fixture.traineeDAO, "traineeDAOImpl");
+        }
+    }
+
+    @Benchmark
+    public Optional<Trainee> findById() {
+        return traineeDAO.findById(GymFixture.pick(ids));
+    }
+
+    @Benchmark
+    public Trainee save() {
+        return traineeDAO.save(GymFixture.traineeRequest());
+    }
+
+    private static ObjectProvider<MeterRegistry> meterRegistryProvider(MeterRegistry meterRegistry) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+        return beanFactory.getBeanProvider(MeterRegistry.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.GymApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A burst of concurrent REST requests against the running application, each on its own connection:
+ * half create trainees, which wait for a grouped journal fsync, half read a page of trainees.
+ * "VIRTUAL" serves every request on a virtual thread, "PLATFORM" on Tomcat's default pool of 200
+ * threads. The score is the time until every request of the burst has been answered; rejected and
+ * failed requests are printed at the end of the trial.
+ * <p>
+ * Client and server share the process, so 10000 connections need about 20000 file descriptors
+ * (ulimit -n). VIRTUAL needs Java 21; on older runtimes it falls back to the platform pool.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class RestLoadBenchmark {
+
+    @Param({"VIRTUAL", "PLATFORM"})
+    public String executor;
+
+    @Param({"10000"})
+    public int connections;
+
+    private ServletWebServerApplicationContext context;
+
+    private HttpClient client;
+
+    private URI trainees;
+
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    private final AtomicInteger failed = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path journal = Files.createTempDirectory("gym-journal");
+        context = (ServletWebServerApplicationContext) new SpringApplication(GymApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.max-connections=" + (connections + 1000),
+                "--web.executor=" + executor,
+                "--web.concurrency.limit=" + connections,
+                "--user.file.path=" + journal.resolve("no-users.json"),
+                "--storage.snapshot.enabled=true",
+                "--storage.snapshot.path=" + journal.resolve("gym.snapshot"),
+                "--storage.journal.enabled=true",
+                "--storage.journal.directory=" + journal,
+                "--storage.journal.fsync=GROUP",
+                "--logging.level.root=WARN");
+        trainees = URI.create("http://localhost:" + context.getWebServer().getPort() + "/api/trainees");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%s, %d connections: %d rejected, %d failed%n", executor, connections, rejected.get(), failed.get());
+        context.close();
+    }
+
+    @Benchmark
+    public int burst() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            HttpRequest request = i % 2 == 0
+                    ? HttpRequest.newBuilder(trainees)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"firstName\":\"John\",\"lastName\":\"Smith\"}"))
+                    .build()
+                    : HttpRequest.newBuilder(URI.create(trainees + "?limit=20")).GET().build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            try {
+                int status = response.join().statusCode();
+                if (status < 300) {
+                    ok++;
+                } else if (status == 503) {
+                    rejected.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+            }
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.models.Training;
+import com.example.gym.storage.TrainingSchedule;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking a new training of one busy trainer for double bookings: the trainer's interval tree
+ * versus comparing it against each of the trainer's trainings, which is what it took before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleConflictBenchmark {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+
+    @Param({"1000", "100000"})
+    public int trainings;
+
+    private final UUID trainerId = UUID.randomUUID();
+
+    private final TrainingSchedule schedule = new TrainingSchedule();
+
+    private final List<Training> trainerTrainings = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < trainings; i++) {
+            // four one-hour sessions a day, back to back
+            Training training = newTraining(FIRST_DAY.plusDays(i / 4), LocalTime.of(8 + i % 4, 0));
+            schedule.add(training);
+            trainerTrainings.add(training);
+        }
+    }
+
+    @Benchmark
+    public int intervalTree() {
+        return schedule.findConflicts(candidate()).size();
+    }
+
+    @Benchmark
+    public int scan() {
+        Training candidate = candidate();
+        var start = TrainingSchedule.startOf(candidate);
+        var end = TrainingSchedule.endOf(candidate);
+        int conflicts = 0;
+        for (Training training : trainerTrainings) {
+            if (TrainingSchedule.startOf(training).isBefore(end) && TrainingSchedule.endOf(training).isAfter(start)) {
+                conflicts++;
+            }
+        }
+        return conflicts;
+    }
+
+    private Training candidate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return newTraining(FIRST_DAY.plusDays(random.nextInt(trainings / 4 + 1)), LocalTime.of(7 + random.nextInt(6), 30));
+    }
+
+    private Training newTraining(LocalDate date, LocalTime startTime) {
+        return new Training(UUID.randomUUID(), UUID.randomUUID(), trainerId, null, "Session", date, 60, startTime);
+    }
+}
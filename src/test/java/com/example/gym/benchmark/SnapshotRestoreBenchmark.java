@@ -0,0 +1,91 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.models.Training;
+import com.example.gym.models.TrainingType;
+import com.example.gym.models.User;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.SnapshotStore;
+import com.example.gym.storage.UserSeedLoader;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restart cost: restoring a binary snapshot versus re-ingesting the users JSON seed file.
+ * The snapshot also carries one training per user, which the JSON path cannot restore at all.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class SnapshotRestoreBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int records;
+
+    private Path directory;
+
+    private Path seedFile;
+
+    private SnapshotStore snapshotStore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        seedFile = directory.resolve("users.json");
+        snapshotStore = new SnapshotStore(directory.resolve("gym.snapshot").toString(), true);
+        InMemoryStorage storage = newStorage();
+        TrainingType trainingType = new TrainingType(UUID.randomUUID(), "cardio");
+        storage.getTrainingTypeStorage().put(trainingType.getId(), trainingType);
+        try (BufferedWriter writer = Files.newBufferedWriter(seedFile)) {
+            writer.write("[");
+            for (int i = 0; i < records; i++) {
+                writer.write(i == 0 ? "\n" : ",\n");
+                writer.write("{\"firstName\":\"John\",\"lastName\":\"Smith" + i + "\",\"address\":\"Main St\",\"role\":\"trainee\"}");
+                User user = User.builder().id(UUID.randomUUID()).firstName("John").lastName("Smith" + i)
+                        .username("John.Smith" + i).password("password12").isActive(true).build();
+                storage.getUserStorage().put(user.getId(), user);
+                Training training = new Training(UUID.randomUUID(), user.getId(), user.getId(), trainingType.getId(),
+                        "Session " + i, LocalDate.of(2023, 1, 1).plusDays(i % 365), 60);
+                storage.getTrainingStorage().put(training.getId(), training);
+            }
+            writer.write("\n]");
+        }
+        snapshotStore.write(storage);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(seedFile);
+        Files.deleteIfExists(snapshotStore.getPath());
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public InMemoryStorage restoreSnapshot() throws IOException {
+        InMemoryStorage storage = newStorage();
+        snapshotStore.restore(storage);
+        return storage;
+    }
+
+    @Benchmark
+    public InMemoryStorage loadJson() throws IOException {
+        InMemoryStorage storage = newStorage();
+        new UserSeedLoader(storage.getUtilService(), 10_000).load(seedFile.toFile(), storage);
+        return storage;
+    }
+
+    private InMemoryStorage newStorage() {
+        return new InMemoryStorage(new UtilService(new UsernameIndex()));
+    }
+}
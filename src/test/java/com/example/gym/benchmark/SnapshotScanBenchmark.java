@@ -0,0 +1,74 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.dto.TraineeRequestDto;
+import com.example.gym.models.Trainee;
+import com.example.gym.models.User;
+import com.example.gym.storage.StorageSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full scans joining trainees to their users while other threads update trainees.
+ * "snapshot" scans a point-in-time snapshot, "latest" scans the live maps, which is what readers did
+ * before snapshots existed and may see a trainee and a user from different updates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class SnapshotScanBenchmark {
+
+    @Param({"snapshot", "latest"})
+    public String read;
+
+    @Param({"100000"})
+    public int size;
+
+    private GymFixture fixture;
+
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new GymFixture();
+        ids = fixture.addTrainees(size);
+    }
+
+    @Benchmark
+    @Group("scanWhileUpdating")
+    @GroupThreads(2)
+    public long scan() {
+        if (read.equals("latest")) {
+            return countActive(fixture.storage.getTraineeStorage(), fixture.storage.getUserStorage());
+        }
+        try (StorageSnapshot snapshot = fixture.storage.openSnapshot()) {
+            return countActive(snapshot.getTraineeStorage(), snapshot.getUserStorage());
+        }
+    }
+
+    @Benchmark
+    @Group("scanWhileUpdating")
+    @GroupThreads(6)
+    public Trainee update() {
+        TraineeRequestDto request = new TraineeRequestDto();
+        request.setAddress(GymFixture.traineeRequest().getAddress());
+        request.setLastName(GymFixture.traineeRequest().getLastName());
+        return fixture.traineeDAO.update(GymFixture.pick(ids), request);
+    }
+
+    private static long countActive(Map<UUID, Trainee> trainees, Map<UUID, User> users) {
+        long active = 0;
+        for (Trainee trainee : trainees.values()) {
+            User user = users.get(trainee.getUserId());
+            if (user != null && user.isActive()) {
+                active++;
+            }
+        }
+        return active;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.SnapshotStore;
+import com.example.gym.storage.StorageJournal;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * InMemoryStorage.initializeStorage from the users seed file, without snapshot or journal.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StorageInitializationBenchmark {
+
+    private static final String[] FIRST_NAMES = {"John", "Anna", "Peter", "Maria", "David", "Laura", "Mark", "Nina"};
+
+    @Param({"1000", "100000", "1000000"})
+    public int records;
+
+    private Path directory;
+
+    private Path seedFile;
+
+    @Setup(Level.Trial)
+    public void writeSeedFile() throws IOException {
+        directory = Files.createTempDirectory("storage-initialization");
+        seedFile = directory.resolve("users.json");
+        try (BufferedWriter writer = Files.newBufferedWriter(seedFile)) {
+            writer.write("[\n");
+            for (int i = 0; i < records; i++) {
+                String firstName = FIRST_NAMES[i % FIRST_NAMES.length];
+                String lastName = "Smith" + (i % 1000);
+                if (i % 2 == 0) {
+                    writer.write("{\"firstName\": \"" + firstName + "\", \"lastName\": \"" + lastName
+                            + "\", \"address\": \"" + i + " Maryland Avenue\", \"role\": \"trainee\"}");
+                } else {
+                    writer.write("{\"firstName\": \"" + firstName + "\", \"lastName\": \"" + lastName
+                            + "\", \"role\": \"trainer\", \"specialization\": \"cardio\"}");
+                }
+                writer.write(i + 1 < records ? ",\n" : "\n");
+            }
+            writer.write("]\n");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSeedFile() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public InMemoryStorage initializeStorage() {
+        InMemoryStorage storage = new InMemoryStorage(new UtilService(new UsernameIndex()));
+        SnapshotStore snapshotStore = new SnapshotStore(directory.resolve("gym.snapshot").toString(), false);
+        storage.setSnapshotStore(snapshotStore);
+        storage.setStorageJournal(new StorageJournal(directory.resolve("journal").toString(), false,
+                StorageJournal.FsyncPolicy.GROUP, 50, snapshotStore));
+        storage.setUserFilePath(seedFile.toString());
+        storage.setSeedBatchSize(10_000);
+        storage.initializeStorage();
+        return storage;
+    }
+}
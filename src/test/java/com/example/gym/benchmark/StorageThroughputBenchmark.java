@@ -0,0 +1,87 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.models.Trainee;
+import com.example.gym.models.User;
+import com.example.gym.storage.StorageLocks;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded read/write throughput of the storage maps.
+ * "synchronized" is the cheapest correct way to share the old HashMaps, "concurrent" is the current engine.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class StorageThroughputBenchmark {
+
+    @Param({"synchronized", "concurrent"})
+    public String storage;
+
+    @Param({"100000"})
+    public int size;
+
+    private Map<UUID, User> userStorage;
+
+    private Map<UUID, Trainee> traineeStorage;
+
+    private UUID[] keys;
+
+    private final StorageLocks storageLocks = new StorageLocks();
+
+    private final Object globalLock = new Object();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userStorage = newMap();
+        traineeStorage = newMap();
+        keys = new UUID[size];
+        for (int i = 0; i < size; i++) {
+            UUID userId = UUID.randomUUID();
+            keys[i] = UUID.randomUUID();
+            userStorage.put(userId, User.builder().id(userId).firstName("John").lastName("Smith").build());
+            traineeStorage.put(keys[i], Trainee.builder().id(keys[i]).userId(userId).build());
+        }
+    }
+
+    private <V> Map<UUID, V> newMap() {
+        return storage.equals("concurrent") ? new ConcurrentHashMap<>() : Collections.synchronizedMap(new HashMap<>());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public void read(Blackhole blackhole) {
+        UUID key = keys[ThreadLocalRandom.current().nextInt(size)];
+        Trainee trainee = traineeStorage.get(key);
+        blackhole.consume(userStorage.get(trainee.getUserId()));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void write() {
+        UUID key = keys[ThreadLocalRandom.current().nextInt(size)];
+        if (storage.equals("concurrent")) {
+            storageLocks.runLocked(() -> replace(key), key);
+        } else {
+            synchronized (globalLock) {
+                replace(key);
+            }
+        }
+    }
+
+    private void replace(UUID key) {
+        Trainee trainee = traineeStorage.get(key);
+        userStorage.put(trainee.getUserId(), userStorage.get(trainee.getUserId()));
+        traineeStorage.put(key, trainee);
+    }
+}
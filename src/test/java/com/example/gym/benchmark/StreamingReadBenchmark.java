@@ -0,0 +1,76 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.dao.impl.TrainingDAOImpl;
+import com.example.gym.models.Training;
+import com.example.gym.service.InMemoryStorage;
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full scans through the copying findAll against the streaming read API:
+ * a filtered count over every training, and a search that can stop at the first match.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingReadBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private TrainingDAOImpl trainingDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryStorage storage = new InMemoryStorage(new UtilService(new UsernameIndex()));
+        LocalDate start = LocalDate.of(2023, 1, 1);
+        for (int i = 0; i < size; i++) {
+            UUID id = UUID.randomUUID();
+            storage.getTrainingStorage().put(id, new Training(id, UUID.randomUUID(), UUID.randomUUID(), null,
+                    "Training " + i, start.plusDays(i % 365), 15 + i % 90));
+        }
+        trainingDAO = new TrainingDAOImpl();
+        trainingDAO.setTrainingStorage(storage);
+    }
+
+    @Benchmark
+    public long copyAndCount() {
+        return trainingDAO.findAll().stream().filter(training -> training.getDuration().intValue() > 60).count();
+    }
+
+    @Benchmark
+    public long streamCount() {
+        try (Stream<Training> trainings = trainingDAO.stream()) {
+            return trainings.filter(training -> training.getDuration().intValue() > 60).count();
+        }
+    }
+
+    @Benchmark
+    public long parallelStreamCount() {
+        try (Stream<Training> trainings = trainingDAO.stream()) {
+            return trainings.parallel().filter(training -> training.getDuration().intValue() > 60).count();
+        }
+    }
+
+    @Benchmark
+    public Optional<Training> copyAndFindAny() {
+        return trainingDAO.findAll().stream().filter(training -> training.getDuration().intValue() == 100).findAny();
+    }
+
+    @Benchmark
+    public Optional<Training> streamFindAny() {
+        try (Stream<Training> trainings = trainingDAO.stream()) {
+            return trainings.filter(training -> training.getDuration().intValue() == 100).findAny();
+        }
+    }
+}
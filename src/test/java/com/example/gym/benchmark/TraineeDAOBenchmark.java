@@ -0,0 +1,115 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.dto.TraineeRequestDto;
+import com.example.gym.models.Trainee;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TraineeDAO operations against a populated storage, single-threaded and with 8 threads.
+ * Trainees saved during an iteration are deleted after it, so the storage size stays at the parameter.
+ * delete works through trainees created before the iteration, and only saves its own once those run out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TraineeDAOBenchmark {
+
+    private static final int DELETABLE_PER_ITERATION = 200_000;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private GymFixture fixture;
+
+    private UUID[] ids;
+
+    private final ConcurrentLinkedQueue<UUID> saved = new ConcurrentLinkedQueue<>();
+
+    private final ConcurrentLinkedQueue<UUID> deletable = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new GymFixture();
+        ids = fixture.addTrainees(size);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareDeletes() {
+        deletable.addAll(List.of(fixture.addTrainees(DELETABLE_PER_ITERATION)));
+    }
+
+    @TearDown(Level.Iteration)
+    public void restoreSize() {
+        for (UUID id = saved.poll(); id != null; id = saved.poll()) {
+            fixture.traineeDAO.delete(id);
+        }
+        for (UUID id = deletable.poll(); id != null; id = deletable.poll()) {
+            fixture.traineeDAO.delete(id);
+        }
+    }
+
+    @Benchmark
+    public Trainee save() {
+        Trainee trainee = fixture.traineeDAO.save(GymFixture.traineeRequest());
+        saved.add(trainee.getId());
+        return trainee;
+    }
+
+    @Benchmark
+    public Optional<Trainee> findById() {
+        return fixture.traineeDAO.findById(GymFixture.pick(ids));
+    }
+
+    @Benchmark
+    public List<Trainee> findAll() {
+        return fixture.traineeDAO.findAll();
+    }
+
+    @Benchmark
+    public Trainee update() {
+        return fixture.traineeDAO.update(GymFixture.pick(ids), updateRequest());
+    }
+
+    @Benchmark
+    public void delete() {
+        UUID id = deletable.poll();
+        if (id == null) {
+            id = fixture.traineeDAO.save(GymFixture.traineeRequest()).getId();
+        }
+        fixture.traineeDAO.delete(id);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Trainee saveConcurrent() {
+        return save();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Optional<Trainee> findByIdConcurrent() {
+        return findById();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Trainee updateConcurrent() {
+        return update();
+    }
+
+    private static TraineeRequestDto updateRequest() {
+        TraineeRequestDto request = new TraineeRequestDto();
+        request.setAddress(GymFixture.traineeRequest().getAddress());
+        request.setPassword("password12");
+        return request;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.dto.TrainerRequestDto;
+import com.example.gym.models.Trainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TrainerDAO operations against a populated storage, single-threaded and with 8 threads.
+ * Trainers saved during an iteration are deleted after it, so the storage size stays at the parameter.
+ * delete works through trainers created before the iteration, and only saves its own once those run out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrainerDAOBenchmark {
+
+    private static final int DELETABLE_PER_ITERATION = 200_000;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private GymFixture fixture;
+
+    private UUID[] ids;
+
+    private final ConcurrentLinkedQueue<UUID> saved = new ConcurrentLinkedQueue<>();
+
+    private final ConcurrentLinkedQueue<UUID> deletable = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new GymFixture();
+        ids = fixture.addTrainers(size);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareDeletes() {
+        deletable.addAll(List.of(fixture.addTrainers(DELETABLE_PER_ITERATION)));
+    }
+
+    @TearDown(Level.Iteration)
+    public void restoreSize() {
+        for (UUID id = saved.poll(); id != null; id = saved.poll()) {
+            fixture.trainerDAO.delete(id);
+        }
+        for (UUID id = deletable.poll(); id != null; id = deletable.poll()) {
+            fixture.trainerDAO.delete(id);
+        }
+    }
+
+    @Benchmark
+    public Trainer save() {
+        Trainer trainer = fixture.trainerDAO.save(GymFixture.trainerRequest());
+        saved.add(trainer.getId());
+        return trainer;
+    }
+
+    @Benchmark
+    public Optional<Trainer> findById() {
+        return fixture.trainerDAO.findById(GymFixture.pick(ids));
+    }
+
+    @Benchmark
+    public List<Trainer> findAll() {
+        return fixture.trainerDAO.findAll();
+    }
+
+    @Benchmark
+    public Trainer update() {
+        return fixture.trainerDAO.update(GymFixture.pick(ids), updateRequest());
+    }
+
+    @Benchmark
+    public void delete() {
+        UUID id = deletable.poll();
+        if (id == null) {
+            id = fixture.trainerDAO.save(GymFixture.trainerRequest()).getId();
+        }
+        fixture.trainerDAO.delete(id);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Trainer saveConcurrent() {
+        return save();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Optional<Trainer> findByIdConcurrent() {
+        return findById();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Trainer updateConcurrent() {
+        return update();
+    }
+
+    private static TrainerRequestDto updateRequest() {
+        TrainerRequestDto request = new TrainerRequestDto();
+        request.setSpecialization(GymFixture.trainerRequest().getSpecialization());
+        request.setPassword("password12");
+        return request;
+    }
+}
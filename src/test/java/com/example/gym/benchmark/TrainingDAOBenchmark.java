@@ -0,0 +1,129 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.dto.TrainingRequestDto;
+import com.example.gym.models.Training;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TrainingDAO operations against a populated storage, single-threaded and with 8 threads.
+ * Deleting a training also deletes its trainee and trainer, so every deletable training
+ * gets a trainee and trainer of its own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrainingDAOBenchmark {
+
+    private static final int DELETABLE_PER_ITERATION = 100_000;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private GymFixture fixture;
+
+    private UUID[] ids;
+
+    private UUID[] traineeIds;
+
+    private UUID[] trainerIds;
+
+    private final ConcurrentLinkedQueue<UUID> saved = new ConcurrentLinkedQueue<>();
+
+    private final ConcurrentLinkedQueue<UUID> deletable = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new GymFixture();
+        traineeIds = fixture.addTrainees(Math.max(1, size / 10));
+        trainerIds = fixture.addTrainers(Math.max(1, size / 100));
+        ids = fixture.addTrainings(size, traineeIds, trainerIds);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareDeletes() {
+        UUID[] ownTrainees = fixture.addTrainees(DELETABLE_PER_ITERATION);
+        UUID[] ownTrainers = fixture.addTrainers(DELETABLE_PER_ITERATION);
+        for (int i = 0; i < DELETABLE_PER_ITERATION; i++) {
+            deletable.add(fixture.trainingDAO.save(GymFixture.trainingRequest(ownTrainees[i], ownTrainers[i])).getId());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void restoreSize() {
+        for (UUID id = deletable.poll(); id != null; id = deletable.poll()) {
+            fixture.trainingDAO.delete(id);
+        }
+        // delete would take the shared trainees and trainers along, so saved trainings are
+        // dropped from storage directly and the DAO indexes rebuilt
+        for (UUID id = saved.poll(); id != null; id = saved.poll()) {
+            fixture.storage.getTrainingStorage().remove(id);
+        }
+        fixture.trainingDAO.buildIndexes();
+    }
+
+    @Benchmark
+    public Training save() {
+        Training training = fixture.trainingDAO.save(GymFixture.trainingRequest(GymFixture.pick(traineeIds), GymFixture.pick(trainerIds)));
+        saved.add(training.getId());
+        return training;
+    }
+
+    @Benchmark
+    public Optional<Training> findById() {
+        return fixture.trainingDAO.findById(GymFixture.pick(ids));
+    }
+
+    @Benchmark
+    public List<Training> findAll() {
+        return fixture.trainingDAO.findAll();
+    }
+
+    @Benchmark
+    public Training update() {
+        return fixture.trainingDAO.update(GymFixture.pick(ids), updateRequest());
+    }
+
+    @Benchmark
+    public void delete() {
+        UUID id = deletable.poll();
+        if (id == null) {
+            UUID traineeId = fixture.addTrainees(1)[0];
+            UUID trainerId = fixture.addTrainers(1)[0];
+            id = fixture.trainingDAO.save(GymFixture.trainingRequest(traineeId, trainerId)).getId();
+        }
+        fixture.trainingDAO.delete(id);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Training saveConcurrent() {
+        return save();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Optional<Training> findByIdConcurrent() {
+        return findById();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Training updateConcurrent() {
+        return update();
+    }
+
+    private static TrainingRequestDto updateRequest() {
+        TrainingRequestDto request = GymFixture.trainingRequest(null, null);
+        request.setTrainingTypeName(null);
+        return request;
+    }
+}
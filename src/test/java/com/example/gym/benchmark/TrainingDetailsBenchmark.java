@@ -0,0 +1,90 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.dto.Page;
+import com.example.gym.dto.TrainingDetails;
+import com.example.gym.models.Training;
+import com.example.gym.service.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of trainings ordered by date with the trainee, trainer and type of each: looked up one
+ * call after another through the blocking services, versus fanned out on the async services' pool.
+ * The lookups are in-memory, so the fan-out pays off only with spare cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrainingDetailsBenchmark {
+
+    @Param({"50"})
+    public int pageSize;
+
+    @Param({"8"})
+    public int threads;
+
+    private TraineeService traineeService;
+
+    private TrainerService trainerService;
+
+    private TrainingService trainingService;
+
+    private TrainingAsyncService trainingAsyncService;
+
+    private ServiceExecutor serviceExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GymFixture fixture = new GymFixture();
+        fixture.addTrainings(10_000, fixture.addTrainees(1_000), fixture.addTrainers(100));
+        traineeService = new TraineeService();
+        ReflectionTestUtils.setField(traineeService, "traineeDAO", fixture.traineeDAO);
+        trainerService = new TrainerService();
+        ReflectionTestUtils.setField(trainerService, "trainerDAO", fixture.trainerDAO);
+        trainingService = new TrainingService();
+        ReflectionTestUtils.setField(trainingService, "trainingDAO", fixture.trainingDAO);
+
+        serviceExecutor = new ServiceExecutor(threads, 4096);
+        TraineeAsyncService traineeAsyncService = new TraineeAsyncService();
+        ReflectionTestUtils.setField(traineeAsyncService, "traineeService", traineeService);
+        ReflectionTestUtils.setField(traineeAsyncService, "serviceExecutor", serviceExecutor);
+        TrainerAsyncService trainerAsyncService = new TrainerAsyncService();
+        ReflectionTestUtils.setField(trainerAsyncService, "trainerService", trainerService);
+        ReflectionTestUtils.setField(trainerAsyncService, "serviceExecutor", serviceExecutor);
+        trainingAsyncService = new TrainingAsyncService();
+        ReflectionTestUtils.setField(trainingAsyncService, "trainingService", trainingService);
+        ReflectionTestUtils.setField(trainingAsyncService, "traineeAsyncService", traineeAsyncService);
+        ReflectionTestUtils.setField(trainingAsyncService, "trainerAsyncService", trainerAsyncService);
+        ReflectionTestUtils.setField(trainingAsyncService, "serviceExecutor", serviceExecutor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        serviceExecutor.stop();
+    }
+
+    @Benchmark
+    public Page<TrainingDetails> sequential() {
+        Page<Training> page = trainingService.findPageOrderedByDate(null, pageSize);
+        List<TrainingDetails> details = new ArrayList<>(page.getItems().size());
+        for (Training training : page.getItems()) {
+            details.add(new TrainingDetails(training,
+                    traineeService.findById(training.getTraineeId()).orElse(null),
+                    trainerService.findById(training.getTrainerId()).orElse(null),
+                    trainingService.findTrainingTypeById(training.getTrainingTypeId()).orElse(null)));
+        }
+        return new Page<>(details, page.getNextCursor());
+    }
+
+    @Benchmark
+    public Page<TrainingDetails> concurrent() {
+        return trainingAsyncService.findDetailsPage(null, pageSize).join();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.models.Training;
+import com.example.gym.storage.EntityKind;
+import com.example.gym.storage.OffHeapTrainingMap;
+import com.example.gym.storage.StorageMap;
+import com.example.gym.storage.StorageVersions;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap footprint and full GC pause with a populated training storage, on-heap objects versus off-heap columns.
+ * Each measurement is one System.gc(), so the score is the pause of a full collection over that live set.
+ * Heap and off-heap usage after the collection are printed at the end of the trial.
+ * <p>
+ * The 50M on-heap case needs a heap of about 24 GB.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms24g", "-Xmx24g", "-XX:MaxDirectMemorySize=16g"})
+@State(Scope.Benchmark)
+public class TrainingFootprintBenchmark {
+
+    private static final String[] NAMES = {"Morning run", "Evening run", "Leg day", "Upper body", "Stretching"};
+
+    @Param({"heap", "off-heap"})
+    public String layout;
+
+    @Param({"10000000", "50000000"})
+    public int size;
+
+    private Map<UUID, Training> trainings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StorageVersions versions = new StorageVersions();
+        trainings = layout.equals("off-heap")
+                ? new OffHeapTrainingMap(versions)
+                : new StorageMap<>(EntityKind.TRAINING, versions);
+        Random random = new Random(42);
+        UUID[] people = new UUID[100_000];
+        for (int i = 0; i < people.length; i++) {
+            people[i] = UUID.randomUUID();
+        }
+        UUID[] types = {UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < size; i++) {
+            UUID id = UUID.randomUUID();
+            trainings.put(id, new Training(id, people[random.nextInt(people.length)], people[random.nextInt(people.length)],
+                    types[random.nextInt(types.length)], NAMES[random.nextInt(NAMES.length)],
+                    start.plusDays(random.nextInt(1500)), 15 + random.nextInt(90)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.gc();
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long offHeap = trainings instanceof OffHeapTrainingMap columns ? columns.getOffHeapBytes() : 0;
+        System.out.printf("%n%s, %d trainings: heap used %d MB, off-heap %d MB%n",
+                layout, trainings.size(), heap >> 20, offHeap >> 20);
+    }
+
+    @Benchmark
+    public void fullGc() {
+        System.gc();
+    }
+}
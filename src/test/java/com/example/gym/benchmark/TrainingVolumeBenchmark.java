@@ -0,0 +1,59 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.dto.TrainingVolume;
+import com.example.gym.dto.VolumePeriod;
+import com.example.gym.models.Training;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minutes trained by one trainee in one month: the maintained aggregate versus summing a scan of
+ * all trainings, which is how such reports were computed before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrainingVolumeBenchmark {
+
+    private static final LocalDate MONTH = LocalDate.of(2023, 6, 1);
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private GymFixture fixture;
+
+    private UUID[] traineeIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new GymFixture();
+        traineeIds = fixture.addTrainees(Math.max(1, size / 10));
+        fixture.addTrainings(size, traineeIds, fixture.addTrainers(Math.max(1, size / 100)));
+    }
+
+    @Benchmark
+    public double aggregate() {
+        TrainingVolume volume = fixture.trainingDAO.findTraineeVolume(GymFixture.pick(traineeIds), VolumePeriod.MONTH, MONTH);
+        return volume.getTotalDuration();
+    }
+
+    @Benchmark
+    public double scan() {
+        UUID traineeId = GymFixture.pick(traineeIds);
+        LocalDate end = MONTH.plusMonths(1);
+        double total = 0;
+        for (Training training : fixture.trainingDAO.findAll()) {
+            if (traineeId.equals(training.getTraineeId())
+                    && !training.getDate().isBefore(MONTH) && training.getDate().isBefore(end)) {
+                total += training.getDuration().doubleValue();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.storage.UsernameIndex;
+import com.example.gym.util.UtilService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UtilService.generateUsername under name collisions. With one distinct name every call collides
+ * with all earlier ones, which used to mean a scan over every taken serial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsernameGenerationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int distinctNames;
+
+    private UtilService utilService;
+
+    private String[] lastNames;
+
+    private final AtomicLong userIds = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUpNames() {
+        lastNames = new String[distinctNames];
+        for (int i = 0; i < distinctNames; i++) {
+            lastNames[i] = "Smith" + i;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        utilService = new UtilService(new UsernameIndex());
+    }
+
+    @Benchmark
+    public String generateUsername() {
+        String lastName = lastNames[ThreadLocalRandom.current().nextInt(distinctNames)];
+        return utilService.generateUsername("John", lastName, new UUID(0, userIds.incrementAndGet()));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String generateUsernameConcurrent() {
+        return generateUsername();
+    }
+}